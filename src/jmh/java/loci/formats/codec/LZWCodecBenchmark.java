@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package loci.formats.codec;
+
+import loci.common.RandomAccessInputStream;
+import loci.formats.tiff.IFD;
+import loci.formats.tiff.TiffCompression;
+import loci.formats.tiff.TiffParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the streaming {@link LZWCodec} decoder with the table-driven
+ * decoder that writes into a caller supplied buffer.
+ * <p>
+ * By default, strips are built by compressing image like data.
+ * Strips from a real LZW TIFF can be used instead by setting the
+ * {@value #FILE_PROPERTY} system property:
+ * <pre>
+ *   gradle jmh -PjmhArgs="LZWCodecBenchmark -jvmArgs -Dtmog.benchmark.lzw.file=/tmp/a.tif"
+ * </pre>
+ *
+ * @author agent
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LZWCodecBenchmark {
+
+    /** System property for an LZW compressed TIFF file. */
+    public static final String FILE_PROPERTY = "tmog.benchmark.lzw.file";
+
+    /** Number of decoded bytes in each generated strip. */
+    @Param({"8192", "65536", "524288"})
+    public int stripSize;
+
+    private LZWCodec codec;
+    private byte[][] strips;
+    private int decodedSize;
+    private byte[] output;
+    private CodecOptions options;
+
+    @Setup
+    public void setUp() throws Exception {
+        codec = new LZWCodec();
+
+        final String fileName = System.getProperty(FILE_PROPERTY);
+        if (fileName == null) {
+            decodedSize = stripSize;
+            strips = buildStrips(codec, stripSize, 8);
+        } else {
+            loadStrips(fileName);
+        }
+
+        output = new byte[decodedSize];
+        options = CodecOptions.getDefaultOptions();
+        options.maxBytes = decodedSize;
+    }
+
+    @Benchmark
+    public int streamingDecode() throws Exception {
+        int total = 0;
+        for (byte[] strip : strips) {
+            final RandomAccessInputStream in =
+                    new RandomAccessInputStream(strip);
+            total += codec.decompress(in, options).length;
+            in.close();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int tableDecode() throws Exception {
+        int total = 0;
+        for (byte[] strip : strips) {
+            total += codec.decompress(strip, 0, strip.length,
+                                      output, 0, output.length);
+        }
+        return total;
+    }
+
+    private void loadStrips(String fileName) throws Exception {
+        final RandomAccessInputStream in =
+                new RandomAccessInputStream(fileName);
+        try {
+            final TiffParser parser = new TiffParser(in);
+            final IFD ifd = parser.getFirstIFD();
+            if (ifd.getCompression() != TiffCompression.LZW) {
+                throw new IllegalArgumentException(
+                        fileName + " is not LZW compressed");
+            }
+
+            decodedSize = (int) (ifd.getImageWidth() *
+                                 ifd.getRowsPerStrip()[0] *
+                                 ifd.getSamplesPerPixel() *
+                                 ifd.getBytesPerSample()[0]);
+
+            final long[] offsets = ifd.getStripOffsets();
+            final long[] byteCounts = ifd.getStripByteCounts();
+            final List<byte[]> list = new ArrayList<byte[]>();
+            for (int i = 0; i < offsets.length; i++) {
+                final byte[] strip = new byte[(int) byteCounts[i]];
+                in.seek(offsets[i]);
+                in.readFully(strip);
+                list.add(strip);
+            }
+            strips = list.toArray(new byte[list.size()][]);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * @return compressed strips of smooth (image like) data with
+     *         a little noise.
+     */
+    private static byte[][] buildStrips(LZWCodec codec,
+                                        int stripSize,
+                                        int count)
+            throws Exception {
+        final Random random = new Random(stripSize);
+        final byte[][] strips = new byte[count][];
+        final byte[] data = new byte[stripSize];
+        for (int s = 0; s < count; s++) {
+            for (int i = 0; i < stripSize; i++) {
+                data[i] = (byte) ((((s * stripSize) + i) % 1024) / 8 +
+                                  random.nextInt(3));
+            }
+            strips[s] = codec.compress(data, null);
+        }
+        return strips;
+    }
+}
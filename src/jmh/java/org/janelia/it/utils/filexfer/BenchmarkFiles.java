@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package org.janelia.it.utils.filexfer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Utilities for generating and cleaning up files used by the file transfer
+ * benchmarks.  Files are created in the directory identified by the
+ * {@value #DIRECTORY_PROPERTY} system property (defaults to java.io.tmpdir),
+ * so benchmarks can be pointed at network storage with something like:
+ * <pre>
+ *   gradle jmh -PjmhArgs="-jvmArgs -Dtmog.benchmark.dir=/nrs/scratch"
+ * </pre>
+ *
+ * @author agent
+ */
+public class BenchmarkFiles {
+
+    /** System property for the benchmark file directory. */
+    public static final String DIRECTORY_PROPERTY = "tmog.benchmark.dir";
+
+    /**
+     * @return the directory for benchmark files.
+     */
+    public static File getDirectory() {
+        final String path = System.getProperty(DIRECTORY_PROPERTY,
+                                               System.getProperty("java.io.tmpdir"));
+        return new File(path);
+    }
+
+    /**
+     * Creates a temporary file filled with (repeatable) random data.
+     *
+     * @param  size  size of the file in bytes.
+     *
+     * @return the created file (marked for deletion on exit).
+     *
+     * @throws IOException
+     *   if the file cannot be created.
+     */
+    public static File createSourceFile(long size)
+            throws IOException {
+
+        final File file = File.createTempFile("tmog-benchmark-" + size + "-",
+                                              ".src",
+                                              getDirectory());
+        file.deleteOnExit();
+
+        final byte[] block = new byte[1024 * 1024];
+        new Random(size).nextBytes(block);
+
+        FileOutputStream out = null;
+        try {
+            out = new FileOutputStream(file);
+            long remaining = size;
+            int length;
+            while (remaining > 0) {
+                length = (int) Math.min(block.length, remaining);
+                out.write(block, 0, length);
+                remaining -= length;
+            }
+        } finally {
+            if (out != null) {
+                out.close();
+            }
+        }
+
+        return file;
+    }
+
+    /**
+     * @param  sourceFile  benchmark source file.
+     *
+     * @return a (non-existent) target file in the benchmark directory.
+     */
+    public static File getTargetFile(File sourceFile) {
+        return new File(getDirectory(), sourceFile.getName() + ".copy");
+    }
+
+    /**
+     * Deletes the specified file if it exists.
+     *
+     * @param  file  file to delete.
+     *
+     * @throws IOException
+     *   if the file exists and cannot be deleted.
+     */
+    public static void delete(File file)
+            throws IOException {
+        if ((file != null) && file.exists() && (! file.delete())) {
+            throw new IOException("failed to delete " + file.getAbsolutePath());
+        }
+    }
+}
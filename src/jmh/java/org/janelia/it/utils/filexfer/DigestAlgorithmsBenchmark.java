@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package org.janelia.it.utils.filexfer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.MessageDigest;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures raw (in memory) throughput for each
+ * {@link DigestAlgorithms#getValidNames() supported digest algorithm},
+ * independent of any file I/O.
+ *
+ * @author agent
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DigestAlgorithmsBenchmark {
+
+    @Param({"adler32", "crc32", "crc32c", "md5", "md5-tree", "sha1"})
+    public String digestAlgorithm;
+
+    @Param({"1024", "65536", "1048576", "16777216", "67108864"})
+    public int bufferSize;
+
+    private MessageDigest digest;
+    private byte[] data;
+
+    @Setup
+    public void setUp() throws Exception {
+        digest = DigestAlgorithms.getMessageDigest(digestAlgorithm);
+        data = new byte[bufferSize];
+        new Random(bufferSize).nextBytes(data);
+    }
+
+    @Benchmark
+    public byte[] digest() {
+        digest.update(data);
+        return digest.digest();
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package org.janelia.it.utils.filexfer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link FileTransferUtil} copy and digest calculation performance
+ * for a range of buffer sizes, file sizes, copy modes, and digest algorithms.
+ * <p>
+ * The default parameters span {@link FileTransferUtil#MIN_BUFFER_SIZE} to
+ * 64Mb buffers and 4Kb to 4Gb files, so a complete run takes a long time.
+ * Use JMH -p options to focus on specific combinations.
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FileTransferUtilBenchmark {
+
+    @Param({"1024", "65536", "1048576", "16777216", "67108864"})
+    public int bufferSize;
+
+    @Param({"4096", "16777216", "1073741824", "4294967296"})
+    public long fileSize;
+
+    @Param({"buffered", "pipelined", "mapped"})
+    public String copyMode;
+
+    @Param({"md5", "none"})
+    public String digestAlgorithm;
+
+    private FileTransferUtil util;
+    private File sourceFile;
+    private File targetFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        util = new FileTransferUtil(bufferSize, digestAlgorithm);
+        util.setCopyMode(FileTransferUtil.CopyMode.valueOf(copyMode));
+        sourceFile = BenchmarkFiles.createSourceFile(fileSize);
+        targetFile = BenchmarkFiles.getTargetFile(sourceFile);
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteTarget() throws IOException {
+        BenchmarkFiles.delete(targetFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFiles.delete(targetFile);
+        BenchmarkFiles.delete(sourceFile);
+    }
+
+    @Benchmark
+    public DigestBytes copy() throws IOException {
+        return util.copy(sourceFile, targetFile);
+    }
+
+    @Benchmark
+    public DigestBytes calculateDigest() throws IOException {
+        return util.calculateDigest(sourceFile);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package org.janelia.it.utils.filexfer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link SafeFileTransfer#copy} (stream copy plus full md5
+ * validation) performance for a range of file sizes.  The stream
+ * transfer always uses a {@link SafeFileTransfer#BUFFER_SIZE} buffer.
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SafeFileTransferBenchmark {
+
+    @Param({"4096", "16777216", "1073741824", "4294967296"})
+    public long fileSize;
+
+    private File sourceFile;
+    private File targetFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        sourceFile = BenchmarkFiles.createSourceFile(fileSize);
+        targetFile = BenchmarkFiles.getTargetFile(sourceFile);
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteTarget() throws IOException {
+        BenchmarkFiles.delete(targetFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFiles.delete(targetFile);
+        BenchmarkFiles.delete(sourceFile);
+    }
+
+    @Benchmark
+    public void copy() throws FileCopyFailedException {
+        SafeFileTransfer.copy(sourceFile, targetFile, false);
+    }
+}
@@ -0,0 +1,424 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+//
+// MappedFileHandle.java
+//
+
+package loci.common;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A read-only IRandomAccess implementation that memory maps the file.
+ *
+ * The file is mapped in fixed size windows (created on first use) so that
+ * files larger than 2 GB can be read.  Adjacent windows overlap by
+ * {@link #WINDOW_OVERLAP} bytes, so every primitive read is a single
+ * absolute buffer get - scattered seeks and small reads (e.g. TIFF IFD
+ * and LSM sub-block parsing) do not need any system calls once the
+ * containing window has been mapped.
+ *
+ * NOTE: mapped windows are only released when they are garbage collected,
+ * so on some platforms (e.g. Windows) the file may not be deleted or
+ * renamed for a while after this handle is closed.
+ *
+ * @see IRandomAccess
+ * @see NIOFileHandle
+ */
+public class MappedFileHandle extends AbstractNIOHandle {
+
+  // -- Constants --
+
+  /** Default size of each mapped window. */
+  public static final int DEFAULT_WINDOW_SIZE = 256 * 1024 * 1024; // 256 MB
+
+  /** Number of bytes each window extends into the following window. */
+  protected static final int WINDOW_OVERLAP = 8;
+
+  /** Error message to be used when attempting to write. */
+  protected static final String READ_ONLY_ERROR_MSG =
+    "Mapped file handles are read-only.";
+
+  // -- Fields --
+
+  /** The random access file object backing this handle. */
+  protected RandomAccessFile raf;
+
+  /** The file channel used to map windows. */
+  protected FileChannel channel;
+
+  /** Length of the file (fixed when the handle is opened). */
+  protected long length;
+
+  /** Size of each mapped window. */
+  protected int windowSize;
+
+  /** Mapped windows (null until first used). */
+  protected MappedByteBuffer[] windows;
+
+  /** The absolute position within the file. */
+  protected long position;
+
+  /** The byte ordering for all windows. */
+  protected ByteOrder order;
+
+  // -- Constructors --
+
+  /**
+   * Creates a read-only mapped handle for the specified file.
+   *
+   * @param file file to map.
+   * @param windowSize size of each mapped window.
+   */
+  public MappedFileHandle(File file, int windowSize) throws IOException {
+    if (windowSize < 1 || windowSize > Integer.MAX_VALUE - WINDOW_OVERLAP) {
+      throw new IllegalArgumentException("invalid window size " + windowSize);
+    }
+    this.windowSize = windowSize;
+    raf = new RandomAccessFile(file, "r");
+    channel = raf.getChannel();
+    length = raf.length();
+    int windowCount = (int) ((length + windowSize - 1) / windowSize);
+    windows = new MappedByteBuffer[windowCount];
+    position = 0;
+    order = ByteOrder.BIG_ENDIAN;
+  }
+
+  /** Creates a read-only mapped handle for the specified file. */
+  public MappedFileHandle(File file) throws IOException {
+    this(file, DEFAULT_WINDOW_SIZE);
+  }
+
+  /** Creates a read-only mapped handle for the file with the specified name. */
+  public MappedFileHandle(String name) throws IOException {
+    this(new File(name));
+  }
+
+  // -- MappedFileHandle API methods --
+
+  /** Gets the size of each mapped window. */
+  public int getWindowSize() { return windowSize; }
+
+  // -- AbstractNIOHandle API methods --
+
+  /* @see AbstractNIOHandle.setLength(long) */
+  public void setLength(long length) throws IOException {
+    throw new IOException(READ_ONLY_ERROR_MSG);
+  }
+
+  // -- IRandomAccess API methods --
+
+  /* @see IRandomAccess.close() */
+  public void close() throws IOException {
+    windows = null;
+    raf.close();
+  }
+
+  /* @see IRandomAccess.getFilePointer() */
+  public long getFilePointer() {
+    return position;
+  }
+
+  /* @see IRandomAccess.length() */
+  public long length() {
+    return length;
+  }
+
+  /* @see IRandomAccess.getOrder() */
+  public ByteOrder getOrder() {
+    return order;
+  }
+
+  /* @see IRandomAccess.setOrder(ByteOrder) */
+  public void setOrder(ByteOrder order) {
+    this.order = order;
+  }
+
+  /* @see IRandomAccess.read(byte[]) */
+  public int read(byte[] b) throws IOException {
+    return read(b, 0, b.length);
+  }
+
+  /* @see IRandomAccess.read(byte[], int, int) */
+  public int read(byte[] b, int off, int len) throws IOException {
+    len = (int) Math.max(0, Math.min(len, length - position));
+    int remaining = len;
+    while (remaining > 0) {
+      ByteBuffer window = window(1).duplicate();
+      int windowOffset = windowOffset();
+      int n = Math.min(remaining, windowSize - windowOffset);
+      window.position(windowOffset);
+      window.get(b, off, n);
+      off += n;
+      remaining -= n;
+      position += n;
+    }
+    return len;
+  }
+
+  /* @see IRandomAccess.read(ByteBuffer) */
+  public int read(ByteBuffer buf) throws IOException {
+    return read(buf, 0, buf.capacity());
+  }
+
+  /* @see IRandomAccess.read(ByteBuffer, int, int) */
+  public int read(ByteBuffer buf, int off, int len) throws IOException {
+    len = (int) Math.max(0, Math.min(len, length - position));
+    buf.position(off);
+    buf.limit(off + len);
+    int remaining = len;
+    while (remaining > 0) {
+      ByteBuffer window = window(1).duplicate();
+      int windowOffset = windowOffset();
+      int n = Math.min(remaining, windowSize - windowOffset);
+      window.limit(windowOffset + n);
+      window.position(windowOffset);
+      buf.put(window);
+      remaining -= n;
+      position += n;
+    }
+    return len;
+  }
+
+  /* @see IRandomAccess.seek(long) */
+  public void seek(long pos) throws IOException {
+    position = pos;
+  }
+
+  // -- DataInput API methods --
+
+  /* @see java.io.DataInput.readBoolean() */
+  public boolean readBoolean() throws IOException {
+    return readByte() != 0;
+  }
+
+  /* @see java.io.DataInput.readByte() */
+  public byte readByte() throws IOException {
+    byte value = window(1).get(windowOffset());
+    position += 1;
+    return value;
+  }
+
+  /* @see java.io.DataInput.readChar() */
+  public char readChar() throws IOException {
+    char value = window(2).getChar(windowOffset());
+    position += 2;
+    return value;
+  }
+
+  /* @see java.io.DataInput.readDouble() */
+  public double readDouble() throws IOException {
+    double value = window(8).getDouble(windowOffset());
+    position += 8;
+    return value;
+  }
+
+  /* @see java.io.DataInput.readFloat() */
+  public float readFloat() throws IOException {
+    float value = window(4).getFloat(windowOffset());
+    position += 4;
+    return value;
+  }
+
+  /* @see java.io.DataInput.readFully(byte[]) */
+  public void readFully(byte[] b) throws IOException {
+    readFully(b, 0, b.length);
+  }
+
+  /* @see java.io.DataInput.readFully(byte[], int, int) */
+  public void readFully(byte[] b, int off, int len) throws IOException {
+    // like NIOFileHandle, read as much as possible at the end of the file
+    read(b, off, len);
+  }
+
+  /* @see java.io.DataInput.readInt() */
+  public int readInt() throws IOException {
+    int value = window(4).getInt(windowOffset());
+    position += 4;
+    return value;
+  }
+
+  /* @see java.io.DataInput.readLine() */
+  public String readLine() throws IOException {
+    if (position >= length) return null;
+    StringBuilder line = new StringBuilder();
+    while (position < length) {
+      int c = readUnsignedByte();
+      if (c == '\n') break;
+      if (c == '\r') {
+        if (position < length && window(1).get(windowOffset()) == '\n') {
+          position += 1;
+        }
+        break;
+      }
+      line.append((char) c);
+    }
+    return line.toString();
+  }
+
+  /* @see java.io.DataInput.readLong() */
+  public long readLong() throws IOException {
+    long value = window(8).getLong(windowOffset());
+    position += 8;
+    return value;
+  }
+
+  /* @see java.io.DataInput.readShort() */
+  public short readShort() throws IOException {
+    short value = window(2).getShort(windowOffset());
+    position += 2;
+    return value;
+  }
+
+  /* @see java.io.DataInput.readUnsignedByte() */
+  public int readUnsignedByte() throws IOException {
+    return readByte() & 0xFF;
+  }
+
+  /* @see java.io.DataInput.readUnsignedShort() */
+  public int readUnsignedShort() throws IOException {
+    return readShort() & 0xFFFF;
+  }
+
+  /* @see java.io.DataInput.readUTF() */
+  public String readUTF() throws IOException {
+    return DataInputStream.readUTF(this);
+  }
+
+  /* @see java.io.DataInput.skipBytes(int) */
+  public int skipBytes(int n) throws IOException {
+    if (n < 1 || position >= length) {
+      return 0;
+    }
+    long oldPosition = position;
+    position = Math.min(position + n, length);
+    return (int) (position - oldPosition);
+  }
+
+  // -- DataOutput API methods --
+
+  /* @see java.io.DataOutput.write(byte[]) */
+  public void write(byte[] b) throws IOException {
+    throw new IOException(READ_ONLY_ERROR_MSG);
+  }
+
+  /* @see java.io.DataOutput.write(byte[], int, int) */
+  public void write(byte[] b, int off, int len) throws IOException {
+    throw new IOException(READ_ONLY_ERROR_MSG);
+  }
+
+  /* @see IRandomAccess.write(ByteBuffer) */
+  public void write(ByteBuffer buf) throws IOException {
+    throw new IOException(READ_ONLY_ERROR_MSG);
+  }
+
+  /* @see IRandomAccess.write(ByteBuffer, int, int) */
+  public void write(ByteBuffer buf, int off, int len) throws IOException {
+    throw new IOException(READ_ONLY_ERROR_MSG);
+  }
+
+  /* @see java.io.DataOutput.write(int b) */
+  public void write(int b) throws IOException {
+    throw new IOException(READ_ONLY_ERROR_MSG);
+  }
+
+  /* @see java.io.DataOutput.writeBoolean(boolean) */
+  public void writeBoolean(boolean v) throws IOException {
+    throw new IOException(READ_ONLY_ERROR_MSG);
+  }
+
+  /* @see java.io.DataOutput.writeByte(int) */
+  public void writeByte(int v) throws IOException {
+    throw new IOException(READ_ONLY_ERROR_MSG);
+  }
+
+  /* @see java.io.DataOutput.writeBytes(String) */
+  public void writeBytes(String s) throws IOException {
+    throw new IOException(READ_ONLY_ERROR_MSG);
+  }
+
+  /* @see java.io.DataOutput.writeChar(int) */
+  public void writeChar(int v) throws IOException {
+    throw new IOException(READ_ONLY_ERROR_MSG);
+  }
+
+  /* @see java.io.DataOutput.writeChars(String) */
+  public void writeChars(String s) throws IOException {
+    throw new IOException(READ_ONLY_ERROR_MSG);
+  }
+
+  /* @see java.io.DataOutput.writeDouble(double) */
+  public void writeDouble(double v) throws IOException {
+    throw new IOException(READ_ONLY_ERROR_MSG);
+  }
+
+  /* @see java.io.DataOutput.writeFloat(float) */
+  public void writeFloat(float v) throws IOException {
+    throw new IOException(READ_ONLY_ERROR_MSG);
+  }
+
+  /* @see java.io.DataOutput.writeInt(int) */
+  public void writeInt(int v) throws IOException {
+    throw new IOException(READ_ONLY_ERROR_MSG);
+  }
+
+  /* @see java.io.DataOutput.writeLong(long) */
+  public void writeLong(long v) throws IOException {
+    throw new IOException(READ_ONLY_ERROR_MSG);
+  }
+
+  /* @see java.io.DataOutput.writeShort(int) */
+  public void writeShort(int v) throws IOException {
+    throw new IOException(READ_ONLY_ERROR_MSG);
+  }
+
+  /* @see java.io.DataOutput.writeUTF(String) */
+  public void writeUTF(String str) throws IOException {
+    throw new IOException(READ_ONLY_ERROR_MSG);
+  }
+
+  // -- Helper methods --
+
+  /**
+   * Returns the window containing the current position, mapping it
+   * if necessary.
+   * @param size The requested read length.
+   * @throws EOFException If the read would extend past the end of the file.
+   * @throws IOException If there is an issue mapping the window.
+   */
+  private ByteBuffer window(int size) throws IOException {
+    if (position < 0 || position + size > length) {
+      throw new EOFException(EOF_ERROR_MSG);
+    }
+    int index = (int) (position / windowSize);
+    MappedByteBuffer window = windows[index];
+    if (window == null) {
+      long start = (long) index * windowSize;
+      long windowLength = Math.min((long) windowSize + WINDOW_OVERLAP,
+                                   length - start);
+      window = channel.map(FileChannel.MapMode.READ_ONLY, start, windowLength);
+      windows[index] = window;
+    }
+    window.order(order);
+    return window;
+  }
+
+  /** Returns the offset of the current position within its window. */
+  private int windowOffset() {
+    return (int) (position % windowSize);
+  }
+
+}
@@ -60,6 +60,20 @@ public class RandomAccessInputStream extends InputStream implements DataInput {
     this.file = file;
   }
 
+  /**
+   * Constructs a hybrid RandomAccessFile/DataInputStream
+   * around the given file.
+   *
+   * @param mapped if true, the file is read through a (read-only)
+   *   {@link MappedFileHandle}; otherwise the default handle is used.
+   */
+  public RandomAccessInputStream(String file, boolean mapped)
+    throws IOException
+  {
+    this(mapped ? getMappedHandle(file) : Location.getHandle(file));
+    this.file = file;
+  }
+
   /** Constructs a random access stream around the given handle. */
   public RandomAccessInputStream(IRandomAccess handle) throws IOException {
     raf = handle;
@@ -74,6 +88,17 @@ public class RandomAccessInputStream extends InputStream implements DataInput {
 
   // -- RandomAccessInputStream API methods --
 
+  /** Returns a read-only memory mapped handle for the given file. */
+  protected static IRandomAccess getMappedHandle(String file)
+    throws IOException
+  {
+    IRandomAccess handle = Location.getMappedFile(file);
+    if (handle == null) {
+      handle = new MappedFileHandle(Location.getMappedId(file));
+    }
+    return handle;
+  }
+
   /** Seeks to the given offset within the stream. */
   public void seek(long pos) throws IOException {
     raf.seek(pos);
@@ -229,6 +229,139 @@ public class LZWCodec extends BaseCodec {
     return result;
   }
 
+  /**
+   * Decodes the block with the table-driven decoder
+   * (see {@link #decompress(byte[], int, int, byte[], int, int)}),
+   * avoiding the per byte stream reads of the streaming decoder.
+   * The CodecOptions parameter should have the following fields set:
+   *  {@link CodecOptions#maxBytes maxBytes}
+   *
+   * @see Codec#decompress(byte[], CodecOptions)
+   */
+  public byte[] decompress(byte[] data, CodecOptions options)
+    throws FormatException
+  {
+    if (data == null || data.length == 0) return null;
+    if (options == null) options = CodecOptions.getDefaultOptions();
+
+    byte[] output = new byte[options.maxBytes];
+    decompress(data, 0, data.length, output, 0, output.length);
+    return output;
+  }
+
+  /**
+   * Decodes a block of TIFF LZW data into a caller supplied buffer.
+   * <p>
+   * Since the whole block is decoded into one buffer, the string for every
+   * table entry has already been written to the output once
+   * (string[old_code] immediately followed by the first byte of the next
+   * string).  The table therefore only keeps the output offset and length
+   * of each string in two flat arrays, and strings are copied from their
+   * earlier occurrence instead of being rebuilt from prefix chains.
+   * Codes are taken from a 64 bit reservoir that is refilled with up to
+   * seven input bytes at a time.
+   * <p>
+   * Decoding stops at the END_OF_INFORMATION code, at the end of the input,
+   * or when the output buffer is full (any remaining part of a string
+   * that does not fit is dropped).
+   *
+   * @param input the compressed data.
+   * @param inOffset offset of the first compressed byte in input.
+   * @param inLength number of compressed bytes.
+   * @param output buffer for the decompressed data.
+   * @param outOffset offset in output for the first decompressed byte.
+   * @param outLength maximum number of bytes to write to output.
+   * @return the number of bytes written to output.
+   * @throws FormatException If the input contains an invalid code.
+   */
+  public int decompress(byte[] input, int inOffset, int inLength,
+    byte[] output, int outOffset, int outLength) throws FormatException
+  {
+    // output offset and length of the string for each code above EOI_CODE
+    int[] offsets = new int[4096];
+    int[] lengths = new int[4096];
+
+    int inPos = inOffset;
+    int inEnd = inOffset + inLength;
+    int outPos = outOffset;
+    int outEnd = outOffset + outLength;
+
+    long bits = 0;
+    int bitCount = 0;
+    int codeLength = 9;
+    int nextCode = FIRST_CODE;
+    int oldCode = -1;
+    int oldOffset = 0;
+    int oldLength = 0;
+    int code;
+
+    while (outPos < outEnd) {
+      // read next code
+      if (bitCount < codeLength) {
+        while (bitCount <= 56 && inPos < inEnd) {
+          bits = (bits << 8) | (input[inPos++] & 0xff);
+          bitCount += 8;
+        }
+        if (bitCount < codeLength) break;
+      }
+      bitCount -= codeLength;
+      code = (int) (bits >>> bitCount) & ((1 << codeLength) - 1);
+
+      if (code == EOI_CODE) break;
+
+      if (code == CLEAR_CODE) {
+        nextCode = FIRST_CODE;
+        codeLength = 9;
+        oldCode = -1;
+        continue;
+      }
+
+      int length;
+      if (code < 256) {
+        output[outPos] = (byte) code;
+        length = 1;
+      }
+      else {
+        int src;
+        if (code < nextCode) {
+          src = offsets[code];
+          length = lengths[code];
+        }
+        else if (code == nextCode && oldCode != -1) {
+          // string[old_code] + firstByte(string[old_code])
+          src = oldOffset;
+          length = oldLength + 1;
+        }
+        else throw new FormatException("Invalid LZW data");
+
+        int n = Math.min(length, outEnd - outPos);
+        if (n > 16 && src + n <= outPos) {
+          System.arraycopy(output, src, output, outPos, n);
+        }
+        else {
+          // byte by byte, so an overlapping string repeats its first byte
+          for (int i=0; i<n; i++) output[outPos + i] = output[src + i];
+        }
+      }
+
+      // add string[old_code] + firstByte(string[code]) to the table
+      if (oldCode != -1 && nextCode < 4096) {
+        offsets[nextCode] = oldOffset;
+        lengths[nextCode] = oldLength + 1;
+        nextCode++;
+        // increase length of code if needed (TIFF switches one code early)
+        if (nextCode == (1 << codeLength) - 1 && codeLength < 12) {
+          codeLength++;
+        }
+      }
+      oldCode = code;
+      oldOffset = outPos;
+      oldLength = length;
+      outPos += length;
+    }
+    return Math.min(outPos, outEnd) - outOffset;
+  }
+
   /**
    * The CodecOptions parameter should have the following fields set:
    *  {@link CodecOptions#maxBytes maxBytes}
@@ -18,6 +18,7 @@ import loci.formats.tiff.IFD;
 import loci.formats.tiff.IFDList;
 import loci.formats.tiff.PhotoInterp;
 import loci.formats.tiff.TiffConstants;
+import loci.formats.tiff.TiffIFDEntry;
 import loci.formats.tiff.TiffParser;
 import org.apache.log4j.Logger;
 
@@ -141,6 +142,10 @@ public class ZeissLSMReader {
 //  private String binning;
   private Vector<Double> xCoordinates, yCoordinates, zCoordinates;
   private int dimensionM, dimensionP;
+  private int seriesIFDCount;
+
+  /** Raw TIF_CZ_LSMINFO bytes for the current file (read once per init). */
+  private byte[] czTag;
 //  private Hashtable<String, Integer> seriesCounts;
 
     // TODO: populate these
@@ -173,14 +178,27 @@ public class ZeissLSMReader {
     private RandomAccessInputStream getCZTag(IFD ifd)
             throws FormatException, IOException {
         // get TIF_CZ_LSMINFO structure
-        short[] s = ifd.getIFDShortArray(ZEISS_ID);
-        RandomAccessInputStream ras = null;
-        if (s != null) {
-            byte[] cz = new byte[s.length];
-            for (int i=0; i<s.length; i++) {
-                cz[i] = (byte) s[i];
+        if (czTag == null) {
+            // the parser leaves the tag undecoded (see getExtraSeries),
+            // so the raw bytes can be read without boxing each value
+            Object value = ifd.get(ZEISS_ID);
+            if (value instanceof TiffIFDEntry) {
+                czTag = tiffParser.getIFDValueBuffer(
+                        (TiffIFDEntry) value).array();
+            } else {
+                short[] s = ifd.getIFDShortArray(ZEISS_ID);
+                if (s != null) {
+                    czTag = new byte[s.length];
+                    for (int i=0; i<s.length; i++) {
+                        czTag[i] = (byte) s[i];
+                    }
+                }
             }
-            ras = new RandomAccessInputStream(cz);
+        }
+
+        RandomAccessInputStream ras = null;
+        if (czTag != null) {
+            ras = new RandomAccessInputStream(czTag);
             ras.order(littleEndian);
         }
 
@@ -212,13 +230,12 @@ public class ZeissLSMReader {
         return core.imageCount / sizeZT;
     }
 
-    private int getExtraSeries(String file) throws FormatException, IOException {
-        if (in != null) in.close();
-        in = new RandomAccessInputStream(file);
+    private int getExtraSeries() throws FormatException, IOException {
         littleEndian = in.read() == TiffConstants.LITTLE;
         in.order(littleEndian);
 
         tiffParser = new TiffParser(in);
+        tiffParser.setRawValueTags(ZEISS_ID);
         IFD ifd = tiffParser.getFirstIFD();
         RandomAccessInputStream ras = getCZTag(ifd);
         if (ras == null) return 1;
@@ -233,24 +250,146 @@ public class ZeissLSMReader {
         return nSeries <= 0 ? 1 : nSeries;
     }
 
+    /**
+     * Reads all metadata for the specified file.
+     * The offsets of every IFD in the file are walked to determine
+     * the actual number of planes in the first series.
+     */
     public void initFile(String lsmFileName) throws FormatException, IOException {
+        initFile(lsmFileName, false);
+    }
+
+    /**
+     * Reads all metadata for the specified file.
+     *
+     * @param  mapped  if true, read the file through a (read-only)
+     *                 memory mapped handle.
+     */
+    public void initFile(String lsmFileName,
+                         boolean mapped)
+            throws FormatException, IOException {
+        init(lsmFileName, false, mapped);
+    }
+
+    /**
+     * Reads all metadata for the specified file without parsing every IFD.
+     * Only the first IFD (and its CZ_LSMINFO block) is parsed and the
+     * number of planes is derived from the CZ_LSMINFO dimensions.
+     * The IFD chain is followed (reading only the next IFD offsets)
+     * just far enough to confirm that the last expected plane is present.
+     * Files without a CZ_LSMINFO block and truncated stacks are read in full.
+     */
+    public void initFileHeader(String lsmFileName)
+            throws FormatException, IOException {
+        initFileHeader(lsmFileName, false);
+    }
+
+    /**
+     * Reads all metadata for the specified file without parsing every IFD
+     * (see {@link #initFileHeader(String)}).
+     *
+     * @param  mapped  if true, read the file through a (read-only)
+     *                 memory mapped handle.
+     */
+    public void initFileHeader(String lsmFileName,
+                               boolean mapped)
+            throws FormatException, IOException {
+        init(lsmFileName, true, mapped);
+    }
+
+    private void init(String lsmFileName,
+                      boolean headerOnly,
+                      boolean mapped)
+            throws FormatException, IOException {
         //initFile
         ifdsList = new Vector<IFDList>();
         ifdsList.setSize(1);
+        czTag = null;
+
+        // open the file once and share the stream for all parsing
+        if (in != null) in.close();
+        in = new RandomAccessInputStream(lsmFileName, mapped);
+        try {
+            int count = getExtraSeries();
+
+            TiffParser tp = tiffParser;
+            littleEndian = tp.checkHeader();
 
-        int count = getExtraSeries(lsmFileName);
+            core = new CoreMetadata();
+            core.littleEndian = littleEndian;
 
-        RandomAccessInputStream stream =
-                new RandomAccessInputStream(lsmFileName);
-        TiffParser tp = new TiffParser(stream);
-        littleEndian = tp.checkHeader();
+            IFDList ifds = null;
+            if (headerOnly) {
+                ifds = getHeaderIFDs(tp, count);
+            }
+            if (ifds == null) {
+                ifds = getSeriesIFDs(tp, count);
+                seriesIFDCount = ifds.size();
+            }
+
+            ifdsList.set(0, ifds);
+
+            xCoordinates = new Vector<Double>();
+            yCoordinates = new Vector<Double>();
+            zCoordinates = new Vector<Double>();
+
+            lut = new byte[ifdsList.size()][][];
+
+            initMetadata();
+        } finally {
+            // TMOG bug fix:
+            // force close so that file can be removed by other processes on Windows 7
+            in.close();
+        }
+    }
+
+    /**
+     * @return list containing only the first IFD of the file
+     *         (with {@link #seriesIFDCount} set from the CZ_LSMINFO
+     *         dimensions) or null if the dimensions are not available
+     *         or the file does not contain all of the expected planes.
+     */
+    private IFDList getHeaderIFDs(TiffParser tp,
+                                  int count)
+            throws FormatException, IOException {
+        IFDList ifds = null;
+        IFD ifd = tp.getFirstIFD();
+        RandomAccessInputStream ras = getCZTag(ifd);
+        if (ras != null) {
+            ras.seek(16);
+            int sizeZ = ras.readInt();
+            ras.skipBytes(4);
+            int sizeT = ras.readInt();
+            ras.close();
+
+            // each image IFD holds all channels for one z/t plane
+            if ((sizeZ > 0) && (sizeT > 0)) {
+                // CZ_LSMINFO holds the planned dimensions, so make sure
+                // the last expected IFD exists in case the stack was
+                // truncated (truncated stacks are left for a full read)
+                final int planeCount = sizeZ * sizeT;
+                if (tp.getIFDOffset((planeCount * 2 * count) - 1) > -1) {
+                    tp.fillInIFD(ifd);
+                    ifds = new IFDList();
+                    ifds.add(ifd);
+                    seriesIFDCount = planeCount;
+                }
+            }
+        }
+        return ifds;
+    }
+
+    /**
+     * @return all image IFDs for the first series.
+     */
+    private IFDList getSeriesIFDs(TiffParser tp,
+                                  int count)
+            throws IOException {
         long[] ifdOffsets = tp.getIFDOffsets();
         int ifdsPerSeries = (ifdOffsets.length / 2) / count;
 
         int offset = 0;
         Object zeissTag = null;
-        core = new CoreMetadata();
-        core.littleEndian = littleEndian;
 
         IFDList ifds = new IFDList();
         while (ifds.size() < ifdsPerSeries) {
@@ -269,31 +408,17 @@ public class ZeissLSMReader {
             tp.fillInIFD(ifd);
         }
 
-        ifdsList.set(0, ifds);
-        
-        stream.close();
-
-        xCoordinates = new Vector<Double>();
-        yCoordinates = new Vector<Double>();
-        zCoordinates = new Vector<Double>();
-
-        lut = new byte[ifdsList.size()][][];
-
-        initMetadata(lsmFileName);
+        return ifds;
     }
 
-    private void initMetadata(String lsmFileName) throws FormatException, IOException {
+    private void initMetadata() throws FormatException, IOException {
 
         //setSeries(series);
         IFDList ifds = ifdsList.get(0);
         IFD ifd = ifds.get(0);
 
-        in.close();
-        in = new RandomAccessInputStream(lsmFileName);
         in.order(core.littleEndian);
 
-        tiffParser = new TiffParser(in);
-
         PhotoInterp photo = ifd.getPhotometricInterpretation();
         int samples = ifd.getSamplesPerPixel();
 
@@ -303,7 +428,7 @@ public class ZeissLSMReader {
         core.interleaved = false;
         core.sizeC = core.rgb ? samples : 1;
         core.pixelType = ifd.getPixelType();
-        core.imageCount = ifds.size();
+        core.imageCount = seriesIFDCount;
         core.sizeZ = core.imageCount;
         core.sizeT = 1;
 
@@ -431,9 +556,9 @@ public class ZeissLSMReader {
             core.imageCount = core.sizeZ * core.sizeT * getEffectiveSizeC();
         }
 
-        if (core.imageCount != ifds.size()) {
-            int diff = core.imageCount - ifds.size();
-            core.imageCount = ifds.size();
+        if (core.imageCount != seriesIFDCount) {
+            int diff = core.imageCount - seriesIFDCount;
+            core.imageCount = seriesIFDCount;
             if (diff % core.sizeZ == 0) {
                 core.sizeT -= (diff / core.sizeZ);
             }
@@ -441,11 +566,11 @@ public class ZeissLSMReader {
                 core.sizeZ -= (diff / core.sizeT);
             }
             else if (core.sizeZ > 1) {
-                core.sizeZ = ifds.size();
+                core.sizeZ = seriesIFDCount;
                 core.sizeT = 1;
             }
             else if (core.sizeT > 1) {
-                core.sizeT = ifds.size();
+                core.sizeT = seriesIFDCount;
                 core.sizeZ = 1;
             }
         }
@@ -831,10 +956,6 @@ public class ZeissLSMReader {
 //        }
 
         ras.close();
-
-        // TMOG bug fix:
-        // force close so that file can be removed by other processes on Windows 7 
-        in.close();
     }
 
     private static Hashtable<Integer, String> createKeys() {
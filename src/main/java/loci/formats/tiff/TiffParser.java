@@ -22,8 +22,15 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.TreeSet;
-import java.util.Vector;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Parses TIFF data from an input source.
@@ -63,6 +70,21 @@ public class TiffParser {
   /** Cached first IFD in the current file. */
   private IFD firstIFD;
 
+  /**
+   * Offsets of the IFDs in the main chain that have been located so far
+   * (only the first {@link #ifdOffsetCount} elements are valid).
+   */
+  private long[] ifdOffsets = new long[16];
+
+  /** Number of IFD offsets located so far. */
+  private int ifdOffsetCount;
+
+  /** Whether or not the end of the IFD chain has been reached. */
+  private boolean ifdChainComplete;
+
+  /** Tags whose values are not decoded when IFDs are parsed. */
+  private int[] rawValueTags = new int[0];
+
   // -- Constructors --
 
   /** Constructs a new TIFF parser from the given file name. */
@@ -70,6 +92,16 @@ public class TiffParser {
     this(new RandomAccessInputStream(filename));
   }
 
+  /**
+   * Constructs a new TIFF parser from the given file name.
+   *
+   * @param mapped if true, the file is read through a (read-only)
+   *   memory mapped handle, which makes scattered IFD reads much cheaper.
+   */
+  public TiffParser(String filename, boolean mapped) throws IOException {
+    this(new RandomAccessInputStream(filename, mapped));
+  }
+
   /** Constructs a new TIFF parser from the given input source. */
   public TiffParser(RandomAccessInputStream in) {
     this.in = in;
@@ -89,6 +121,17 @@ public class TiffParser {
     this.doCaching = doCaching;
   }
 
+  /**
+   * Sets tags whose values should not be decoded by {@link #getIFD(long)}
+   * or {@link #fillInIFD(IFD)}.  Parsed IFDs keep a {@link TiffIFDEntry}
+   * for each of these tags instead, so that large values can be read
+   * later (if at all) with the typed value methods
+   * (e.g. {@link #getIFDValueBuffer(TiffIFDEntry)}).
+   */
+  public void setRawValueTags(int... tags) {
+    rawValueTags = tags == null ? new int[0] : tags.clone();
+  }
+
   /** Gets the stream from which TIFF data is being parsed. */
   public RandomAccessInputStream getStream() {
     return in;
@@ -218,28 +261,80 @@ public class TiffParser {
     return exif;
   }
 
-  /** Gets the offsets to every IFD in the file. */
+  /**
+   * Gets the offsets to every IFD in the file.
+   * The IFD chain is only walked once per parser; use
+   * {@link #getIFDOffset(int)} or {@link #getIFDIterator()} when
+   * only the leading IFDs are needed.
+   */
   public long[] getIFDOffsets() throws IOException {
-    // check TIFF header
-    int bytesPerEntry = bigTiff ? TiffConstants.BIG_TIFF_BYTES_PER_ENTRY :
-      TiffConstants.BYTES_PER_ENTRY;
+    int count = getIFDCount();
+    long[] f = new long[count];
+    System.arraycopy(ifdOffsets, 0, f, 0, count);
+    return f;
+  }
 
-    Vector<Long> offsets = new Vector<Long>();
-    long offset = getFirstOffset();
-    while (offset > 0 && offset < in.length()) {
-      in.seek(offset);
-      offsets.add(offset);
-      int nEntries = bigTiff ? (int) in.readLong() : in.readUnsignedShort();
-      in.skipBytes(nEntries * bytesPerEntry);
-      offset = getNextOffset(offset);
+  /**
+   * Gets the offset to the IFD with the given index in the main chain,
+   * walking the chain only as far as needed to locate it.
+   *
+   * @return the offset or -1 if the file contains fewer IFDs.
+   */
+  public long getIFDOffset(int index) throws IOException {
+    if (index < 0) return -1;
+    while (index >= ifdOffsetCount && !ifdChainComplete) {
+      indexNextIFDOffset();
     }
+    return index < ifdOffsetCount ? ifdOffsets[index] : -1;
+  }
 
-    long[] f = new long[offsets.size()];
-    for (int i=0; i<f.length; i++) {
-      f[i] = offsets.get(i).longValue();
+  /** Gets the number of IFDs in the main chain. */
+  public int getIFDCount() throws IOException {
+    while (!ifdChainComplete) {
+      indexNextIFDOffset();
     }
+    return ifdOffsetCount;
+  }
 
-    return f;
+  /**
+   * Returns an iterator over the IFDs in the main chain (sub-IFDs are not
+   * included).  Each IFD is parsed when it is reached and the chain is
+   * only walked as far as the iteration proceeds.
+   * Since the iterator can not throw checked exceptions, read failures
+   * are wrapped in an {@link IllegalStateException}.
+   */
+  public Iterator<IFD> getIFDIterator() {
+    return new Iterator<IFD>() {
+      private int index = 0;
+
+      public boolean hasNext() {
+        try {
+          return getIFDOffset(index) >= 0;
+        }
+        catch (IOException e) {
+          throw new IllegalStateException(
+            "failed to locate IFD " + index, e);
+        }
+      }
+
+      public IFD next() {
+        try {
+          long offset = getIFDOffset(index);
+          if (offset < 0) {
+            throw new NoSuchElementException("no IFD " + index);
+          }
+          index++;
+          return getIFD(offset);
+        }
+        catch (IOException e) {
+          throw new IllegalStateException("failed to read IFD " + index, e);
+        }
+      }
+
+      public void remove() {
+        throw new UnsupportedOperationException("IFDs can not be removed");
+      }
+    };
   }
 
   /**
@@ -345,7 +440,9 @@ public class TiffParser {
       }
       if (count < 0 || count > in.length()) break;
 
-      if (pointer != in.getFilePointer() && !doCaching) {
+      if (isRawValueTag(tag) ||
+        (pointer != in.getFilePointer() && !doCaching))
+      {
         value = entry;
       }
       else value = getIFDValue(entry);
@@ -370,7 +467,9 @@ public class TiffParser {
     }
 
     for (TiffIFDEntry entry : entries) {
-      ifd.put(new Integer(entry.getTag()), getIFDValue(entry));
+      if (!isRawValueTag(entry.getTag())) {
+        ifd.put(new Integer(entry.getTag()), getIFDValue(entry));
+      }
     }
   }
 
@@ -504,6 +603,158 @@ public class TiffParser {
     return null;
   }
 
+  // -- TiffParser methods - typed IFD value reading --
+
+  /**
+   * Finds the directory entry for a tag without decoding any IFD values.
+   *
+   * @return the entry or null if the IFD at the given offset
+   *         does not contain the tag.
+   */
+  public TiffIFDEntry getIFDEntry(long offset, int tag) throws IOException {
+    if (offset < 0 || offset >= in.length()) return null;
+
+    in.seek(offset);
+    long numEntries = bigTiff ? in.readLong() : in.readUnsignedShort();
+    int bytesPerEntry = bigTiff ?
+      TiffConstants.BIG_TIFF_BYTES_PER_ENTRY : TiffConstants.BYTES_PER_ENTRY;
+    int baseOffset = bigTiff ? 8 : 2;
+
+    for (int i=0; i<numEntries; i++) {
+      long entryOffset = offset + baseOffset + bytesPerEntry * i;
+      in.seek(entryOffset);
+      // the tag is the first field of each entry,
+      // so only parse the rest of the entry when it matches
+      if (in.readUnsignedShort() == tag) {
+        in.seek(entryOffset);
+        try {
+          return readTiffIFDEntry();
+        }
+        catch (EnumException e) {
+          LOGGER.debug("", e);
+          return null;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Reads the raw bytes of an IFD value into a buffer whose byte order
+   * matches the file.  Unlike {@link #getIFDValue(TiffIFDEntry)}, no
+   * intermediate arrays or boxed values are created.
+   */
+  public ByteBuffer getIFDValueBuffer(TiffIFDEntry entry) throws IOException {
+    long length = (long) entry.getValueCount() *
+      entry.getType().getBytesPerElement();
+    long available = in.length() - entry.getValueOffset();
+    if (length > available) length = Math.max(0, available);
+
+    ByteBuffer buffer = ByteBuffer.allocate((int) length);
+    buffer.order(in.isLittleEndian() ?
+      ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+    in.seek(entry.getValueOffset());
+    in.readFully(buffer.array());
+    return buffer;
+  }
+
+  /**
+   * Reads a range of integer IFD values (BYTE, SBYTE, UNDEFINED, SHORT,
+   * SSHORT, LONG, SLONG, IFD, LONG8, SLONG8 or IFD8) directly into the
+   * specified array.  Unsigned types are widened without sign extension.
+   *
+   * @param entry the entry to read.
+   * @param first index of the first value to read.
+   * @param dest array to populate.
+   * @param destOffset index of the first array element to populate.
+   * @param count number of values to read.
+   *
+   * @throws IllegalArgumentException if the entry does not have
+   *   an integer type or the range is out of bounds.
+   */
+  public void readIFDValues(TiffIFDEntry entry, int first, long[] dest,
+    int destOffset, int count) throws IOException
+  {
+    IFDType type = entry.getType();
+    seekToIFDValues(entry, first, count);
+    int end = destOffset + count;
+    if (type == IFDType.BYTE) {
+      for (int i=destOffset; i<end; i++) dest[i] = in.readUnsignedByte();
+    }
+    else if (type == IFDType.SBYTE || type == IFDType.UNDEFINED) {
+      for (int i=destOffset; i<end; i++) dest[i] = in.readByte();
+    }
+    else if (type == IFDType.SHORT) {
+      for (int i=destOffset; i<end; i++) dest[i] = in.readUnsignedShort();
+    }
+    else if (type == IFDType.SSHORT) {
+      for (int i=destOffset; i<end; i++) dest[i] = in.readShort();
+    }
+    else if (type == IFDType.LONG || type == IFDType.IFD) {
+      for (int i=destOffset; i<end; i++) {
+        dest[i] = in.readInt() & 0xffffffffL;
+      }
+    }
+    else if (type == IFDType.SLONG) {
+      for (int i=destOffset; i<end; i++) dest[i] = in.readInt();
+    }
+    else if (type == IFDType.LONG8 || type == IFDType.SLONG8 ||
+      type == IFDType.IFD8)
+    {
+      for (int i=destOffset; i<end; i++) dest[i] = in.readLong();
+    }
+    else {
+      throw new IllegalArgumentException(
+        "tag " + entry.getTag() + " has non-integer type " + type);
+    }
+  }
+
+  /**
+   * Reads a range of floating point IFD values (FLOAT, DOUBLE, RATIONAL or
+   * SRATIONAL) directly into the specified array.
+   * Rational values are stored as the quotient of their two parts.
+   *
+   * @param entry the entry to read.
+   * @param first index of the first value to read.
+   * @param dest array to populate.
+   * @param destOffset index of the first array element to populate.
+   * @param count number of values to read.
+   *
+   * @throws IllegalArgumentException if the entry does not have
+   *   a floating point type or the range is out of bounds.
+   */
+  public void readIFDValues(TiffIFDEntry entry, int first, double[] dest,
+    int destOffset, int count) throws IOException
+  {
+    IFDType type = entry.getType();
+    seekToIFDValues(entry, first, count);
+    int end = destOffset + count;
+    if (type == IFDType.FLOAT) {
+      for (int i=destOffset; i<end; i++) dest[i] = in.readFloat();
+    }
+    else if (type == IFDType.DOUBLE) {
+      for (int i=destOffset; i<end; i++) dest[i] = in.readDouble();
+    }
+    else if (type == IFDType.RATIONAL) {
+      for (int i=destOffset; i<end; i++) {
+        long numerator = in.readInt() & 0xffffffffL;
+        long denominator = in.readInt() & 0xffffffffL;
+        dest[i] = (double) numerator / denominator;
+      }
+    }
+    else if (type == IFDType.SRATIONAL) {
+      for (int i=destOffset; i<end; i++) {
+        int numerator = in.readInt();
+        int denominator = in.readInt();
+        dest[i] = (double) numerator / denominator;
+      }
+    }
+    else {
+      throw new IllegalArgumentException(
+        "tag " + entry.getTag() + " has non-floating point type " + type);
+    }
+  }
+
   /** Convenience method for obtaining a stream's first ImageDescription. */
   public String getComment() throws IOException {
     IFD firstIFD = getFirstIFD();
@@ -544,14 +795,18 @@ public class TiffParser {
     }
     int size = (int) (tileWidth * tileLength * pixel * effectiveChannels);
     if (buf == null) buf = new byte[size];
-    if (stripByteCounts[tileNumber] == 0 ||
-      stripOffsets[tileNumber] >= in.length())
-    {
-      return buf;
+    byte[] tile;
+    // the stream is shared by parallel plane reads, only decoding is parallel
+    synchronized (in) {
+      if (stripByteCounts[tileNumber] == 0 ||
+        stripOffsets[tileNumber] >= in.length())
+      {
+        return buf;
+      }
+      tile = new byte[(int) stripByteCounts[tileNumber]];
+      in.seek(stripOffsets[tileNumber]);
+      in.read(tile);
     }
-    byte[] tile = new byte[(int) stripByteCounts[tileNumber]];
-    in.seek(stripOffsets[tileNumber]);
-    in.read(tile);
 
     options.maxBytes = (int) Math.max(size, tile.length);
 
@@ -579,6 +834,39 @@ public class TiffParser {
 
   public byte[] getSamples(IFD ifd, byte[] buf, int x, int y,
     long width, long height) throws FormatException, IOException
+  {
+    return getSamples(ifd, buf, x, y, width, height, null);
+  }
+
+  /**
+   * Reads the whole plane for the given IFD, decoding its strips or tiles
+   * in parallel.
+   *
+   * @see #getSamples(IFD, byte[], int, int, long, long, ForkJoinPool)
+   */
+  public byte[] getSamples(IFD ifd, byte[] buf, ForkJoinPool pool)
+    throws FormatException, IOException
+  {
+    long width = ifd.getImageWidth();
+    long length = ifd.getImageLength();
+    return getSamples(ifd, buf, 0, 0, width, length, pool);
+  }
+
+  /**
+   * Reads the specified region of the plane for the given IFD.
+   * <p>
+   * When a pool is given and the region spans more than one strip or tile,
+   * strips (or tiles) are decoded in parallel by pool workers.  Each worker
+   * decodes into its own buffer and copies the result into its (disjoint)
+   * part of buf.  Reads from the underlying stream are serialized,
+   * so this mainly helps for compressed images.
+   *
+   * @param pool pool for decoding strips or tiles in parallel
+   *   (or null to decode them sequentially).
+   */
+  public byte[] getSamples(IFD ifd, byte[] buf, int x, int y,
+    long width, long height, ForkJoinPool pool)
+    throws FormatException, IOException
   {
     LOGGER.trace("parsing IFD entries");
 
@@ -650,73 +938,189 @@ public class TiffParser {
     long nrows = numTileRows;
     if (planarConfig == 2) numTileRows *= samplesPerPixel;
 
-    Region imageBounds = new Region(x, y, (int) width,
-      (int) (height * (samplesPerPixel / effectiveChannels)));
+    TileLayout layout = new TileLayout(ifd, x, y, width, height, nrows);
+
+    List<int[]> tiles = new ArrayList<int[]>();
+    for (int row=0; row<numTileRows; row++) {
+      for (int col=0; col<numTileCols; col++) {
+        if (layout.intersects(row, col)) tiles.add(new int[] {row, col});
+      }
+    }
+
+    if (pool == null || tiles.size() < 2) {
+      int bufferSize = layout.getTileBufferSize();
+      if (cachedTileBuffer == null || cachedTileBuffer.length != bufferSize) {
+        cachedTileBuffer = new byte[bufferSize];
+      }
+      for (int[] tile : tiles) {
+        getTile(ifd, cachedTileBuffer, tile[0], tile[1]);
+        layout.copyTile(cachedTileBuffer, tile[0], tile[1], buf);
+      }
+    }
+    else {
+      int chunkSize =
+        Math.max(1, tiles.size() / (pool.getParallelism() * 4));
+      try {
+        pool.invoke(new TileReadAction(ifd, layout, tiles, 0, tiles.size(),
+          chunkSize, buf));
+      }
+      catch (TileReadException e) {
+        if (e.getCause() instanceof FormatException) {
+          throw (FormatException) e.getCause();
+        }
+        throw (IOException) e.getCause();
+      }
+    }
 
-    int endX = (int) width + x;
-    int endY = (int) height + y;
+    return buf;
+  }
 
-    int rowLen = pixel * (int) tileWidth;
-    int tileSize = (int) (rowLen * tileLength);
-    int planeSize = (int) (width * height * pixel);
-    int outputRowLen = (int) (pixel * width);
+  // -- Helper classes - parallel plane reading --
 
-    int bufferSizeSamplesPerPixel = samplesPerPixel;
-    if (ifd.getPlanarConfiguration() == 2) bufferSizeSamplesPerPixel = 1;
-    int bpp = ifd.getBytesPerSample()[0];
-    int bufferSize = (int) tileWidth * (int) tileLength *
-      bufferSizeSamplesPerPixel * bpp;
-    if (cachedTileBuffer == null || cachedTileBuffer.length != bufferSize) {
-      cachedTileBuffer = new byte[bufferSize];
+  /**
+   * Strip or tile geometry for one getSamples region
+   * (computed once and then shared by all tile reads).
+   */
+  private static class TileLayout {
+    private int x, y, endX, endY;
+    private int tileWidth, tileLength;
+    private int pixel, rowLen, tileSize, planeSize, outputRowLen;
+    private int effectiveChannels, planarConfig;
+    private long nrows;
+    private int tileBufferSize;
+    private Region imageBounds;
+
+    TileLayout(IFD ifd, int x, int y, long width, long height, long nrows)
+      throws FormatException
+    {
+      int samplesPerPixel = ifd.getSamplesPerPixel();
+      this.planarConfig = ifd.getPlanarConfiguration();
+      this.effectiveChannels = planarConfig == 2 ? 1 : samplesPerPixel;
+      this.pixel = ifd.getBytesPerSample()[0];
+      this.tileWidth = (int) ifd.getTileWidth();
+      long length = ifd.getTileLength();
+      this.tileLength = (int) (length <= 0 ? height : length);
+      this.nrows = nrows;
+
+      this.x = x;
+      this.y = y;
+      this.endX = (int) width + x;
+      this.endY = (int) height + y;
+      this.imageBounds = new Region(x, y, (int) width,
+        (int) (height * (samplesPerPixel / effectiveChannels)));
+
+      this.rowLen = pixel * tileWidth;
+      this.tileSize = rowLen * tileLength;
+      this.planeSize = (int) (width * height * pixel);
+      this.outputRowLen = (int) (pixel * width);
+      this.tileBufferSize = tileWidth * tileLength * effectiveChannels * pixel;
     }
 
-    Region tileBounds = new Region(0, 0, (int) tileWidth, (int) tileLength);
+    int getTileBufferSize() {
+      return tileBufferSize;
+    }
 
-    for (int row=0; row<numTileRows; row++) {
-      for (int col=0; col<numTileCols; col++) {
-        tileBounds.x = col * (int) tileWidth;
-        tileBounds.y = row * (int) tileLength;
+    boolean intersects(int row, int col) {
+      Region tileBounds = new Region(col * tileWidth, row * tileLength,
+        tileWidth, tileLength);
+      return imageBounds.intersects(tileBounds);
+    }
 
-        if (!imageBounds.intersects(tileBounds)) continue;
+    /** Copies the appropriate portion of a decoded tile to buf. */
+    void copyTile(byte[] tile, int row, int col, byte[] buf) {
+      int boundsX = col * tileWidth;
+      int boundsY = row * tileLength;
+      if (planarConfig == 2) {
+        boundsY = (int) ((row % nrows) * tileLength);
+      }
 
-        if (planarConfig == 2) {
-          tileBounds.y = (int) ((row % nrows) * tileLength);
-        }
+      // adjust tile bounds, if necessary
 
-        getTile(ifd, cachedTileBuffer, row, col);
+      int tileX = Math.max(boundsX, x);
+      int tileY = Math.max(boundsY, y);
+      int realX = tileX % tileWidth;
+      int realY = tileY % tileLength;
 
-        // adjust tile bounds, if necessary
+      int twidth = Math.min(endX - tileX, tileWidth - realX);
+      int theight = Math.min(endY - tileY, tileLength - realY);
 
-        int tileX = (int) Math.max(tileBounds.x, x);
-        int tileY = (int) Math.max(tileBounds.y, y);
-        int realX = tileX % (int) tileWidth;
-        int realY = tileY % (int) tileLength;
+      int copy = pixel * twidth;
+
+      realX *= pixel;
+      realY *= rowLen;
+
+      for (int q=0; q<effectiveChannels; q++) {
+        int src = q * tileSize + realX + realY;
+        int dest = q * planeSize + pixel * (tileX - x) +
+          outputRowLen * (tileY - y);
+        if (planarConfig == 2) dest += (planeSize * (row / nrows));
+        for (int tileRow=0; tileRow<theight; tileRow++) {
+          System.arraycopy(tile, src, buf, dest, copy);
+          src += rowLen;
+          dest += outputRowLen;
+        }
+      }
+    }
+  }
 
-        int twidth = (int) Math.min(endX - tileX, tileWidth - realX);
-        int theight = (int) Math.min(endY - tileY, tileLength - realY);
+  /**
+   * Reads a range of tiles, splitting it until each piece is no larger than
+   * the chunk size.  Each piece is decoded with its own tile buffer.
+   */
+  private class TileReadAction extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
 
-        // copy appropriate portion of the tile to the output buffer
+    private IFD ifd;
+    private TileLayout layout;
+    private List<int[]> tiles;
+    private int from, to, chunkSize;
+    private byte[] buf;
 
-        int copy = pixel * twidth;
+    TileReadAction(IFD ifd, TileLayout layout, List<int[]> tiles,
+      int from, int to, int chunkSize, byte[] buf)
+    {
+      this.ifd = ifd;
+      this.layout = layout;
+      this.tiles = tiles;
+      this.from = from;
+      this.to = to;
+      this.chunkSize = chunkSize;
+      this.buf = buf;
+    }
 
-        realX *= pixel;
-        realY *= rowLen;
+    protected void compute() {
+      if (to - from > chunkSize) {
+        int middle = (from + to) >>> 1;
+        invokeAll(
+          new TileReadAction(ifd, layout, tiles, from, middle, chunkSize, buf),
+          new TileReadAction(ifd, layout, tiles, middle, to, chunkSize, buf));
+        return;
+      }
 
-        for (int q=0; q<effectiveChannels; q++) {
-          int src = (int) (q * tileSize) + realX + realY;
-          int dest = (int) (q * planeSize) + pixel * (tileX - x) +
-            outputRowLen * (tileY - y);
-          if (planarConfig == 2) dest += (planeSize * (row / nrows));
-          for (int tileRow=0; tileRow<theight; tileRow++) {
-            System.arraycopy(cachedTileBuffer, src, buf, dest, copy);
-            src += rowLen;
-            dest += outputRowLen;
-          }
+      byte[] tileBuffer = new byte[layout.getTileBufferSize()];
+      try {
+        for (int i=from; i<to; i++) {
+          int[] tile = tiles.get(i);
+          getTile(ifd, tileBuffer, tile[0], tile[1]);
+          layout.copyTile(tileBuffer, tile[0], tile[1], buf);
         }
       }
+      catch (FormatException e) {
+        throw new TileReadException(e);
+      }
+      catch (IOException e) {
+        throw new TileReadException(e);
+      }
     }
+  }
 
-    return buf;
+  /** Carries checked tile read failures out of the fork/join pool. */
+  private static class TileReadException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    TileReadException(Exception cause) {
+      super(cause);
+    }
   }
 
   // -- Utility methods - byte stream decoding --
@@ -884,6 +1288,61 @@ public class TiffParser {
     }
   }
 
+  /** Returns whether or not values for the given tag are left undecoded. */
+  private boolean isRawValueTag(int tag) {
+    for (int rawValueTag : rawValueTags) {
+      if (rawValueTag == tag) return true;
+    }
+    return false;
+  }
+
+  /** Positions the stream at the first value in the specified range. */
+  private void seekToIFDValues(TiffIFDEntry entry, int first, int count)
+    throws IOException
+  {
+    if (first < 0 || count < 0 || first + count > entry.getValueCount()) {
+      throw new IllegalArgumentException("values " + first + " to " +
+        (first + count) + " are out of range for tag " + entry.getTag() +
+        " with " + entry.getValueCount() + " values");
+    }
+    int bpe = entry.getType().getBytesPerElement();
+    in.seek(entry.getValueOffset() + (long) first * bpe);
+  }
+
+  /**
+   * Locates the next IFD in the main chain and appends its offset to the
+   * index (or marks the chain complete if there is no next IFD).
+   * When the chain is completed, the stream is left positioned just
+   * after the terminating (zero) offset.
+   */
+  private void indexNextIFDOffset() throws IOException {
+    long offset;
+    if (ifdOffsetCount == 0) {
+      offset = getFirstOffset();
+    }
+    else {
+      long previous = ifdOffsets[ifdOffsetCount - 1];
+      int bytesPerEntry = bigTiff ? TiffConstants.BIG_TIFF_BYTES_PER_ENTRY :
+        TiffConstants.BYTES_PER_ENTRY;
+      in.seek(previous);
+      int nEntries = bigTiff ? (int) in.readLong() : in.readUnsignedShort();
+      in.skipBytes(nEntries * bytesPerEntry);
+      offset = getNextOffset(previous);
+    }
+
+    if (offset > 0 && offset < in.length()) {
+      if (ifdOffsetCount == ifdOffsets.length) {
+        long[] expanded = new long[ifdOffsets.length * 2];
+        System.arraycopy(ifdOffsets, 0, expanded, 0, ifdOffsetCount);
+        ifdOffsets = expanded;
+      }
+      ifdOffsets[ifdOffsetCount++] = offset;
+    }
+    else {
+      ifdChainComplete = true;
+    }
+  }
+
   /**
    * Read a file offset.
    * For bigTiff, a 64-bit number is read.  For other Tiffs, a 32-bit number
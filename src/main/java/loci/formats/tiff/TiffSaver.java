@@ -244,10 +244,10 @@ public class TiffSaver {
 
     if (!sequentialWrite) {
       TiffParser parser = new TiffParser(in);
-      long[] ifdOffsets = parser.getIFDOffsets();
-      if (no < ifdOffsets.length) {
-        out.seek(ifdOffsets[no]);
-        ifd = parser.getIFD(ifdOffsets[no]);
+      long ifdOffset = parser.getIFDOffset(no);
+      if (ifdOffset >= 0) {
+        out.seek(ifdOffset);
+        ifd = parser.getIFD(ifdOffset);
       }
     }
 
@@ -487,7 +487,8 @@ public class TiffSaver {
     throws FormatException, IOException
   {
     TiffParser parser = new TiffParser(raf);
-    long[] offsets = parser.getIFDOffsets();
+    // walking the whole chain leaves the stream just after the last offset
+    parser.getIFDCount();
     out.seek(raf.getFilePointer() - (bigTiff ? 8 : 4));
     writeIntValue(out, 0);
   }
@@ -525,19 +526,19 @@ public class TiffSaver {
     raf.seek(offset);
 
     // skip to the correct IFD
-    long[] offsets = parser.getIFDOffsets();
-    if (ifd >= offsets.length) {
+    long ifdOffset = parser.getIFDOffset(ifd);
+    if (ifdOffset < 0) {
       throw new FormatException(
-        "No such IFD (" + ifd + " of " + offsets.length + ")");
+        "No such IFD (" + ifd + " of " + parser.getIFDCount() + ")");
     }
-    raf.seek(offsets[ifd]);
+    raf.seek(ifdOffset);
 
     // get the number of directory entries
     long num = bigTiff ? raf.readLong() : raf.readUnsignedShort();
 
     // search directory entries for proper tag
     for (int i=0; i<num; i++) {
-      raf.seek(offsets[ifd] + (bigTiff ? 8 : 2) + bytesPerEntry * i);
+      raf.seek(ifdOffset + (bigTiff ? 8 : 2) + bytesPerEntry * i);
 
       TiffIFDEntry entry = parser.readTiffIFDEntry();
       if (entry.getTag() == tag) {
@@ -589,7 +590,7 @@ public class TiffSaver {
         }
 
         // overwrite old entry
-        out.seek(offsets[ifd] + (bigTiff ? 8 : 2) + bytesPerEntry * i + 2);
+        out.seek(ifdOffset + (bigTiff ? 8 : 2) + bytesPerEntry * i + 2);
         out.writeShort(newType);
         writeIntValue(out, newCount);
         writeIntValue(out, newOffset);
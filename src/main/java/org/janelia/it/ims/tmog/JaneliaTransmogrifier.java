@@ -12,8 +12,6 @@ import java.awt.Image;
 import java.awt.Toolkit;
 import java.net.URL;
 import java.util.ArrayList;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadPoolExecutor;
 
 import javax.swing.ImageIcon;
 import javax.swing.JFrame;
@@ -30,6 +28,7 @@ import org.janelia.it.ims.tmog.config.ConfigurationLoader;
 import org.janelia.it.ims.tmog.config.GlobalConfiguration;
 import org.janelia.it.ims.tmog.config.TransmogrifierConfiguration;
 import org.janelia.it.ims.tmog.config.preferences.TransmogrifierPreferences;
+import org.janelia.it.ims.tmog.task.TransferScheduler;
 import org.janelia.it.ims.tmog.view.ColorScheme;
 import org.janelia.it.ims.tmog.view.TabbedView;
 import org.janelia.it.ims.tmog.view.component.NarrowOptionPane;
@@ -55,21 +54,6 @@ public class JaneliaTransmogrifier extends JFrame implements ConfigurationLoadCo
         return version;
     }
     
-    /**
-     * Set up a thread pool to limit the number of concurrent
-     * session tasks running at any given time.
-     *
-     * This pool was introduced to work around issues with large
-     * numbers of concurrent transfers to Samba file shares.
-     * These transfers would timeout and litter the file system with
-     * partially transferred files.
-     * The thread pool allows a user to queue up as many sessions
-     * as they like, but will only execute 4 sessions at any given
-     * time. 
-     */
-    private static final ThreadPoolExecutor THREAD_POOL_EXECUTOR =
-            (ThreadPoolExecutor) Executors.newFixedThreadPool(4);
-
     /**
      * Construct the application
      */
@@ -128,6 +112,8 @@ public class JaneliaTransmogrifier extends JFrame implements ConfigurationLoadCo
         Dimension frameSize = getSize();
 
         final GlobalConfiguration globalConfig = config.getGlobalConfiguration();
+        TransferScheduler.getInstance().configure(globalConfig);
+
         Integer frameSizePct = globalConfig.getFrameSizePercentage();
         final int minPct = 40;
         final int defaultPct = 80;
@@ -162,12 +148,20 @@ public class JaneliaTransmogrifier extends JFrame implements ConfigurationLoadCo
     }
 
     /**
-     * Submits the specified task to the application thread pool.
+     * Submits the specified task to the application session pool.
+     *
+     * Concurrent transfers to Samba file shares used to timeout and
+     * litter the file system with partially transferred files, so
+     * sessions were originally limited to 4 at a time.  That limit is
+     * now applied to transfers for each destination mount by the
+     * {@link TransferScheduler}, so sessions writing to different
+     * destinations no longer block each other and the session limit
+     * defaults to 16 (see the global maxConcurrentSessions attribute).
      *
      * @param  task  task to execute.
      */
     public static void submitTask(Runnable task) {
-        THREAD_POOL_EXECUTOR.submit(task);
+        TransferScheduler.getInstance().submitSession(task);
     }
 
     public static void main(String[] args) {
@@ -45,6 +45,7 @@ import org.janelia.it.ims.tmog.filefilter.FileNamePatternFilter;
 import org.janelia.it.ims.tmog.target.XmlTargetDataFile;
 import org.janelia.it.ims.tmog.view.component.NarrowOptionPane;
 import org.janelia.it.ims.tmog.view.component.ProgressPanel;
+import org.janelia.it.utils.HttpTransport;
 import org.janelia.it.utils.PathUtil;
 import org.xml.sax.SAXException;
 
@@ -186,6 +187,9 @@ public class ConfigurationLoader
 
         createSetAndAdd("*/global",
                         GlobalConfiguration.class, digester);
+        createSetAndAdd("*/global/transferMount",
+                        TransferMountConfiguration.class,
+                        "addTransferMount", digester);
         createSetAndAdd("*/project",
                         ProjectConfiguration.class, digester);
 
@@ -332,6 +336,12 @@ public class ConfigurationLoader
                     GlobalConfiguration globalConfiguration = (GlobalConfiguration) element;
                     globalConfiguration.verify(JaneliaTransmogrifier.getVersion());
                     config.setGlobalConfiguration(globalConfiguration);
+                    // configure HTTP pool before project plugins are initialized
+                    HttpTransport.getSharedInstance().configure(
+                            globalConfiguration.getHttpMaxConnectionsPerHost(),
+                            globalConfiguration.getHttpMaxTotalConnections(),
+                            globalConfiguration.getHttpConnectTimeout(),
+                            globalConfiguration.getHttpReadTimeout());
                 }
                 percentComplete = ((double) elementCount * 100) / (double) totalElementCount;
                 setProgress((int) percentComplete);
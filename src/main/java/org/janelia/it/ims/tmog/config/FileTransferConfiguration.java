@@ -8,9 +8,11 @@
 package org.janelia.it.ims.tmog.config;
 
 import org.janelia.it.utils.filexfer.DigestAlgorithms;
+import org.janelia.it.utils.filexfer.FileTransferUtil;
 import org.janelia.it.utils.filexfer.SafeFileTransfer;
 
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 
 /**
  * This class encapsulates configuration information about the
@@ -20,16 +22,29 @@ import java.security.NoSuchAlgorithmException;
  */
 public class FileTransferConfiguration {
 
+    /** Upper bound for the number of concurrent transfers in a session. */
+    public static final int MAX_TRANSFER_CONCURRENCY = 16;
+
     private int bufferSize;
     private String digestAlgorithm;
     private boolean validationRequired;
     private boolean nioRequired;
+    private int transferConcurrency;
+    private String copyMode;
+    private String validationMode;
+    private int validationSampleCount;
+    private boolean resumable;
 
     public FileTransferConfiguration() {
         this.bufferSize = SafeFileTransfer.BUFFER_SIZE;
         this.digestAlgorithm = SafeFileTransfer.DIGEST_ALGORITHM;
         this.validationRequired = true;
         this.nioRequired = false;
+        this.transferConcurrency = 1;
+        this.copyMode = FileTransferUtil.CopyMode.buffered.name();
+        this.validationMode = FileTransferUtil.ValidationMode.full.name();
+        this.validationSampleCount = FileTransferUtil.DEFAULT_SAMPLE_BLOCK_COUNT;
+        this.resumable = false;
     }
 
     public int getBufferSize() {
@@ -77,8 +92,20 @@ public class FileTransferConfiguration {
         }
     }
 
+    /**
+     * @return true if transfers must use the nio transfer util, either
+     *         because it was explicitly requested or because a configured
+     *         copy mode, validation mode, or resumable copies are not
+     *         supported by the stream transfer util.
+     */
     public boolean isNioRequired() {
-        return nioRequired;
+        return nioRequired ||
+               // stream transfer util only supports buffered copies
+               (! FileTransferUtil.CopyMode.buffered.name().equals(copyMode)) ||
+               // stream transfer util only supports full validation
+               (! FileTransferUtil.ValidationMode.full.name().equals(validationMode)) ||
+               // stream transfer util doesn't support resumable copies
+               resumable;
     }
 
     @SuppressWarnings({"UnusedDeclaration"})
@@ -86,13 +113,90 @@ public class FileTransferConfiguration {
         this.nioRequired = nioRequired;
     }
 
+    /**
+     * @return the maximum number of files that may be transferred
+     *         concurrently within a single session (1 for sequential
+     *         transfers).
+     */
+    public int getTransferConcurrency() {
+        return transferConcurrency;
+    }
+
+    @SuppressWarnings({"UnusedDeclaration"})
+    public void setTransferConcurrency(int transferConcurrency) {
+        this.transferConcurrency = transferConcurrency;
+    }
+
+    /**
+     * @return the mode nio transfers use to copy files when a digest is
+     *         calculated.
+     *
+     * @throws IllegalArgumentException
+     *   if the configured mode name is not valid.
+     */
+    public FileTransferUtil.CopyMode getCopyMode()
+            throws IllegalArgumentException {
+        return FileTransferUtil.CopyMode.valueOf(copyMode);
+    }
+
+    @SuppressWarnings({"UnusedDeclaration"})
+    public void setCopyMode(String copyMode) {
+        this.copyMode = copyMode;
+    }
+
+    /**
+     * @return the mode nio transfers use to validate copies.
+     *
+     * @throws IllegalArgumentException
+     *   if the configured mode name is not valid.
+     */
+    public FileTransferUtil.ValidationMode getValidationMode()
+            throws IllegalArgumentException {
+        return FileTransferUtil.ValidationMode.valueOf(validationMode);
+    }
+
+    @SuppressWarnings({"UnusedDeclaration"})
+    public void setValidationMode(String validationMode) {
+        this.validationMode = validationMode;
+    }
+
+    /**
+     * @return number of blocks compared for sampled validation.
+     */
+    public int getValidationSampleCount() {
+        return validationSampleCount;
+    }
+
+    @SuppressWarnings({"UnusedDeclaration"})
+    public void setValidationSampleCount(int validationSampleCount) {
+        this.validationSampleCount = validationSampleCount;
+    }
+
+    /**
+     * @return true if nio transfers should be checkpointed so that
+     *         failed copies can be resumed; otherwise false.
+     */
+    public boolean isResumable() {
+        return resumable;
+    }
+
+    @SuppressWarnings({"UnusedDeclaration"})
+    public void setResumable(boolean resumable) {
+        this.resumable = resumable;
+    }
+
     @Override
     public String toString() {
         return "FileTransferConfiguration{" +
                "bufferSize=" + bufferSize +
                ", digestAlgorithm='" + digestAlgorithm + '\'' +
                ", validationRequired=" + validationRequired +
-               ", nioRequired=" + nioRequired +
+               ", nioRequired=" + isNioRequired() +
+               ", transferConcurrency=" + transferConcurrency +
+               ", copyMode='" + copyMode + '\'' +
+               ", validationMode='" + validationMode + '\'' +
+               ", validationSampleCount=" + validationSampleCount +
+               ", resumable=" + resumable +
                '}';
     }
 
@@ -116,11 +220,53 @@ public class FileTransferConfiguration {
             }
         }
 
+        try {
+            getCopyMode();
+        } catch (IllegalArgumentException e) {
+            throw new ConfigurationException(
+                    "The configured file transfer copy mode '" + copyMode +
+                    "' is not valid.  Accepted values are: " +
+                    Arrays.asList(FileTransferUtil.CopyMode.values()) + ".",
+                    e);
+        }
+
+        try {
+            getValidationMode();
+        } catch (IllegalArgumentException e) {
+            throw new ConfigurationException(
+                    "The configured file transfer validation mode '" +
+                    validationMode + "' is not valid.  Accepted values are: " +
+                    Arrays.asList(FileTransferUtil.ValidationMode.values()) +
+                    ".",
+                    e);
+        }
+
+        if (validationSampleCount < 1) {
+            throw new ConfigurationException(
+                    "The configured file transfer validation sample count (" +
+                    validationSampleCount + ") is not valid.  " +
+                    "Please specify a value greater than 0.");
+        }
+
+        if ((transferConcurrency < 1) ||
+            (transferConcurrency > MAX_TRANSFER_CONCURRENCY)) {
+            throw new ConfigurationException(
+                    "The configured file transfer concurrency (" +
+                    transferConcurrency + ") is not valid.  " +
+                    "Please specify a value between 1 and " +
+                    MAX_TRANSFER_CONCURRENCY + ".");
+        }
+
         // this is a bit of a hack to catch wild buffer size values
         final long maxHeap = Runtime.getRuntime().maxMemory();
         final long typicalRequiredForApp = 50 * 1024 * 1024; // 50 Mb
         final long typicalFree = maxHeap - typicalRequiredForApp;
-        final int concurrentBuffers = 3;
+        int buffersPerTransfer = 3;
+        if (FileTransferUtil.CopyMode.pipelined.name().equals(copyMode)) {
+            // pipelined copies use direct buffers, but count them anyway
+            buffersPerTransfer += FileTransferUtil.PIPELINE_BUFFER_COUNT;
+        }
+        final int concurrentBuffers = buffersPerTransfer * transferConcurrency;
         final long maxBuffer = typicalFree / concurrentBuffers;
         if (bufferSize > maxBuffer) {
             final long minHeap =
@@ -7,6 +7,11 @@
 
 package org.janelia.it.ims.tmog.config;
 
+import org.janelia.it.utils.HttpTransport;
+
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * This class encapsulates configuration information that applies to
  * all projects.
@@ -15,10 +20,33 @@ package org.janelia.it.ims.tmog.config;
  */
 public class GlobalConfiguration {
 
+    /** Default maximum number of sessions that can run at the same time. */
+    public static final int DEFAULT_MAX_CONCURRENT_SESSIONS = 16;
+
+    /** Default maximum number of concurrent transfers to each mount. */
+    public static final int DEFAULT_TRANSFER_MOUNT_CONCURRENCY = 4;
+
     private String minimumVersion;
     private Integer frameSizePercentage;
+    private int maxConcurrentSessions;
+    private int transferMountConcurrency;
+    private Long transferMountBytesPerSecond;
+    private List<TransferMountConfiguration> transferMounts;
+    private int httpMaxConnectionsPerHost;
+    private int httpMaxTotalConnections;
+    private int httpConnectTimeout;
+    private int httpReadTimeout;
 
     public GlobalConfiguration() {
+        this.maxConcurrentSessions = DEFAULT_MAX_CONCURRENT_SESSIONS;
+        this.transferMountConcurrency = DEFAULT_TRANSFER_MOUNT_CONCURRENCY;
+        this.httpMaxConnectionsPerHost =
+                HttpTransport.DEFAULT_MAX_CONNECTIONS_PER_HOST;
+        this.httpMaxTotalConnections =
+                HttpTransport.DEFAULT_MAX_TOTAL_CONNECTIONS;
+        this.httpConnectTimeout = HttpTransport.DEFAULT_CONNECT_TIMEOUT;
+        this.httpReadTimeout = HttpTransport.DEFAULT_READ_TIMEOUT;
+        this.transferMounts = new ArrayList<TransferMountConfiguration>();
     }
 
     public String getMinimumVersion() {
@@ -37,6 +65,96 @@ public class GlobalConfiguration {
         this.frameSizePercentage = frameSizePercentage;
     }
 
+    /**
+     * @return the maximum number of sessions that can run at the same time.
+     */
+    public int getMaxConcurrentSessions() {
+        return maxConcurrentSessions;
+    }
+
+    public void setMaxConcurrentSessions(int maxConcurrentSessions) {
+        this.maxConcurrentSessions = maxConcurrentSessions;
+    }
+
+    /**
+     * @return the default maximum number of concurrent transfers
+     *         to each destination mount.
+     */
+    public int getTransferMountConcurrency() {
+        return transferMountConcurrency;
+    }
+
+    public void setTransferMountConcurrency(int transferMountConcurrency) {
+        this.transferMountConcurrency = transferMountConcurrency;
+    }
+
+    /**
+     * @return the default maximum average transfer rate for each
+     *         destination mount or null if rates should not be limited.
+     */
+    public Long getTransferMountBytesPerSecond() {
+        return transferMountBytesPerSecond;
+    }
+
+    public void setTransferMountBytesPerSecond(Long transferMountBytesPerSecond) {
+        this.transferMountBytesPerSecond = transferMountBytesPerSecond;
+    }
+
+    /**
+     * @return limits for specific destination mounts.
+     */
+    public List<TransferMountConfiguration> getTransferMounts() {
+        return transferMounts;
+    }
+
+    public void addTransferMount(TransferMountConfiguration transferMount) {
+        transferMounts.add(transferMount);
+    }
+
+    /**
+     * @return the maximum number of pooled HTTP connections for each host.
+     */
+    public int getHttpMaxConnectionsPerHost() {
+        return httpMaxConnectionsPerHost;
+    }
+
+    public void setHttpMaxConnectionsPerHost(int httpMaxConnectionsPerHost) {
+        this.httpMaxConnectionsPerHost = httpMaxConnectionsPerHost;
+    }
+
+    /**
+     * @return the maximum number of pooled HTTP connections for all hosts.
+     */
+    public int getHttpMaxTotalConnections() {
+        return httpMaxTotalConnections;
+    }
+
+    public void setHttpMaxTotalConnections(int httpMaxTotalConnections) {
+        this.httpMaxTotalConnections = httpMaxTotalConnections;
+    }
+
+    /**
+     * @return the HTTP connect timeout in milliseconds.
+     */
+    public int getHttpConnectTimeout() {
+        return httpConnectTimeout;
+    }
+
+    public void setHttpConnectTimeout(int httpConnectTimeout) {
+        this.httpConnectTimeout = httpConnectTimeout;
+    }
+
+    /**
+     * @return the HTTP read (socket) timeout in milliseconds.
+     */
+    public int getHttpReadTimeout() {
+        return httpReadTimeout;
+    }
+
+    public void setHttpReadTimeout(int httpReadTimeout) {
+        this.httpReadTimeout = httpReadTimeout;
+    }
+
     /**
      * Verifies the global configuration.
      *
@@ -64,6 +182,26 @@ public class GlobalConfiguration {
                     "configuration requires version " + minimumVersion +
                     " or later.");
         }
+
+        if (maxConcurrentSessions < 1) {
+            throw new ConfigurationException(
+                    "The maxConcurrentSessions must be greater than zero.");
+        }
+
+        if (transferMountConcurrency < 1) {
+            throw new ConfigurationException(
+                    "The transferMountConcurrency must be greater than zero.");
+        }
+
+        if ((transferMountBytesPerSecond != null) &&
+            (transferMountBytesPerSecond < 1)) {
+            throw new ConfigurationException(
+                    "The transferMountBytesPerSecond must be greater than zero.");
+        }
+
+        for (TransferMountConfiguration transferMount : transferMounts) {
+            transferMount.verify();
+        }
     }
 
     private int getVersionValue(String version) throws ConfigurationException {
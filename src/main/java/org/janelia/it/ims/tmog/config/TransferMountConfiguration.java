@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package org.janelia.it.ims.tmog.config;
+
+import java.io.File;
+
+/**
+ * Transfer limits for destinations within a specific path
+ * (typically a mounted network file share).
+ *
+ * @author agent
+ */
+public class TransferMountConfiguration {
+
+    private String path;
+    private Integer concurrency;
+    private Long bytesPerSecond;
+
+    public TransferMountConfiguration() {
+    }
+
+    public TransferMountConfiguration(String path,
+                                      Integer concurrency,
+                                      Long bytesPerSecond) {
+        setPath(path);
+        this.concurrency = concurrency;
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    /**
+     * @return the absolute path for this mount.
+     */
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = new File(path.trim()).getAbsolutePath();
+    }
+
+    /**
+     * @return the maximum number of concurrent transfers to this mount
+     *         or null if the global default should be used.
+     */
+    public Integer getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(Integer concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * @return the maximum average transfer rate for this mount
+     *         or null if the global default should be used.
+     */
+    public Long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    public void setBytesPerSecond(Long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    /**
+     * @param  file  file to check.
+     *
+     * @return true if the specified file is within this mount;
+     *         otherwise false.
+     */
+    public boolean contains(File file) {
+        final String filePath = file.getAbsolutePath();
+        return filePath.equals(path) ||
+               filePath.startsWith(path + File.separator);
+    }
+
+    /**
+     * Verifies the mount configuration.
+     *
+     * @throws ConfigurationException if any errors occur.
+     */
+    public void verify() throws ConfigurationException {
+        if (path == null) {
+            throw new ConfigurationException(
+                    "A path must be specified for each transfer mount.");
+        }
+        if ((concurrency != null) && (concurrency < 1)) {
+            throw new ConfigurationException(
+                    "The transfer mount concurrency for " + path +
+                    " must be greater than zero.");
+        }
+        if ((bytesPerSecond != null) && (bytesPerSecond < 1)) {
+            throw new ConfigurationException(
+                    "The transfer mount bytesPerSecond for " + path +
+                    " must be greater than zero.");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "TransferMountConfiguration{" +
+               "path='" + path + '\'' +
+               ", concurrency=" + concurrency +
+               ", bytesPerSecond=" + bytesPerSecond +
+               '}';
+    }
+}
@@ -8,23 +8,31 @@
 package org.janelia.it.ims.tmog.field;
 
 import org.apache.commons.digester.Digester;
-import org.apache.commons.httpclient.HttpClient;
-import org.apache.commons.httpclient.methods.GetMethod;
 import org.apache.log4j.Logger;
+import org.janelia.it.utils.HttpResponseCache;
 import org.janelia.it.utils.StringUtil;
 
+import javax.swing.*;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.HttpURLConnection;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * This model supports selecting a value from a predefined set of values.
  * Selectable values are retrieved at start-up via HTTP request.
+ * <p>
+ * Responses are saved in the shared {@link HttpResponseCache} once
+ * they have been parsed successfully.
+ * When a saved response exists, its values are used immediately and
+ * then refreshed (with a conditional request) in the background.
+ * If the service is unreachable, the saved values remain in use.
  *
  * @author Eric Trautman
  */
@@ -114,7 +122,6 @@ public class HttpValidValueModel
         HttpValidValueModel cachedModel = urlToModelMap.get(cacheKey);
         if (cachedModel == null) {
             setValidValuesFromService();
-            prefixDisplayNamesAndSortAsNeeded();
             urlToModelMap.put(cacheKey, this);
         } else {
             // same config, use cached values directly
@@ -139,12 +146,12 @@ public class HttpValidValueModel
         return StringUtil.isDefined(relativeValueDisplayNamePath);
     }
 
-    private Digester getDigester() {
+    private Digester getDigester(ValidValueModel model) {
 
         Digester digester = new Digester();
         digester.setValidating(false);
 
-        digester.push(this);
+        digester.push(model);
         digester.addObjectCreate(valueCreationPath,
                                  ValidValue.class);
         digester.addSetNext(valueCreationPath, "addValidValue");
@@ -168,53 +175,109 @@ public class HttpValidValueModel
             staticValues = new ArrayList<ValidValue>(getValidValues());
         }
 
-        clearValidValues();
+        final HttpResponseCache responseCache =
+                HttpResponseCache.getSharedInstance();
+
+        List<ValidValue> values = null;
+        final HttpResponseCache.Response storedResponse =
+                responseCache.getStoredResponse(serviceUrl);
+        if (storedResponse != null) {
+            try {
+                values = parseValues(storedResponse);
+                LOG.info("loaded " + values.size() +
+                         " stored results for " + serviceUrl);
+            } catch (IllegalArgumentException e) {
+                LOG.warn("ignoring stored response for " + serviceUrl, e);
+            }
+        }
 
-        InputStream responseStream = null;
+        if (values == null) {
+            final HttpResponseCache.Response response;
+            try {
+                response = responseCache.fetch(serviceUrl);
+            } catch (IOException e) {
+                throw new IllegalArgumentException(
+                        "HTTP request failed.  " +
+                        getServiceUrlErrorContext(), e);
+            }
+            values = parseValues(response);
+            responseCache.store(response);
+            LOG.info("retrieved " + values.size() +
+                     " results for " + serviceUrl);
+        } else {
+            startBackgroundRefresh(responseCache);
+        }
 
-        int responseCode;
-        GetMethod method = new GetMethod(serviceUrl);
-        try {
-            Digester digester = getDigester();
-            HttpClient httpClient = new HttpClient();
-            LOG.info("sending GET " + serviceUrl);
-            responseCode = httpClient.executeMethod(method);
-            if (responseCode != HttpURLConnection.HTTP_OK) {
-                throw new IllegalStateException(
-                        "HTTP request failed with response code " +
-                        responseCode + ".  " + getServiceUrlErrorContext());
+        setValidValues(values);
+    }
+
+    /**
+     * Sends a conditional request for the latest values using the shared
+     * refresh executor.  If the values have changed, this model's list is
+     * updated (and its listeners are notified) in the event dispatch
+     * thread.  If the request or parse fails, the stored values are kept.
+     */
+    private void startBackgroundRefresh(final HttpResponseCache responseCache) {
+        REFRESH_EXECUTOR.submit(new Runnable() {
+            public void run() {
+                try {
+                    final HttpResponseCache.Response response =
+                            responseCache.fetch(serviceUrl);
+                    if (response.isModified()) {
+                        final List<ValidValue> values = parseValues(response);
+                        responseCache.store(response);
+                        SwingUtilities.invokeLater(new Runnable() {
+                            public void run() {
+                                setValidValues(values);
+                                fireContentsChanged(HttpValidValueModel.this,
+                                                    0,
+                                                    Math.max(0, getSize() - 1));
+                                LOG.info("refreshed " + values.size() +
+                                         " results for " + serviceUrl);
+                            }
+                        });
+                    } else {
+                        LOG.info("stored results for " + serviceUrl +
+                                 " are current");
+                    }
+                } catch (Exception e) {
+                    LOG.warn("failed to refresh results for " + serviceUrl +
+                             ", stored results will be used", e);
+                }
             }
+        });
+    }
 
-            responseStream = method.getResponseBodyAsStream();
-            digester.parse(responseStream);
+    private List<ValidValue> parseValues(HttpResponseCache.Response response)
+            throws IllegalArgumentException {
 
-        } catch (IOException e) {
-            throw new IllegalArgumentException(
-                    "HTTP request failed.  " + getServiceUrlErrorContext(), e);
+        final ValidValueModel parsedModel = new ValidValueModel();
+        try {
+            getDigester(parsedModel).parse(
+                    new ByteArrayInputStream(response.getBody()));
         } catch (Exception e) {
             throw new IllegalArgumentException(
                     "Failed to parse HTTP response.  " +
                     getServiceUrlErrorContext(), e);
-        } finally {
-            if (responseStream != null) {
-                try {
-                    responseStream.close();
-                } catch (IOException e) {
-                    LOG.error("failed to close response stream, " +
-                              "ignoring error", e);
-                }
-            }
-            method.releaseConnection();
         }
 
-        LOG.info("retrieved " + this.size() +
-                 " results for " + serviceUrl);
+        return new ArrayList<ValidValue>(parsedModel.getValidValues());
+    }
+
+    private void setValidValues(List<ValidValue> values) {
+
+        clearValidValues();
+
+        for (ValidValue value : values) {
+            addValidValue(value);
+        }
 
         // add any static values to the end of the list
         for (ValidValue value : staticValues) {
             addValidValue(value);
         }
 
+        prefixDisplayNamesAndSortAsNeeded();
     }
 
     private void prefixDisplayNamesAndSortAsNeeded() {
@@ -250,6 +313,27 @@ public class HttpValidValueModel
     private static final Logger LOG = 
             Logger.getLogger(HttpValidValueModel.class);
 
+    /** Maximum number of concurrent background refresh requests. */
+    private static final int REFRESH_THREAD_COUNT = 2;
+
+    /** Refreshes stored values for all models (in daemon threads). */
+    private static final ExecutorService REFRESH_EXECUTOR =
+            Executors.newFixedThreadPool(
+                    REFRESH_THREAD_COUNT,
+                    new ThreadFactory() {
+                        private int count = 0;
+                        @Override
+                        public synchronized Thread newThread(Runnable r) {
+                            count++;
+                            final Thread thread =
+                                    new Thread(r,
+                                               "HttpValidValueModel-refresh-" +
+                                               count);
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+
     private static final Comparator<ValidValue> DISPLAY_NAME_COMPARATOR =
             new Comparator<ValidValue>() {
                 @Override
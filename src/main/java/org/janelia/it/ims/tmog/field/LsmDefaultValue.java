@@ -22,8 +22,6 @@ import java.io.File;
 public class LsmDefaultValue
         implements DefaultValue {
 
-    private static LsmCoreMetaDataCache cache = new LsmCoreMetaDataCache();
-
     private String propertyName;
     private boolean truncateDecimal;
 
@@ -47,6 +45,8 @@ public class LsmDefaultValue
             sourceFile = ((FileTarget) target).getFile();
         }
         if ((sourceFile != null) && (sourceFile.getName().endsWith(".lsm"))) {
+            final LsmCoreMetaDataCache cache =
+                    LsmCoreMetaDataCache.getSharedInstance();
             Object value = cache.getValue(sourceFile, propertyName);
             if (value instanceof Double) {
                 if (truncateDecimal) {
@@ -426,6 +426,9 @@ public class ValidValueModel extends AbstractListModel<ValidValue>
      * This should only be called if a new set of values is to be loaded.
      */
     protected void clearValidValues() {
+        // remove any filter so that filtered out values are also cleared
+        // (filters are reapplied each time a value is edited)
+        validValues.setMatcherEditor(null);
         validValues.clear();
         selectedValue = null;
     }
@@ -12,6 +12,7 @@ import org.apache.commons.httpclient.URI;
 import org.apache.commons.httpclient.methods.GetMethod;
 import org.apache.log4j.Logger;
 import org.janelia.it.ims.tmog.target.FileTargetNamer;
+import org.janelia.it.utils.HttpTransport;
 
 import java.io.BufferedReader;
 import java.io.File;
@@ -86,7 +87,7 @@ public class QueryFilter extends javax.swing.filechooser.FileFilter
         GetMethod method = new GetMethod(queryUrl);
         try {
             method.setRequestHeader("Accept", "text/plain");
-            HttpClient httpClient = new HttpClient();
+            HttpClient httpClient = HttpTransport.getSharedClient();
             LOG.info("sending GET " + queryUrl);
             responseCode = httpClient.executeMethod(method);
             if (responseCode != HttpURLConnection.HTTP_OK) {
@@ -11,20 +11,36 @@ import org.apache.commons.httpclient.HttpClient;
 import org.apache.commons.httpclient.methods.HeadMethod;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.janelia.it.ims.tmog.DataRow;
 import org.janelia.it.ims.tmog.config.PluginConfiguration;
 import org.janelia.it.ims.tmog.field.DataField;
+import org.janelia.it.utils.ExpiringCache;
+import org.janelia.it.utils.HttpTransport;
 
 import java.io.IOException;
 import java.net.HttpURLConnection;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
 
 /**
  * This class validates that a resource exists by submitting an
  * HTTP Head request to a web service.
+ * <p>
+ * When a session is validated, the resource URLs for all of the
+ * session's rows are derived and checked concurrently (see
+ * {@link #startSessionValidation}) so that validation of each
+ * individual row simply looks up the prevalidated result.
  *
  * @author Eric Trautman
  */
@@ -49,17 +65,39 @@ public class HttpResourceValidator
     public static final String ERROR_MESSAGE_NAME = "errorMessage";
 
     /**
-     * Name of the property to use for overriding the default clear
-     * cache duration (60,000 milliseconds).
+     * Name of the property to use for overriding the default amount of
+     * time (60,000 milliseconds) that found resources remain cached.
      */
     public static final String CLEAR_CACHE_DURATION_NAME = "clearCacheDuration";
 
+    /**
+     * Name of the property to use for overriding the default amount of
+     * time (10,000 milliseconds) that missing resources remain cached.
+     */
+    public static final String NEGATIVE_CACHE_DURATION_NAME =
+            "negativeCacheDuration";
+
+    /**
+     * Name of the property to use for overriding the default maximum
+     * number of cached resources (10,000).
+     */
+    public static final String MAX_CACHE_SIZE_NAME = "maxCacheSize";
+
     /**
      * Name of the property to use for predefined valid resources.
      */
     public static final String VALID_RESOURCES_NAME = "validResources";
 
-    /** HTTP client for validation requests. */
+    /**
+     * Name of the property to use for overriding the default maximum
+     * number of concurrent requests issued when a session is prevalidated.
+     */
+    public static final String CONCURRENCY_NAME = "concurrency";
+
+    /** Default maximum number of concurrent prevalidation requests. */
+    public static final int DEFAULT_CONCURRENCY = 8;
+
+    /** HTTP client (shared connection pool) for validation requests. */
     private HttpClient httpClient;
 
     /** Parsed configuration tokens for deriving a row specific URL. */
@@ -69,35 +107,34 @@ public class HttpResourceValidator
     private PropertyTokenList errorMessageTokens;
 
     /**
-     * The maximum amount of time (in milliseconds) between cache
-     * references before the cache should be cleared.  This is intended to
-     * keep the cache from getting stale.
+     * Cache of previously checked resource URLs
+     * (found resources have a true value, missing resources are negative).
      */
-    private long clearCacheDuration;
-
-    /** Time the cache was last referenced. */
-    private long lastCacheAccessTime;
+    private ExpiringCache<String, Boolean> resourceCache;
 
     /**
-     * Cache for previously validated names.
+     * Configured set of resource URLs that are always considered valid.
      */
-    private Set<String> validNames;
+    private Set<String> configuredValidResources;
+
+    /** Maximum number of concurrent prevalidation requests. */
+    private int concurrency;
 
     /**
-     * Configured set of resource URLs that are always considered valid.
+     * Maps session names to prevalidated resource URLs that were not found.
      */
-    private Set<String> configuredValidResources;
+    private Map<String, Set<String>> sessionToMissingUrls;
 
     /**
      * Empty constructor required by
      * {@link org.janelia.it.ims.tmog.config.PluginFactory}.
      */
     public HttpResourceValidator() {
-        this.clearCacheDuration = 60 * 1000; // one minute
-        this.lastCacheAccessTime = System.currentTimeMillis();
-        this.validNames = new HashSet<String>();
+        this.resourceCache = new ExpiringCache<String, Boolean>();
         this.configuredValidResources = new HashSet<String>();
-        this.httpClient = new HttpClient();
+        this.concurrency = DEFAULT_CONCURRENCY;
+        this.sessionToMissingUrls = new ConcurrentHashMap<String, Set<String>>();
+        this.httpClient = HttpTransport.getSharedClient();
     }
 
     /**
@@ -116,14 +153,40 @@ public class HttpResourceValidator
                                                         config);
         final String configuredClearCacheDuration =
                 config.getProperty(CLEAR_CACHE_DURATION_NAME);
+        final String configuredNegativeCacheDuration =
+                config.getProperty(NEGATIVE_CACHE_DURATION_NAME);
+        final String configuredMaxCacheSize =
+                config.getProperty(MAX_CACHE_SIZE_NAME);
 
         final String configuredValidResourceList =
                 config.getProperty(VALID_RESOURCES_NAME);
 
+        final String configuredConcurrency = config.getProperty(CONCURRENCY_NAME);
+
         try {
+            long positiveTtl = ExpiringCache.DEFAULT_POSITIVE_TTL;
             if (configuredClearCacheDuration != null) {
-                this.clearCacheDuration =
-                        Long.parseLong(configuredClearCacheDuration);
+                positiveTtl = Long.parseLong(configuredClearCacheDuration);
+            }
+            long negativeTtl = ExpiringCache.DEFAULT_NEGATIVE_TTL;
+            if (configuredNegativeCacheDuration != null) {
+                negativeTtl = Long.parseLong(configuredNegativeCacheDuration);
+            }
+            int maxCacheSize = ExpiringCache.DEFAULT_MAX_SIZE;
+            if (configuredMaxCacheSize != null) {
+                maxCacheSize = Integer.parseInt(configuredMaxCacheSize);
+            }
+            this.resourceCache = new ExpiringCache<String, Boolean>(positiveTtl,
+                                                                   negativeTtl,
+                                                                   maxCacheSize);
+
+            if (configuredConcurrency != null) {
+                this.concurrency = Integer.parseInt(configuredConcurrency);
+                if (this.concurrency < 1) {
+                    throw new IllegalArgumentException(
+                            "The " + CONCURRENCY_NAME +
+                            " property must be a positive integer.");
+                }
             }
 
             this.urlTokens = new PropertyTokenList(serviceUrl,
@@ -145,7 +208,6 @@ public class HttpResourceValidator
                     url = u.trim();
                     if (url.length() > 0) {
                         this.configuredValidResources.add(url);
-                        this.validNames.add(url);
                     }
                 }
             }
@@ -157,6 +219,64 @@ public class HttpResourceValidator
         }
     }
 
+    /**
+     * Derives the resource URLs for all rows in the session and
+     * concurrently checks any URLs that are not already cached.
+     * Resources that are not found are remembered so that they can be
+     * reported in context when each row is validated.  Requests that fail
+     * because of a system error are not remembered and are simply
+     * retried when the corresponding row is validated.
+     *
+     * @param  sessionName  unique name for session being validated.
+     * @param  allRows      unmodifiable list of all rows for the session
+     *                      about to be validated.
+     *
+     * @throws ExternalSystemException
+     *   if any error occurs while setting up for validation.
+     */
+    @Override
+    public void startSessionValidation(String sessionName,
+                                       List<DataRow> allRows)
+            throws ExternalSystemException {
+
+        final Set<String> urls = new LinkedHashSet<String>();
+        final Set<String> cachedMissingUrls = new HashSet<String>();
+        Boolean isFound;
+        for (DataRow row : allRows) {
+            final PluginDataRow pluginDataRow = new PluginDataRow(row);
+            for (String url :
+                    urlTokens.deriveValues(
+                            pluginDataRow.getDisplayNameToFieldMap(), true)) {
+                isFound = getCachedStatus(url);
+                if (isFound == null) {
+                    urls.add(url);
+                } else if (! isFound) {
+                    cachedMissingUrls.add(url);
+                }
+            }
+        }
+
+        final Set<String> missingUrls =
+                prevalidate(new ArrayList<String>(urls));
+        missingUrls.addAll(cachedMissingUrls);
+        if (missingUrls.size() > 0) {
+            sessionToMissingUrls.put(sessionName, missingUrls);
+        } else {
+            sessionToMissingUrls.remove(sessionName);
+        }
+    }
+
+    /**
+     * Removes any prevalidated results saved for the specified session.
+     *
+     * @param  sessionName  unique name for session being validated.
+     */
+    @Override
+    public void stopSessionValidation(String sessionName) {
+        sessionToMissingUrls.remove(sessionName);
+        LOG.info("stopSessionValidation: resourceCache=" + resourceCache);
+    }
+
     /**
      * Validate that the resource for the specified row exists.
      *
@@ -178,20 +298,27 @@ public class HttpResourceValidator
             final Map<String, DataField> fieldMap =
                     row.getDisplayNameToFieldMap();
             List<String> urlList = urlTokens.deriveValues(fieldMap, true);
-            clearCacheIfStale();
 
+            final Set<String> missingUrls =
+                    sessionToMissingUrls.get(sessionName);
+
+            Boolean isFound;
             for (int i = 0; i < urlList.size(); i++) {
                 url = urlList.get(i);
-                boolean isValid = validNames.contains(url);
-                if (! isValid) {
-                    if (isResourceFound(url)) {
-                        addNameToCache(url);
+                isFound = getCachedStatus(url);
+                if (isFound == null) {
+                    if ((missingUrls != null) && missingUrls.contains(url)) {
+                        isFound = false;
                     } else {
-                        List<String> msgList =
-                                errorMessageTokens.deriveValues(fieldMap, true);
-                        throw new ExternalDataException(msgList.get(i));
+                        isFound = isResourceFound(url);
+                        cacheStatus(url, isFound);
                     }
                 }
+                if (! isFound) {
+                    List<String> msgList =
+                            errorMessageTokens.deriveValues(fieldMap, true);
+                    throw new ExternalDataException(msgList.get(i));
+                }
             }
         } catch (ExternalDataException e) {
             throw e;
@@ -250,6 +377,67 @@ public class HttpResourceValidator
         return isFound;
     }
 
+    /**
+     * Checks the specified resource URLs using at most {@link #concurrency}
+     * concurrent requests.  All results are cached.
+     *
+     * @param  urls  list of resource URLs to check.
+     *
+     * @return the set of URLs for resources that were not found.
+     */
+    private Set<String> prevalidate(List<String> urls) {
+
+        final Set<String> missingUrls = new HashSet<String>();
+        final int urlCount = urls.size();
+
+        if (urlCount > 0) {
+
+            final long startTime = System.currentTimeMillis();
+
+            final ExecutorService executorService =
+                    Executors.newFixedThreadPool(Math.min(concurrency,
+                                                          urlCount));
+            final List<Future<Boolean>> futures =
+                    new ArrayList<Future<Boolean>>(urlCount);
+            try {
+                for (final String url : urls) {
+                    futures.add(executorService.submit(new Callable<Boolean>() {
+                        public Boolean call() throws Exception {
+                            return isResourceFound(url);
+                        }
+                    }));
+                }
+
+                String url;
+                for (int i = 0; i < urlCount; i++) {
+                    url = urls.get(i);
+                    try {
+                        final boolean isFound = futures.get(i).get();
+                        cacheStatus(url, isFound);
+                        if (! isFound) {
+                            missingUrls.add(url);
+                        }
+                    } catch (ExecutionException e) {
+                        LOG.warn("prevalidate: failed to check " + url +
+                                 ", row validation will retry", e.getCause());
+                    }
+                }
+            } catch (InterruptedException e) {
+                LOG.warn("prevalidate: interrupted, " +
+                         "row validation will check remaining resources");
+                Thread.currentThread().interrupt();
+            } finally {
+                executorService.shutdownNow();
+            }
+
+            LOG.info("prevalidate: checked " + urlCount + " resources (" +
+                     missingUrls.size() + " not found) in " +
+                     (System.currentTimeMillis() - startTime) + "ms");
+        }
+
+        return missingUrls;
+    }
+
     private String getErrorContext(String url) {
         return "Please verify the configured " + SERVICE_URL_NAME +
                " '" + url + "' is accurate and that the corresponding " +
@@ -257,29 +445,33 @@ public class HttpResourceValidator
     }
 
     /**
-     * Clears the cache if it has not been accessed recently.
+     * @param  url  resource URL to check.
+     *
+     * @return true if the resource is known to exist, false if it is
+     *         known to be missing, or null if its status is not cached.
      */
-    private synchronized void clearCacheIfStale() {
-
-        if ((System.currentTimeMillis() - lastCacheAccessTime) >
-            clearCacheDuration) {
-
-            LOG.info("clearing cache containing " +
-                     validNames.size() + " items");
-            validNames.clear();
-            validNames.addAll(configuredValidResources);
+    private Boolean getCachedStatus(String url) {
+        Boolean isFound = null;
+        if (configuredValidResources.contains(url)) {
+            isFound = true;
+        } else {
+            final ExpiringCache.Entry<Boolean> entry = resourceCache.get(url);
+            if (entry != null) {
+                isFound = ! entry.isNegative();
+            }
         }
-
-        lastCacheAccessTime = System.currentTimeMillis();
+        return isFound;
     }
 
     /**
-     * Adds the specified name to the cache.
+     * Caches the status of the specified resource.
      *
-     * @param  name  name to add.
+     * @param  url      resource URL.
+     * @param  isFound  true if the resource exists; otherwise false.
      */
-    private synchronized void addNameToCache(String name) {
-        validNames.add(name);
+    private void cacheStatus(String url,
+                             boolean isFound) {
+        resourceCache.put(url, isFound ? Boolean.TRUE : null);
     }
 
     private static final Log LOG =
@@ -7,16 +7,16 @@
 
 package org.janelia.it.ims.tmog.plugin;
 
-import loci.common.RandomAccessInputStream;
 import loci.common.RandomAccessOutputStream;
 import loci.formats.in.ZeissLSMReader;
-import loci.formats.tiff.IFD;
 import loci.formats.tiff.TiffIFDEntry;
 import loci.formats.tiff.TiffParser;
 import loci.formats.tiff.TiffSaver;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.janelia.it.ims.tmog.config.PluginConfiguration;
+import org.janelia.it.utils.LsmCoreMetaDataCache;
+import org.janelia.it.utils.TiffTagWriter;
 
 import java.io.BufferedReader;
 import java.io.File;
@@ -30,11 +30,20 @@ import java.util.Set;
 /**
  * This plug-in embeds an xml representation of each row's data fields into
  * the source LSM file.
+ * <p>
+ * Source files are tagged ahead of time by the task's row preparation
+ * stage (see {@link PreparingRowListener}), so tagging the next file
+ * overlaps the copy of the current one.  When a row is started, the
+ * file is only tagged again if the row's data (or the file) changed
+ * after preparation.  Rows that are prepared but never started
+ * (e.g. because the session was cancelled) keep their tags.  Tagging is
+ * idempotent, so those files are simply tagged again if they are
+ * renamed in a later session.
  *
  * @author Eric Trautman
  */
 public class LsmMetaDataPlugin
-        implements RowListener {
+        implements PreparingRowListener {
 
     /** Name of the root xml element for each row. */
     private String rootElement;
@@ -45,12 +54,34 @@ public class LsmMetaDataPlugin
      */
     private Map<String, PropertyTokenList> additionalData;
 
+    /** Writes (and later updates) the metadata tag in each file. */
+    private TiffTagWriter tagWriter;
+
+    /**
+     * Bounded map of source files to the meta data written for them
+     * during row preparation.  Entries are removed when the corresponding
+     * row starts.  Entries for rows that never start are eventually
+     * evicted (which at worst causes an extra write if the row is
+     * started later).
+     */
+    private final Map<File, PreparedMetaData> preparedMetaData;
+
     /**
      * Empty constructor required by
      * {@link org.janelia.it.ims.tmog.config.PluginFactory}.
      */
     public LsmMetaDataPlugin() {
         this.additionalData = new LinkedHashMap<String, PropertyTokenList>();
+        this.tagWriter = new TiffTagWriter(TIFF_JF_TAGGER_TAG,
+                                           TiffTagWriter.DEFAULT_PADDING);
+        this.preparedMetaData =
+                new LinkedHashMap<File, PreparedMetaData>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(
+                            Map.Entry<File, PreparedMetaData> eldest) {
+                        return size() > MAX_PREPARED_ENTRIES;
+                    }
+                };
     }
     
     /**
@@ -102,97 +133,108 @@ public class LsmMetaDataPlugin
         return row;
     }
 
-    protected PluginDataRow insertMetaData(PluginDataRow row)
+    /**
+     * Tags the row's source file before the row is started.
+     *
+     * @param  row  the row to prepare.
+     *
+     * @throws ExternalSystemException
+     *   if the file cannot be tagged.
+     */
+    public void prepareRow(PluginDataRow row)
             throws ExternalSystemException {
-
         if (row instanceof RenamePluginDataRow) {
+            final File file = ((RenamePluginDataRow) row).getFromFile();
+            final String metaData = getMetaData(row);
+            writeMetaData(file, metaData);
+            synchronized (preparedMetaData) {
+                preparedMetaData.put(file, new PreparedMetaData(file,
+                                                                metaData));
+            }
+        }
+    }
 
-            XmlStringBuilder xml = new XmlStringBuilder(rootElement);
-            xml.setRow(row, additionalData);
+    protected PluginDataRow insertMetaData(PluginDataRow row)
+            throws ExternalSystemException {
 
+        if (row instanceof RenamePluginDataRow) {
             final File file = ((RenamePluginDataRow) row).getFromFile();
-            final String fileName = file.getAbsolutePath();
-            RandomAccessInputStream in = null;
-            RandomAccessOutputStream out = null;
-            try {
-
-                TiffParser parser = new TiffParser(fileName);
-                final Boolean isLittleEndian = parser.checkHeader();
-                final boolean isBigTiff = parser.isBigTiff();
-                final long[] ifdOffsets = parser.getIFDOffsets();
-                final int firstIFDIndex = 0;
-                final long firstIFDOffset = ifdOffsets[firstIFDIndex];
-                final long secondIFDOffset = ifdOffsets[1];
-                IFD firstIFD = parser.getIFD(firstIFDOffset);
-
-                in = parser.getStream();
-
-                TiffSaver tiffSaver = new TiffSaver(fileName);
-                tiffSaver.setLittleEndian(isLittleEndian);
-                out = tiffSaver.getStream();
-                long endOfFile = out.length();
-
-                if (firstIFD.containsKey(TIFF_JF_TAGGER_TAG)) {
-
-                    tiffSaver.overwriteIFDValue(in,
-                                                firstIFDIndex,
-                                                TIFF_JF_TAGGER_TAG,
-                                                xml.toString());
-                    LOG.info("replaced LSM meta data for " + fileName);
-
-                } else {
-
-                    firstIFD.put(TIFF_JF_TAGGER_TAG, xml.toString());
-                    out.seek(endOfFile);
-
-                    tiffSaver.writeIFD(firstIFD, secondIFDOffset);
-
-                    if (isBigTiff || (endOfFile >= Integer.MAX_VALUE)) {
-                        LOG.warn(fileName + " has " + endOfFile +
-                                 " bytes, isBigTiff is " + isBigTiff +
-                                 ", leaving header offset alone so meta data " +
-                                 "will not be reachable via IFD traversal");
-                    } else {
-                        out.seek(4);
-                        out.writeInt((int) endOfFile);
-                    }
+            final String metaData = getMetaData(row);
+            final PreparedMetaData prepared;
+            synchronized (preparedMetaData) {
+                prepared = preparedMetaData.remove(file);
+            }
+            // skip the write if the file was already tagged
+            // with the same data during row preparation
+            if ((prepared == null) || (! prepared.isCurrent(file, metaData))) {
+                writeMetaData(file, metaData);
+            }
+        }
 
-                    LOG.info("added LSM meta data to " + fileName);
-                }
+        return row;
+    }
 
-            } catch (Exception e) {
-                throw new ExternalSystemException(
-                        "failed to insert meta data into " + fileName, e);
-            } finally {
-
-                if (in != null) {
-                    try {
-                        in.close();
-                    } catch (IOException e) {
-                        LOG.warn("failed to close input stream for " +
-                                 fileName,
-                                 e);
-                    }
-                }
+    private String getMetaData(PluginDataRow row) {
+        final XmlStringBuilder xml = new XmlStringBuilder(rootElement);
+        xml.setRow(row, additionalData);
+        return xml.toString();
+    }
 
-                if (out != null) {
-                    try {
-                        out.close();
-                    } catch (IOException e) {
-                        LOG.warn("failed to close output stream for " +
-                                 fileName,
-                                 e);
-                    }
-                }
-            }
+    /**
+     * Writes the specified meta data into the specified file.
+     * Tagging does not change a file's Zeiss data, so the file's
+     * cached core meta data is kept current for its new size and
+     * last modified time.
+     */
+    private void writeMetaData(File file,
+                               String metaData)
+            throws ExternalSystemException {
+        try {
+            final long length = file.length();
+            final long lastModified = file.lastModified();
+            final TiffTagWriter.Update update =
+                    tagWriter.write(file, metaData);
+            LsmCoreMetaDataCache.getSharedInstance().updateFileAttributes(
+                    file, length, lastModified);
+            LOG.info(update + " LSM meta data for " +
+                     file.getAbsolutePath());
+        } catch (Exception e) {
+            throw new ExternalSystemException(
+                    "failed to insert meta data into " +
+                    file.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Meta data written to a file during row preparation along with
+     * the file's size and last modified time after the write.
+     */
+    private static class PreparedMetaData {
+        private String metaData;
+        private long length;
+        private long lastModified;
+
+        private PreparedMetaData(File file,
+                                 String metaData) {
+            this.metaData = metaData;
+            this.length = file.length();
+            this.lastModified = file.lastModified();
         }
 
-        return row;
+        private boolean isCurrent(File file,
+                                  String metaData) {
+            return this.metaData.equals(metaData) &&
+                   (this.length == file.length()) &&
+                   (this.lastModified == file.lastModified());
+        }
     }
 
     /** The logger for this class. */
     private static final Log LOG = LogFactory.getLog(LsmMetaDataPlugin.class);
 
+    /** Maximum number of prepared meta data entries to retain. */
+    private static final int MAX_PREPARED_ENTRIES = 1000;
+
     /** Tag number reserved by Gene Myers for his tiff formatted files. */
     private static final int TIFF_JF_TAGGER_TAG = 36036;
 
@@ -204,12 +246,24 @@ public class LsmMetaDataPlugin
      * @return janelia metadata store in file or null if none can be found.
      */
     public static String readMetaData(String fileName) {
+        return readMetaData(fileName, false);
+    }
+
+    /**
+     * @param  fileName  name of tiff file to parse.
+     * @param  mapped    if true, read the file through a memory mapped handle.
+     *
+     * @return janelia metadata store in file or null if none can be found.
+     */
+    public static String readMetaData(String fileName,
+                                      boolean mapped) {
         String metaData = null;
         try {
-            final TiffParser parser = new TiffParser(fileName);
+            final TiffParser parser = new TiffParser(fileName, mapped);
             final TiffIFDEntry entry =
                     parser.getFirstIFDEntry(TIFF_JF_TAGGER_TAG);
-            metaData = String.valueOf(parser.getIFDValue(entry));
+            metaData = TiffTagWriter.trimPadding(
+                    String.valueOf(parser.getIFDValue(entry)));
         } catch (Exception e) {
             LOG.error("failed to retrieve Janelia metadata from " + fileName,
                       e);
@@ -224,9 +278,21 @@ public class LsmMetaDataPlugin
      *         otherwise false.
      */
     public static boolean hasZeissLsmDirectory(String fileName) {
+        return hasZeissLsmDirectory(fileName, false);
+    }
+
+    /**
+     * @param  fileName  name of tiff file to parse.
+     * @param  mapped    if true, read the file through a memory mapped handle.
+     *
+     * @return true if a Zeiss LSM IFD block exists in the file;
+     *         otherwise false.
+     */
+    public static boolean hasZeissLsmDirectory(String fileName,
+                                               boolean mapped) {
         boolean hasDirectory = false;
         try {
-            TiffParser parser = new TiffParser(fileName);
+            TiffParser parser = new TiffParser(fileName, mapped);
             parser.getFirstIFDEntry(TIFF_ZEISS_LSM_TAG);
             hasDirectory = true;
             LOG.info("found Zeiss LSM Tag in " + fileName);
@@ -296,10 +362,11 @@ public class LsmMetaDataPlugin
         return isConfirmed;
     }
 
-    private static void writeZeiss(String fileName) {
+    private static void writeZeiss(String fileName,
+                                   boolean mapped) {
         ZeissLSMReader zlr = new ZeissLSMReader();
         try {
-            zlr.initFile(fileName);
+            zlr.initFile(fileName, mapped);
             zlr.printAll();
         } catch (Exception e) {
             e.printStackTrace();
@@ -312,15 +379,17 @@ public class LsmMetaDataPlugin
         final String restore = "--restore";
         final String zeiss = "--zeiss";
         final String writeZeiss = "--writeZeiss";
+        final String mapped = "--mapped";
         final String usage =
                 "\n\nUSAGE: java " + LsmMetaDataPlugin.class.getName() + 
                 " [" + meta + "] [" + restore + "] [" + zeiss + "] [" +
-                writeZeiss + "] file [file ...]\n";
+                writeZeiss + "] [" + mapped + "] file [file ...]\n";
         
         boolean isMeta = false;
         boolean isRestore = false;
         boolean isZeiss = false;
         boolean isWriteZeiss = false;
+        boolean isMapped = false;
         Set<String> fileNames = new HashSet<String>();
         for (String value : args) {
             if (meta.equals(value)) {
@@ -331,6 +400,8 @@ public class LsmMetaDataPlugin
                 isZeiss = true;
             } else if (writeZeiss.equals(value)) {
                 isWriteZeiss = true;
+            } else if (mapped.equals(value)) {
+                isMapped = true;
             } else {
                 fileNames.add(value);
             }
@@ -341,15 +412,15 @@ public class LsmMetaDataPlugin
             for (String fileName : fileNames) {
 
                 if (isZeiss) {
-                    hasZeissLsmDirectory(fileName);
+                    hasZeissLsmDirectory(fileName, isMapped);
                 }
 
                 if (isWriteZeiss) {
-                    writeZeiss(fileName);
+                    writeZeiss(fileName, isMapped);
                 }
 
                 if (isMeta) {
-                    metaData = readMetaData(fileName);
+                    metaData = readMetaData(fileName, isMapped);
                     if (metaData != null) {
                         LOG.info("Janelia metadata for " + fileName +
                                  " is:\n" + metaData);
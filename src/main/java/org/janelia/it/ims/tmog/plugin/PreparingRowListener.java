@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package org.janelia.it.ims.tmog.plugin;
+
+/**
+ * This interface identifies row listeners that can do (typically I/O bound)
+ * start of row work ahead of time.  Tasks call {@link #prepareRow} for
+ * upcoming rows from a separate preparation thread while earlier rows
+ * are still being processed.
+ * <p>
+ * Preparation is only an optimization: the listener still receives the
+ * normal {@link RowListener.EventType#START_ROW} event for each row and
+ * must handle rows that were not (or not successfully) prepared.
+ * Since other listeners may change row data when the row is started,
+ * listeners should also verify that prepared work is still valid
+ * at that time.
+ * <p>
+ * Rows may be prepared and then never started (e.g. when the session
+ * is cancelled or another listener fails to start an earlier row),
+ * so any changes made during preparation (like tagging files) must be
+ * safe to leave in place and to repeat in a later session.
+ *
+ * NOTE that listener instances are shared across all sessions, so
+ * prepared state must be tracked per row (not per listener).
+ *
+ * @author agent
+ */
+public interface PreparingRowListener extends RowListener {
+
+    /**
+     * Prepares the specified row before it is started.
+     * This method is called from a task's preparation thread
+     * (in row order) and must not modify the row.
+     *
+     * @param  row  the row to prepare.
+     *
+     * @throws ExternalDataException
+     *   if a data error occurs during preparation.
+     * @throws ExternalSystemException
+     *   if a system error occurs during preparation.
+     */
+    public void prepareRow(PluginDataRow row)
+            throws ExternalDataException, ExternalSystemException;
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package org.janelia.it.ims.tmog.plugin;
+
+import org.apache.log4j.Logger;
+import org.janelia.it.ims.tmog.DataRow;
+import org.janelia.it.utils.BackgroundWorker;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This task applies a list of {@link RowUpdater} plug-ins to a list of
+ * data rows using a bounded pool of threads.  Rows are updated
+ * concurrently (so updaters must be thread safe) but the updaters for
+ * each row are always called in list order.
+ * <p>
+ * The index of each updated row is published so that listeners can
+ * refresh the view (in batches) on the event dispatch thread.
+ * Processing stops as soon as any row update fails: rows that have
+ * not been started are skipped and the first failure is available
+ * through {@link #getFailedRowIndex} and {@link #getFailureMessage}
+ * once the task is done.
+ *
+ * @author agent
+ */
+public class RowUpdateWorker
+        extends BackgroundWorker<Integer, Integer> {
+
+    /** Default number of update threads. */
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    private List<DataRow> rows;
+    private List<RowUpdater> updaters;
+    private int parallelism;
+    private AtomicBoolean isStopRequested;
+    private int failedRowIndex;
+    private String failureMessage;
+
+    /**
+     * Constructs a new worker.
+     *
+     * @param  rows         rows to update.
+     * @param  updaters     updaters to apply (in order) to each row.
+     * @param  parallelism  maximum number of rows to update concurrently.
+     */
+    public RowUpdateWorker(List<DataRow> rows,
+                           List<RowUpdater> updaters,
+                           int parallelism) {
+        this.rows = rows;
+        this.updaters = updaters;
+        this.parallelism = parallelism;
+        this.isStopRequested = new AtomicBoolean(false);
+        this.failedRowIndex = -1;
+        this.failureMessage = null;
+    }
+
+    /**
+     * @return index of the row whose update failed first
+     *         (or -1 if no updates failed).
+     */
+    public int getFailedRowIndex() {
+        return failedRowIndex;
+    }
+
+    /**
+     * @return message for the first failed update
+     *         (or null if no updates failed).
+     */
+    public String getFailureMessage() {
+        return failureMessage;
+    }
+
+    /**
+     * Executes the operation in a background thread.
+     *
+     * @return number of rows updated.
+     *
+     * @throws Exception
+     *   if any errors occur during processing.
+     */
+    protected Integer executeBackgroundOperation() throws Exception {
+
+        final long startTime = System.currentTimeMillis();
+        final int rowCount = rows.size();
+        int updatedCount = 0;
+
+        if (rowCount > 0) {
+
+            final ExecutorService executorService =
+                    Executors.newFixedThreadPool(Math.min(parallelism,
+                                                          rowCount));
+            final CompletionService<RowUpdate> completionService =
+                    new ExecutorCompletionService<RowUpdate>(executorService);
+            try {
+                for (int i = 0; i < rowCount; i++) {
+                    completionService.submit(new RowUpdateTask(i));
+                }
+
+                RowUpdate rowUpdate;
+                for (int i = 0; i < rowCount; i++) {
+                    rowUpdate = completionService.take().get();
+                    if (rowUpdate.failure != null) {
+                        if (failureMessage == null) {
+                            failedRowIndex = rowUpdate.rowIndex;
+                            failureMessage = rowUpdate.failure.getMessage();
+                        }
+                        isStopRequested.set(true);
+                    } else if (rowUpdate.isComplete) {
+                        updatedCount++;
+                        if (! isCancelled()) {
+                            publish(rowUpdate.rowIndex);
+                        }
+                    }
+                    if (isCancelled()) {
+                        isStopRequested.set(true);
+                    }
+                }
+            } finally {
+                // let in-flight updates finish so that rows are not
+                // changed after this task is done
+                isStopRequested.set(true);
+                executorService.shutdown();
+                if (! executorService.awaitTermination(1, TimeUnit.MINUTES)) {
+                    executorService.shutdownNow();
+                }
+            }
+        }
+
+        LOG.info("executeBackgroundOperation: updated " + updatedCount +
+                 " of " + rowCount + " rows in " +
+                 (System.currentTimeMillis() - startTime) + "ms");
+
+        return updatedCount;
+    }
+
+    /**
+     * Applies all updaters (in order) to one row unless a stop has
+     * been requested.
+     */
+    private class RowUpdateTask implements Callable<RowUpdate> {
+
+        private int rowIndex;
+
+        public RowUpdateTask(int rowIndex) {
+            this.rowIndex = rowIndex;
+        }
+
+        public RowUpdate call() throws Exception {
+            final RowUpdate rowUpdate = new RowUpdate(rowIndex);
+            final DataRow row = rows.get(rowIndex);
+            try {
+                for (RowUpdater updater : updaters) {
+                    if (isStopRequested.get()) {
+                        return rowUpdate;
+                    }
+                    updater.updateRow(new PluginDataRow(row));
+                }
+                rowUpdate.isComplete = true;
+            } catch (ExternalDataException e) {
+                rowUpdate.failure = e;
+                isStopRequested.set(true);
+                LOG.info("external update failed", e);
+            } catch (ExternalSystemException e) {
+                rowUpdate.failure = e;
+                isStopRequested.set(true);
+                LOG.error(e.getMessage(), e);
+            }
+            return rowUpdate;
+        }
+    }
+
+    /**
+     * Outcome of a single row update.
+     */
+    private static class RowUpdate {
+        private int rowIndex;
+        private boolean isComplete;
+        private Exception failure;
+
+        public RowUpdate(int rowIndex) {
+            this.rowIndex = rowIndex;
+            this.isComplete = false;
+            this.failure = null;
+        }
+    }
+
+    private static final Logger LOG = Logger.getLogger(RowUpdateWorker.class);
+}
@@ -10,6 +10,9 @@ package org.janelia.it.ims.tmog.plugin;
 /**
  * Interface for plug-ins that need to update data rows before
  * validation and normal task processing occurs.
+ * <p>
+ * Rows are updated concurrently (see {@link RowUpdateWorker}),
+ * so implementations must be thread safe.
  *
  * @author Eric Trautman
  */
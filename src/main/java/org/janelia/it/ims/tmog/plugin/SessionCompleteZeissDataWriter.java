@@ -8,11 +8,11 @@
 package org.janelia.it.ims.tmog.plugin;
 
 import loci.formats.CoreMetadata;
-import loci.formats.in.ZeissLSMReader;
 import org.apache.log4j.Logger;
 import org.janelia.it.ims.tmog.DataRow;
 import org.janelia.it.ims.tmog.config.PluginConfiguration;
 import org.janelia.it.ims.tmog.target.FileTarget;
+import org.janelia.it.utils.LsmCoreMetaDataCache;
 
 import java.io.File;
 import java.io.FileWriter;
@@ -211,7 +211,7 @@ public class SessionCompleteZeissDataWriter
             for (PluginDataRow row : successList) {
                 targetFile = row.getTargetFile();
                 if (targetFile.getName().endsWith(".lsm")) {
-                    zeissData = new ZeissData(targetFile);
+                    zeissData = new ZeissData(targetFile, getSourceFile(row));
                     if (zeissData.hasMatchingKeys()) {
                         directory = targetFile.getParentFile();
                         fileList = directoryToFileMap.get(directory);
@@ -233,6 +233,20 @@ public class SessionCompleteZeissDataWriter
         return directoryToFileMap;
     }
 
+    /**
+     * @param  row  processed row.
+     *
+     * @return the source file for renamed rows or null if the row's
+     *         target was not copied from another file.
+     */
+    private File getSourceFile(PluginDataRow row) {
+        File sourceFile = null;
+        if (row instanceof RenamePluginDataRow) {
+            sourceFile = ((RenamePluginDataRow) row).getFromFile();
+        }
+        return sourceFile;
+    }
+
     /**
      * Writes the Zeiss data to directory specific summary files.
      *
@@ -307,14 +321,20 @@ public class SessionCompleteZeissDataWriter
         private Set<String> matchingKeys;
         private CoreMetadata core;
 
-        public ZeissData(File lsmFile) {
+        public ZeissData(File lsmFile,
+                         File sourceFile) {
             this.lsmFile = lsmFile;
             this.matchingKeys = new HashSet<String>();
             try {
-                ZeissLSMReader zlr = new ZeissLSMReader();
+                final LsmCoreMetaDataCache cache =
+                        LsmCoreMetaDataCache.getSharedInstance();
                 Matcher m;
-                zlr.initFile(lsmFile.getAbsolutePath());
-                this.core = zlr.getCore();
+                if (sourceFile == null) {
+                    this.core = cache.getCoreMetadata(lsmFile);
+                } else {
+                    // reuse data loaded for the source before it was renamed
+                    this.core = cache.getCopyCoreMetadata(lsmFile, sourceFile);
+                }
                 if (keyPatternList.size() > 0) {
                     for (String key : this.core.seriesMetadata.keySet()) {
                         for (Pattern pattern : keyPatternList) {
@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package org.janelia.it.ims.tmog.plugin;
+
+/**
+ * This interface identifies session listeners that also want to receive
+ * the performance metrics collected by a session.
+ *
+ * @author agent
+ */
+public interface SessionMetricsListener extends SessionListener {
+
+    /**
+     * Notifies this listener of the performance metrics for a session
+     * that has ended.  This is called after {@link #endSession}.
+     *
+     * @param  metricsJson  JSON representation of the session metrics.
+     *
+     * @throws ExternalSystemException
+     *   if a non-recoverable system error occurs during processing.
+     */
+    public void endSessionMetrics(String metricsJson)
+            throws ExternalSystemException;
+}
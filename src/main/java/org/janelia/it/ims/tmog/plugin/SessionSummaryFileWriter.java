@@ -22,11 +22,13 @@ import java.util.List;
 /**
  * This class handles session events "published" by the transmogrifier tool.
  * It writes the summary message from the session into a file
- * so that the summary can be referenced later.
+ * so that the summary can be referenced later.  Session performance
+ * metrics (when available) are written to a separate JSON file in
+ * the same directory.
  *
  * @author Eric Trautman
  */
-public class SessionSummaryFileWriter implements SessionListener {
+public class SessionSummaryFileWriter implements SessionMetricsListener {
 
     /**
      * The logger for this class.
@@ -124,12 +126,48 @@ public class SessionSummaryFileWriter implements SessionListener {
         }
     }
 
+    /**
+     * Writes the session metrics to a JSON file.
+     *
+     * @param  metricsJson  JSON representation of the session metrics.
+     *
+     * @throws ExternalSystemException
+     *   if the metrics file cannot be written.
+     */
+    @Override
+    public void endSessionMetrics(String metricsJson)
+            throws ExternalSystemException {
+        File metricsFile = getSessionFile("-transfer-metrics.json");
+        FileWriter fileWriter = null;
+        try {
+            fileWriter = new FileWriter(metricsFile);
+            fileWriter.write(metricsJson);
+            closeWriter(fileWriter, metricsFile);
+        } catch (Throwable t) {
+            closeWriter(fileWriter, metricsFile);
+            throw new ExternalSystemException(
+                    "Failed to write session metrics file: " +
+                    metricsFile.getAbsolutePath(), t);
+        }
+    }
+
     /**
      * Utility to create a reasonably unique filename for the summary.
      *
      * @return a file for the transmogrifier session summary.
      */
     private File getSessionFile() {
+        return getSessionFile("-session-summary.log");
+    }
+
+    /**
+     * Utility to create a reasonably unique filename for session output.
+     *
+     * @param  suffix  suffix for the file name.
+     *
+     * @return a file for the transmogrifier session output.
+     */
+    private File getSessionFile(String suffix) {
         StringBuilder sb = new StringBuilder();
         sb.append(SDF.format(new Date()));
 
@@ -145,7 +183,7 @@ public class SessionSummaryFileWriter implements SessionListener {
         }
         sb.append(randomNumber);
 
-        sb.append("-session-summary.log");
+        sb.append(suffix);
 
         File parentDirectory = getDirectory();
         return new File(parentDirectory, sb.toString());
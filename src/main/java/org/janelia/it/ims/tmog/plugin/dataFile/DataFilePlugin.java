@@ -121,6 +121,9 @@ public class DataFilePlugin
                     " must have '.xml' or '.tsv' suffix.");
         }
 
+        // map items now so that concurrent row updates only read data
+        data.mapItems();
+
         LOG.info("init: mapped " + rowFieldNameToItemPropertyNameMap.size() +
                  " fields to data file item properties");
     }
@@ -20,6 +20,8 @@ import org.janelia.it.ims.tmog.plugin.ExternalSystemException;
 import org.janelia.it.ims.tmog.plugin.PluginDataRow;
 import org.janelia.it.ims.tmog.plugin.PropertyTokenList;
 import org.janelia.it.ims.tmog.plugin.RowUpdater;
+import org.janelia.it.utils.ExpiringCache;
+import org.janelia.it.utils.HttpTransport;
 import org.janelia.it.utils.StringUtil;
 
 import java.io.IOException;
@@ -50,12 +52,26 @@ public class DataResourcePlugin
     public static final String TEST_URL_PROPERTY_NAME = "plugin.test-url";
 
     /**
-     * Name of the property to use for overriding the default clear
-     * cache duration (60,000 milliseconds - 1 minute).
+     * Name of the property to use for overriding the default amount of
+     * time that fetched items remain cached (60,000 milliseconds - 1 minute).
      */
     public static final String CLEAR_CACHE_DURATION_PROPERTY_NAME =
             "plugin.clear-cache-duration";
 
+    /**
+     * Name of the property to use for overriding the default amount of
+     * time that missing items remain cached (10,000 milliseconds).
+     */
+    public static final String NEGATIVE_CACHE_DURATION_PROPERTY_NAME =
+            "plugin.negative-cache-duration";
+
+    /**
+     * Name of the property to use for overriding the default maximum
+     * number of cached items (10,000).
+     */
+    public static final String MAX_CACHE_SIZE_PROPERTY_NAME =
+            "plugin.max-cache-size";
+
     /**
      * Name of property that defines the root XPath for a data item
      * parsed from the HTTP response stream.
@@ -68,24 +84,23 @@ public class DataResourcePlugin
     /** Maps row fields to their XPath relative to the root XPath.  */
     private Map<String, String> rowFieldNameToXPathMap;
 
-    /** HTTP client for issuing requests. */
+    /** HTTP client (shared connection pool) for issuing requests. */
     private HttpClient httpClient;
 
-    /** Digester instance used to parse HTTP responses. */
-    private Digester digester;
+    /** Root XPath for parsing HTTP responses. */
+    private String rootXPath;
 
     /**
-     * The maximum amount of time (in milliseconds) between cache
-     * references before the cache should be cleared.  This is intended to
-     * keep the cache from getting stale.
+     * Cache of row derived URLs to parsed response data items
+     * (items that were not found are negative entries).
      */
-    private long clearCacheDuration;
+    private ExpiringCache<String, Item> urlToItemCache;
 
-    /** Time the cache was last referenced. */
-    private long lastCacheAccessTime;
-
-    /** Cache of row derived URLs to parsed response data items. */
-    private Map<String, Item> urlToItemCache;
+    /**
+     * URL derived for a row without any field values.
+     * No requests are made for this URL.
+     */
+    private String emptyUrl;
 
     /**
      * Empty constructor required by
@@ -93,11 +108,9 @@ public class DataResourcePlugin
      */
     @SuppressWarnings({"UnusedDeclaration"})
     public DataResourcePlugin() {
-        this.clearCacheDuration = 60 * 1000; // one minute
-        this.lastCacheAccessTime = System.currentTimeMillis();
         this.rowFieldNameToXPathMap = new HashMap<String, String>();
-        this.httpClient = new HttpClient();
-        this.urlToItemCache = new HashMap<String, Item>();
+        this.httpClient = HttpTransport.getSharedClient();
+        this.urlToItemCache = new ExpiringCache<String, Item>();
     }
 
     /**
@@ -118,6 +131,9 @@ public class DataResourcePlugin
         String serviceUrl = null;
         String testUrl = null;
         String rootXPath = null;
+        long positiveTtl = ExpiringCache.DEFAULT_POSITIVE_TTL;
+        long negativeTtl = ExpiringCache.DEFAULT_NEGATIVE_TTL;
+        int maxCacheSize = ExpiringCache.DEFAULT_MAX_SIZE;
 
         String value;
         for (String key : props.keySet()) {
@@ -136,7 +152,15 @@ public class DataResourcePlugin
 
             } else if (CLEAR_CACHE_DURATION_PROPERTY_NAME.equals(key)) {
 
-                clearCacheDuration = Long.parseLong(value);
+                positiveTtl = Long.parseLong(value);
+
+            } else if (NEGATIVE_CACHE_DURATION_PROPERTY_NAME.equals(key)) {
+
+                negativeTtl = Long.parseLong(value);
+
+            } else if (MAX_CACHE_SIZE_PROPERTY_NAME.equals(key)) {
+
+                maxCacheSize = Integer.parseInt(value);
 
             } else if (ROOT_XPATH_PROPERTY_NAME.equals(key)) {
 
@@ -158,10 +182,13 @@ public class DataResourcePlugin
                     "At least one field to XPath mapping must be specified.");
         }
 
-        setDigester(rootXPath);
+        this.rootXPath = rootXPath;
+
+        urlToItemCache = new ExpiringCache<String, Item>(positiveTtl,
+                                                         negativeTtl,
+                                                         maxCacheSize);
+        setEmptyUrl();
 
-        addEmptyItemToCache();
-        
         if (testUrl != null) {
             final Item testItem = fetchItem(testUrl);
             if (testItem == null) {
@@ -215,12 +242,13 @@ public class DataResourcePlugin
         Item item = null;
 
         final String url = getUrlForRow(row);
-        if (url != null) {
-            clearCacheIfStale();
-            item = urlToItemCache.get(url);
-            if ((item == null) && (! urlToItemCache.containsKey(url))) {
+        if ((url != null) && (! url.equals(emptyUrl))) {
+            final ExpiringCache.Entry<Item> entry = urlToItemCache.get(url);
+            if (entry == null) {
                 item = fetchItem(url);
-                cacheItem(url, item);
+                urlToItemCache.put(url, item);
+            } else {
+                item = entry.getValue();
             }
         }
 
@@ -245,15 +273,10 @@ public class DataResourcePlugin
         return rowFieldNameToXPathMap;
     }
 
-    protected synchronized void removeItem(String url) {
+    protected void removeItem(String url) {
         urlToItemCache.remove(url);
     }
 
-    private synchronized void cacheItem(String url,
-                                        Item item) {
-        urlToItemCache.put(url, item);
-    }
-
     private void checkRequiredProperty(String name,
                                        String value)
             throws ExternalSystemException {
@@ -264,9 +287,14 @@ public class DataResourcePlugin
         }
     }
 
-    private void setDigester(String rootXPath) {
+    /**
+     * @return a new digester for parsing an HTTP response
+     *         (digesters are not thread safe, so rows that are updated
+     *         concurrently each need their own instance).
+     */
+    private Digester createDigester() {
 
-        digester = new Digester();
+        final Digester digester = new Digester();
         digester.setValidating(false);
 
         digester.addObjectCreate(rootXPath, Item.class);
@@ -280,30 +308,22 @@ public class DataResourcePlugin
             digester.addCallParam(path, 1);
             digester.addSetNext(path, "addProperty");
         }
-    }
-
-    private synchronized void clearCacheIfStale() {
-
-        if ((System.currentTimeMillis() - lastCacheAccessTime) > clearCacheDuration) {
-            LOG.info("clearing cache containing " +
-                     urlToItemCache.size() + " items");
-            urlToItemCache.clear();
-            addEmptyItemToCache();
-        }
 
-        lastCacheAccessTime = System.currentTimeMillis();
+        return digester;
     }
 
     /**
-     * Adds empty URL to cache so that we don't waste time making a request
-     * for it later.
+     * Saves the URL derived for an empty row so that we don't waste
+     * time making a request for it later.
      */
-    private void addEmptyItemToCache() {
+    private void setEmptyUrl() {
         final Map<String, DataField> emptyMap =
                 new HashMap<String, DataField>();
         final List<String> urlList = urlTokens.deriveValues(emptyMap, true);
         if (urlList.size() > 0) {
-            urlToItemCache.put(urlList.get(0), null);
+            emptyUrl = urlList.get(0);
+        } else {
+            emptyUrl = null;
         }
     }
 
@@ -321,7 +341,7 @@ public class DataResourcePlugin
             LOG.info("fetchItem: " + responseCode + " returned for " + url);
             if (responseCode == HttpURLConnection.HTTP_OK) {
                 responseStream = method.getResponseBodyAsStream();
-                item = (Item) digester.parse(responseStream);
+                item = (Item) createDigester().parse(responseStream);
             } else if (responseCode == HttpURLConnection.HTTP_NOT_FOUND) {
                 item = null;
             } else {
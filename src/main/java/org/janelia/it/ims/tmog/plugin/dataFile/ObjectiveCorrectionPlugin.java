@@ -265,12 +265,7 @@ public class ObjectiveCorrectionPlugin
                                        "NOTE: If you do not correct the " + objectiveColumnName +
                                        " value, you will need to change the " + dataSetColumnName +
                                        " and/or " + tileColumnName + " values for the file.";
-                    final int response =
-                            NarrowOptionPane.showConfirmDialog(null,
-                                                               msg,
-                                                               "Correct Invalid Objective?",
-                                                               JOptionPane.YES_NO_OPTION);
-                    if (response == JOptionPane.NO_OPTION) {
+                    if (! isFixConfirmed(msg)) {
                         fixedValue = recordedValue;
                     }
 
@@ -293,6 +288,21 @@ public class ObjectiveCorrectionPlugin
         return fixedValue;
     }
 
+    /**
+     * This method is synchronized so that rows updated concurrently
+     * ask for confirmation one at a time.
+     *
+     * @return true if the user confirmed the fix; otherwise false.
+     */
+    private synchronized boolean isFixConfirmed(String msg) {
+        final int response =
+                NarrowOptionPane.showConfirmDialog(null,
+                                                   msg,
+                                                   "Correct Invalid Objective?",
+                                                   JOptionPane.YES_NO_OPTION);
+        return response != JOptionPane.NO_OPTION;
+    }
+
     private String getFixedValue(String dataSet,
                                  String tile,
                                  String recordedCoreObjective) {
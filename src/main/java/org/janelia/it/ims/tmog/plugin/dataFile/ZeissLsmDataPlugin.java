@@ -8,7 +8,6 @@
 package org.janelia.it.ims.tmog.plugin.dataFile;
 
 import loci.formats.CoreMetadata;
-import loci.formats.in.ZeissLSMReader;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.janelia.it.ims.tmog.config.PluginConfiguration;
@@ -16,6 +15,7 @@ import org.janelia.it.ims.tmog.plugin.ExternalDataException;
 import org.janelia.it.ims.tmog.plugin.ExternalSystemException;
 import org.janelia.it.ims.tmog.plugin.PluginDataRow;
 import org.janelia.it.ims.tmog.plugin.RowUpdater;
+import org.janelia.it.utils.LsmCoreMetaDataCache;
 import org.janelia.it.utils.StringUtil;
 
 import java.io.File;
@@ -124,17 +124,10 @@ public class ZeissLsmDataPlugin
 
         final File file = row.getTargetFile();
         if (file != null) {
-            try {
-                ZeissLSMReader zlr = new ZeissLSMReader();
-                zlr.initFile(file.getAbsolutePath());
-                CoreMetadata data = zlr.getCore();
-                if (data != null) {
-                    updateRowWithZeissData(row, data);
-                }
-            } catch (Exception e) {
-                LOG.error("failed to load Zeiss data from " +
-                          file.getAbsolutePath(), e);
-            }
+            // data is usually prefetched when the targets are located
+            final LsmCoreMetaDataCache cache =
+                    LsmCoreMetaDataCache.getSharedInstance();
+            updateRowWithZeissData(row, cache.getCoreMetadata(file));
         }
 
         return row;
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package org.janelia.it.ims.tmog.target;
+
+import org.apache.log4j.Logger;
+import org.janelia.it.utils.BackgroundWorker;
+import org.janelia.it.utils.LsmCoreMetaDataCache;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * This task loads LSM core meta data for a list of targets into
+ * the shared {@link LsmCoreMetaDataCache} using a bounded pool of
+ * parser threads.  Targets are submitted in list order so that data
+ * for the first rows of a view is usually ready first.
+ * <p>
+ * Consumers of the cache that request a file while it is being
+ * prefetched wait for the prefetch result instead of parsing the
+ * file again.
+ *
+ * @author agent
+ */
+public class LsmMetaDataPrefetchWorker
+        extends BackgroundWorker<Integer, String> {
+
+    /** Default number of parser threads. */
+    public static final int DEFAULT_PARALLELISM =
+            Math.min(4, Math.max(2, Runtime.getRuntime().availableProcessors()));
+
+    private List<File> lsmFiles;
+    private LsmCoreMetaDataCache cache;
+    private int parallelism;
+
+    /**
+     * Constructs a new worker.
+     *
+     * @param  targets      targets to prefetch (non-LSM targets are ignored).
+     * @param  cache        cache to populate.
+     * @param  parallelism  number of parser threads.
+     */
+    public LsmMetaDataPrefetchWorker(List<? extends Target> targets,
+                                     LsmCoreMetaDataCache cache,
+                                     int parallelism) {
+        this.lsmFiles = getLsmFiles(targets);
+        this.cache = cache;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @return number of LSM files to be prefetched.
+     */
+    public int getFileCount() {
+        return lsmFiles.size();
+    }
+
+    /**
+     * Executes the operation in a background thread.
+     *
+     * @return number of files loaded.
+     *
+     * @throws Exception
+     *   if any errors occur during processing.
+     */
+    protected Integer executeBackgroundOperation() throws Exception {
+
+        final long startTime = System.currentTimeMillis();
+        final int fileCount = lsmFiles.size();
+        int loadedCount = 0;
+
+        if (fileCount > 0) {
+
+            final int poolSize = Math.min(parallelism, fileCount);
+            final ExecutorService executorService =
+                    Executors.newFixedThreadPool(poolSize);
+            final CompletionService<File> completionService =
+                    new ExecutorCompletionService<File>(executorService);
+            try {
+                // only keep one parse queued per thread so that
+                // nothing new is started once the worker is cancelled
+                int submittedCount = 0;
+                while (submittedCount < poolSize) {
+                    submit(completionService, lsmFiles.get(submittedCount));
+                    submittedCount++;
+                }
+
+                for (int i = 0; i < fileCount; i++) {
+                    if (isCancelled()) {
+                        break;
+                    }
+                    completionService.take();
+                    loadedCount++;
+                    updateStatus("loaded LSM meta data for " + loadedCount +
+                                 " of " + fileCount + " files");
+                    if ((submittedCount < fileCount) && (! isCancelled())) {
+                        submit(completionService,
+                               lsmFiles.get(submittedCount));
+                        submittedCount++;
+                    }
+                }
+            } finally {
+                // let running parses finish, interrupting them closes
+                // their file channels and would fail their loads
+                executorService.shutdown();
+            }
+        }
+
+        LOG.info("executeBackgroundOperation: loaded meta data for " +
+                 loadedCount + " of " + fileCount + " LSM files in " +
+                 (System.currentTimeMillis() - startTime) + "ms");
+
+        return loadedCount;
+    }
+
+    private void submit(CompletionService<File> completionService,
+                        final File lsmFile) {
+        completionService.submit(new Callable<File>() {
+            public File call() throws Exception {
+                if (! isCancelled()) {
+                    cache.getCoreMetadata(lsmFile);
+                }
+                return lsmFile;
+            }
+        });
+    }
+
+    private void updateStatus(String message) {
+        if (! isCancelled()) {
+            publish(message);
+        }
+    }
+
+    private static List<File> getLsmFiles(List<? extends Target> targets) {
+        final List<File> lsmFiles = new ArrayList<File>();
+        File file;
+        for (Target target : targets) {
+            if (target instanceof FileTarget) {
+                file = ((FileTarget) target).getFile();
+                if ((file != null) && file.getName().endsWith(".lsm")) {
+                    lsmFiles.add(file);
+                }
+            }
+        }
+        return lsmFiles;
+    }
+
+    private static final Logger LOG =
+            Logger.getLogger(LsmMetaDataPrefetchWorker.class);
+}
@@ -18,11 +18,16 @@ import org.janelia.it.ims.tmog.target.Target;
 import org.janelia.it.utils.filexfer.FileCopyFailedException;
 import org.janelia.it.utils.filexfer.FileTransferUtil;
 import org.janelia.it.utils.filexfer.SafeFileTransfer;
+import org.janelia.it.utils.filexfer.TransferMetrics;
 
 import java.io.File;
 import java.io.IOException;
 import java.security.NoSuchAlgorithmException;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 
 /**
  * This class supports the execution of the copy and rename process.
@@ -47,9 +52,10 @@ public class RenameTask extends SimpleTask {
     private FileTransferConfiguration fileTransferConfig;
 
     /**
-     * Utility for nio file transfers.
+     * Utility for nio file transfers.  Utility instances are not thread safe,
+     * so each thread that processes rows gets its own instance.
      */
-    private FileTransferUtil fileTransferUtil;
+    private ThreadLocal<FileTransferUtil> fileTransferUtil;
     
     /**
      * The target directory for all copied files when the output configuration
@@ -70,8 +76,17 @@ public class RenameTask extends SimpleTask {
     /** The number of "chunks" that have already been processed. */
     private long chunksProcessed;
 
-    /** The current plugin data row being processed. */
-    private RenamePluginDataRow currentRow;
+    /**
+     * The plugin data rows currently being processed
+     * (more than one when transfers are concurrent).
+     */
+    private Map<DataRow, RenamePluginDataRow> currentRows;
+
+    /**
+     * Transfer performance metrics for this session
+     * (destinations are grouped by transfer scheduler mount).
+     */
+    private TransferMetrics sessionMetrics;
 
     /**
      * Constructs a new task.
@@ -91,14 +106,12 @@ public class RenameTask extends SimpleTask {
         this.outputDirConfig = outputDirConfig;
 
         this.fileTransferConfig = fileTransferConfig;
-        try {
-            this.fileTransferUtil =
-                    new FileTransferUtil(fileTransferConfig.getBufferSize(),
-                                         fileTransferConfig.getDigestAlgorithm());
-        } catch (NoSuchAlgorithmException e) {
-            LOG.error("failed to construct file transfer utility from config " +
-                      fileTransferConfig, e);
-        }
+        this.fileTransferUtil = new ThreadLocal<FileTransferUtil>() {
+            @Override
+            protected FileTransferUtil initialValue() {
+                return buildFileTransferUtil();
+            }
+        };
 
         this.sessionOutputDirectory = new File(sessionOutputDirectoryName);
 
@@ -133,7 +146,28 @@ public class RenameTask extends SimpleTask {
         }
 
         this.chunksProcessed = 0;
-        this.currentRow = null;
+        this.currentRows = new ConcurrentHashMap<DataRow, RenamePluginDataRow>();
+        this.sessionMetrics = new TransferMetrics(null) {
+            @Override
+            protected String getDestination(File toFile) {
+                return TransferScheduler.getInstance().getMountKey(
+                        toFile.getAbsoluteFile().getParentFile());
+            }
+        };
+    }
+
+    /**
+     * @param  projectName  name of the project for this session's metrics.
+     */
+    public void setProjectName(String projectName) {
+        sessionMetrics.setProject(projectName);
+    }
+
+    /**
+     * @return the transfer performance metrics for this session.
+     */
+    protected TransferMetrics getSessionMetrics() {
+        return sessionMetrics;
     }
 
     /**
@@ -153,9 +187,11 @@ public class RenameTask extends SimpleTask {
                                                    modelRow.getFields()));
         }
 
-        currentRow =  new RenamePluginDataRow(rowFile,
-                                              modelRow,
-                                              toDirectory);
+        final RenamePluginDataRow currentRow =
+                new RenamePluginDataRow(rowFile,
+                                        modelRow,
+                                        toDirectory);
+        currentRows.put(modelRow, currentRow);
         return currentRow;
     }
 
@@ -171,6 +207,7 @@ public class RenameTask extends SimpleTask {
                                                int totalRowsToProcess,
                                                DataRow modelRow) {
 
+        final RenamePluginDataRow currentRow = currentRows.get(modelRow);
         File fromFile = currentRow.getFromFile();
         File toFile = currentRow.getRenamedFile();
 
@@ -194,6 +231,14 @@ public class RenameTask extends SimpleTask {
                                     sb.toString());
     }
 
+    /**
+     * @return the configured number of concurrent file transfers.
+     */
+    @Override
+    protected int getRowProcessingConcurrency() {
+        return fileTransferConfig.getTransferConcurrency();
+    }
+
     /**
      * This method renames all files in the main view table model.
      *
@@ -205,6 +250,7 @@ public class RenameTask extends SimpleTask {
     protected boolean processRow(DataRow modelRow) {
 
         boolean renameSuccessful = false;
+        final RenamePluginDataRow currentRow = currentRows.get(modelRow);
         File rowFile = currentRow.getFromFile();
         File renamedFile = currentRow.getRenamedFile();
         String errorMsg;
@@ -263,6 +309,7 @@ public class RenameTask extends SimpleTask {
     protected void cleanupRow(DataRow modelRow,
                               boolean isSuccessful) {
 
+        final RenamePluginDataRow currentRow = currentRows.remove(modelRow);
         final File rowFile = currentRow.getFromFile();
         final File renamedFile = currentRow.getRenamedFile();
 
@@ -278,8 +325,6 @@ public class RenameTask extends SimpleTask {
                      renamedFile,
                      isSuccessful,
                      currentRow.isOverwriteRequiredForRename());
-
-        currentRow = null;
     }
 
     protected void cleanupFiles(File rowFile,
@@ -320,22 +365,69 @@ public class RenameTask extends SimpleTask {
         appendToSummary("\n");
     }
 
-    protected void transferFile(File rowFile,
-                                File renamedFile)
+    protected void transferFile(final File rowFile,
+                                final File renamedFile)
             throws IOException, FileCopyFailedException {
-        if (fileTransferConfig.isNioRequired() &&
-            (fileTransferUtil != null)) {
-
-            fileTransferUtil.copyAndValidate(
-                    rowFile,
-                    renamedFile,
-                    fileTransferConfig.isValidationRequired());
-
-        } else {
 
-            SafeFileTransfer.copy(rowFile, renamedFile, false);
+        // transfer utilities are thread local, so look this one up
+        // before the transfer is handed to a scheduler thread
+        final FileTransferUtil util = fileTransferUtil.get();
+        final boolean useUtil = fileTransferConfig.isNioRequired() &&
+                                (util != null);
+        final TransferScheduler scheduler = TransferScheduler.getInstance();
+        final File toDirectory = renamedFile.getAbsoluteFile().getParentFile();
+        // directory trees are copied with several files in flight, so
+        // keep them within the mount's concurrency limit
+        final int maxParallelism = scheduler.getConcurrency(toDirectory);
+        try {
+            scheduler.runTransfer(
+                    toDirectory,
+                    rowFile.length(),
+                    new Callable<Void>() {
+                        @Override
+                        public Void call() throws Exception {
+                            if (useUtil) {
+                                util.copyAndValidate(
+                                        rowFile,
+                                        renamedFile,
+                                        fileTransferConfig.isValidationRequired());
+                            } else {
+                                SafeFileTransfer.copy(rowFile,
+                                                      renamedFile,
+                                                      false,
+                                                      sessionMetrics,
+                                                      maxParallelism);
+                            }
+                            return null;
+                        }
+                    });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while copying " +
+                                  rowFile.getAbsolutePath(), e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof FileCopyFailedException) {
+                throw (FileCopyFailedException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("failed to copy " +
+                                  rowFile.getAbsolutePath(), cause);
+        }
+    }
 
+    /**
+     * @return a JSON representation of this session's transfer metrics
+     *         or null if no transfers were measured.
+     */
+    @Override
+    protected String getSessionMetricsJson() {
+        String json = null;
+        if (! sessionMetrics.isEmpty()) {
+            json = sessionMetrics.toJson();
         }
+        return json;
     }
 
     protected void deleteFile(File file,
@@ -358,6 +450,27 @@ public class RenameTask extends SimpleTask {
         return "Moved and renamed the following files from ";
     }
 
+    /**
+     * @return a new file transfer utility based upon this task's
+     *         configuration or null if the utility cannot be constructed.
+     */
+    private FileTransferUtil buildFileTransferUtil() {
+        FileTransferUtil util = null;
+        try {
+            util = new FileTransferUtil(fileTransferConfig.getBufferSize(),
+                                        fileTransferConfig.getDigestAlgorithm());
+            util.setCopyMode(fileTransferConfig.getCopyMode());
+            util.setValidationMode(fileTransferConfig.getValidationMode(),
+                                   fileTransferConfig.getValidationSampleCount());
+            util.setResumable(fileTransferConfig.isResumable());
+            util.setMetrics(sessionMetrics);
+        } catch (NoSuchAlgorithmException e) {
+            LOG.error("failed to construct file transfer utility from config " +
+                      fileTransferConfig, e);
+        }
+        return util;
+    }
+
     private File getTargetFile(DataRow row) {
         Target target = row.getTarget();
         return (File) target.getInstance();
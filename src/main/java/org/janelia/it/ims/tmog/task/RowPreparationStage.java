@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package org.janelia.it.ims.tmog.task;
+
+import org.apache.log4j.Logger;
+import org.janelia.it.ims.tmog.DataRow;
+import org.janelia.it.ims.tmog.plugin.PluginDataRow;
+import org.janelia.it.ims.tmog.plugin.PreparingRowListener;
+import org.janelia.it.utils.LoggingUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Prepares the plug-in data rows for a task session on a dedicated thread
+ * so that preparation (e.g. tagging a row's source file) for upcoming rows
+ * overlaps the processing (e.g. copy) of earlier rows.
+ * <p>
+ * Rows are prepared in session order and at most a fixed number of rows
+ * (the look-ahead) are prepared beyond the last row retrieved for
+ * processing.  Preparation failures are logged and otherwise ignored,
+ * since listeners handle unprepared rows when the rows are started.
+ *
+ * @author agent
+ */
+class RowPreparationStage {
+
+    private SimpleTask task;
+    private List<DataRow> modelRows;
+    private List<PreparingRowListener> listeners;
+    private int lookAhead;
+    private ExecutorService executor;
+    private List<Future<PluginDataRow>> preparedRows;
+
+    /**
+     * Constructs a new stage.
+     *
+     * @param  task       task that creates plug-in data rows.
+     * @param  modelRows  all rows for the session (in processing order).
+     * @param  listeners  listeners that prepare each row.
+     * @param  lookAhead  maximum number of rows to prepare beyond the
+     *                    last row retrieved for processing.
+     */
+    RowPreparationStage(SimpleTask task,
+                        List<DataRow> modelRows,
+                        List<PreparingRowListener> listeners,
+                        int lookAhead) {
+        this.task = task;
+        this.modelRows = modelRows;
+        this.listeners = listeners;
+        this.lookAhead = Math.max(1, lookAhead);
+        this.executor = Executors.newSingleThreadExecutor();
+        this.preparedRows =
+                new ArrayList<Future<PluginDataRow>>(modelRows.size());
+    }
+
+    /**
+     * Starts preparation of the first rows.
+     */
+    void start() {
+        submitThrough(lookAhead - 1);
+    }
+
+    /**
+     * Waits for the specified row to be prepared and queues
+     * preparation of the next row within the look-ahead window.
+     *
+     * @param  rowIndex  index of the row to retrieve.
+     *
+     * @return the prepared plug-in data row.
+     */
+    PluginDataRow getPreparedRow(int rowIndex) {
+
+        submitThrough(rowIndex + lookAhead);
+
+        final DataRow modelRow = modelRows.get(rowIndex);
+        PluginDataRow pluginDataRow = null;
+        try {
+            pluginDataRow = preparedRows.get(rowIndex).get();
+        } catch (ExecutionException e) {
+            LOG.warn("failed to prepare row " + rowIndex, e.getCause());
+        } catch (InterruptedException e) {
+            LOG.warn("interrupted while waiting for preparation of row " +
+                     rowIndex, e);
+            Thread.currentThread().interrupt();
+        }
+
+        if (pluginDataRow == null) {
+            pluginDataRow = task.getPluginDataRow(modelRow);
+        }
+
+        return pluginDataRow;
+    }
+
+    /**
+     * Stops the stage.  Preparation that has already started is allowed
+     * to finish (so that files are not left partially updated) but
+     * queued preparation is abandoned.
+     */
+    void shutdown() {
+        for (Future<PluginDataRow> preparedRow : preparedRows) {
+            preparedRow.cancel(false);
+        }
+        executor.shutdown();
+    }
+
+    private void submitThrough(int lastRowIndex) {
+        final int stopIndex = Math.min(lastRowIndex + 1, modelRows.size());
+        for (int i = preparedRows.size(); i < stopIndex; i++) {
+            final DataRow modelRow = modelRows.get(i);
+            preparedRows.add(executor.submit(new Callable<PluginDataRow>() {
+                @Override
+                public PluginDataRow call() throws Exception {
+                    LoggingUtils.setLoggingContext();
+                    return prepareRow(modelRow);
+                }
+            }));
+        }
+    }
+
+    private PluginDataRow prepareRow(DataRow modelRow) {
+        final PluginDataRow pluginDataRow = task.getPluginDataRow(modelRow);
+        for (PreparingRowListener listener : listeners) {
+            try {
+                listener.prepareRow(pluginDataRow);
+            } catch (Exception e) {
+                LOG.warn("failed to prepare " + pluginDataRow +
+                         ", row will be handled when it is started", e);
+            }
+        }
+        return pluginDataRow;
+    }
+
+    private static final Logger LOG =
+            Logger.getLogger(RowPreparationStage.class);
+}
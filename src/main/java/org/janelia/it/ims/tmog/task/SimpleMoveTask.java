@@ -12,6 +12,7 @@ import org.janelia.it.ims.tmog.DataTableModel;
 import org.janelia.it.ims.tmog.config.FileTransferConfiguration;
 import org.janelia.it.ims.tmog.config.output.OutputDirectoryConfiguration;
 import org.janelia.it.utils.filexfer.FileCopyFailedException;
+import org.janelia.it.utils.filexfer.FileTransferStats;
 
 import java.io.File;
 import java.io.IOException;
@@ -67,8 +68,15 @@ public class SimpleMoveTask
             parent.mkdirs();
         }
 
+        final long bytes = rowFile.length();
+        final long startTime = System.currentTimeMillis();
         final boolean renameSucceeded = rowFile.renameTo(renamedFile);
         if (renameSucceeded) {
+            getSessionMetrics().recordMove(
+                    renamedFile,
+                    new FileTransferStats("move",
+                                          bytes,
+                                          System.currentTimeMillis() - startTime));
             handleSuccessfulMove(rowFile, renamedFile);
         } else {
             throw new IOException("failed to move " + fromFileToFile);
@@ -13,14 +13,23 @@ import org.janelia.it.ims.tmog.DataTableModel;
 import org.janelia.it.ims.tmog.plugin.ExternalDataException;
 import org.janelia.it.ims.tmog.plugin.ExternalSystemException;
 import org.janelia.it.ims.tmog.plugin.PluginDataRow;
+import org.janelia.it.ims.tmog.plugin.PreparingRowListener;
 import org.janelia.it.ims.tmog.plugin.RowListener;
 import org.janelia.it.ims.tmog.plugin.SessionListener;
+import org.janelia.it.ims.tmog.plugin.SessionMetricsListener;
 import org.janelia.it.ims.tmog.target.Target;
 import org.janelia.it.utils.LoggingUtils;
 import org.jdesktop.swingworker.SwingWorker;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * This class provides the core methods to support background execution of a
@@ -33,6 +42,12 @@ public class SimpleTask extends SwingWorker<Void, TaskProgressInfo> implements T
     /** The logger for this class. */
     private static final Logger LOG = Logger.getLogger(SimpleTask.class);
 
+    /**
+     * Default number of rows prepared ahead of the rows being processed
+     * (see {@link #getRowPreparationLookAhead}).
+     */
+    public static final int DEFAULT_ROW_PREPARATION_LOOK_AHEAD = 2;
+
     /** The data model for this task. */
     private DataTableModel model;
 
@@ -48,7 +63,19 @@ public class SimpleTask extends SwingWorker<Void, TaskProgressInfo> implements T
     /** List of listeners registered for notification of session events. */
     private List<SessionListener> sessionListenerList;
 
-    private boolean isSessionCancelled;
+    /**
+     * Summary for the row being processed by the current thread
+     * (only set for worker threads during concurrent row processing).
+     */
+    private ThreadLocal<StringBuilder> rowSummary;
+
+    /**
+     * Stage that prepares rows ahead of processing
+     * (null if no registered row listener prepares rows).
+     */
+    private RowPreparationStage preparationStage;
+
+    private volatile boolean isSessionCancelled;
 
     /**
      * Constructs a new task.
@@ -61,6 +88,7 @@ public class SimpleTask extends SwingWorker<Void, TaskProgressInfo> implements T
         this.rowListenerList = new ArrayList<RowListener>();
         this.sessionListenerList = new ArrayList<SessionListener>();
         this.taskSummary = new StringBuilder();
+        this.rowSummary = new ThreadLocal<StringBuilder>();
     }
 
     /**
@@ -84,7 +112,7 @@ public class SimpleTask extends SwingWorker<Void, TaskProgressInfo> implements T
      * @param  o  object to append.
      */
     protected void appendToSummary(Object o) {
-        taskSummary.append(o);
+        getSummary().append(o);
     }
 
     /**
@@ -100,9 +128,10 @@ public class SimpleTask extends SwingWorker<Void, TaskProgressInfo> implements T
             original = cause;
             cause = original.getCause();
         }
-        taskSummary.append("ERROR: ");
-        taskSummary.append(original.getMessage());
-        taskSummary.append('\n');
+        final StringBuilder summary = getSummary();
+        summary.append("ERROR: ");
+        summary.append(original.getMessage());
+        summary.append('\n');
     }
 
     /**
@@ -225,10 +254,50 @@ public class SimpleTask extends SwingWorker<Void, TaskProgressInfo> implements T
                                     sb.toString());
     }
 
+    /**
+     * This method returns the maximum number of rows whose core processing
+     * (see {@link #processRow}) may run at the same time.  The default
+     * implementation returns 1 (sequential processing).  Sub-classes with
+     * thread safe {@link #processRow} implementations can override it
+     * to enable concurrent processing.
+     *
+     * @return maximum number of rows to process concurrently.
+     */
+    protected int getRowProcessingConcurrency() {
+        return 1;
+    }
+
+    /**
+     * This method returns the maximum number of rows that
+     * {@link PreparingRowListener} instances may prepare beyond the last
+     * row started.  Preparation runs on its own thread, so (for example)
+     * the source file for the next row can be tagged while the current
+     * row is being copied.
+     *
+     * @return maximum number of rows to prepare ahead of time.
+     */
+    protected int getRowPreparationLookAhead() {
+        return DEFAULT_ROW_PREPARATION_LOOK_AHEAD;
+    }
+
+    /**
+     * @return a JSON representation of the performance metrics collected
+     *         during this session or null if no metrics were collected.
+     *         The default implementation returns null.
+     */
+    protected String getSessionMetricsJson() {
+        return null;
+    }
+
     /**
      * This method performs the core task process for the specified row.
      * It's default implementation here does nothing, but can be overriden
      * as needed.
+     * <p>
+     * When {@link #getRowProcessingConcurrency} is greater than 1, this
+     * method is called from a worker thread and may run at the same time
+     * as the processing of other rows.
+     * </p>
      *
      * @param  modelRow            the current row being processed.
      *
@@ -304,6 +373,43 @@ public class SimpleTask extends SwingWorker<Void, TaskProgressInfo> implements T
      */
     private void processRows() {
 
+        final List<PreparingRowListener> preparingListeners =
+                new ArrayList<PreparingRowListener>();
+        for (RowListener listener : rowListenerList) {
+            if (listener instanceof PreparingRowListener) {
+                preparingListeners.add((PreparingRowListener) listener);
+            }
+        }
+
+        if (preparingListeners.size() > 0) {
+            preparationStage =
+                    new RowPreparationStage(this,
+                                            getModel().getRows(),
+                                            preparingListeners,
+                                            getRowPreparationLookAhead());
+            preparationStage.start();
+        }
+
+        try {
+            final int concurrency = getRowProcessingConcurrency();
+            if (concurrency > 1) {
+                processRowsConcurrently(concurrency);
+            } else {
+                processRowsSequentially();
+            }
+        } finally {
+            if (preparationStage != null) {
+                preparationStage.shutdown();
+                preparationStage = null;
+            }
+        }
+    }
+
+    /**
+     * Processes each data row one after another in the task thread.
+     */
+    private void processRowsSequentially() {
+
         DataTableModel model = getModel();
         List<DataRow> modelRows = model.getRows();
 
@@ -320,7 +426,7 @@ public class SimpleTask extends SwingWorker<Void, TaskProgressInfo> implements T
             isStartRowNotificationSuccessful = false;
             isRowProcessingSuccessful = false;
 
-            pluginDataRow = getPluginDataRow(modelRow);
+            pluginDataRow = getPluginDataRow(rowIndex, modelRow);
             try {
                 pluginDataRow =
                         notifyRowListeners(RowListener.EventType.START_ROW,
@@ -374,6 +480,198 @@ public class SimpleTask extends SwingWorker<Void, TaskProgressInfo> implements T
         }
     }
 
+    /**
+     * Processes data rows with up to the specified number of rows in
+     * {@link #processRow} at the same time.
+     * <p>
+     * All listener notifications, progress publishing, failure tracking,
+     * and row clean up still happen in the task thread and in row order.
+     * Summary information appended by {@link #processRow} is collected
+     * for each row and added to the task summary when the row completes,
+     * so the final summary matches the one produced by sequential
+     * processing.  The only visible difference is that start
+     * notifications for subsequent rows may be sent before earlier rows
+     * have completed.
+     * </p>
+     *
+     * @param  concurrency  maximum number of rows to process concurrently.
+     */
+    private void processRowsConcurrently(int concurrency) {
+
+        DataTableModel model = getModel();
+        List<DataRow> modelRows = model.getRows();
+
+        final int numberOfRows = modelRows.size();
+        final ExecutorService executor =
+                Executors.newFixedThreadPool(concurrency);
+        final Deque<PendingRow> pendingRows = new ArrayDeque<PendingRow>();
+
+        int rowIndex = 0;
+        int completedRowCount = 0;
+        Target lastCompletedTarget = null;
+        PendingRow pendingRow;
+
+        try {
+
+            for (DataRow modelRow : modelRows) {
+
+                if (isSessionCancelled()) {
+                    break;
+                }
+
+                if (pendingRows.size() == concurrency) {
+                    pendingRow = pendingRows.removeFirst();
+                    completeRow(pendingRow);
+                    completedRowCount++;
+                    lastCompletedTarget = pendingRow.modelRow.getTarget();
+                    if (isSessionCancelled()) {
+                        break;
+                    }
+                }
+
+                pendingRows.addLast(startRow(rowIndex,
+                                             numberOfRows,
+                                             modelRow,
+                                             executor));
+                rowIndex++;
+            }
+
+            // rows already started must be completed even if the
+            // session has been cancelled
+            while (pendingRows.size() > 0) {
+                pendingRow = pendingRows.removeFirst();
+                completeRow(pendingRow);
+                completedRowCount++;
+                lastCompletedTarget = pendingRow.modelRow.getTarget();
+            }
+
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (isSessionCancelled()) {
+            handleCancelOfSession(completedRowCount,
+                                  numberOfRows,
+                                  lastCompletedTarget);
+        }
+    }
+
+    /**
+     * Sends start notifications for the specified row and (if they
+     * succeed) submits the row for processing.
+     *
+     * @param  rowIndex      index of the row to start.
+     * @param  numberOfRows  total number of rows being processed.
+     * @param  modelRow      the row to start.
+     * @param  executor      service for processing the row.
+     *
+     * @return pending information for the started row.
+     */
+    private PendingRow startRow(int rowIndex,
+                                int numberOfRows,
+                                final DataRow modelRow,
+                                ExecutorService executor) {
+
+        final PendingRow pendingRow = new PendingRow(rowIndex, modelRow);
+        pendingRow.pluginDataRow = getPluginDataRow(rowIndex, modelRow);
+        try {
+            pendingRow.pluginDataRow =
+                    notifyRowListeners(RowListener.EventType.START_ROW,
+                                       pendingRow.pluginDataRow);
+
+            publish(getProgressInfo(rowIndex, numberOfRows, modelRow));
+
+            pendingRow.result = executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    LoggingUtils.setLoggingContext();
+                    rowSummary.set(pendingRow.summary);
+                    try {
+                        return processRow(modelRow);
+                    } finally {
+                        rowSummary.remove();
+                    }
+                }
+            });
+
+        } catch (Exception e) {
+            LOG.error("Failed external start processing for " +
+                      pendingRow.pluginDataRow, e);
+        }
+
+        return pendingRow;
+    }
+
+    /**
+     * Waits for the specified row's processing to complete and then
+     * sends completion notifications, updates failure information, and
+     * cleans up the row.
+     *
+     * @param  pendingRow  row to complete.
+     */
+    private void completeRow(PendingRow pendingRow) {
+
+        boolean isRowProcessingSuccessful = false;
+
+        if (pendingRow.result != null) {
+
+            try {
+                isRowProcessingSuccessful = pendingRow.result.get();
+            } catch (ExecutionException e) {
+                LOG.error("Failed processing for " +
+                          pendingRow.pluginDataRow, e.getCause());
+                appendOriginalErrorMessageToSummary(e.getCause());
+            } catch (InterruptedException e) {
+                LOG.error("Interrupted while waiting for processing of " +
+                          pendingRow.pluginDataRow, e);
+                Thread.currentThread().interrupt();
+            }
+
+            taskSummary.append(pendingRow.summary);
+
+            // notify any listeners
+            try {
+                if (isRowProcessingSuccessful) {
+                    notifyRowListeners(
+                            RowListener.EventType.END_ROW_SUCCESS,
+                            pendingRow.pluginDataRow);
+                } else {
+                    notifyRowListeners(
+                            RowListener.EventType.END_ROW_FAIL,
+                            pendingRow.pluginDataRow);
+                }
+            } catch (Exception e) {
+                LOG.error("Failed external completion processing for " +
+                          pendingRow.pluginDataRow, e);
+                isRowProcessingSuccessful = false;
+            }
+        }
+
+        if (! isRowProcessingSuccessful) {
+            addFailedRowIndex(pendingRow.rowIndex);
+        }
+
+        cleanupRow(pendingRow.modelRow, isRowProcessingSuccessful);
+    }
+
+    /**
+     * @param  rowIndex  index of the row being started.
+     * @param  modelRow  the row being started.
+     *
+     * @return the plug-in data row for the specified row (after waiting
+     *         for it to be prepared if a preparation stage is running).
+     */
+    private PluginDataRow getPluginDataRow(int rowIndex,
+                                           DataRow modelRow) {
+        final PluginDataRow pluginDataRow;
+        if (preparationStage == null) {
+            pluginDataRow = getPluginDataRow(modelRow);
+        } else {
+            pluginDataRow = preparationStage.getPreparedRow(rowIndex);
+        }
+        return pluginDataRow;
+    }
+
     /**
      * Utility method to notify registered listeners about a row event.
      *
@@ -432,6 +730,22 @@ public class SimpleTask extends SwingWorker<Void, TaskProgressInfo> implements T
             LOG.error("session listener endSession processing failed, " +
                       "taskSummary is " + message, e);
         }
+
+        final String metricsJson = getSessionMetricsJson();
+        if (metricsJson != null) {
+            for (SessionListener listener : sessionListenerList) {
+                if (listener instanceof SessionMetricsListener) {
+                    try {
+                        ((SessionMetricsListener) listener).endSessionMetrics(
+                                metricsJson);
+                    } catch (Exception e) {
+                        LOG.error("session listener endSessionMetrics " +
+                                  "processing failed, metrics are " +
+                                  metricsJson, e);
+                    }
+                }
+            }
+        }
     }
 
     /**
@@ -455,8 +769,12 @@ public class SimpleTask extends SwingWorker<Void, TaskProgressInfo> implements T
                                        int numberOfRows,
                                        Target target) {
         if (rowIndex < numberOfRows) {
-            LOG.warn("Session cancelled after processing " +
-                     target.getName() + ".");
+            if (target == null) {
+                LOG.warn("Session cancelled before processing any targets.");
+            } else {
+                LOG.warn("Session cancelled after processing " +
+                         target.getName() + ".");
+            }
             taskSummary.append("\nSession cancelled.");
 
             // mark all remaining rows as failed
@@ -466,6 +784,18 @@ public class SimpleTask extends SwingWorker<Void, TaskProgressInfo> implements T
         }
     }
 
+    /**
+     * @return the summary for the row being processed by the current
+     *         thread or the task summary if no row summary exists.
+     */
+    private StringBuilder getSummary() {
+        StringBuilder summary = rowSummary.get();
+        if (summary == null) {
+            summary = taskSummary;
+        }
+        return summary;
+    }
+
     private void markAllRowsAsFailed() {
         List<DataRow> modelRows = model.getRows();
         int numberOfRows = modelRows.size();
@@ -473,4 +803,26 @@ public class SimpleTask extends SwingWorker<Void, TaskProgressInfo> implements T
             failedRowIndices.add(i);
         }
     }
+
+    /**
+     * Processing state for a row that has been started but not completed
+     * during concurrent row processing.
+     */
+    private static class PendingRow {
+
+        private final int rowIndex;
+        private final DataRow modelRow;
+        private final StringBuilder summary;
+        private PluginDataRow pluginDataRow;
+        private Future<Boolean> result;
+
+        public PendingRow(int rowIndex,
+                          DataRow modelRow) {
+            this.rowIndex = rowIndex;
+            this.modelRow = modelRow;
+            this.summary = new StringBuilder();
+            this.pluginDataRow = null;
+            this.result = null;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,567 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package org.janelia.it.ims.tmog.task;
+
+import org.apache.log4j.Logger;
+import org.janelia.it.ims.tmog.config.GlobalConfiguration;
+import org.janelia.it.ims.tmog.config.TransferMountConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules file transfers for all sessions based upon each transfer's
+ * destination file system (mount).  Each mount has its own concurrency
+ * limit and (optionally) its own average byte rate limit, so a slow
+ * share only delays transfers to that share instead of tying up
+ * threads that could be transferring to other destinations.
+ * <p>
+ * Session tasks are run by the scheduler's session pool
+ * (see {@link #submitSession}).  Sessions themselves are not limited
+ * by destination because they may write to many destinations;
+ * instead, each row transfer is {@link #runTransfer run} through
+ * its destination mount's queue.  Queued transfers do not hold any
+ * scheduler thread: a transfer is only handed to the transfer pool
+ * once its mount has a free slot and its rate limit allows it to
+ * start, so transfers waiting for a slow mount never delay transfers
+ * to other mounts.
+ * <p>
+ * The number of queued and running transfers for each busy mount is
+ * logged every {@link #QUEUE_LOG_INTERVAL_SECONDS} seconds.
+ * <p>
+ * Destinations are mapped to mounts by first checking the configured
+ * {@link TransferMountConfiguration} paths and then by asking the
+ * platform for the destination's {@link FileStore}.
+ *
+ * @author agent
+ */
+public class TransferScheduler {
+
+    /** Seconds between logs of the queue depth for busy mounts. */
+    public static final long QUEUE_LOG_INTERVAL_SECONDS = 60;
+
+    private static final TransferScheduler INSTANCE = new TransferScheduler();
+
+    /**
+     * @return the scheduler shared by all sessions.
+     */
+    public static TransferScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    private ThreadPoolExecutor sessionExecutor;
+    private ExecutorService transferExecutor;
+    private ScheduledExecutorService pacingExecutor;
+    private int defaultConcurrency;
+    private Long defaultBytesPerSecond;
+    private List<TransferMountConfiguration> mountConfigurations;
+    private Map<String, Mount> mounts;
+    private Map<String, String> directoryToMountKey;
+
+    /**
+     * Constructs a scheduler with default limits.
+     */
+    TransferScheduler() {
+        final int maxSessions =
+                GlobalConfiguration.DEFAULT_MAX_CONCURRENT_SESSIONS;
+        this.sessionExecutor =
+                new ThreadPoolExecutor(maxSessions, maxSessions,
+                                       0L, TimeUnit.MILLISECONDS,
+                                       new LinkedBlockingQueue<Runnable>());
+        // transfers only reach this pool after acquiring a mount slot,
+        // so its size is bounded by the sum of the mount concurrencies
+        this.transferExecutor =
+                Executors.newCachedThreadPool(new DaemonThreadFactory("transfer"));
+        this.pacingExecutor =
+                Executors.newSingleThreadScheduledExecutor(
+                        new DaemonThreadFactory("transfer-pacing"));
+        this.defaultConcurrency =
+                GlobalConfiguration.DEFAULT_TRANSFER_MOUNT_CONCURRENCY;
+        this.defaultBytesPerSecond = null;
+        this.mountConfigurations = new ArrayList<TransferMountConfiguration>();
+        this.mounts = new ConcurrentHashMap<String, Mount>();
+        this.directoryToMountKey = new ConcurrentHashMap<String, String>();
+
+        this.pacingExecutor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                logQueueDepths();
+            }
+        }, QUEUE_LOG_INTERVAL_SECONDS, QUEUE_LOG_INTERVAL_SECONDS,
+           TimeUnit.SECONDS);
+    }
+
+    /**
+     * Applies the transfer limits from the specified global configuration.
+     * Limits for mounts that have already been used are not changed.
+     *
+     * @param  globalConfig  global configuration (may be null).
+     */
+    public synchronized void configure(GlobalConfiguration globalConfig) {
+        if (globalConfig != null) {
+            setMaxConcurrentSessions(globalConfig.getMaxConcurrentSessions());
+            defaultConcurrency = globalConfig.getTransferMountConcurrency();
+            defaultBytesPerSecond = globalConfig.getTransferMountBytesPerSecond();
+            mountConfigurations =
+                    new ArrayList<TransferMountConfiguration>(
+                            globalConfig.getTransferMounts());
+            directoryToMountKey.clear();
+            LOG.info("configure: maxConcurrentSessions=" +
+                     sessionExecutor.getMaximumPoolSize() +
+                     ", defaultConcurrency=" + defaultConcurrency +
+                     ", defaultBytesPerSecond=" + defaultBytesPerSecond +
+                     ", mountConfigurations=" + mountConfigurations);
+        }
+    }
+
+    /**
+     * @return the maximum number of sessions that can run at the same time.
+     */
+    public int getMaxConcurrentSessions() {
+        return sessionExecutor.getMaximumPoolSize();
+    }
+
+    private void setMaxConcurrentSessions(int maxSessions) {
+        // grow the maximum first (or shrink the core first) so that
+        // the core size never exceeds the maximum size
+        if (maxSessions > sessionExecutor.getMaximumPoolSize()) {
+            sessionExecutor.setMaximumPoolSize(maxSessions);
+            sessionExecutor.setCorePoolSize(maxSessions);
+        } else {
+            sessionExecutor.setCorePoolSize(maxSessions);
+            sessionExecutor.setMaximumPoolSize(maxSessions);
+        }
+    }
+
+    /**
+     * Submits the specified session task to the session pool.
+     *
+     * @param  task  task to execute.
+     */
+    public void submitSession(Runnable task) {
+        sessionExecutor.submit(task);
+    }
+
+    /**
+     * Queues the specified transfer for its destination mount and
+     * waits for it to complete.  The transfer is run by the scheduler's
+     * transfer pool once the mount has a free slot and the mount's
+     * rate limit allows the transfer to start.
+     * <p>
+     * If the current thread is interrupted while the transfer is
+     * still queued, the transfer is cancelled.  If the transfer has
+     * already started, this method waits for it to finish (so that
+     * callers can safely clean up afterwards) before throwing the
+     * interrupted exception.
+     *
+     * @param  toDirectory  destination directory for the transfer.
+     * @param  bytes        number of bytes to be transferred.
+     * @param  transfer     the transfer to run.
+     *
+     * @return the transfer's result.
+     *
+     * @throws InterruptedException
+     *   if the current thread is interrupted while waiting.
+     *
+     * @throws ExecutionException
+     *   if the transfer fails.
+     */
+    public <T> T runTransfer(File toDirectory,
+                             long bytes,
+                             Callable<T> transfer)
+            throws InterruptedException, ExecutionException {
+
+        final Mount mount = getMount(toDirectory);
+        final QueuedTransfer<T> queuedTransfer =
+                new QueuedTransfer<T>(transfer, bytes);
+
+        synchronized (mount) {
+            mount.queue.add(queuedTransfer);
+            if (LOG.isDebugEnabled() && (mount.queue.size() > 1)) {
+                LOG.debug("runTransfer: queued transfer for " + mount.key +
+                          " (" + mount.queue.size() + " transfers queued)");
+            }
+        }
+        dispatch(mount);
+
+        try {
+            return queuedTransfer.get();
+        } catch (InterruptedException e) {
+            if (! queuedTransfer.cancel(false)) {
+                awaitCompletion(queuedTransfer);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Starts as many queued transfers for the specified mount as its
+     * limits allow.  If the mount's rate limit delays the next transfer,
+     * another dispatch is scheduled for when that transfer may start.
+     *
+     * @param  mount  mount with queued transfers.
+     */
+    private void dispatch(final Mount mount) {
+        synchronized (mount) {
+            while ((mount.activeCount < mount.concurrency) &&
+                   (mount.queue.size() > 0)) {
+
+                final QueuedTransfer<?> next = mount.queue.getFirst();
+                if (next.isCancelled()) {
+                    mount.queue.removeFirst();
+                    continue;
+                }
+
+                final long delay = mount.getStartDelay();
+                if (delay > 0) {
+                    if (! mount.isDispatchScheduled) {
+                        mount.isDispatchScheduled = true;
+                        pacingExecutor.schedule(new Runnable() {
+                            @Override
+                            public void run() {
+                                synchronized (mount) {
+                                    mount.isDispatchScheduled = false;
+                                }
+                                dispatch(mount);
+                            }
+                        }, delay, TimeUnit.MILLISECONDS);
+                    }
+                    break;
+                }
+
+                mount.queue.removeFirst();
+                mount.reserveBandwidth(next.bytes);
+                mount.activeCount++;
+                transferExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            next.run();
+                        } finally {
+                            synchronized (mount) {
+                                mount.activeCount--;
+                            }
+                            dispatch(mount);
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Waits for the specified (running) transfer to complete,
+     * ignoring any interrupts.
+     */
+    private void awaitCompletion(QueuedTransfer<?> transfer) {
+        boolean isDone = false;
+        while (! isDone) {
+            try {
+                transfer.get();
+                isDone = true;
+            } catch (InterruptedException e) {
+                // keep waiting, caller will be interrupted anyway
+            } catch (ExecutionException e) {
+                isDone = true;
+            }
+        }
+    }
+
+    /**
+     * @param  toDirectory  destination directory.
+     *
+     * @return the key of the mount for the specified directory.
+     */
+    public String getMountKey(File toDirectory) {
+        final String directoryPath = toDirectory.getAbsolutePath();
+        String mountKey = directoryToMountKey.get(directoryPath);
+        if (mountKey == null) {
+            mountKey = deriveMountKey(toDirectory.getAbsoluteFile());
+            directoryToMountKey.put(directoryPath, mountKey);
+        }
+        return mountKey;
+    }
+
+    /**
+     * @param  toDirectory  destination directory.
+     *
+     * @return the maximum number of concurrent transfers for the
+     *         specified directory's mount.  Transfers that copy many
+     *         files (e.g. directory trees) should not copy more files
+     *         concurrently than this limit.
+     */
+    public int getConcurrency(File toDirectory) {
+        return getMount(toDirectory).concurrency;
+    }
+
+    /**
+     * @return the number of transfers waiting for each mount
+     *         (sorted by mount key).
+     */
+    public Map<String, Integer> getQueueDepths() {
+        final Map<String, Integer> queueDepths = new TreeMap<String, Integer>();
+        for (Mount mount : mounts.values()) {
+            queueDepths.put(mount.key, mount.getQueueDepth());
+        }
+        return queueDepths;
+    }
+
+    /**
+     * @param  mountKey  key of the mount.
+     *
+     * @return the number of transfers waiting for the specified mount.
+     */
+    public int getQueueDepth(String mountKey) {
+        final Mount mount = mounts.get(mountKey);
+        return mount == null ? 0 : mount.getQueueDepth();
+    }
+
+    /**
+     * @param  mountKey  key of the mount.
+     *
+     * @return the number of transfers currently running for the
+     *         specified mount.
+     */
+    public int getActiveCount(String mountKey) {
+        final Mount mount = mounts.get(mountKey);
+        return mount == null ? 0 : mount.getActiveCount();
+    }
+
+    /**
+     * Logs the number of queued and running transfers for each mount
+     * that has any.
+     */
+    private void logQueueDepths() {
+        final StringBuilder status = new StringBuilder();
+        int queueDepth;
+        int activeCount;
+        for (Mount mount : mounts.values()) {
+            queueDepth = mount.getQueueDepth();
+            activeCount = mount.getActiveCount();
+            if ((queueDepth > 0) || (activeCount > 0)) {
+                if (status.length() > 0) {
+                    status.append(", ");
+                }
+                status.append(mount.key).append(" (").append(queueDepth);
+                status.append(" queued, ").append(activeCount);
+                status.append(" running)");
+            }
+        }
+        if (status.length() > 0) {
+            LOG.info("logQueueDepths: " + status);
+        }
+    }
+
+    private Mount getMount(File toDirectory) {
+        final String mountKey = getMountKey(toDirectory);
+        Mount mount = mounts.get(mountKey);
+        if (mount == null) {
+            synchronized (this) {
+                mount = mounts.get(mountKey);
+                if (mount == null) {
+                    mount = createMount(mountKey);
+                    mounts.put(mountKey, mount);
+                    LOG.info("getMount: created " + mount);
+                }
+            }
+        }
+        return mount;
+    }
+
+    private synchronized Mount createMount(String mountKey) {
+        int concurrency = defaultConcurrency;
+        Long bytesPerSecond = defaultBytesPerSecond;
+        for (TransferMountConfiguration mountConfig : mountConfigurations) {
+            if (mountConfig.getPath().equals(mountKey)) {
+                if (mountConfig.getConcurrency() != null) {
+                    concurrency = mountConfig.getConcurrency();
+                }
+                if (mountConfig.getBytesPerSecond() != null) {
+                    bytesPerSecond = mountConfig.getBytesPerSecond();
+                }
+                break;
+            }
+        }
+        return new Mount(mountKey, concurrency, bytesPerSecond);
+    }
+
+    /**
+     * @return the longest configured mount path that contains the
+     *         specified directory or (if none match) the platform
+     *         file store for the directory.
+     */
+    private synchronized String deriveMountKey(File toDirectory) {
+        String mountKey = null;
+        for (TransferMountConfiguration mountConfig : mountConfigurations) {
+            if (mountConfig.contains(toDirectory) &&
+                ((mountKey == null) ||
+                 (mountConfig.getPath().length() > mountKey.length()))) {
+                mountKey = mountConfig.getPath();
+            }
+        }
+
+        if (mountKey == null) {
+            // target directories are often created during transfer,
+            // so use the closest existing ancestor
+            File existingDirectory = toDirectory;
+            while ((existingDirectory != null) &&
+                   (! existingDirectory.exists())) {
+                existingDirectory = existingDirectory.getParentFile();
+            }
+
+            if (existingDirectory != null) {
+                try {
+                    final FileStore fileStore =
+                            Files.getFileStore(existingDirectory.toPath());
+                    mountKey = fileStore.toString();
+                } catch (IOException e) {
+                    LOG.warn("deriveMountKey: failed to find file store for " +
+                             existingDirectory.getAbsolutePath(), e);
+                }
+            }
+
+            if (mountKey == null) {
+                File root = toDirectory;
+                while (root.getParentFile() != null) {
+                    root = root.getParentFile();
+                }
+                mountKey = root.getAbsolutePath();
+            }
+        }
+
+        return mountKey;
+    }
+
+    /**
+     * A transfer waiting in (or dispatched from) a mount queue.
+     */
+    private static class QueuedTransfer<T> extends FutureTask<T> {
+
+        private long bytes;
+
+        private QueuedTransfer(Callable<T> transfer,
+                               long bytes) {
+            super(transfer);
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Transfer limits and state for a mount.
+     * All mutable state is guarded by the mount's monitor.
+     */
+    private static class Mount {
+
+        private String key;
+        private int concurrency;
+        private Long bytesPerSecond;
+        private LinkedList<QueuedTransfer<?>> queue;
+        private int activeCount;
+        private long nextStartTime;
+        private boolean isDispatchScheduled;
+
+        private Mount(String key,
+                      int concurrency,
+                      Long bytesPerSecond) {
+            this.key = key;
+            this.concurrency = concurrency;
+            this.bytesPerSecond = bytesPerSecond;
+            this.queue = new LinkedList<QueuedTransfer<?>>();
+            this.activeCount = 0;
+            this.nextStartTime = 0;
+            this.isDispatchScheduled = false;
+        }
+
+        private synchronized int getQueueDepth() {
+            int queueDepth = 0;
+            for (QueuedTransfer<?> transfer : queue) {
+                if (! transfer.isCancelled()) {
+                    queueDepth++;
+                }
+            }
+            return queueDepth;
+        }
+
+        private synchronized int getActiveCount() {
+            return activeCount;
+        }
+
+        /**
+         * @return number of milliseconds until this mount's rate limit
+         *         allows the next transfer to start.
+         */
+        private synchronized long getStartDelay() {
+            return Math.max(0, nextStartTime - System.currentTimeMillis());
+        }
+
+        /**
+         * Reserves bandwidth for a transfer of the specified size that
+         * is starting now.  Transfers are paced so that the average rate
+         * for this mount does not exceed its bytesPerSecond limit.
+         */
+        private synchronized void reserveBandwidth(long bytes) {
+            if (bytesPerSecond != null) {
+                final long now = System.currentTimeMillis();
+                nextStartTime = Math.max(now, nextStartTime) +
+                                ((bytes * 1000) / bytesPerSecond);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Mount{" +
+                   "key='" + key + '\'' +
+                   ", concurrency=" + concurrency +
+                   ", bytesPerSecond=" + bytesPerSecond +
+                   '}';
+        }
+    }
+
+    /**
+     * Creates named daemon threads so that idle scheduler threads
+     * never prevent the application from exiting.
+     */
+    private static class DaemonThreadFactory implements ThreadFactory {
+
+        private String namePrefix;
+        private int count;
+
+        private DaemonThreadFactory(String namePrefix) {
+            this.namePrefix = namePrefix;
+            this.count = 0;
+        }
+
+        @Override
+        public synchronized Thread newThread(Runnable r) {
+            count++;
+            final Thread thread = new Thread(r, namePrefix + "-" + count);
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    private static final Logger LOG = Logger.getLogger(TransferScheduler.class);
+}
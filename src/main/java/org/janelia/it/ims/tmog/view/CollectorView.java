@@ -33,7 +33,6 @@ import javax.swing.JScrollBar;
 import javax.swing.JScrollPane;
 import javax.swing.JTabbedPane;
 import javax.swing.JTextArea;
-import javax.swing.SwingWorker;
 import javax.swing.UIManager;
 import javax.swing.table.DefaultTableModel;
 
@@ -47,7 +46,6 @@ import org.janelia.it.ims.tmog.config.preferences.ViewDefault;
 import org.janelia.it.ims.tmog.plugin.ExternalDataException;
 import org.janelia.it.ims.tmog.plugin.ExternalSystemException;
 import org.janelia.it.ims.tmog.plugin.PluginDataRow;
-import org.janelia.it.ims.tmog.plugin.RowUpdater;
 import org.janelia.it.ims.tmog.plugin.RowValidator;
 import org.janelia.it.ims.tmog.target.FileTarget;
 import org.janelia.it.ims.tmog.task.SimpleTask;
@@ -98,6 +96,7 @@ public class CollectorView
     private File defaultDirectory;
     private InputSelectionHandler inputSelectionHandler;
     private DataTableModel tableModel;
+    private MappedDataLoader mappedDataLoader;
     private SimpleTask task;
     private TaskComponents taskComponents;
     private String projectNameText;
@@ -136,19 +135,14 @@ public class CollectorView
         setupTaskComponents(parentTabbedPane);
 
         if (projectConfig.hasRowUpdaters()) {
+            mappedDataLoader =
+                    new MappedDataLoader(dataTable,
+                                         projectConfig.getRowUpdaters());
             loadMappedDataButton.setVisible(true);
             loadMappedDataButton.addActionListener(new ActionListener() {
                 @Override
                 public void actionPerformed(ActionEvent e) {
-                    SwingWorker worker = new SwingWorker() {
-                        @Override
-                        protected Object doInBackground()
-                                throws Exception {
-                            loadMappedData();
-                            return null;
-                        }
-                    };
-                    worker.execute();
+                    mappedDataLoader.load(tableModel);
                 }
             });
         }
@@ -308,47 +302,6 @@ public class CollectorView
         return task;
     }
 
-    private void loadMappedData() {
-
-        final int editingRowIndex = dataTable.getEditingRow();
-        final int editingColumnIndex = dataTable.getEditingColumn();
-
-        dataTable.editCellAt(-1, -1); // stop any current editor
-
-        String externalErrorMsg = null;
-        List<DataRow> rows = tableModel.getRows();
-        int rowIndex = 0;
-        for (DataRow row : rows) {
-            try {
-                for (RowUpdater updater : projectConfig.getRowUpdaters()) {
-                    updater.updateRow(new PluginDataRow(row));
-                }
-            } catch (ExternalDataException e) {
-                externalErrorMsg = e.getMessage();
-                LOG.info("external update failed", e);
-            } catch (ExternalSystemException e) {
-                externalErrorMsg = e.getMessage();
-                LOG.error(e.getMessage(), e);
-            }
-
-            dataTable.selectRow(rowIndex);
-
-            if (externalErrorMsg != null) {
-                dataTable.displayErrorDialog(externalErrorMsg);
-                break;
-            }
-
-            rowIndex++;
-        }
-
-        dataTable.repaint();
-
-        if ((editingRowIndex > -1) && (editingColumnIndex > -1)) {
-            dataTable.selectRow(editingRowIndex);
-            dataTable.editCellAt(editingRowIndex, editingColumnIndex);
-        }
-    }
-
     private boolean validateAllFields() {
         boolean isValid = tableModel.verify();
 
@@ -17,7 +17,9 @@ import org.janelia.it.ims.tmog.config.preferences.ViewDefault;
 import org.janelia.it.ims.tmog.filefilter.FileNamePatternFilter;
 import org.janelia.it.ims.tmog.target.FileTarget;
 import org.janelia.it.ims.tmog.target.FileTargetWorker;
+import org.janelia.it.ims.tmog.target.LsmMetaDataPrefetchWorker;
 import org.janelia.it.ims.tmog.view.component.NarrowOptionPane;
+import org.janelia.it.utils.LsmCoreMetaDataCache;
 
 import javax.swing.*;
 import java.awt.*;
@@ -48,6 +50,7 @@ public class FileInputSelectionHandler implements InputSelectionHandler {
     private InputFileSorter inputSorter;
     private File defaultDirectory;
     private FileTargetWorker fileTargetWorker;
+    private LsmMetaDataPrefetchWorker lsmPrefetchWorker;
 
     /**
      * Constructs a new handler.
@@ -197,6 +200,7 @@ public class FileInputSelectionHandler implements InputSelectionHandler {
     }
 
     private void handleDirectorySelection(File selectedFile) {
+        cancelLsmPrefetch();
         defaultDirectory = selectedFile;
         updateProjectPreferences(defaultDirectory);
 
@@ -244,7 +248,7 @@ public class FileInputSelectionHandler implements InputSelectionHandler {
     private void handleFileTargetWorkerUpdate(PropertyChangeEvent evt) {
         Object value = evt.getNewValue();
         if (value instanceof List) {
-            List list = (List) value;
+            List<?> list = (List<?>) value;
             int size = list.size();
             if (size > 0) {
                 Object lastItem = list.get(size - 1);
@@ -304,6 +308,7 @@ public class FileInputSelectionHandler implements InputSelectionHandler {
                 if (numTargets > 0) {
                     directoryField.setText(defaultDirectory.getAbsolutePath());
                     directoryField.setToolTipText(getToolTip(numTargets));                    
+                    startLsmPrefetch(targets, numTargets);
                     view.processInputTargets(targets);
                 } else {
                     resetInputRoot();
@@ -321,6 +326,62 @@ public class FileInputSelectionHandler implements InputSelectionHandler {
         fileTargetWorker = null;
     }
 
+    /**
+     * Starts loading LSM meta data for the specified targets in the
+     * background so that field defaults and plug-ins that need the
+     * data can pull it from the shared cache.
+     */
+    private void startLsmPrefetch(List<FileTarget> targets,
+                                  final int numTargets) {
+        final LsmMetaDataPrefetchWorker worker =
+                new LsmMetaDataPrefetchWorker(
+                        targets,
+                        LsmCoreMetaDataCache.getSharedInstance(),
+                        LsmMetaDataPrefetchWorker.DEFAULT_PARALLELISM);
+        if (worker.getFileCount() > 0) {
+            worker.addPropertyChangeListener(new PropertyChangeListener() {
+                public void propertyChange(PropertyChangeEvent evt) {
+                    if (worker == lsmPrefetchWorker) {
+                        if (worker.isProgressEvent(evt)) {
+                            handleLsmPrefetchUpdate(evt, numTargets);
+                        } else if (worker.isDoneEvent(evt)) {
+                            directoryField.setToolTipText(
+                                    getToolTip(numTargets));
+                            lsmPrefetchWorker = null;
+                        }
+                    }
+                }
+            });
+            lsmPrefetchWorker = worker;
+            worker.submitTask();
+        }
+    }
+
+    private void handleLsmPrefetchUpdate(PropertyChangeEvent evt,
+                                         int numTargets) {
+        Object value = evt.getNewValue();
+        if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            int size = list.size();
+            if (size > 0) {
+                Object lastItem = list.get(size - 1);
+                if (lastItem instanceof String) {
+                    directoryField.setToolTipText(
+                            getToolTip(numTargets) + " (" + lastItem + ")");
+                }
+            }
+        }
+    }
+
+    private void cancelLsmPrefetch() {
+        if (lsmPrefetchWorker != null) {
+            // don't interrupt running parses, interrupts close their
+            // file channels (the worker stops starting new parses)
+            lsmPrefetchWorker.cancel(false);
+            lsmPrefetchWorker = null;
+        }
+    }
+
     private String getToolTip(int numTargets) {
         StringBuilder toolTip = new StringBuilder(64);
         toolTip.append(numTargets);
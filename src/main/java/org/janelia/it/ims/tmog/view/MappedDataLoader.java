@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package org.janelia.it.ims.tmog.view;
+
+import org.janelia.it.ims.tmog.DataTableModel;
+import org.janelia.it.ims.tmog.plugin.RowUpdateWorker;
+import org.janelia.it.ims.tmog.plugin.RowUpdater;
+import org.janelia.it.ims.tmog.view.component.DataTable;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.List;
+
+/**
+ * This class loads mapped data for a view's rows by running the
+ * configured {@link RowUpdater} plug-ins in a {@link RowUpdateWorker}
+ * and refreshing the view's table as rows are updated.
+ * All methods run in the event dispatch thread.
+ *
+ * @author agent
+ */
+public class MappedDataLoader {
+
+    private DataTable dataTable;
+    private List<RowUpdater> updaters;
+    private RowUpdateWorker rowUpdateWorker;
+
+    /**
+     * Constructs a new loader.
+     *
+     * @param  dataTable  table that displays the rows.
+     * @param  updaters   updaters to apply (in order) to each row.
+     */
+    public MappedDataLoader(DataTable dataTable,
+                            List<RowUpdater> updaters) {
+        this.dataTable = dataTable;
+        this.updaters = updaters;
+        this.rowUpdateWorker = null;
+    }
+
+    /**
+     * Starts loading mapped data for all rows in the specified model
+     * unless mapped data is already being loaded.
+     *
+     * @param  tableModel  model for the table's current rows.
+     */
+    public void load(final DataTableModel tableModel) {
+
+        if (rowUpdateWorker != null) {
+            return; // mapped data is already being loaded
+        }
+
+        final int editingRowIndex = dataTable.getEditingRow();
+        final int editingColumnIndex = dataTable.getEditingColumn();
+
+        dataTable.editCellAt(-1, -1); // stop any current editor
+
+        final RowUpdateWorker worker =
+                new RowUpdateWorker(tableModel.getRows(),
+                                    updaters,
+                                    RowUpdateWorker.DEFAULT_PARALLELISM);
+        worker.addPropertyChangeListener(new PropertyChangeListener() {
+            public void propertyChange(PropertyChangeEvent evt) {
+                if (worker.isProgressEvent(evt)) {
+                    handleUpdate(tableModel, evt);
+                } else if (worker.isDoneEvent(evt)) {
+                    handleCompletion(worker,
+                                     editingRowIndex,
+                                     editingColumnIndex);
+                }
+            }
+        });
+        rowUpdateWorker = worker;
+        worker.submitTask();
+    }
+
+    /**
+     * Refreshes the rows in a batch of published row updates.
+     */
+    private void handleUpdate(DataTableModel tableModel,
+                              PropertyChangeEvent evt) {
+        final Object value = evt.getNewValue();
+        if (value instanceof List) {
+            int firstRowIndex = Integer.MAX_VALUE;
+            int lastRowIndex = -1;
+            for (Object item : (List<?>) value) {
+                if (item instanceof Integer) {
+                    firstRowIndex = Math.min(firstRowIndex, (Integer) item);
+                    lastRowIndex = Math.max(lastRowIndex, (Integer) item);
+                }
+            }
+            if (lastRowIndex > -1) {
+                tableModel.fireTableRowsUpdated(firstRowIndex, lastRowIndex);
+                dataTable.selectRow(lastRowIndex);
+            }
+        }
+    }
+
+    private void handleCompletion(RowUpdateWorker worker,
+                                  int editingRowIndex,
+                                  int editingColumnIndex) {
+        rowUpdateWorker = null;
+
+        final int failedRowIndex = worker.getFailedRowIndex();
+        if (failedRowIndex > -1) {
+            dataTable.selectRow(failedRowIndex);
+            dataTable.displayErrorDialog(worker.getFailureMessage());
+        }
+
+        dataTable.repaint();
+
+        if ((editingRowIndex > -1) && (editingColumnIndex > -1)) {
+            dataTable.selectRow(editingRowIndex);
+            dataTable.editCellAt(editingRowIndex, editingColumnIndex);
+        }
+    }
+}
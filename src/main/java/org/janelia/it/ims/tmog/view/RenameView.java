@@ -23,9 +23,7 @@ import org.janelia.it.ims.tmog.config.preferences.ViewDefault;
 import org.janelia.it.ims.tmog.filefilter.DirectoryOnlyFilter;
 import org.janelia.it.ims.tmog.plugin.ExternalDataException;
 import org.janelia.it.ims.tmog.plugin.ExternalSystemException;
-import org.janelia.it.ims.tmog.plugin.PluginDataRow;
 import org.janelia.it.ims.tmog.plugin.RenamePluginDataRow;
-import org.janelia.it.ims.tmog.plugin.RowUpdater;
 import org.janelia.it.ims.tmog.plugin.RowValidator;
 import org.janelia.it.ims.tmog.target.FileTarget;
 import org.janelia.it.ims.tmog.target.Target;
@@ -84,6 +82,7 @@ public class RenameView
     private JScrollPane projectNamePane;
     private JButton loadMappedDataButton;
     private DataTableModel tableModel;
+    private MappedDataLoader mappedDataLoader;
 
     private String sessionName;
     private ProjectConfiguration projectConfig;
@@ -118,19 +117,14 @@ public class RenameView
         setupTaskComponents(parentTabbedPane);
 
         if (projectConfig.hasRowUpdaters()) {
+            mappedDataLoader =
+                    new MappedDataLoader(dataTable,
+                                         projectConfig.getRowUpdaters());
             loadMappedDataButton.setVisible(true);
             loadMappedDataButton.addActionListener(new ActionListener() {
                 @Override
                 public void actionPerformed(ActionEvent e) {
-                    SwingWorker worker = new SwingWorker() {
-                        @Override
-                        protected Object doInBackground()
-                                throws Exception {
-                            loadMappedData();
-                            return null;
-                        }
-                    };
-                    worker.execute();
+                    mappedDataLoader.load(tableModel);
                 }
             });
         }
@@ -396,6 +390,8 @@ public class RenameView
 
         }
 
+        task.setProjectName(projectConfig.getName());
+
         return task;
     }
 
@@ -437,47 +433,6 @@ public class RenameView
         return isReady;
     }
 
-    private void loadMappedData() {
-
-        final int editingRowIndex = dataTable.getEditingRow();
-        final int editingColumnIndex = dataTable.getEditingColumn();
-
-        dataTable.editCellAt(-1, -1); // stop any current editor
-
-        String externalErrorMsg = null;
-        List<DataRow> rows = tableModel.getRows();
-        int rowIndex = 0;
-        for (DataRow row : rows) {
-            try {
-                for (RowUpdater updater : projectConfig.getRowUpdaters()) {
-                    updater.updateRow(new PluginDataRow(row));
-                }
-            } catch (ExternalDataException e) {
-                externalErrorMsg = e.getMessage();
-                LOG.info("external update failed", e);
-            } catch (ExternalSystemException e) {
-                externalErrorMsg = e.getMessage();
-                LOG.error(e.getMessage(), e);
-            }
-
-            dataTable.selectRow(rowIndex);
-
-            if (externalErrorMsg != null) {
-                dataTable.displayErrorDialog(externalErrorMsg);
-                break;
-            }
-
-            rowIndex++;
-        }
-
-        dataTable.repaint();
-
-        if ((editingRowIndex > -1) && (editingColumnIndex > -1)) {
-            dataTable.selectRow(editingRowIndex);
-            dataTable.editCellAt(editingRowIndex, editingColumnIndex);
-        }
-    }
-
     private boolean validateAllFields(File baseOutputDirectory) {
         boolean isValid = tableModel.verify();
 
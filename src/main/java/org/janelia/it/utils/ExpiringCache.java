@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package org.janelia.it.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread safe, size bounded (least recently used) cache whose entries
+ * expire individually.
+ * <p>
+ * Entries with a null value are negative results (e.g. a resource that
+ * was not found).  Negative results are cached just like positive ones,
+ * but they have their own (typically shorter) time to live so that
+ * newly created resources are noticed quickly.
+ *
+ * @param  <K>  key type.
+ * @param  <V>  value type.
+ *
+ * @author agent
+ */
+public class ExpiringCache<K, V> {
+
+    /** Default time to live (in milliseconds) for positive results. */
+    public static final long DEFAULT_POSITIVE_TTL = 60 * 1000;
+
+    /** Default time to live (in milliseconds) for negative results. */
+    public static final long DEFAULT_NEGATIVE_TTL = 10 * 1000;
+
+    /** Default maximum number of cached entries. */
+    public static final int DEFAULT_MAX_SIZE = 10000;
+
+    private long positiveTtl;
+    private long negativeTtl;
+    private Map<K, Entry<V>> map;
+    private AtomicLong hitCount;
+    private AtomicLong missCount;
+
+    /**
+     * Constructs a cache with default limits.
+     */
+    public ExpiringCache() {
+        this(DEFAULT_POSITIVE_TTL, DEFAULT_NEGATIVE_TTL, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Constructs a cache.
+     *
+     * @param  positiveTtl  milliseconds that positive (non-null) results
+     *                      remain valid.
+     * @param  negativeTtl  milliseconds that negative (null) results
+     *                      remain valid (zero to skip caching them).
+     * @param  maxSize      maximum number of entries; once exceeded,
+     *                      the least recently used entry is evicted.
+     */
+    public ExpiringCache(long positiveTtl,
+                         long negativeTtl,
+                         final int maxSize) {
+        this.positiveTtl = positiveTtl;
+        this.negativeTtl = negativeTtl;
+        this.map = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<K, ExpiringCache.Entry<V>> eldest) {
+                return size() > maxSize;
+            }
+        };
+        this.hitCount = new AtomicLong(0);
+        this.missCount = new AtomicLong(0);
+    }
+
+    /**
+     * @param  key  key for the desired entry.
+     *
+     * @return the unexpired entry for the specified key or null if
+     *         no such entry exists (expired entries are removed).
+     */
+    public Entry<V> get(K key) {
+        Entry<V> entry;
+        synchronized (map) {
+            entry = map.get(key);
+            if ((entry != null) && entry.isExpired()) {
+                map.remove(key);
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            missCount.incrementAndGet();
+        } else {
+            hitCount.incrementAndGet();
+        }
+        return entry;
+    }
+
+    /**
+     * Caches a result using the time to live for its type.
+     *
+     * @param  key    result key.
+     * @param  value  result value (or null for a negative result).
+     */
+    public void put(K key,
+                    V value) {
+        final long ttl = (value == null) ? negativeTtl : positiveTtl;
+        if (ttl > 0) {
+            synchronized (map) {
+                map.put(key, new Entry<V>(value,
+                                          System.currentTimeMillis() + ttl));
+            }
+        }
+    }
+
+    /**
+     * Removes any entry for the specified key.
+     *
+     * @param  key  key of entry to remove.
+     */
+    public void remove(K key) {
+        synchronized (map) {
+            map.remove(key);
+        }
+    }
+
+    /**
+     * Removes all entries (counters are not changed).
+     */
+    public void clear() {
+        synchronized (map) {
+            map.clear();
+        }
+    }
+
+    /**
+     * @return the number of entries currently in the cache
+     *         (including any expired entries that have not yet been
+     *         removed).
+     */
+    public int size() {
+        synchronized (map) {
+            return map.size();
+        }
+    }
+
+    /**
+     * @return the number of lookups that found an unexpired entry.
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return the number of lookups that did not find an unexpired entry.
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "{size: " + size() +
+               ", hitCount: " + hitCount +
+               ", missCount: " + missCount +
+               ", positiveTtl: " + positiveTtl +
+               ", negativeTtl: " + negativeTtl +
+               '}';
+    }
+
+    /**
+     * A cached result.
+     *
+     * @param  <V>  value type.
+     */
+    public static class Entry<V> {
+
+        private V value;
+        private long expirationTime;
+
+        private Entry(V value,
+                      long expirationTime) {
+            this.value = value;
+            this.expirationTime = expirationTime;
+        }
+
+        /**
+         * @return the cached value (null for negative results).
+         */
+        public V getValue() {
+            return value;
+        }
+
+        /**
+         * @return true if this is a negative result; otherwise false.
+         */
+        public boolean isNegative() {
+            return value == null;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() > expirationTime;
+        }
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package org.janelia.it.utils;
+
+import org.apache.commons.httpclient.Header;
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.methods.GetMethod;
+import org.apache.log4j.Logger;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A persistent cache of HTTP GET responses.
+ * <p>
+ * Successful responses are saved (with their ETag and Last-Modified
+ * validators) to a local store directory so that they are available
+ * in later sessions, even when the service is unreachable.
+ * Subsequent requests for the same URL are sent as conditional GETs
+ * so that unchanged responses are not downloaded again.
+ * <p>
+ * New responses are not saved when they are fetched.  Callers
+ * {@link #store} them once they have been parsed successfully,
+ * so that a malformed response never replaces the last good one.
+ *
+ * @author agent
+ */
+public class HttpResponseCache {
+
+    /** Name of the default store directory (in the user's home directory). */
+    public static final String DEFAULT_STORE_DIRECTORY_NAME = ".tmog-http-cache";
+
+    private static HttpResponseCache sharedInstance;
+
+    /**
+     * @return the cache shared by all HTTP consumers.
+     */
+    public static synchronized HttpResponseCache getSharedInstance() {
+        if (sharedInstance == null) {
+            sharedInstance = new HttpResponseCache();
+        }
+        return sharedInstance;
+    }
+
+    private PersistentStore store;
+    private Map<String, Response> memoryCache;
+
+    /**
+     * Constructs a cache that uses the default store directory.
+     */
+    public HttpResponseCache() {
+        this(new File(System.getProperty("user.home"),
+                      DEFAULT_STORE_DIRECTORY_NAME));
+    }
+
+    /**
+     * Constructs a cache.
+     *
+     * @param  storeDirectory  directory for persisted responses
+     *                         (or null if responses should only be
+     *                         kept in memory).
+     */
+    public HttpResponseCache(File storeDirectory) {
+        this.store = new PersistentStore(storeDirectory,
+                                         ".response",
+                                         "HTTP response",
+                                         STORE_MAGIC,
+                                         STORE_VERSION);
+        this.memoryCache = new ConcurrentHashMap<String, Response>();
+    }
+
+    /**
+     * @param  url  request URL.
+     *
+     * @return the most recent response saved for the specified URL
+     *         (or null if no response has been saved).
+     */
+    public Response getStoredResponse(String url) {
+        Response response = memoryCache.get(url);
+        if (response == null) {
+            response = loadStoredResponse(url);
+            if (response != null) {
+                memoryCache.put(url, response);
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Sends a (conditional if possible) GET request for the specified URL.
+     * New responses are not saved (see {@link #store}).
+     *
+     * @param  url  request URL.
+     *
+     * @return the current response for the URL.  If the service reports
+     *         that the stored response has not changed, the stored
+     *         response is returned and its {@link Response#isModified}
+     *         method returns false.
+     *
+     * @throws IOException
+     *   if the request fails or the service returns an error status.
+     */
+    public Response fetch(String url)
+            throws IOException {
+
+        final Response storedResponse = getStoredResponse(url);
+
+        Response response;
+        final GetMethod method = new GetMethod(url);
+        try {
+            if (storedResponse != null) {
+                if (storedResponse.eTag != null) {
+                    method.addRequestHeader("If-None-Match",
+                                            storedResponse.eTag);
+                }
+                if (storedResponse.lastModified != null) {
+                    method.addRequestHeader("If-Modified-Since",
+                                            storedResponse.lastModified);
+                }
+            }
+
+            final HttpClient httpClient = HttpTransport.getSharedClient();
+            LOG.info("sending GET " + url);
+            final int responseCode = httpClient.executeMethod(method);
+
+            if ((responseCode == HttpURLConnection.HTTP_NOT_MODIFIED) &&
+                (storedResponse != null)) {
+
+                response = new Response(url,
+                                        storedResponse.body,
+                                        storedResponse.eTag,
+                                        storedResponse.lastModified,
+                                        false);
+
+            } else if (responseCode == HttpURLConnection.HTTP_OK) {
+
+                response = new Response(url,
+                                        method.getResponseBody(),
+                                        getHeaderValue(method, "ETag"),
+                                        getHeaderValue(method, "Last-Modified"),
+                                        true);
+
+            } else {
+                throw new IOException("GET " + url +
+                                      " failed with response code " +
+                                      responseCode);
+            }
+
+        } finally {
+            method.releaseConnection();
+        }
+
+        return response;
+    }
+
+    /**
+     * Saves the specified response (in memory and in the store directory)
+     * so that it is used for later requests and sessions.
+     *
+     * @param  response  a (successfully parsed) response returned by
+     *                   {@link #fetch}.
+     */
+    public void store(Response response) {
+        memoryCache.put(response.url,
+                        new Response(response.url,
+                                     response.body,
+                                     response.eTag,
+                                     response.lastModified,
+                                     false));
+        saveResponse(response);
+    }
+
+    private String getHeaderValue(GetMethod method,
+                                  String name) {
+        final Header header = method.getResponseHeader(name);
+        return header == null ? null : header.getValue();
+    }
+
+    /**
+     * @return the stored response for the specified URL or null if
+     *         the store does not contain a readable response.
+     */
+    private Response loadStoredResponse(final String url) {
+        return store.load(url, new PersistentStore.EntryReader<Response>() {
+            @Override
+            public Response read(DataInputStream in)
+                    throws IOException {
+                final String eTag = readOptionalValue(in);
+                final String lastModified = readOptionalValue(in);
+                final byte[] body = new byte[in.readInt()];
+                in.readFully(body);
+                return new Response(url, body, eTag, lastModified, false);
+            }
+        });
+    }
+
+    private void saveResponse(final Response response) {
+        store.save(response.url, new PersistentStore.EntryWriter() {
+            @Override
+            public void write(DataOutputStream out)
+                    throws IOException {
+                writeOptionalValue(out, response.eTag);
+                writeOptionalValue(out, response.lastModified);
+                out.writeInt(response.body.length);
+                out.write(response.body);
+            }
+        });
+    }
+
+    private static void writeOptionalValue(DataOutputStream out,
+                                           String value)
+            throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readOptionalValue(DataInputStream in)
+            throws IOException {
+        String value = null;
+        if (in.readBoolean()) {
+            value = in.readUTF();
+        }
+        return value;
+    }
+
+    /**
+     * A GET response body and its cache validators.
+     */
+    public static class Response {
+
+        private String url;
+        private byte[] body;
+        private String eTag;
+        private String lastModified;
+        private boolean isModified;
+
+        private Response(String url,
+                         byte[] body,
+                         String eTag,
+                         String lastModified,
+                         boolean isModified) {
+            this.url = url;
+            this.body = body;
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+            this.isModified = isModified;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * @return true if this response was downloaded by the request
+         *         that returned it; false if it was loaded from the
+         *         store or the service reported that it has not changed.
+         */
+        public boolean isModified() {
+            return isModified;
+        }
+    }
+
+    private static final int STORE_MAGIC = 0x48545243; // "HTRC"
+    private static final int STORE_VERSION = 1;
+
+    private static final Logger LOG =
+            Logger.getLogger(HttpResponseCache.class);
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package org.janelia.it.utils;
+
+import org.apache.commons.httpclient.DefaultHttpMethodRetryHandler;
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpMethod;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
+import org.apache.commons.httpclient.params.HttpMethodParams;
+import org.apache.commons.httpclient.util.IdleConnectionTimeoutThread;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.net.SocketException;
+
+/**
+ * An HTTP transport that keeps a pool of persistent (keep-alive)
+ * connections so that requests issued by different plug-ins, fields,
+ * and filters reuse connections to the same host instead of opening a
+ * new socket for each request.
+ * <p>
+ * The {@link #getSharedInstance shared instance} is used by all
+ * HTTP consumers.  Its limits can be changed at any time with
+ * {@link #configure} (changes apply to subsequent requests).
+ * Pooled connections that have been idle for more than
+ * {@link #IDLE_CONNECTION_TIMEOUT} milliseconds are closed by a
+ * background (daemon) thread.
+ * <p>
+ * A server may close a pooled connection just as it is reused, so
+ * idempotent (GET and HEAD) requests that fail with a connection
+ * reset are retried (up to {@link #MAX_RETRY_COUNT} times) on a
+ * new connection.
+ *
+ * @author agent
+ */
+public class HttpTransport {
+
+    /** Default maximum number of pooled connections for each host. */
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 8;
+
+    /** Default maximum number of pooled connections for all hosts. */
+    public static final int DEFAULT_MAX_TOTAL_CONNECTIONS = 32;
+
+    /** Default connect timeout in milliseconds. */
+    public static final int DEFAULT_CONNECT_TIMEOUT = 10 * 1000;
+
+    /** Default read (socket) timeout in milliseconds. */
+    public static final int DEFAULT_READ_TIMEOUT = 60 * 1000;
+
+    /** Milliseconds a pooled connection can be idle before it is closed. */
+    public static final long IDLE_CONNECTION_TIMEOUT = 60 * 1000;
+
+    /** Maximum number of times a failed request is retried. */
+    public static final int MAX_RETRY_COUNT = 3;
+
+    private static HttpTransport sharedInstance;
+
+    /**
+     * @return the transport shared by all HTTP consumers.
+     */
+    public static synchronized HttpTransport getSharedInstance() {
+        if (sharedInstance == null) {
+            sharedInstance = new HttpTransport();
+        }
+        return sharedInstance;
+    }
+
+    /**
+     * @return the client for the shared transport.
+     */
+    public static HttpClient getSharedClient() {
+        return getSharedInstance().getClient();
+    }
+
+    private MultiThreadedHttpConnectionManager connectionManager;
+    private HttpClient client;
+    private IdleConnectionTimeoutThread idleConnectionTimeoutThread;
+
+    /**
+     * Constructs a transport with default limits.
+     */
+    public HttpTransport() {
+        this(DEFAULT_MAX_CONNECTIONS_PER_HOST,
+             DEFAULT_MAX_TOTAL_CONNECTIONS,
+             DEFAULT_CONNECT_TIMEOUT,
+             DEFAULT_READ_TIMEOUT);
+    }
+
+    /**
+     * Constructs a transport.
+     *
+     * @param  maxConnectionsPerHost  maximum number of pooled connections
+     *                                for each host.
+     * @param  maxTotalConnections    maximum number of pooled connections
+     *                                for all hosts.
+     * @param  connectTimeout         connect timeout in milliseconds.
+     * @param  readTimeout            read (socket) timeout in milliseconds.
+     */
+    public HttpTransport(int maxConnectionsPerHost,
+                         int maxTotalConnections,
+                         int connectTimeout,
+                         int readTimeout) {
+
+        this.connectionManager = new MultiThreadedHttpConnectionManager();
+        this.connectionManager.getParams().setStaleCheckingEnabled(true);
+        this.client = new HttpClient(connectionManager);
+        this.client.getParams().setParameter(
+                HttpMethodParams.RETRY_HANDLER,
+                new IdempotentRetryHandler(MAX_RETRY_COUNT));
+
+        configure(maxConnectionsPerHost,
+                  maxTotalConnections,
+                  connectTimeout,
+                  readTimeout);
+
+        this.idleConnectionTimeoutThread = new IdleConnectionTimeoutThread();
+        this.idleConnectionTimeoutThread.setName("HttpTransport-idle");
+        this.idleConnectionTimeoutThread.setConnectionTimeout(
+                IDLE_CONNECTION_TIMEOUT);
+        this.idleConnectionTimeoutThread.addConnectionManager(
+                connectionManager);
+        this.idleConnectionTimeoutThread.start();
+    }
+
+    /**
+     * Changes the limits for this transport.
+     *
+     * @param  maxConnectionsPerHost  maximum number of pooled connections
+     *                                for each host.
+     * @param  maxTotalConnections    maximum number of pooled connections
+     *                                for all hosts.
+     * @param  connectTimeout         connect timeout in milliseconds.
+     * @param  readTimeout            read (socket) timeout in milliseconds.
+     */
+    public synchronized void configure(int maxConnectionsPerHost,
+                                       int maxTotalConnections,
+                                       int connectTimeout,
+                                       int readTimeout) {
+
+        final HttpConnectionManagerParams params =
+                connectionManager.getParams();
+        params.setDefaultMaxConnectionsPerHost(maxConnectionsPerHost);
+        params.setMaxTotalConnections(
+                Math.max(maxConnectionsPerHost, maxTotalConnections));
+        params.setConnectionTimeout(connectTimeout);
+        params.setSoTimeout(readTimeout);
+
+        // don't let requests wait forever for a pooled connection
+        client.getParams().setConnectionManagerTimeout(
+                connectTimeout + readTimeout);
+
+        LOG.info("configure: maxConnectionsPerHost=" + maxConnectionsPerHost +
+                 ", maxTotalConnections=" + params.getMaxTotalConnections() +
+                 ", connectTimeout=" + connectTimeout +
+                 ", readTimeout=" + readTimeout);
+    }
+
+    /**
+     * @return the client for this transport.  Callers must release the
+     *         connection for each executed method
+     *         (see {@link org.apache.commons.httpclient.HttpMethod#releaseConnection})
+     *         so that it can be returned to the pool.
+     */
+    public HttpClient getClient() {
+        return client;
+    }
+
+    /**
+     * @return the maximum number of pooled connections for each host.
+     */
+    public int getMaxConnectionsPerHost() {
+        return connectionManager.getParams().getDefaultMaxConnectionsPerHost();
+    }
+
+    /**
+     * @return the number of connections currently in the pool
+     *         (both idle and in use).
+     */
+    public int getConnectionsInPool() {
+        return connectionManager.getConnectionsInPool();
+    }
+
+    /**
+     * Closes all pooled connections and stops the idle connection thread.
+     * This transport should not be used after it has been shutdown.
+     */
+    public void shutdown() {
+        idleConnectionTimeoutThread.shutdown();
+        connectionManager.shutdown();
+    }
+
+    /**
+     * Retries requests like the default handler and also retries
+     * idempotent requests that were already sent when the (reused)
+     * connection was reset.
+     */
+    private static class IdempotentRetryHandler
+            extends DefaultHttpMethodRetryHandler {
+
+        private int retryCount;
+
+        public IdempotentRetryHandler(int retryCount) {
+            super(retryCount, false);
+            this.retryCount = retryCount;
+        }
+
+        @Override
+        public boolean retryMethod(HttpMethod method,
+                                   IOException exception,
+                                   int executionCount) {
+            boolean retry = super.retryMethod(method,
+                                              exception,
+                                              executionCount);
+            if ((! retry) &&
+                (executionCount <= retryCount) &&
+                (exception instanceof SocketException) &&
+                isIdempotent(method)) {
+                LOG.info("retrying " + method.getName() + " after " +
+                         exception.getMessage());
+                retry = true;
+            }
+            return retry;
+        }
+
+        private static boolean isIdempotent(HttpMethod method) {
+            final String name = method.getName();
+            return "GET".equals(name) || "HEAD".equals(name);
+        }
+    }
+
+    private static final Logger LOG = Logger.getLogger(HttpTransport.class);
+}
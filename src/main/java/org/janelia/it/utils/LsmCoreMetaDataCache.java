@@ -11,42 +11,524 @@ import loci.formats.CoreMetadata;
 import loci.formats.in.ZeissLSMReader;
 import org.apache.log4j.Logger;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 /**
- * A simple cache of core meta data for LSM files. 
+ * A cache of core meta data for LSM files.
+ * <p>
+ * Recently used entries are kept in a bounded (least recently used)
+ * in-memory map.  Entries are also saved to a local store directory
+ * so that headers parsed in earlier sessions do not need to be parsed
+ * again.  Each stored entry is keyed by the LSM file's canonical path
+ * and is only used if the file's size and last modified time have not
+ * changed since the entry was saved.
+ * <p>
+ * Files that cannot be parsed are remembered (in memory only) in the
+ * same way, so that a corrupt file is not parsed again until it changes.
  *
  * @author Eric Trautman
  */
 public class LsmCoreMetaDataCache {
 
-    private Map<File, CoreMetadata> fileToDataMap;
+    /** Default maximum number of entries kept in memory. */
+    public static final int DEFAULT_MAX_MEMORY_ENTRIES = 1000;
 
+    /** Name of the default store directory (in the user's home directory). */
+    public static final String DEFAULT_STORE_DIRECTORY_NAME = ".tmog-lsm-cache";
+
+    private static LsmCoreMetaDataCache sharedInstance;
+
+    /**
+     * @return the cache shared by all LSM data consumers
+     *         (default values, plug-ins, and prefetch workers).
+     */
+    public static synchronized LsmCoreMetaDataCache getSharedInstance() {
+        if (sharedInstance == null) {
+            sharedInstance = new LsmCoreMetaDataCache();
+        }
+        return sharedInstance;
+    }
+
+    private PersistentStore store;
+    private Map<String, CacheEntry> memoryCache;
+    private ConcurrentMap<String, FutureTask<CacheEntry>> pendingLoads;
+
+    /**
+     * Constructs a cache that uses the default store directory.
+     */
     public LsmCoreMetaDataCache() {
-        this.fileToDataMap = new ConcurrentHashMap<File, CoreMetadata>();
+        this(new File(System.getProperty("user.home"),
+                      DEFAULT_STORE_DIRECTORY_NAME),
+             DEFAULT_MAX_MEMORY_ENTRIES);
+    }
+
+    /**
+     * Constructs a cache.
+     *
+     * @param  storeDirectory    directory for persisted entries
+     *                           (or null if entries should only be
+     *                           kept in memory).
+     * @param  maxMemoryEntries  maximum number of entries to keep
+     *                           in memory.
+     */
+    public LsmCoreMetaDataCache(File storeDirectory,
+                                final int maxMemoryEntries) {
+        this.store = new PersistentStore(storeDirectory,
+                                         ".meta",
+                                         "LSM meta data",
+                                         STORE_MAGIC,
+                                         STORE_VERSION);
+        this.pendingLoads =
+                new ConcurrentHashMap<String, FutureTask<CacheEntry>>();
+        this.memoryCache = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                return size() > maxMemoryEntries;
+            }
+        };
     }
 
     public Object getValue(File lsmFile,
                            String propertyName) {
-        CoreMetadata data = fileToDataMap.get(lsmFile);
-        if (data == null) {
+        final CoreMetadata data = getCoreMetadata(lsmFile);
+        return data.seriesMetadata.get(propertyName);
+    }
+
+    /**
+     * @param  lsmFile  LSM file.
+     *
+     * @return core meta data for the specified file.  The seriesMetadata
+     *         is the only populated field for data loaded from the store.
+     *         If the file's meta data cannot be parsed, an empty
+     *         instance is returned.  Loads that fail because the
+     *         requesting thread was interrupted are not cached, so that
+     *         the next request tries to parse the file again.
+     */
+    public CoreMetadata getCoreMetadata(final File lsmFile) {
+
+        final String path = getCanonicalPath(lsmFile);
+        final long length = lsmFile.length();
+        final long lastModified = lsmFile.lastModified();
+
+        CacheEntry entry;
+        synchronized (memoryCache) {
+            entry = memoryCache.get(path);
+        }
+
+        if ((entry == null) || (! entry.isCurrent(length, lastModified))) {
+
+            // only one thread loads each file,
+            // other threads wait for the result
+            final FutureTask<CacheEntry> load = new FutureTask<CacheEntry>(
+                    new Callable<CacheEntry>() {
+                        public CacheEntry call() throws Exception {
+                            return loadEntry(lsmFile, path,
+                                             length, lastModified);
+                        }
+                    });
+            FutureTask<CacheEntry> pendingLoad =
+                    pendingLoads.putIfAbsent(path, load);
+            if (pendingLoad == null) {
+                pendingLoad = load;
+                try {
+                    load.run();
+                } finally {
+                    pendingLoads.remove(path);
+                }
+            }
+
+            entry = getLoadedEntry(pendingLoad, lsmFile);
+
+            if ((entry == null) &&
+                (pendingLoad != load) &&
+                (! Thread.currentThread().isInterrupted())) {
+                // another thread's load failed (possibly because that
+                // thread was interrupted), so try once with this thread
+                entry = loadEntryIfPossible(lsmFile, path,
+                                            length, lastModified);
+            } else if ((entry != null) &&
+                       (! entry.isCurrent(length, lastModified))) {
+                // file changed while another thread was loading it
+                entry = loadEntryIfPossible(lsmFile, path,
+                                            length, lastModified);
+            }
+        }
+
+        // interrupted loads are not cached, so return an empty instance
+        return (entry == null) ? new CoreMetadata() : entry.data;
+    }
+
+    /**
+     * Returns core meta data for a (validated) copy of a file, reusing
+     * the original file's in-memory entry when it is available.
+     * This allows data loaded for a source file to be used after the
+     * source has been copied (or moved) to its renamed location.
+     *
+     * @param  copyFile      copied file.
+     * @param  originalFile  original file.
+     *
+     * @return core meta data for the copied file.
+     */
+    public CoreMetadata getCopyCoreMetadata(File copyFile,
+                                            File originalFile) {
+
+        final String originalPath = getCanonicalPath(originalFile);
+        CacheEntry entry;
+        synchronized (memoryCache) {
+            entry = memoryCache.get(originalPath);
+        }
+
+        final CoreMetadata data;
+        final long length = copyFile.length();
+        if ((entry != null) &&
+            (entry.length == length) &&
+            (entry.data.seriesMetadata.size() > 0)) {
+            data = entry.data;
+            entry = new CacheEntry(length, copyFile.lastModified(), data);
+            synchronized (memoryCache) {
+                memoryCache.put(getCanonicalPath(copyFile), entry);
+            }
+        } else {
+            data = getCoreMetadata(copyFile);
+        }
+
+        return data;
+    }
+
+    /**
+     * Updates the size and last modified time recorded for a file that
+     * has been modified without changing its Zeiss data (e.g. by adding
+     * or updating a metadata tag), so that the file's entry remains
+     * current and does not need to be parsed again.
+     * Nothing is updated unless the entry was current for the file's
+     * previous size and last modified time.
+     *
+     * @param  lsmFile               modified file.
+     * @param  previousLength        size of the file before it was modified.
+     * @param  previousLastModified  last modified time of the file before
+     *                               it was modified.
+     */
+    public void updateFileAttributes(File lsmFile,
+                                     long previousLength,
+                                     long previousLastModified) {
+
+        final String path = getCanonicalPath(lsmFile);
+        CacheEntry entry;
+        synchronized (memoryCache) {
+            entry = memoryCache.get(path);
+        }
+
+        if (entry == null) {
+            entry = loadStoredEntry(path, previousLength, previousLastModified);
+        }
+
+        if ((entry != null) &&
+            entry.isCurrent(previousLength, previousLastModified) &&
+            (entry.data.seriesMetadata.size() > 0)) {
+            entry = new CacheEntry(lsmFile.length(),
+                                   lsmFile.lastModified(),
+                                   entry.data);
+            synchronized (memoryCache) {
+                memoryCache.put(path, entry);
+            }
+            saveEntry(path, entry);
+        }
+    }
+
+    /**
+     * @param  lsmFile  LSM file.
+     *
+     * @return true if current data for the specified file is
+     *         held in memory; otherwise false.
+     */
+    public boolean isCached(File lsmFile) {
+        final CacheEntry entry;
+        synchronized (memoryCache) {
+            entry = memoryCache.get(getCanonicalPath(lsmFile));
+        }
+        return (entry != null) &&
+               entry.isCurrent(lsmFile.length(), lsmFile.lastModified());
+    }
+
+    /**
+     * @return the number of entries currently held in memory.
+     */
+    public int getMemoryEntryCount() {
+        synchronized (memoryCache) {
+            return memoryCache.size();
+        }
+    }
+
+    /**
+     * Parses the specified file's header.
+     *
+     * @param  lsmFile  file to parse.
+     *
+     * @return core meta data for the file.
+     *
+     * @throws Exception
+     *   if the file cannot be parsed.
+     */
+    protected CoreMetadata readCoreMetadata(File lsmFile)
+            throws Exception {
+        ZeissLSMReader zlr = new ZeissLSMReader();
+        zlr.initFileHeader(lsmFile.getAbsolutePath());
+        return zlr.getCore();
+    }
+
+    private String getCanonicalPath(File file) {
+        String path;
+        try {
+            path = file.getCanonicalPath();
+        } catch (IOException e) {
+            path = file.getAbsolutePath();
+        }
+        return path;
+    }
+
+    /**
+     * @return the entry loaded by the specified task or null if the
+     *         load failed (or the current thread was interrupted while
+     *         waiting for it).
+     */
+    private CacheEntry getLoadedEntry(FutureTask<CacheEntry> pendingLoad,
+                                      File lsmFile) {
+        CacheEntry entry = null;
+        try {
+            entry = pendingLoad.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.warn("interrupted while waiting for Zeiss data from " +
+                     lsmFile.getAbsolutePath());
+        } catch (ExecutionException e) {
+            LOG.error("failed to load Zeiss data from " +
+                      lsmFile.getAbsolutePath(), e.getCause());
+        }
+        return entry;
+    }
+
+    /**
+     * @return the loaded entry for the specified file or null if
+     *         it could not be loaded.
+     */
+    private CacheEntry loadEntryIfPossible(File lsmFile,
+                                           String path,
+                                           long length,
+                                           long lastModified) {
+        CacheEntry entry = null;
+        try {
+            entry = loadEntry(lsmFile, path, length, lastModified);
+        } catch (Exception e) {
+            LOG.error("failed to load Zeiss data from " +
+                      lsmFile.getAbsolutePath(), e);
+        }
+        return entry;
+    }
+
+    /**
+     * Loads data for the specified file from the store or (if the store
+     * does not contain current data) by parsing the file.
+     * The loaded entry is added to the in-memory cache.
+     * Files that cannot be parsed are cached in memory with empty data,
+     * but are never saved to the store.
+     *
+     * @throws Exception
+     *   if the parse is interrupted.
+     */
+    private CacheEntry loadEntry(File lsmFile,
+                                 String path,
+                                 long length,
+                                 long lastModified)
+            throws Exception {
+
+        CacheEntry entry = loadStoredEntry(path, length, lastModified);
+
+        if (entry == null) {
+            CoreMetadata data = null;
             try {
-                ZeissLSMReader zlr = new ZeissLSMReader();
-                zlr.initFile(lsmFile.getAbsolutePath());
-                data = zlr.getCore();
+                data = readCoreMetadata(lsmFile);
             } catch (Exception e) {
-                data = new CoreMetadata();
+                if (isInterruption(e)) {
+                    throw e;
+                }
                 LOG.error("failed to load Zeiss data from " +
                           lsmFile.getAbsolutePath(), e);
             }
-            fileToDataMap.put(lsmFile, data);
+            if (data == null) {
+                entry = new CacheEntry(length, lastModified,
+                                       new CoreMetadata());
+            } else {
+                entry = new CacheEntry(length, lastModified, data);
+                saveEntry(path, entry);
+            }
         }
 
-        return data.seriesMetadata.get(propertyName);
+        synchronized (memoryCache) {
+            memoryCache.put(path, entry);
+        }
+
+        return entry;
+    }
+
+    /**
+     * @return the stored entry for the specified path or null if
+     *         the entry is missing, stale, or cannot be read.
+     */
+    private CacheEntry loadStoredEntry(final String path,
+                                       final long length,
+                                       final long lastModified) {
+        return store.load(path, new PersistentStore.EntryReader<CacheEntry>() {
+            @Override
+            public CacheEntry read(DataInputStream in)
+                    throws IOException {
+                CacheEntry entry = null;
+                final long storedLength = in.readLong();
+                final long storedLastModified = in.readLong();
+                if ((storedLength == length) &&
+                    (storedLastModified == lastModified)) {
+                    final CoreMetadata data = new CoreMetadata();
+                    final int count = in.readInt();
+                    String key;
+                    Object value;
+                    for (int i = 0; i < count; i++) {
+                        key = in.readUTF();
+                        value = readValue(in);
+                        if (value != null) {
+                            data.seriesMetadata.put(key, value);
+                        }
+                    }
+                    entry = new CacheEntry(length, lastModified, data);
+                } else if (LOG.isDebugEnabled()) {
+                    LOG.debug("loadStoredEntry: ignoring stale store entry for " +
+                              path);
+                }
+                return entry;
+            }
+        });
+    }
+
+    private void saveEntry(String path,
+                           final CacheEntry entry) {
+        store.save(path, new PersistentStore.EntryWriter() {
+            @Override
+            public void write(DataOutputStream out)
+                    throws IOException {
+                out.writeLong(entry.length);
+                out.writeLong(entry.lastModified);
+
+                final Map<String, Object> seriesMetadata =
+                        entry.data.seriesMetadata;
+                out.writeInt(seriesMetadata.size());
+                for (String key : seriesMetadata.keySet()) {
+                    out.writeUTF(key);
+                    writeValue(out, seriesMetadata.get(key));
+                }
+            }
+        });
+    }
+
+    /**
+     * @return true if the specified parse failure was caused by
+     *         an interrupt of the current thread.
+     */
+    private static boolean isInterruption(Exception e) {
+        return (e instanceof InterruptedException) ||
+               (e instanceof InterruptedIOException) ||
+               (e instanceof ClosedByInterruptException) ||
+               Thread.currentThread().isInterrupted();
+    }
+
+    private static void writeValue(DataOutputStream out,
+                                   Object value)
+            throws IOException {
+        if (value instanceof Integer) {
+            out.writeByte(TYPE_INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(TYPE_LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(TYPE_DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(TYPE_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else {
+            out.writeByte(TYPE_STRING);
+            out.writeUTF(String.valueOf(value));
+        }
     }
 
+    private static Object readValue(DataInputStream in)
+            throws IOException {
+        final Object value;
+        final byte type = in.readByte();
+        switch (type) {
+            case TYPE_INTEGER:
+                value = in.readInt();
+                break;
+            case TYPE_LONG:
+                value = in.readLong();
+                break;
+            case TYPE_DOUBLE:
+                value = in.readDouble();
+                break;
+            case TYPE_BOOLEAN:
+                value = in.readBoolean();
+                break;
+            case TYPE_STRING:
+                value = in.readUTF();
+                break;
+            default:
+                throw new IOException("unknown value type " + type);
+        }
+        return value;
+    }
+
+    /**
+     * Meta data for a specific version of an LSM file.
+     */
+    private static class CacheEntry {
+        private long length;
+        private long lastModified;
+        private CoreMetadata data;
+
+        private CacheEntry(long length,
+                           long lastModified,
+                           CoreMetadata data) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.data = data;
+        }
+
+        private boolean isCurrent(long length,
+                                  long lastModified) {
+            return (this.length == length) &&
+                   (this.lastModified == lastModified);
+        }
+    }
+
+    private static final int STORE_MAGIC = 0x4c534d43; // "LSMC"
+    private static final int STORE_VERSION = 1;
+
+    private static final byte TYPE_STRING = 0;
+    private static final byte TYPE_INTEGER = 1;
+    private static final byte TYPE_LONG = 2;
+    private static final byte TYPE_DOUBLE = 3;
+    private static final byte TYPE_BOOLEAN = 4;
+
     private static final Logger LOG =
             Logger.getLogger(LsmCoreMetaDataCache.class);
 }
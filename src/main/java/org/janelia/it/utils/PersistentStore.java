@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package org.janelia.it.utils;
+
+import loci.common.DataTools;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A directory of persisted cache entries (one file per key) that are
+ * kept across sessions.
+ * <p>
+ * Each entry file is named with the MD5 hash of the entry's key and
+ * starts with a magic number, a format version, and the key itself,
+ * so that entries written in other formats (or hash collisions) are
+ * ignored.  Entries are written to a temporary file and then moved
+ * into place, so that readers never see a partially written entry.
+ * <p>
+ * If the directory cannot be created or written, the store is disabled:
+ * nothing is loaded and saves are ignored.
+ *
+ * @author agent
+ */
+public class PersistentStore {
+
+    /**
+     * Reads the data for an entry (following the entry's header).
+     */
+    public interface EntryReader<T> {
+        /**
+         * @param  in  stream positioned after the entry's header.
+         *
+         * @return the entry's data or null if it should be ignored.
+         *
+         * @throws IOException
+         *   if the data cannot be read.
+         */
+        public T read(DataInputStream in) throws IOException;
+    }
+
+    /**
+     * Writes the data for an entry (following the entry's header).
+     */
+    public interface EntryWriter {
+        /**
+         * @param  out  stream positioned after the entry's header.
+         *
+         * @throws IOException
+         *   if the data cannot be written.
+         */
+        public void write(DataOutputStream out) throws IOException;
+    }
+
+    private File directory;
+    private String fileSuffix;
+    private String description;
+    private int magic;
+    private int version;
+
+    /**
+     * Constructs a store.
+     *
+     * @param  directory    directory for entry files
+     *                      (or null if the store should be disabled).
+     * @param  fileSuffix   suffix for entry file names (e.g. ".meta").
+     * @param  description  description of the stored data for log messages.
+     * @param  magic        magic number written at the start of each entry.
+     * @param  version      version of the entry format.
+     */
+    public PersistentStore(File directory,
+                           String fileSuffix,
+                           String description,
+                           int magic,
+                           int version) {
+
+        if (directory != null) {
+            if (! directory.exists()) {
+                if (! directory.mkdirs()) {
+                    LOG.warn("failed to create " + description + " store " +
+                             directory.getAbsolutePath() +
+                             ", data will not be saved");
+                }
+            }
+            if (directory.isDirectory() && directory.canWrite()) {
+                this.directory = directory;
+            }
+        }
+
+        this.fileSuffix = fileSuffix;
+        this.description = description;
+        this.magic = magic;
+        this.version = version;
+    }
+
+    /**
+     * @param  key  entry key.
+     *
+     * @return the stored data for the specified key or null if
+     *         the store does not contain a readable entry for it.
+     */
+    public <T> T load(String key,
+                      EntryReader<T> reader) {
+        T data = null;
+        final File file = getFile(key);
+        if ((file != null) && file.exists()) {
+            DataInputStream in = null;
+            try {
+                in = new DataInputStream(
+                        new BufferedInputStream(new FileInputStream(file)));
+                if ((in.readInt() == magic) &&
+                    (in.readInt() == version) &&
+                    key.equals(in.readUTF())) {
+                    data = reader.read(in);
+                }
+            } catch (IOException e) {
+                LOG.warn("ignoring unreadable " + description +
+                         " store file " + file.getAbsolutePath(), e);
+            } finally {
+                close(in, file);
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Saves (or replaces) the entry for the specified key.
+     * Failures are logged and otherwise ignored.
+     *
+     * @param  key     entry key.
+     * @param  writer  writes the entry's data.
+     */
+    public void save(String key,
+                     EntryWriter writer) {
+
+        final File file = getFile(key);
+        if (file == null) {
+            return;
+        }
+
+        final File tmpFile = new File(file.getParentFile(),
+                                      file.getName() + "." +
+                                      Thread.currentThread().getId() + ".tmp");
+        DataOutputStream out = null;
+        boolean saved = false;
+        try {
+            out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tmpFile)));
+            out.writeInt(magic);
+            out.writeInt(version);
+            out.writeUTF(key);
+            writer.write(out);
+            out.close();
+            out = null;
+
+            try {
+                Files.move(tmpFile.toPath(), file.toPath(),
+                           StandardCopyOption.REPLACE_EXISTING,
+                           StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmpFile.toPath(), file.toPath(),
+                           StandardCopyOption.REPLACE_EXISTING);
+            }
+            saved = true;
+
+        } catch (IOException e) {
+            LOG.warn("failed to save " + description + " for " + key +
+                     " to " + file.getAbsolutePath(), e);
+        } finally {
+            close(out, tmpFile);
+            if ((! saved) && tmpFile.exists()) {
+                //noinspection ResultOfMethodCallIgnored
+                tmpFile.delete();
+            }
+        }
+    }
+
+    /**
+     * @return the entry file for the specified key or null if
+     *         the store is disabled.
+     */
+    private File getFile(String key) {
+        File file = null;
+        if (directory != null) {
+            try {
+                final MessageDigest md5 = MessageDigest.getInstance("MD5");
+                final byte[] digest = md5.digest(key.getBytes(UTF_8));
+                file = new File(directory,
+                                DataTools.bytesToHex(digest) + fileSuffix);
+            } catch (NoSuchAlgorithmException e) {
+                LOG.warn("failed to derive store file name for " + key, e);
+            }
+        }
+        return file;
+    }
+
+    private static void close(Closeable closeable,
+                              File file) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                LOG.warn("failed to close " + file.getAbsolutePath(), e);
+            }
+        }
+    }
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final Logger LOG = Logger.getLogger(PersistentStore.class);
+}
@@ -0,0 +1,476 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package org.janelia.it.utils;
+
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Writes an ASCII tag value into the first IFD of a (classic or big)
+ * TIFF file with as little I/O as possible.
+ * <p>
+ * Values are padded with trailing spaces (the same approach XMP packets
+ * use for in-place editing) so that later values which fit within the
+ * reserved space simply overwrite the existing value.  When the tag does
+ * not exist yet, a copy of the first IFD's directory entries (plus the
+ * new entry) is appended to the file and the header is pointed at it.
+ * Out-of-line values for the other entries are not copied since their
+ * offsets remain valid.
+ * <p>
+ * All reads and writes for a file go through a single {@link FileChannel}
+ * and appended data is written with one call.
+ *
+ * @author agent
+ */
+public class TiffTagWriter {
+
+    /** Default minimum number of padding bytes reserved for a value. */
+    public static final int DEFAULT_PADDING = 1024;
+
+    /** Describes how a value was stored. */
+    public enum Update {
+
+        /** The existing value was overwritten in place. */
+        overwritten,
+
+        /**
+         * The value did not fit in the space reserved for the existing
+         * value, so it was appended to the file and the existing
+         * directory entry was updated to reference it.
+         */
+        relocated,
+
+        /**
+         * The tag did not exist, so a copy of the first IFD that includes
+         * the tag was appended to the file.
+         */
+        added,
+
+        /**
+         * The value was not written because it could not be referenced
+         * from the file's (non-big) tiff header or directory.
+         */
+        skipped
+    }
+
+    private int tag;
+    private int padding;
+
+    /**
+     * Constructs a writer.
+     *
+     * @param  tag      tag to write.
+     * @param  padding  minimum number of padding bytes to reserve
+     *                  (beyond the value itself) when space is allocated
+     *                  for a value.
+     */
+    public TiffTagWriter(int tag,
+                         int padding) {
+        this.tag = tag;
+        this.padding = padding;
+    }
+
+    /**
+     * Writes the specified value into the first IFD of the specified file.
+     *
+     * @param  file   tiff file to update.
+     * @param  value  value to write.
+     *
+     * @return description of how the value was stored.
+     *
+     * @throws IOException
+     *   if the file is not a tiff file or cannot be updated.
+     */
+    public Update write(File file,
+                        String value)
+            throws IOException {
+
+        final byte[] valueBytes = value.getBytes(LATIN_1);
+
+        final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            final Directory directory = new Directory(raf.getChannel());
+            final int index = directory.findEntry(tag);
+
+            Update update;
+            if (directory.hasEntry(index, tag)) {
+                if (directory.canOverwrite(index, valueBytes.length)) {
+                    directory.overwriteValue(index, valueBytes);
+                    update = Update.overwritten;
+                } else {
+                    update = directory.relocateValue(index, valueBytes);
+                }
+            } else {
+                update = directory.addEntry(index, valueBytes);
+            }
+
+            if (update == Update.skipped) {
+                LOG.warn("write: " + file.getAbsolutePath() + " has " +
+                         file.length() + " bytes, skipping write of tag " +
+                         tag + " since it would not be reachable via " +
+                         "IFD traversal");
+            }
+
+            return update;
+
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * @param  value  value read from a tiff file.
+     *
+     * @return the specified value without any trailing padding.
+     */
+    public static String trimPadding(String value) {
+        String trimmedValue = value;
+        if (value != null) {
+            int end = value.length();
+            while ((end > 0) && (value.charAt(end - 1) == PAD)) {
+                end--;
+            }
+            trimmedValue = value.substring(0, end);
+        }
+        return trimmedValue;
+    }
+
+    /**
+     * @return the size of the space to reserve for a value
+     *         (including its null terminator).
+     */
+    private long getCapacity(int valueLength) {
+        final long minimumSize = valueLength + 1 + padding;
+        return ((minimumSize + BLOCK_SIZE - 1) / BLOCK_SIZE) * BLOCK_SIZE;
+    }
+
+    /**
+     * Writes the value bytes followed by padding and a null terminator.
+     */
+    private static void putPaddedValue(ByteBuffer buffer,
+                                       byte[] valueBytes,
+                                       long capacity) {
+        buffer.put(valueBytes);
+        for (long i = valueBytes.length + 1; i < capacity; i++) {
+            buffer.put((byte) PAD);
+        }
+        buffer.put((byte) 0);
+    }
+
+    private static void readFully(FileChannel channel,
+                                  ByteBuffer buffer,
+                                  long position)
+            throws IOException {
+        long offset = position;
+        int count;
+        while (buffer.hasRemaining()) {
+            count = channel.read(buffer, offset);
+            if (count < 0) {
+                throw new IOException("unexpected end of file at " + offset);
+            }
+            offset += count;
+        }
+        buffer.flip();
+    }
+
+    private static void writeFully(FileChannel channel,
+                                   ByteBuffer buffer,
+                                   long position)
+            throws IOException {
+        buffer.flip();
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            offset += channel.write(buffer, offset);
+        }
+    }
+
+    /**
+     * The first image file directory of a tiff file.
+     */
+    private class Directory {
+
+        private FileChannel channel;
+        private ByteOrder order;
+        private boolean bigTiff;
+        private int offsetSize;
+        private int countSize;
+        private int entrySize;
+        private long ifdOffset;
+        private int entryCount;
+        private ByteBuffer entries;
+        private long fileLength;
+
+        /**
+         * Reads the header and first IFD (with three small reads).
+         */
+        public Directory(FileChannel channel)
+                throws IOException {
+
+            this.channel = channel;
+            this.fileLength = channel.size();
+
+            final ByteBuffer header = ByteBuffer.allocate(16);
+            header.limit((int) Math.min(16, fileLength));
+            readFully(channel, header, 0);
+            if (header.limit() < 8) {
+                throw new IOException("file is too small to be a tiff file");
+            }
+
+            final int byteOrder = header.getShort(0);
+            if (byteOrder == LITTLE_ENDIAN_MARK) {
+                order = ByteOrder.LITTLE_ENDIAN;
+            } else if (byteOrder == BIG_ENDIAN_MARK) {
+                order = ByteOrder.BIG_ENDIAN;
+            } else {
+                throw new IOException("invalid tiff byte order mark");
+            }
+            header.order(order);
+
+            final int magic = header.getShort(2);
+            if (magic == MAGIC_NUMBER) {
+                bigTiff = false;
+                ifdOffset = header.getInt(4) & 0xffffffffL;
+            } else if ((magic == BIG_TIFF_MAGIC_NUMBER) &&
+                       (header.limit() == 16)) {
+                bigTiff = true;
+                ifdOffset = header.getLong(8);
+            } else {
+                throw new IOException("invalid tiff magic number " + magic);
+            }
+
+            offsetSize = bigTiff ? 8 : 4;
+            countSize = bigTiff ? 8 : 2;
+            entrySize = bigTiff ? 20 : 12;
+
+            final ByteBuffer count = newBuffer(countSize);
+            readFully(channel, count, ifdOffset);
+            final long longEntryCount =
+                    bigTiff ? count.getLong() : (count.getShort() & 0xffff);
+            final long directoryLength = longEntryCount * entrySize;
+            if ((longEntryCount < 1) ||
+                (ifdOffset + countSize + directoryLength > fileLength)) {
+                throw new IOException("invalid first IFD with " +
+                                      longEntryCount + " entries at " +
+                                      ifdOffset);
+            }
+            entryCount = (int) longEntryCount;
+
+            // read entries and the next IFD offset together
+            entries = newBuffer((int) directoryLength + offsetSize);
+            readFully(channel, entries, ifdOffset + countSize);
+        }
+
+        /**
+         * @return index of the entry for the specified tag or
+         *         the index where an entry for the tag should be inserted
+         *         (entries are sorted by tag).
+         */
+        public int findEntry(int tag) {
+            int index = 0;
+            while ((index < entryCount) && (getTag(index) < tag)) {
+                index++;
+            }
+            return index;
+        }
+
+        public boolean hasEntry(int index,
+                                int tag) {
+            return (index < entryCount) && (getTag(index) == tag);
+        }
+
+        public boolean canOverwrite(int index,
+                                    int valueLength) {
+            final int position = index * entrySize;
+            final int type = entries.getShort(position + 2) & 0xffff;
+            final long count = getValueCount(index);
+            final long valueOffset = getOffset(position + 4 + offsetSize);
+            return (type == ASCII_TYPE) &&
+                   (count > offsetSize) &&
+                   (valueLength < count) &&
+                   (valueOffset + count <= fileLength);
+        }
+
+        /**
+         * Rewrites the space reserved for the existing value.
+         */
+        public void overwriteValue(int index,
+                                   byte[] valueBytes)
+                throws IOException {
+            final long count = getValueCount(index);
+            final long valueOffset =
+                    getOffset((index * entrySize) + 4 + offsetSize);
+            final ByteBuffer buffer = newBuffer((int) count);
+            putPaddedValue(buffer, valueBytes, count);
+            writeFully(channel, buffer, valueOffset);
+        }
+
+        /**
+         * Appends a padded value to the file and then updates the
+         * existing entry to reference it.
+         */
+        public Update relocateValue(int index,
+                                    byte[] valueBytes)
+                throws IOException {
+
+            final long capacity = getCapacity(valueBytes.length);
+            final long valueOffset = getAlignedEndOfFile();
+            if (! isAddressable(valueOffset + capacity, 0xffffffffL)) {
+                return Update.skipped;
+            }
+
+            final ByteBuffer buffer =
+                    newBuffer((int) (valueOffset - fileLength + capacity));
+            if (valueOffset > fileLength) {
+                buffer.put((byte) 0);
+            }
+            putPaddedValue(buffer, valueBytes, capacity);
+            writeFully(channel, buffer, fileLength);
+
+            final ByteBuffer entry = newBuffer(entrySize);
+            putEntry(entry, tag, capacity, valueOffset);
+            writeFully(channel,
+                       entry,
+                       ifdOffset + countSize + (index * entrySize));
+
+            return Update.relocated;
+        }
+
+        /**
+         * Appends a copy of this directory that includes an entry for
+         * the value (followed by the value itself) to the file with a
+         * single write and then points the header at the copy.
+         */
+        public Update addEntry(int index,
+                               byte[] valueBytes)
+                throws IOException {
+
+            final long capacity = getCapacity(valueBytes.length);
+            final long copyOffset = getAlignedEndOfFile();
+            final long copyLength =
+                    countSize + ((entryCount + 1) * entrySize) + offsetSize;
+            final long valueOffset = copyOffset + copyLength;
+
+            // keep first IFD offsets positive for readers
+            // that treat the (unsigned) header offset as signed
+            if (! (isAddressable(copyOffset, Integer.MAX_VALUE) &&
+                   isAddressable(valueOffset + capacity, 0xffffffffL))) {
+                return Update.skipped;
+            }
+
+            final ByteBuffer buffer = newBuffer(
+                    (int) (copyOffset - fileLength + copyLength + capacity));
+            if (copyOffset > fileLength) {
+                buffer.put((byte) 0);
+            }
+
+            if (bigTiff) {
+                buffer.putLong(entryCount + 1);
+            } else {
+                buffer.putShort((short) (entryCount + 1));
+            }
+
+            final ByteBuffer existingEntries = entries.duplicate();
+            existingEntries.limit(index * entrySize);
+            buffer.put(existingEntries);
+
+            putEntry(buffer, tag, capacity, valueOffset);
+
+            // remaining entries and next IFD offset
+            existingEntries.limit(entries.capacity());
+            buffer.put(existingEntries);
+
+            putPaddedValue(buffer, valueBytes, capacity);
+            writeFully(channel, buffer, fileLength);
+
+            final ByteBuffer header = newBuffer(offsetSize);
+            if (bigTiff) {
+                header.putLong(copyOffset);
+                writeFully(channel, header, 8);
+            } else {
+                header.putInt((int) copyOffset);
+                writeFully(channel, header, 4);
+            }
+
+            return Update.added;
+        }
+
+        private int getTag(int index) {
+            return entries.getShort(index * entrySize) & 0xffff;
+        }
+
+        private long getValueCount(int index) {
+            final int position = (index * entrySize) + 4;
+            return bigTiff ? entries.getLong(position) :
+                   (entries.getInt(position) & 0xffffffffL);
+        }
+
+        private long getOffset(int position) {
+            return bigTiff ? entries.getLong(position) :
+                   (entries.getInt(position) & 0xffffffffL);
+        }
+
+        private void putEntry(ByteBuffer buffer,
+                              int tag,
+                              long count,
+                              long valueOffset) {
+            buffer.putShort((short) tag);
+            buffer.putShort((short) ASCII_TYPE);
+            if (bigTiff) {
+                buffer.putLong(count);
+                buffer.putLong(valueOffset);
+            } else {
+                buffer.putInt((int) count);
+                buffer.putInt((int) valueOffset);
+            }
+        }
+
+        /**
+         * @return offset for appended data (IFDs and values must begin
+         *         on a word boundary).
+         */
+        private long getAlignedEndOfFile() {
+            return fileLength + (fileLength % 2);
+        }
+
+        /**
+         * @return true if the specified offset can be stored in this file's
+         *         offset fields (big tiff offsets are always addressable).
+         */
+        private boolean isAddressable(long offset,
+                                      long classicTiffLimit) {
+            return bigTiff || (offset <= classicTiffLimit);
+        }
+
+        private ByteBuffer newBuffer(int size) {
+            final ByteBuffer buffer = ByteBuffer.allocate(size);
+            buffer.order(order);
+            return buffer;
+        }
+    }
+
+    private static final Logger LOG = Logger.getLogger(TiffTagWriter.class);
+
+    /** Tiff writers store one byte per character. */
+    private static final Charset LATIN_1 = Charset.forName("ISO-8859-1");
+
+    private static final char PAD = ' ';
+    private static final int BLOCK_SIZE = 512;
+
+    private static final int LITTLE_ENDIAN_MARK = 0x4949; // II
+    private static final int BIG_ENDIAN_MARK = 0x4d4d;    // MM
+    private static final int MAGIC_NUMBER = 42;
+    private static final int BIG_TIFF_MAGIC_NUMBER = 43;
+    private static final int ASCII_TYPE = 2;
+}
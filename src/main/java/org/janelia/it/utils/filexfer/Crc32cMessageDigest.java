@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package org.janelia.it.utils.filexfer;
+
+import org.apache.log4j.Logger;
+
+import java.util.zip.Checksum;
+
+/**
+ * This class supports the calculation of message digests using the
+ * CRC 32C (Castagnoli) algorithm.  When running on a JVM that provides
+ * java.util.zip.CRC32C (Java 9 and later), that hardware accelerated
+ * implementation is used.  Otherwise, a slower table driven implementation
+ * that produces identical values is used.
+ *
+ * @author agent
+ */
+public class Crc32cMessageDigest
+        extends ChecksumMessageDigest {
+
+    public static final String NAME = "crc32c";
+
+    public Crc32cMessageDigest() {
+        super(NAME, newChecksum());
+    }
+
+    /**
+     * @return true if the JVM's accelerated implementation is available;
+     *         otherwise false.
+     */
+    public static boolean isAccelerated() {
+        return JDK_CLASS != null;
+    }
+
+    private static Checksum newChecksum() {
+        Checksum checksum = null;
+        if (JDK_CLASS != null) {
+            try {
+                checksum = (Checksum) JDK_CLASS.newInstance();
+            } catch (Exception e) {
+                LOG.warn("failed to create " + JDK_CLASS_NAME +
+                         " instance, using table implementation instead", e);
+            }
+        }
+        if (checksum == null) {
+            checksum = new TableCrc32c();
+        }
+        return checksum;
+    }
+
+    private static final Logger LOG =
+            Logger.getLogger(Crc32cMessageDigest.class);
+
+    private static final String JDK_CLASS_NAME = "java.util.zip.CRC32C";
+
+    private static final Class<?> JDK_CLASS = findJdkClass();
+
+    private static Class<?> findJdkClass() {
+        Class<?> jdkClass = null;
+        try {
+            jdkClass = Class.forName(JDK_CLASS_NAME);
+        } catch (ClassNotFoundException e) {
+            LOG.info(JDK_CLASS_NAME + " is not available in this JVM, " +
+                     "using table implementation for " + NAME + " digests");
+        }
+        return jdkClass;
+    }
+
+    /**
+     * Table driven CRC 32C implementation for JVMs without
+     * java.util.zip.CRC32C.
+     */
+    static class TableCrc32c implements Checksum {
+
+        /** Reversed Castagnoli polynomial. */
+        private static final int POLYNOMIAL = 0x82F63B78;
+
+        private static final int[] TABLE = new int[256];
+        static {
+            int crc;
+            for (int i = 0; i < TABLE.length; i++) {
+                crc = i;
+                for (int bit = 0; bit < 8; bit++) {
+                    if ((crc & 1) == 1) {
+                        crc = (crc >>> 1) ^ POLYNOMIAL;
+                    } else {
+                        crc = crc >>> 1;
+                    }
+                }
+                TABLE[i] = crc;
+            }
+        }
+
+        private int crc = 0xFFFFFFFF;
+
+        @Override
+        public void update(int b) {
+            crc = (crc >>> 8) ^ TABLE[(crc ^ b) & 0xFF];
+        }
+
+        @Override
+        public void update(byte[] b,
+                           int off,
+                           int len) {
+            int value = crc;
+            final int stop = off + len;
+            for (int i = off; i < stop; i++) {
+                value = (value >>> 8) ^ TABLE[(value ^ b[i]) & 0xFF];
+            }
+            crc = value;
+        }
+
+        @Override
+        public long getValue() {
+            return (~crc) & 0xFFFFFFFFL;
+        }
+
+        @Override
+        public void reset() {
+            crc = 0xFFFFFFFF;
+        }
+    }
+}
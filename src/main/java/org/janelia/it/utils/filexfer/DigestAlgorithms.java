@@ -30,6 +30,15 @@ public class DigestAlgorithms {
     /** The sha1 digest algorithm name. */
     public static final String SHA1 = "sha1";
 
+    /** The CRC 32C (Castagnoli) digest algorithm name. */
+    public static final String CRC32C = Crc32cMessageDigest.NAME;
+
+    /**
+     * The parallel tree hashed md5 digest algorithm name
+     * (see {@link TreeMessageDigest}).
+     */
+    public static final String MD5_TREE = TreeMessageDigest.MD5_TREE_NAME;
+
     /**
      * @param  digestAlgorithm  name of algorithm to use.
      *
@@ -50,6 +59,10 @@ public class DigestAlgorithms {
                 digest = new AdlerMessageDigest();
             } else if (CrcMessageDigest.NAME.equalsIgnoreCase(digestAlgorithm)) {
                 digest = new CrcMessageDigest();
+            } else if (Crc32cMessageDigest.NAME.equalsIgnoreCase(digestAlgorithm)) {
+                digest = new Crc32cMessageDigest();
+            } else if (MD5_TREE.equalsIgnoreCase(digestAlgorithm)) {
+                digest = new TreeMessageDigest();
             } else {
                 digest = MessageDigest.getInstance(digestAlgorithm);
             }
@@ -71,7 +84,9 @@ public class DigestAlgorithms {
                     Arrays.asList(NONE,
                                   AdlerMessageDigest.NAME,
                                   CrcMessageDigest.NAME,
+                                  CRC32C,
                                   MD5,
+                                  MD5_TREE,
                                   SHA1));
 
 }
\ No newline at end of file
@@ -12,18 +12,41 @@ import java.util.Arrays;
 
 /**
  * Convenience wrapper object for a digest value byte array that simplifies
- * value comparisons and printing.
+ * value comparisons and printing.  Instances can optionally record the
+ * name of the algorithm that produced the value.  Two instances are only
+ * considered equal when their values match and they were produced by the
+ * same algorithm (or both have an unknown algorithm).
  *
  * @author Eric Trautman
  */
 public class DigestBytes {
 
+    private String algorithm;
     private byte[] value;
 
     public DigestBytes(byte[] value) {
+        this(null, value);
+    }
+
+    /**
+     * @param  algorithm  name of the algorithm that produced the value
+     *                    (or null if unknown).
+     * @param  value      digest value.
+     */
+    public DigestBytes(String algorithm,
+                       byte[] value) {
+        this.algorithm = algorithm;
         this.value = value;
     }
 
+    /**
+     * @return name of the algorithm that produced this digest
+     *         or null if unknown.
+     */
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
     @Override
     public boolean equals(Object o) {
         boolean isEqual = false;
@@ -31,7 +54,10 @@ public class DigestBytes {
             isEqual = true;
         } else if (o instanceof DigestBytes) {
             DigestBytes that = (DigestBytes) o;
-            isEqual = Arrays.equals(value, that.value);
+            isEqual = Arrays.equals(value, that.value) &&
+                      ((algorithm == null) ?
+                       (that.algorithm == null) :
+                       algorithm.equalsIgnoreCase(that.algorithm));
         }
         return isEqual;
     }
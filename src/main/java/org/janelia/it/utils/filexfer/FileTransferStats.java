@@ -14,15 +14,37 @@ package org.janelia.it.utils.filexfer;
  */
 public class FileTransferStats {
 
+    private String operation;
     private long bytesProcessed;
     private long duration;
 
     public FileTransferStats(long bytesProcessed,
                              long duration) {
+        this(null, bytesProcessed, duration);
+    }
+
+    /**
+     * @param  operation       name of the measured operation
+     *                         (e.g. "copy" or "sampled validation").
+     * @param  bytesProcessed  number of bytes read or written.
+     * @param  duration        elapsed milliseconds.
+     */
+    public FileTransferStats(String operation,
+                             long bytesProcessed,
+                             long duration) {
+        this.operation = operation;
         this.bytesProcessed = bytesProcessed;
         this.duration = duration;
     }
 
+    public String getOperation() {
+        return operation;
+    }
+
+    public long getDurationMilliseconds() {
+        return duration;
+    }
+
     public double getDurationSeconds() {
         return duration / 1000.0;
     }
@@ -34,7 +56,8 @@ public class FileTransferStats {
     @Override
     public String toString() {
         return "FileTransferStats{" +
-               "bytesProcessed=" + bytesProcessed +
+               "operation='" + operation + '\'' +
+               ", bytesProcessed=" + bytesProcessed +
                ", duration=" + duration +
                '}';
     }
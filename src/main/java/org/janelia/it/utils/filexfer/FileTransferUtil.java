@@ -18,6 +18,7 @@ import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Random;
 
 /**
  * This utility supports file transfer and file digest calculation/validation
@@ -37,6 +38,54 @@ import java.security.NoSuchAlgorithmException;
  */
 public class FileTransferUtil {
 
+    /**
+     * Supported approaches for copying files when a digest is calculated.
+     */
+    public enum CopyMode {
+
+        /** Read, write, and digest each buffer in the calling thread. */
+        buffered,
+
+        /**
+         * Read, write, and digest in separate threads connected by a ring
+         * of reusable direct buffers (see {@link PipelinedCopier}).
+         */
+        pipelined,
+
+        /**
+         * Copy with kernel side channel transfers while another thread
+         * calculates the digest from memory mapped windows of the source
+         * (see {@link MappedCopier}).
+         */
+        mapped
+    }
+
+    /**
+     * Supported approaches for validating copies.
+     */
+    public enum ValidationMode {
+
+        /**
+         * Re-read the entire target file and compare its digest with
+         * the digest calculated for the source file during the copy.
+         */
+        full,
+
+        /**
+         * Sync the target file to disk and then compare a sample of
+         * randomly selected blocks (always including the first and last
+         * blocks) from the source and target files.
+         */
+        sampled,
+
+        /**
+         * Sync the target file to disk and then verify that the target file
+         * size matches the source and that the target modification time
+         * was set by the copy.
+         */
+        sync
+    }
+
     /**
      * Minimum buffer size allowed is 1024 bytes (1Kb).
      */
@@ -51,6 +100,31 @@ public class FileTransferUtil {
     public static final int MAX_TRANSFER_COUNT =
             (64 * 1024 * 1024) - (32 * 1024);
 
+    /**
+     * Number of buffers allocated for {@link CopyMode#pipelined} copies.
+     */
+    public static final int PIPELINE_BUFFER_COUNT = 4;
+
+    /**
+     * Size of each block compared for {@link ValidationMode#sampled}
+     * validation.
+     */
+    public static final int SAMPLE_BLOCK_SIZE = 64 * 1024;
+
+    /**
+     * Default number of blocks compared for {@link ValidationMode#sampled}
+     * validation.
+     */
+    public static final int DEFAULT_SAMPLE_BLOCK_COUNT = 8;
+
+    /**
+     * Number of milliseconds a target modification time may precede the start
+     * of a copy for {@link ValidationMode#sync} validation.  This accounts
+     * for file systems with coarse time stamps (e.g. 2 seconds for FAT)
+     * and for small clock differences between clients and file servers.
+     */
+    public static final long MODIFICATION_TIME_TOLERANCE = 2000;
+
     /**
      * Number of milliseconds to wait between digest calculation retry attempts.
      */
@@ -61,6 +135,15 @@ public class FileTransferUtil {
     private MessageDigest digest;
     private DigestBytes digestBytes;
     private FileTransferStats stats;
+    private CopyMode copyMode;
+    private PipelinedCopier pipelinedCopier;
+    private MappedCopier mappedCopier;
+    private boolean resumable;
+    private ResumableCopier resumableCopier;
+    private TransferMetrics metrics;
+    private ValidationMode validationMode;
+    private int sampleBlockCount;
+    private Random random;
 
     /**
      * Constructs a utility instance.
@@ -92,13 +175,120 @@ public class FileTransferUtil {
         this.digestAlgorithm = digestAlgorithm;
         this.digest = DigestAlgorithms.getMessageDigest(digestAlgorithm);
         this.stats = null;
+        this.copyMode = CopyMode.buffered;
+        this.pipelinedCopier = null;
+        this.mappedCopier = null;
+        this.resumable = false;
+        this.resumableCopier = null;
+        this.metrics = null;
+        this.validationMode = ValidationMode.full;
+        this.sampleBlockCount = DEFAULT_SAMPLE_BLOCK_COUNT;
+        this.random = new Random();
+    }
+
+    /**
+     * @return the mode used for copies that calculate a digest.
+     */
+    public CopyMode getCopyMode() {
+        return copyMode;
+    }
+
+    /**
+     * @param  copyMode  the mode to use for copies that calculate a digest.
+     */
+    public void setCopyMode(CopyMode copyMode) {
+        this.copyMode = copyMode;
+    }
+
+    /**
+     * @return true if copies are checkpointed so that they can be resumed
+     *         after a failure; otherwise false.
+     */
+    public boolean isResumable() {
+        return resumable;
+    }
+
+    /**
+     * Enables or disables resumable copies.  Resumable copies write to a
+     * temporary sibling of the target file and record a digest for each
+     * completed chunk in a sidecar journal.  When a failed copy is retried,
+     * previously completed chunks are verified and the copy continues from
+     * the last good chunk.  The temporary file is only renamed to the
+     * target after its full digest matches the source digest
+     * (see {@link ResumableCopier}).
+     * <p>
+     * Chunks are digested with this utility's algorithm or with
+     * {@link DigestAlgorithms#CRC32C} if this utility has no algorithm.
+     * Resumable copies ignore the {@link CopyMode} and, because they are
+     * always fully validated before the final rename, the
+     * {@link ValidationMode}.
+     *
+     * @param  resumable  true to enable resumable copies.
+     */
+    public void setResumable(boolean resumable) {
+        this.resumable = resumable;
+    }
+
+    /**
+     * @return the registry for this utility's performance metrics
+     *         or null if metrics are not recorded.
+     */
+    public TransferMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @param  metrics  registry for this utility's performance metrics
+     *                  (specify null to disable recording).
+     */
+    public void setMetrics(TransferMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return the mode used to validate copies.
+     */
+    public ValidationMode getValidationMode() {
+        return validationMode;
+    }
+
+    /**
+     * @param  validationMode    the mode to use for validating copies.
+     *
+     * @param  sampleBlockCount  number of blocks to compare for
+     *                           {@link ValidationMode#sampled} validation.
+     *
+     * @throws IllegalArgumentException
+     *   if a sampled mode is specified with fewer than 1 block.
+     */
+    public void setValidationMode(ValidationMode validationMode,
+                                  int sampleBlockCount)
+            throws IllegalArgumentException {
+        if (ValidationMode.sampled.equals(validationMode) &&
+            (sampleBlockCount < 1)) {
+            throw new IllegalArgumentException(
+                    "Invalid sample block count (" + sampleBlockCount +
+                    ") specified.  Values must be greater than 0.");
+        }
+        this.validationMode = validationMode;
+        this.sampleBlockCount = sampleBlockCount;
+    }
+
+    /**
+     * @return statistics for the last operation performed by this utility
+     *         or null if no operations have been performed.
+     */
+    public FileTransferStats getStats() {
+        return stats;
     }
 
     /**
      * Copies fromFile to toFile, logging completion statistics.
-     * If validation is requested, the digests of both files are compared after
-     * the copy completes.  If the digests do not match, the toFile is
-     * removed and an exception is thrown.
+     * If validation is requested, the copy is checked after it completes
+     * based upon this utility's {@link ValidationMode}.  For the default
+     * {@link ValidationMode#full} mode, the digests of both files are
+     * compared.  If validation fails, the toFile is removed and an
+     * exception is thrown.
      *
      * @param  fromFile      source file to copy.
      *
@@ -121,15 +311,59 @@ public class FileTransferUtil {
             LOG.info(getCopyStartMessage(fromFile, toFile));
         }
 
-        final DigestBytes fromDigest = copy(fromFile, toFile);
+        if (resumable) {
+            // resumable copies are validated before the target is renamed
+            copy(fromFile, toFile);
+            if (metrics != null) {
+                metrics.recordCopy(toFile, stats);
+            }
+            if (LOG.isInfoEnabled()) {
+                LOG.info(getSuccessfulCopyMessage(fromFile,
+                                                  toFile,
+                                                  stats,
+                                                  null) +
+                         "  Full file digest was verified before rename " +
+                         "(copy started at offset " +
+                         resumableCopier.getResumeOffset() + ").");
+            }
+            return;
+        }
+
+        final boolean isFullValidation =
+                ValidationMode.full.equals(validationMode);
+        final long copyStartTime = System.currentTimeMillis();
+        final DigestBytes fromDigest =
+                copy(fromFile, toFile, (validateCopy && (! isFullValidation)));
         final FileTransferStats copyStats = stats;
 
-        if (validateCopy && (fromDigest != null)) {
-            final DigestBytes toDigest = calculateDigest(toFile);
-            if (! fromDigest.equals(toDigest)) {
-                deleteInvalidCopyAndThrowException(fromFile,
-                                                   toFile,
-                                                   fromDigest);
+        // stays null when no validation work is actually performed
+        FileTransferStats validationStats = null;
+        if (validateCopy) {
+            if (isFullValidation) {
+                if (fromDigest != null) {
+                    // use the internal calculation so that the target
+                    // digest is recorded as validation (not digest) time
+                    final DigestBytes toDigest = calculateDigest(toFile, 1);
+                    validationStats = stats;
+                    if (! fromDigest.equals(toDigest)) {
+                        deleteInvalidCopyAndThrowException(fromFile,
+                                                           toFile,
+                                                           fromDigest);
+                    }
+                }
+            } else if (ValidationMode.sampled.equals(validationMode)) {
+                validationStats = validateSampledBlocks(fromFile, toFile);
+            } else {
+                validationStats = validateSyncedSizeAndTime(fromFile,
+                                                            toFile,
+                                                            copyStartTime);
+            }
+        }
+
+        if (metrics != null) {
+            metrics.recordCopy(toFile, copyStats);
+            if (validationStats != null) {
+                metrics.recordValidation(toFile, validationStats);
             }
         }
 
@@ -137,7 +371,7 @@ public class FileTransferUtil {
             LOG.info(getSuccessfulCopyMessage(fromFile,
                                               toFile,
                                               copyStats,
-                                              validateCopy));
+                                              validationStats));
         }
     }
 
@@ -157,6 +391,30 @@ public class FileTransferUtil {
     public DigestBytes copy(File fromFile,
                             File toFile)
             throws IOException {
+        return copy(fromFile, toFile, false);
+    }
+
+    /**
+     * Copies fromFile to toFile.
+     *
+     * @param  fromFile      source file to copy.
+     *
+     * @param  toFile        target file for copy.
+     *
+     * @param  syncTarget    indicates whether the target file's content
+     *                       and metadata should be forced to the storage
+     *                       device before the copy is considered complete.
+     *
+     * @return the calculated digest for the fromFile or null if
+     *         this instance does not have a digest algorithm.
+
+     * @throws IOException
+     *   if any errors occur during the copy.
+     */
+    private DigestBytes copy(File fromFile,
+                             File toFile,
+                             boolean syncTarget)
+            throws IOException {
 
         long startTime = System.currentTimeMillis();
 
@@ -178,6 +436,10 @@ public class FileTransferUtil {
             parent.mkdirs();
         }
 
+        if (resumable) {
+            return copyResumable(fromFile, toFile, startTime);
+        }
+
         FileInputStream fromStream = null;
         FileOutputStream toStream = null;
         try {
@@ -191,18 +453,40 @@ public class FileTransferUtil {
                 digest.reset();
                 digestBytes = null;
 
-                ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
-                while (fromChannel.read(buffer) != -1)  {
-                    buffer.flip();  // prepare buffer for reading by toChannel
-                    while (buffer.hasRemaining()) { // handle partial writes
-                        bytesProcessed += toChannel.write(buffer);
+                if (CopyMode.pipelined.equals(copyMode)) {
+
+                    if (pipelinedCopier == null) {
+                        pipelinedCopier = new PipelinedCopier(bufferSize);
                     }
-                    buffer.rewind(); // reread for digest calculation
-                    digest.update(buffer);
-                    buffer.clear(); // prepare for next read
+                    bytesProcessed = pipelinedCopier.copy(fromChannel,
+                                                          toChannel,
+                                                          digest);
+
+                } else if (CopyMode.mapped.equals(copyMode)) {
+
+                    if (mappedCopier == null) {
+                        mappedCopier = new MappedCopier(bufferSize);
+                    }
+                    bytesProcessed = mappedCopier.copy(fromChannel,
+                                                       toChannel,
+                                                       digest);
+
+                } else {
+
+                    ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+                    while (fromChannel.read(buffer) != -1) {
+                        buffer.flip();  // prepare buffer for reading by toChannel
+                        while (buffer.hasRemaining()) { // handle partial writes
+                            bytesProcessed += toChannel.write(buffer);
+                        }
+                        buffer.rewind(); // reread for digest calculation
+                        digest.update(buffer);
+                        buffer.clear(); // prepare for next read
+                    }
+
                 }
 
-                digestBytes = new DigestBytes(digest.digest());
+                digestBytes = new DigestBytes(digestAlgorithm, digest.digest());
 
             } else {
 
@@ -221,12 +505,64 @@ public class FileTransferUtil {
                 bytesProcessed = size;
             }
 
+            if (syncTarget) {
+                toChannel.force(true);
+            }
+
         } finally {
             close(fromStream);
             close(toStream);
         }
 
-        stats = new FileTransferStats(bytesProcessed,
+        stats = new FileTransferStats("copy",
+                                      bytesProcessed,
+                                      System.currentTimeMillis() - startTime);
+
+        return digestBytes;
+    }
+
+    /**
+     * Copies fromFile to toFile with a {@link ResumableCopier}.
+     *
+     * @param  fromFile   source file to copy.
+     * @param  toFile     target file for copy.
+     * @param  startTime  time the copy started.
+     *
+     * @return the calculated digest for the fromFile or null if
+     *         this instance does not have a digest algorithm.
+     *
+     * @throws IOException
+     *   if any errors occur during the copy.
+     */
+    private DigestBytes copyResumable(File fromFile,
+                                      File toFile,
+                                      long startTime)
+            throws IOException {
+
+        if (resumableCopier == null) {
+            String resumableAlgorithm = digestAlgorithm;
+            if (digest == null) {
+                resumableAlgorithm = DigestAlgorithms.CRC32C;
+            }
+            try {
+                resumableCopier = new ResumableCopier(bufferSize,
+                                                      resumableAlgorithm,
+                                                      ResumableCopier.CHUNK_SIZE);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IOException("failed to create resumable copier", e);
+            }
+        }
+
+        final DigestBytes resumableDigest =
+                resumableCopier.copy(fromFile, toFile);
+
+        digestBytes = null;
+        if (digest != null) {
+            digestBytes = resumableDigest;
+        }
+
+        stats = new FileTransferStats("resumable copy",
+                                      resumableCopier.getBytesCopied(),
                                       System.currentTimeMillis() - startTime);
 
         return digestBytes;
@@ -246,7 +582,11 @@ public class FileTransferUtil {
      */
     public DigestBytes calculateDigest(File file)
             throws IOException {
-        return calculateDigest(file, 1);
+        final DigestBytes fileDigestBytes = calculateDigest(file, 1);
+        if ((metrics != null) && (fileDigestBytes != null)) {
+            metrics.recordDigest(file, stats);
+        }
+        return fileDigestBytes;
     }
 
     /**
@@ -286,11 +626,13 @@ public class FileTransferUtil {
                     buffer.clear(); // prepare for next read
                 }
 
-                digestBytes = new DigestBytes(digest.digest());
+                digestBytes = new DigestBytes(digestAlgorithm, digest.digest());
             }
 
             final long elapsedTime = System.currentTimeMillis() - startTime;
-            stats = new FileTransferStats(channel.size(), elapsedTime);
+            stats = new FileTransferStats("full validation",
+                                          channel.size(),
+                                          elapsedTime);
 
         } catch (IOException calculationException) {
             close(stream);
@@ -360,6 +702,9 @@ public class FileTransferUtil {
         return "FileTransfer{" +
                "bufferSize=" + bufferSize +
                ", digestAlgorithm='" + digestAlgorithm + '\'' +
+               ", copyMode=" + copyMode +
+               ", validationMode=" + validationMode +
+               ", resumable=" + resumable +
                ", digestBytes=" + digestBytes +
                '}';
     }
@@ -374,11 +719,152 @@ public class FileTransferUtil {
         }
     }
 
-    private void deleteInvalidCopyAndThrowException(File fromFile,
-                                                    File toFile,
-                                                    DigestBytes fromDigest)
+    /**
+     * Compares randomly selected blocks (always including the first and
+     * last blocks) of the source and target files.
+     *
+     * @param  fromFile  source file.
+     * @param  toFile    target file.
+     *
+     * @return statistics for the validation.
+     *
+     * @throws IOException
+     *   if the blocks do not match or any other errors occur.
+     */
+    private FileTransferStats validateSampledBlocks(File fromFile,
+                                                    File toFile)
+            throws IOException {
+
+        final long startTime = System.currentTimeMillis();
+        long bytesRead = 0;
+        String failureReason = null;
+
+        FileInputStream fromStream = null;
+        FileInputStream toStream = null;
+        try {
+            fromStream = new FileInputStream(fromFile);
+            final FileChannel fromChannel = fromStream.getChannel();
+            toStream = new FileInputStream(toFile);
+            final FileChannel toChannel = toStream.getChannel();
+
+            final long size = fromChannel.size();
+            final long numberOfBlocks;
+            if (size == toChannel.size()) {
+                numberOfBlocks = (size + SAMPLE_BLOCK_SIZE - 1) /
+                                 SAMPLE_BLOCK_SIZE;
+            } else {
+                numberOfBlocks = 0;
+                failureReason = "target size (" + toChannel.size() +
+                                " bytes) differs from source size (" + size +
+                                " bytes)";
+            }
+
+            final ByteBuffer fromBuffer =
+                    ByteBuffer.allocate(SAMPLE_BLOCK_SIZE);
+            final ByteBuffer toBuffer = ByteBuffer.allocate(SAMPLE_BLOCK_SIZE);
+            long block;
+            long position;
+            for (int i = 0; (i < sampleBlockCount) && (i < numberOfBlocks); i++) {
+                if (i == 0) {
+                    block = 0;
+                } else if (i == 1) {
+                    block = numberOfBlocks - 1;
+                } else {
+                    block = (long) (random.nextDouble() * numberOfBlocks);
+                }
+                position = block * SAMPLE_BLOCK_SIZE;
+                readBlock(fromChannel, position, fromBuffer);
+                readBlock(toChannel, position, toBuffer);
+                bytesRead += toBuffer.remaining();
+                if (! fromBuffer.equals(toBuffer)) {
+                    failureReason = "target block at offset " + position +
+                                    " differs from source";
+                    break;
+                }
+            }
+
+        } finally {
+            close(fromStream);
+            close(toStream);
+        }
+
+        if (failureReason != null) {
+            deleteInvalidCopyAndThrowException(toFile, failureReason);
+        }
+
+        stats = new FileTransferStats("sampled validation",
+                                      bytesRead,
+                                      System.currentTimeMillis() - startTime);
+        return stats;
+    }
+
+    /**
+     * Verifies that the (synced) target file has the same size as the source
+     * and that its modification time was set by the copy.
+     *
+     * @param  fromFile       source file.
+     * @param  toFile         target file.
+     * @param  copyStartTime  time the copy started.
+     *
+     * @return statistics for the validation.
+     *
+     * @throws IOException
+     *   if the size or modification time is invalid.
+     */
+    private FileTransferStats validateSyncedSizeAndTime(File fromFile,
+                                                        File toFile,
+                                                        long copyStartTime)
+            throws IOException {
+
+        final long startTime = System.currentTimeMillis();
+
+        final long fromSize = fromFile.length();
+        final long toSize = toFile.length();
+        if (fromSize != toSize) {
+            deleteInvalidCopyAndThrowException(
+                    toFile,
+                    "target size (" + toSize + " bytes) " +
+                    "differs from source size (" + fromSize + " bytes)");
+        }
+
+        final long toModificationTime = toFile.lastModified();
+        if (toModificationTime <
+            (copyStartTime - MODIFICATION_TIME_TOLERANCE)) {
+            deleteInvalidCopyAndThrowException(
+                    toFile,
+                    "target modification time (" + toModificationTime +
+                    ") precedes the start of the copy (" + copyStartTime +
+                    ")");
+        }
+
+        stats = new FileTransferStats("sync validation",
+                                      0,
+                                      System.currentTimeMillis() - startTime);
+        return stats;
+    }
+
+    /**
+     * Reads (up to) one block from the specified position of a channel.
+     * The buffer is flipped for reading when this method returns.
+     */
+    private void readBlock(FileChannel channel,
+                           long position,
+                           ByteBuffer buffer)
             throws IOException {
+        buffer.clear();
+        int bytesRead = 0;
+        while ((bytesRead != -1) && buffer.hasRemaining()) {
+            bytesRead = channel.read(buffer, position + buffer.position());
+        }
+        buffer.flip();
+    }
 
+    /**
+     * Attempts to delete the specified invalid copy.
+     *
+     * @return true if the copy was removed; otherwise false.
+     */
+    private boolean deleteInvalidCopy(File toFile) {
         boolean targetRemoved = false;
         try {
             //noinspection ResultOfMethodCallIgnored
@@ -386,8 +872,39 @@ public class FileTransferUtil {
             targetRemoved = true;
         } catch (Exception e) {
             LOG.error("failed to delete " + toFile.getAbsolutePath() +
-                      " after digest mismatch found", e);
+                      " after validation failed", e);
+        }
+        return targetRemoved;
+    }
+
+    private void deleteInvalidCopyAndThrowException(File toFile,
+                                                    String reason)
+            throws IOException {
+
+        final boolean targetRemoved = deleteInvalidCopy(toFile);
+
+        StringBuilder sb = new StringBuilder(1024);
+        sb.append("Copy aborted because ");
+        sb.append(validationMode);
+        sb.append(" validation failed for target (");
+        sb.append(toFile.getAbsolutePath());
+        sb.append("): ");
+        sb.append(reason);
+        sb.append(".  The target file has ");
+        if (! targetRemoved) {
+            sb.append("NOT ");
         }
+        sb.append("been removed.");
+
+        throw new IOException(sb.toString());
+    }
+
+    private void deleteInvalidCopyAndThrowException(File fromFile,
+                                                    File toFile,
+                                                    DigestBytes fromDigest)
+            throws IOException {
+
+        final boolean targetRemoved = deleteInvalidCopy(toFile);
 
         StringBuilder sb = new StringBuilder(1024);
         sb.append("Copy aborted because ");
@@ -423,7 +940,7 @@ public class FileTransferUtil {
     private String getSuccessfulCopyMessage(File fromFile,
                                             File toFile,
                                             FileTransferStats copyStats,
-                                            boolean validateCopy) {
+                                            FileTransferStats validationStats) {
         StringBuilder sb = new StringBuilder(1024);
         sb.append("Successfully copied ");
         sb.append(fromFile.getAbsolutePath());
@@ -438,14 +955,30 @@ public class FileTransferUtil {
             sb.append(" seconds.  ");
         }
 
-        if (digestBytes != null) {
+        final boolean validateCopy = (validationStats != null);
+        if (validateCopy && (! ValidationMode.full.equals(validationMode))) {
+            if (digestBytes != null) {
+                sb.append("Source ");
+                sb.append(digestAlgorithm);
+                sb.append(" digest is ");
+                sb.append(digestBytes);
+                sb.append(".  ");
+            }
+            sb.append("Verified copy with ");
+            sb.append(validationStats.getOperation());
+            sb.append(" (");
+            sb.append(validationStats.getBytesProcessed());
+            sb.append(" bytes read) in ");
+            sb.append(validationStats.getDurationSeconds());
+            sb.append(" seconds.");
+        } else if (digestBytes != null) {
             if (validateCopy) {
                 sb.append("Verified ");
                 sb.append(digestAlgorithm);
                 sb.append(" digest ");
                 sb.append(digestBytes);
                 sb.append(" was calculated in ");
-                sb.append(stats.getDurationSeconds());
+                sb.append(validationStats.getDurationSeconds());
                 sb.append(" seconds.");
             } else {
                 sb.append("Source ");
@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package org.janelia.it.utils.filexfer;
+
+import org.apache.log4j.Logger;
+import org.janelia.it.utils.PathUtil;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copies channel data with kernel side {@link FileChannel#transferTo}
+ * calls while a separate thread calculates the source digest from
+ * read-only memory mapped windows of the source file.  Files larger than
+ * {@link #WINDOW_SIZE} are mapped one window at a time, so files over
+ * 2Gb are supported.
+ * <p>
+ * If the source cannot be mapped (some network file systems do not
+ * support mapping), the digest thread falls back to reading the source
+ * with positional channel reads.  The copy itself is not affected.
+ * <p>
+ * Mapped windows cannot be explicitly released, so they remain mapped
+ * until they are garbage collected.  On Windows, a mapped file cannot be
+ * deleted or renamed while any window is still mapped, so source mapping
+ * is disabled there and the digest is always calculated with channel
+ * reads.
+ * <p>
+ * The digest thread is created on first use and is reused for subsequent
+ * copies.  It is a daemon thread that exits once it has been idle for
+ * {@link #DIGEST_KEEP_ALIVE_SECONDS}.
+ * Like {@link FileTransferUtil}, instances are not thread safe.
+ *
+ * @author agent
+ */
+class MappedCopier {
+
+    /** Size of each mapped source window (64Mb). */
+    public static final int WINDOW_SIZE = 64 * 1024 * 1024;
+
+    /** Seconds an idle digest thread is kept before it exits. */
+    private static final long DIGEST_KEEP_ALIVE_SECONDS = 60;
+
+    private int bufferSize;
+    private boolean mapSource;
+    private ThreadPoolExecutor digestExecutor;
+
+    /**
+     * Constructs a copier that maps the source unless running on Windows.
+     *
+     * @param  bufferSize  size of buffer used for digest calculation
+     *                     when the source cannot be mapped.
+     */
+    public MappedCopier(int bufferSize) {
+        this(bufferSize, (! PathUtil.ON_WINDOWS));
+    }
+
+    /**
+     * Constructs a copier.
+     *
+     * @param  bufferSize  size of buffer used for digest calculation
+     *                     when the source cannot be mapped.
+     * @param  mapSource   true if the source should be mapped for
+     *                     digest calculation; false if it should
+     *                     always be read.
+     */
+    MappedCopier(int bufferSize,
+                 boolean mapSource) {
+        this.bufferSize = bufferSize;
+        this.mapSource = mapSource;
+        this.digestExecutor = null;
+    }
+
+    /**
+     * Copies all data from the specified source channel to the specified
+     * target channel, updating the specified digest with the source data.
+     * The digest is not reset before the copy begins.
+     *
+     * @param  fromChannel  source channel.
+     * @param  toChannel    target channel.
+     * @param  digest       digest to update.
+     *
+     * @return the number of bytes copied to the target channel.
+     *
+     * @throws IOException
+     *   if any errors occur during the copy or digest calculation.
+     */
+    public long copy(final FileChannel fromChannel,
+                     FileChannel toChannel,
+                     final MessageDigest digest)
+            throws IOException {
+
+        final long size = fromChannel.size();
+
+        if (digestExecutor == null) {
+            digestExecutor = buildDigestExecutor();
+        }
+
+        Future<Void> digester = null;
+        try {
+
+            digester = digestExecutor.submit(
+                    new Callable<Void>() {
+                        @Override
+                        public Void call() throws Exception {
+                            updateDigest(fromChannel, size, digest);
+                            return null;
+                        }
+                    });
+
+            // This loop works around a 'bug' with channel transfers
+            // of large files on Windows (see FileTransferUtil).
+            long position = 0;
+            while (position < size) {
+                position += fromChannel.transferTo(
+                        position,
+                        FileTransferUtil.MAX_TRANSFER_COUNT,
+                        toChannel);
+            }
+
+            digester.get();
+
+            return size;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("mapped copy interrupted", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("mapped copy digest calculation failed",
+                                  cause);
+        } finally {
+            // stop the digest calculation if the copy failed so that
+            // the thread can be reused by the next copy
+            if ((digester != null) && (! digester.isDone())) {
+                digester.cancel(true);
+            }
+        }
+    }
+
+    private static ThreadPoolExecutor buildDigestExecutor() {
+        final ThreadPoolExecutor executor =
+                new ThreadPoolExecutor(1, 1,
+                                       DIGEST_KEEP_ALIVE_SECONDS,
+                                       TimeUnit.SECONDS,
+                                       new LinkedBlockingQueue<Runnable>(),
+                                       DIGEST_THREAD_FACTORY);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Updates the digest with the first size bytes of the specified
+     * channel, mapping the channel if possible.
+     *
+     * @throws IOException
+     *   if the channel cannot be read.
+     */
+    private void updateDigest(FileChannel channel,
+                              long size,
+                              MessageDigest digest)
+            throws IOException {
+
+        if (! mapSource) {
+            updateDigestWithReads(channel, 0, size, digest);
+            return;
+        }
+
+        long position = 0;
+        long windowSize;
+        MappedByteBuffer window;
+        try {
+            while (position < size) {
+                windowSize = Math.min(WINDOW_SIZE, size - position);
+                window = channel.map(FileChannel.MapMode.READ_ONLY,
+                                     position,
+                                     windowSize);
+                digest.update(window);
+                position += windowSize;
+            }
+        } catch (IOException | UnsupportedOperationException e) {
+            LOG.warn("updateDigest: failed to map source at position " +
+                     position + ", reading remaining data instead", e);
+            updateDigestWithReads(channel, position, size, digest);
+        }
+    }
+
+    /**
+     * Updates the digest with data read from the specified channel
+     * between the start position and size.
+     *
+     * @throws IOException
+     *   if the channel cannot be read.
+     */
+    void updateDigestWithReads(FileChannel channel,
+                               long position,
+                               long size,
+                               MessageDigest digest)
+            throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+        int bytesRead;
+        while (position < size) {
+            buffer.clear();
+            if ((size - position) < buffer.capacity()) {
+                buffer.limit((int) (size - position));
+            }
+            bytesRead = channel.read(buffer, position);
+            if (bytesRead == -1) {
+                throw new IOException("source ended at position " + position +
+                                      " before expected size " + size);
+            }
+            buffer.flip();
+            digest.update(buffer);
+            position += bytesRead;
+        }
+    }
+
+    private static final Logger LOG = Logger.getLogger(MappedCopier.class);
+
+    private static final ThreadFactory DIGEST_THREAD_FACTORY =
+            new ThreadFactory() {
+                private int count = 0;
+                @Override
+                public synchronized Thread newThread(Runnable r) {
+                    count++;
+                    final Thread thread =
+                            new Thread(r, "mapped-copy-digest-" + count);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            };
+}
@@ -0,0 +1,401 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package org.janelia.it.utils.filexfer;
+
+import org.apache.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Copies a directory tree with a single {@link Files#walkFileTree} pass.
+ * Target directories are created as they are visited while each regular
+ * file is copied (and then validated) by a task in a fork/join pool.
+ * <p>
+ * Each file task calculates the source digest while copying, forces the
+ * copied data to disk, and then re-reads the target to confirm that its
+ * digest matches.  Validation therefore overlaps with the copying of other
+ * files instead of requiring a second walk of the whole tree.
+ * <p>
+ * The resulting tree digest is a deterministic (Merkle style) digest of
+ * each file's relative path (with '/' separators) and digest, ordered by
+ * relative path.  It does not depend upon the order in which files are
+ * listed or copied.
+ * <p>
+ * Instances are not thread safe.
+ *
+ * @author agent
+ */
+class ParallelDirectoryCopier {
+
+    /** Default number of files copied concurrently. */
+    public static final int DEFAULT_PARALLELISM =
+            Math.min(8, Math.max(2, Runtime.getRuntime().availableProcessors()));
+
+    private String algorithm;
+    private int bufferSize;
+    private int parallelism;
+    private long fileCount;
+    private long bytesCopied;
+    private AtomicLong validationMilliseconds;
+
+    /**
+     * Constructs a copier.
+     *
+     * @param  algorithm    digest algorithm for files and the tree.
+     * @param  bufferSize   maximum size of each file task's buffer.
+     * @param  parallelism  number of files to copy concurrently.
+     *
+     * @throws NoSuchAlgorithmException
+     *   if the digest algorithm is not valid.
+     */
+    public ParallelDirectoryCopier(String algorithm,
+                                   int bufferSize,
+                                   int parallelism)
+            throws NoSuchAlgorithmException {
+        // fail fast for invalid algorithms
+        MessageDigest.getInstance(algorithm);
+
+        this.algorithm = algorithm;
+        this.bufferSize = bufferSize;
+        this.parallelism = parallelism;
+        this.validationMilliseconds = new AtomicLong();
+    }
+
+    /**
+     * @return the number of files copied by the last copy.
+     */
+    public long getFileCount() {
+        return fileCount;
+    }
+
+    /**
+     * @return the number of bytes copied by the last copy.
+     */
+    public long getBytesCopied() {
+        return bytesCopied;
+    }
+
+    /**
+     * @return the total time (across all threads) spent validating
+     *         copied files during the last copy.
+     */
+    public long getValidationMilliseconds() {
+        return validationMilliseconds.get();
+    }
+
+    /**
+     * Copies the specified source directory tree to the specified
+     * target directory.
+     *
+     * @param  fromDirectory  source directory.
+     * @param  toDirectory    target directory (parent must exist).
+     *
+     * @return the validated tree digest.
+     *
+     * @throws IOException
+     *   if any file cannot be copied or if any copied file's digest
+     *   does not match its source digest.
+     */
+    public byte[] copy(final Path fromDirectory,
+                       final Path toDirectory)
+            throws IOException {
+
+        fileCount = 0;
+        bytesCopied = 0;
+        validationMilliseconds.set(0);
+
+        final List<Future<FileDigest>> fileTasks =
+                new ArrayList<Future<FileDigest>>();
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+
+            Files.walkFileTree(fromDirectory,
+                               EnumSet.of(FileVisitOption.FOLLOW_LINKS),
+                               Integer.MAX_VALUE,
+                               new SimpleFileVisitor<Path>() {
+
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir,
+                                                         BasicFileAttributes attrs)
+                        throws IOException {
+                    Files.createDirectories(
+                            toDirectory.resolve(fromDirectory.relativize(dir)));
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(final Path file,
+                                                 BasicFileAttributes attrs) {
+                    final Path relativePath = fromDirectory.relativize(file);
+                    final Path toFile = toDirectory.resolve(relativePath);
+                    fileTasks.add(pool.submit(new Callable<FileDigest>() {
+                        @Override
+                        public FileDigest call() throws Exception {
+                            return copyAndValidate(file, toFile, relativePath);
+                        }
+                    }));
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+
+            final List<FileDigest> fileDigests =
+                    new ArrayList<FileDigest>(fileTasks.size());
+            for (Future<FileDigest> fileTask : fileTasks) {
+                fileDigests.add(fileTask.get());
+            }
+
+            fileCount = fileDigests.size();
+            for (FileDigest fileDigest : fileDigests) {
+                bytesCopied += fileDigest.size;
+            }
+
+            return getTreeDigest(fileDigests);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("directory copy interrupted", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("directory copy failed", cause);
+        } finally {
+            stopAndAwaitTermination(pool, fileTasks);
+        }
+    }
+
+    /**
+     * Cancels any file tasks that have not started and then waits for
+     * running tasks to finish so that callers can safely clean up
+     * partially copied targets once the copy returns.  Running tasks
+     * are not interrupted because an interrupt closes their channels.
+     *
+     * @param  pool       pool running the file tasks.
+     * @param  fileTasks  submitted file tasks.
+     */
+    private void stopAndAwaitTermination(ForkJoinPool pool,
+                                         List<Future<FileDigest>> fileTasks) {
+        for (Future<FileDigest> fileTask : fileTasks) {
+            fileTask.cancel(false);
+        }
+        pool.shutdown();
+
+        boolean interrupted = false;
+        try {
+            while (! pool.isTerminated()) {
+                try {
+                    if (! pool.awaitTermination(TERMINATION_WAIT_SECONDS,
+                                                TimeUnit.SECONDS)) {
+                        LOG.warn("stopAndAwaitTermination: still waiting " +
+                                 "for running file copies to finish");
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Calculates the tree digest for the specified file digests.
+     * The digest list is sorted as a side effect.
+     *
+     * @param  fileDigests  list of file digests.
+     *
+     * @return the tree digest.
+     */
+    byte[] getTreeDigest(List<FileDigest> fileDigests) {
+        Collections.sort(fileDigests, RELATIVE_PATH_COMPARATOR);
+        final MessageDigest treeDigest = newDigest();
+        for (FileDigest fileDigest : fileDigests) {
+            treeDigest.update(fileDigest.relativePath.getBytes(PATH_CHARSET));
+            treeDigest.update((byte) 0);
+            treeDigest.update(fileDigest.digest);
+        }
+        return treeDigest.digest();
+    }
+
+    /**
+     * Copies a single file and then validates the copy.
+     *
+     * @return the relative path and digest of the copied file.
+     *
+     * @throws IOException
+     *   if the copy fails or the target digest does not match.
+     */
+    private FileDigest copyAndValidate(Path fromFile,
+                                       Path toFile,
+                                       Path relativePath)
+            throws IOException {
+
+        final MessageDigest digest = newDigest();
+        final long size = Files.size(fromFile);
+        final ByteBuffer buffer =
+                ByteBuffer.allocate((int) Math.max(1, Math.min(bufferSize,
+                                                               size)));
+
+        FileChannel fromChannel = null;
+        FileChannel toChannel = null;
+        try {
+            fromChannel = FileChannel.open(fromFile, StandardOpenOption.READ);
+            toChannel = FileChannel.open(toFile,
+                                         StandardOpenOption.CREATE_NEW,
+                                         StandardOpenOption.WRITE);
+            while (fromChannel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.rewind();
+                while (buffer.hasRemaining()) {
+                    toChannel.write(buffer);
+                }
+                buffer.clear();
+            }
+            toChannel.force(false);
+        } finally {
+            close(fromChannel);
+            close(toChannel);
+        }
+
+        final byte[] fromDigest = digest.digest();
+
+        final long validationStartTime = System.currentTimeMillis();
+        long copiedSize = 0;
+        toChannel = null;
+        try {
+            toChannel = FileChannel.open(toFile, StandardOpenOption.READ);
+            int bytesRead;
+            while ((bytesRead = toChannel.read(buffer)) != -1) {
+                copiedSize += bytesRead;
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        } finally {
+            close(toChannel);
+        }
+        final byte[] toDigest = digest.digest();
+        validationMilliseconds.addAndGet(
+                System.currentTimeMillis() - validationStartTime);
+
+        if (! MessageDigest.isEqual(fromDigest, toDigest)) {
+            throw new IOException(
+                    "Copy aborted because " + algorithm + " digests do not " +
+                    "match.  Target (" + toFile.toAbsolutePath() +
+                    ") digest is " + new DigestBytes(algorithm, toDigest) +
+                    " while source (" + fromFile.toAbsolutePath() +
+                    ") digest is " + new DigestBytes(algorithm, fromDigest) +
+                    ".");
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("copyAndValidate: copied and validated " + copiedSize +
+                      " bytes from " + fromFile + " to " + toFile);
+        }
+
+        return new FileDigest(getPortablePath(relativePath),
+                              copiedSize,
+                              fromDigest);
+    }
+
+    private MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            // should not happen since algorithm was checked by constructor
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void close(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                LOG.warn("close failed, ignoring error", e);
+            }
+        }
+    }
+
+    /**
+     * @return the specified relative path with '/' separators so that
+     *         tree digests are the same on all platforms.
+     */
+    private static String getPortablePath(Path relativePath) {
+        final StringBuilder sb = new StringBuilder(256);
+        for (Path name : relativePath) {
+            if (sb.length() > 0) {
+                sb.append('/');
+            }
+            sb.append(name.toString());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Relative path, size, and digest for a copied file.
+     */
+    static class FileDigest {
+        private String relativePath;
+        private long size;
+        private byte[] digest;
+
+        FileDigest(String relativePath,
+                   long size,
+                   byte[] digest) {
+            this.relativePath = relativePath;
+            this.size = size;
+            this.digest = digest;
+        }
+    }
+
+    /** Seconds between warnings while waiting for running copies. */
+    private static final long TERMINATION_WAIT_SECONDS = 30;
+
+    private static final Charset PATH_CHARSET = Charset.forName("UTF-8");
+
+    private static final Comparator<FileDigest> RELATIVE_PATH_COMPARATOR =
+            new Comparator<FileDigest>() {
+                @Override
+                public int compare(FileDigest o1,
+                                   FileDigest o2) {
+                    return o1.relativePath.compareTo(o2.relativePath);
+                }
+            };
+
+    private static final Logger LOG =
+            Logger.getLogger(ParallelDirectoryCopier.class);
+}
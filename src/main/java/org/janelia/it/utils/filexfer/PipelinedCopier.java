@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package org.janelia.it.utils.filexfer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copies channel data while calculating a digest with the read, write,
+ * and digest stages running in separate threads.  The stages are connected
+ * by a ring of reusable direct buffers: the reader fills a free buffer and
+ * hands it to the writer, the writer hands it to the digest stage, and the
+ * digest stage returns it to the free ring.  This allows reading of one
+ * buffer to overlap with writing of the previous buffer and digest
+ * calculation of the one before that.
+ * <p>
+ * The buffer ring and the stage threads are created on first use and are
+ * reused for subsequent copies.  Stage threads are daemon threads that
+ * exit once they have been idle for {@link #STAGE_KEEP_ALIVE_SECONDS}.
+ * Like {@link FileTransferUtil}, instances are not thread safe.
+ *
+ * @author agent
+ */
+class PipelinedCopier {
+
+    /** Identifies the end of the data stream between stages. */
+    private static final ByteBuffer END_OF_STREAM = ByteBuffer.allocate(0);
+
+    /** Milliseconds to wait for a free buffer before checking stages. */
+    private static final long STAGE_POLL_MILLISECONDS = 100;
+
+    /** Seconds an idle stage thread is kept before it exits. */
+    private static final long STAGE_KEEP_ALIVE_SECONDS = 60;
+
+    private int bufferSize;
+    private ByteBuffer[] ring;
+    private ThreadPoolExecutor stageExecutor;
+
+    /**
+     * Constructs a copier.
+     *
+     * @param  bufferSize  size of each buffer in the ring.
+     */
+    public PipelinedCopier(int bufferSize) {
+        this.bufferSize = bufferSize;
+        this.ring = null;
+        this.stageExecutor = null;
+    }
+
+    /**
+     * Copies all data from the specified source channel to the specified
+     * target channel, updating the specified digest with the copied data.
+     * The digest is not reset before the copy begins.
+     *
+     * @param  fromChannel  source channel.
+     * @param  toChannel    target channel.
+     * @param  digest       digest to update.
+     *
+     * @return the number of bytes written to the target channel.
+     *
+     * @throws IOException
+     *   if any errors occur during the copy.
+     */
+    public long copy(FileChannel fromChannel,
+                     final FileChannel toChannel,
+                     final MessageDigest digest)
+            throws IOException {
+
+        if (ring == null) {
+            ring = new ByteBuffer[FileTransferUtil.PIPELINE_BUFFER_COUNT];
+            for (int i = 0; i < ring.length; i++) {
+                ring[i] = ByteBuffer.allocateDirect(bufferSize);
+            }
+        }
+
+        // each queue holds the whole ring plus the end of stream marker
+        final int queueCapacity = FileTransferUtil.PIPELINE_BUFFER_COUNT + 1;
+        final BlockingQueue<ByteBuffer> freeQueue =
+                new ArrayBlockingQueue<ByteBuffer>(queueCapacity);
+        final BlockingQueue<ByteBuffer> writeQueue =
+                new ArrayBlockingQueue<ByteBuffer>(queueCapacity);
+        final BlockingQueue<ByteBuffer> digestQueue =
+                new ArrayBlockingQueue<ByteBuffer>(queueCapacity);
+
+        for (ByteBuffer buffer : ring) {
+            buffer.clear();
+            freeQueue.add(buffer);
+        }
+
+        if (stageExecutor == null) {
+            stageExecutor = buildStageExecutor();
+        }
+
+        Future<Long> writer = null;
+        Future<Void> digester = null;
+        try {
+
+            writer = stageExecutor.submit(
+                    new Callable<Long>() {
+                        @Override
+                        public Long call() throws Exception {
+                            long bytesWritten = 0;
+                            ByteBuffer buffer = writeQueue.take();
+                            while (buffer != END_OF_STREAM) {
+                                while (buffer.hasRemaining()) {
+                                    bytesWritten += toChannel.write(buffer);
+                                }
+                                buffer.rewind(); // reread for digest
+                                digestQueue.put(buffer);
+                                buffer = writeQueue.take();
+                            }
+                            digestQueue.put(END_OF_STREAM);
+                            return bytesWritten;
+                        }
+                    });
+
+            digester = stageExecutor.submit(
+                    new Callable<Void>() {
+                        @Override
+                        public Void call() throws Exception {
+                            ByteBuffer buffer = digestQueue.take();
+                            while (buffer != END_OF_STREAM) {
+                                digest.update(buffer);
+                                buffer.clear(); // prepare for next read
+                                freeQueue.put(buffer);
+                                buffer = digestQueue.take();
+                            }
+                            return null;
+                        }
+                    });
+
+            ByteBuffer buffer = takeFreeBuffer(freeQueue, writer, digester);
+            while (fromChannel.read(buffer) != -1) {
+                if (! buffer.hasRemaining()) {
+                    buffer.flip();
+                    writeQueue.put(buffer);
+                    buffer = takeFreeBuffer(freeQueue, writer, digester);
+                }
+            }
+
+            // pass along any partially filled last buffer
+            if (buffer.position() > 0) {
+                buffer.flip();
+                writeQueue.put(buffer);
+            }
+            writeQueue.put(END_OF_STREAM);
+
+            final long bytesWritten = writer.get();
+            digester.get();
+
+            return bytesWritten;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("pipelined copy interrupted", e);
+        } catch (ExecutionException e) {
+            throw getIOException(e);
+        } finally {
+            // stop any stage still waiting for data so that its
+            // thread can be reused by the next copy
+            cancel(writer);
+            cancel(digester);
+        }
+    }
+
+    private void cancel(Future<?> stage) {
+        if ((stage != null) && (! stage.isDone())) {
+            stage.cancel(true);
+        }
+    }
+
+    private static ThreadPoolExecutor buildStageExecutor() {
+        final ThreadPoolExecutor executor =
+                new ThreadPoolExecutor(2, 2,
+                                       STAGE_KEEP_ALIVE_SECONDS,
+                                       TimeUnit.SECONDS,
+                                       new LinkedBlockingQueue<Runnable>(),
+                                       STAGE_THREAD_FACTORY);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Waits for the next free buffer, checking periodically to make sure
+     * the writer and digest stages are still running.
+     *
+     * @throws ExecutionException
+     *   if either stage has failed.
+     *
+     * @throws InterruptedException
+     *   if the current thread is interrupted while waiting.
+     */
+    private ByteBuffer takeFreeBuffer(BlockingQueue<ByteBuffer> freeQueue,
+                                      Future<?> writer,
+                                      Future<?> digester)
+            throws ExecutionException, InterruptedException {
+        ByteBuffer buffer = null;
+        while (buffer == null) {
+            buffer = freeQueue.poll(STAGE_POLL_MILLISECONDS,
+                                    TimeUnit.MILLISECONDS);
+            if (buffer == null) {
+                if (writer.isDone()) {
+                    writer.get();
+                }
+                if (digester.isDone()) {
+                    digester.get();
+                }
+            }
+        }
+        return buffer;
+    }
+
+    private IOException getIOException(ExecutionException e) {
+        final Throwable cause = e.getCause();
+        final IOException ioException;
+        if (cause instanceof IOException) {
+            ioException = (IOException) cause;
+        } else {
+            ioException = new IOException("pipelined copy failed", cause);
+        }
+        return ioException;
+    }
+
+    private static final ThreadFactory STAGE_THREAD_FACTORY =
+            new ThreadFactory() {
+                private int count = 0;
+                @Override
+                public synchronized Thread newThread(Runnable r) {
+                    count++;
+                    final Thread thread =
+                            new Thread(r, "pipelined-copy-" + count);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            };
+}
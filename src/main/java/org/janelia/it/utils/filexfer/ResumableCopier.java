@@ -0,0 +1,476 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package org.janelia.it.utils.filexfer;
+
+import org.apache.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Copies files in checkpointed chunks so that failed copies can be resumed.
+ * <p>
+ * Data is written to a temporary sibling of the target file
+ * (target name + {@link #PARTIAL_SUFFIX}).  After each chunk is written
+ * and synced, the chunk's digest is appended to a small sidecar journal
+ * (target name + {@link #JOURNAL_SUFFIX}).  The journal header identifies
+ * the source path, size, and modification time, so a journal is only
+ * reused for an unchanged source.
+ * <p>
+ * When a copy is retried, each journaled chunk is re-read from both the
+ * source and the partial target and checked against the journal.  Copying
+ * continues from the end of the last verified chunk.  Once all data has
+ * been written, the full partial target digest is compared with the full
+ * source digest and the partial target is only (atomically, if supported)
+ * renamed to the target after the digests agree.
+ * <p>
+ * Like {@link FileTransferUtil}, instances are not thread safe.
+ *
+ * @author agent
+ */
+class ResumableCopier {
+
+    /** Suffix for partially copied target files. */
+    public static final String PARTIAL_SUFFIX = ".tmog-partial";
+
+    /** Suffix for copy journal files. */
+    public static final String JOURNAL_SUFFIX = ".tmog-journal";
+
+    /** Size of each checkpointed chunk (64Mb). */
+    public static final int CHUNK_SIZE = 64 * 1024 * 1024;
+
+    private static final String JOURNAL_VERSION = "tmog-journal-1";
+    private static final Charset JOURNAL_CHARSET = Charset.forName("UTF-8");
+
+    private int bufferSize;
+    private String algorithm;
+    private int chunkSize;
+    private long resumeOffset;
+    private long bytesCopied;
+
+    /**
+     * Constructs a copier.
+     *
+     * @param  bufferSize  size of transfer buffer.
+     * @param  algorithm   digest algorithm for chunks and full files.
+     * @param  chunkSize   size of each checkpointed chunk.
+     *
+     * @throws NoSuchAlgorithmException
+     *   if the digest algorithm is not valid.
+     */
+    public ResumableCopier(int bufferSize,
+                           String algorithm,
+                           int chunkSize)
+            throws NoSuchAlgorithmException {
+        if (DigestAlgorithms.getMessageDigest(algorithm) == null) {
+            throw new NoSuchAlgorithmException(
+                    "resumable copies require a digest algorithm");
+        }
+        this.bufferSize = bufferSize;
+        this.algorithm = algorithm;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @return the offset where the last copy started (non-zero when a
+     *         previous partial copy was resumed).
+     */
+    public long getResumeOffset() {
+        return resumeOffset;
+    }
+
+    /**
+     * @return the number of bytes copied by the last copy
+     *         (excludes resumed data).
+     */
+    public long getBytesCopied() {
+        return bytesCopied;
+    }
+
+    /**
+     * Copies fromFile to toFile, resuming any previous partial copy.
+     *
+     * @param  fromFile  source file to copy.
+     * @param  toFile    target file for copy (must not exist).
+     *
+     * @return the verified digest of the copied data.
+     *
+     * @throws IOException
+     *   if the copy fails or the full file digests do not agree.
+     */
+    public DigestBytes copy(File fromFile,
+                            File toFile)
+            throws IOException {
+
+        final File partialFile = getPartialFile(toFile);
+        final File journalFile = getJournalFile(toFile);
+        final String journalHeader = getJournalHeader(fromFile);
+        final MessageDigest sourceDigest = newDigest();
+
+        resumeOffset = 0;
+        bytesCopied = 0;
+
+        final List<String> journaledChunks =
+                readJournal(journalFile, journalHeader);
+        if (journaledChunks == null) {
+            deleteFile(partialFile);
+            deleteFile(journalFile);
+        }
+
+        RandomAccessFile from = null;
+        RandomAccessFile partial = null;
+        Writer journal = null;
+        try {
+            from = new RandomAccessFile(fromFile, "r");
+            final FileChannel fromChannel = from.getChannel();
+            partial = new RandomAccessFile(partialFile, "rw");
+            final FileChannel partialChannel = partial.getChannel();
+
+            final ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+            final MessageDigest chunkDigest = newDigest();
+            final long size = fromChannel.size();
+
+            int verifiedChunkCount = 0;
+            if (journaledChunks != null) {
+                verifiedChunkCount = verifyChunks(journaledChunks,
+                                                  fromChannel,
+                                                  partialChannel,
+                                                  sourceDigest,
+                                                  buffer);
+                resumeOffset = Math.min(size,
+                                        (long) verifiedChunkCount * chunkSize);
+                if (verifiedChunkCount < journaledChunks.size()) {
+                    rewriteJournal(journalFile, journalHeader,
+                                   journaledChunks.subList(0,
+                                                           verifiedChunkCount));
+                }
+                LOG.info("copy: resuming copy of " + fromFile.getAbsolutePath() +
+                         " at offset " + resumeOffset + " after verifying " +
+                         verifiedChunkCount + " of " + journaledChunks.size() +
+                         " journaled chunks");
+            } else {
+                rewriteJournal(journalFile, journalHeader,
+                               new ArrayList<String>());
+            }
+            partialChannel.truncate(resumeOffset);
+
+            journal = new OutputStreamWriter(
+                    new FileOutputStream(journalFile, true), JOURNAL_CHARSET);
+
+            long position = resumeOffset;
+            long chunkEnd;
+            while (position < size) {
+                chunkEnd = Math.min(size, position + chunkSize);
+                chunkDigest.reset();
+                while (position < chunkEnd) {
+                    readRange(fromChannel, position, chunkEnd, buffer);
+                    chunkDigest.update(buffer);
+                    buffer.rewind();
+                    sourceDigest.update(buffer);
+                    buffer.rewind();
+                    while (buffer.hasRemaining()) {
+                        position += partialChannel.write(buffer, position);
+                    }
+                }
+                partialChannel.force(false);
+                journal.write(toHex(chunkDigest.digest()));
+                journal.write('\n');
+                journal.flush();
+            }
+            bytesCopied = size - resumeOffset;
+
+        } finally {
+            close(from);
+            close(partial);
+            close(journal);
+        }
+
+        final DigestBytes fromDigest =
+                new DigestBytes(algorithm, sourceDigest.digest());
+        final DigestBytes partialDigest = calculateDigest(partialFile);
+        if (! fromDigest.equals(partialDigest)) {
+            deleteFile(partialFile);
+            deleteFile(journalFile);
+            throw new IOException(
+                    "Copy aborted because " + algorithm + " digests do not " +
+                    "match.  Partial target (" + partialFile.getAbsolutePath() +
+                    ") digest is " + partialDigest + " while source (" +
+                    fromFile.getAbsolutePath() + ") digest is " + fromDigest +
+                    ".  The partial target and journal have been removed.");
+        }
+
+        try {
+            Files.move(partialFile.toPath(), toFile.toPath(),
+                       StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            LOG.warn("copy: atomic move not supported for " +
+                     toFile.getAbsolutePath() + ", using standard move", e);
+            Files.move(partialFile.toPath(), toFile.toPath());
+        }
+
+        deleteFile(journalFile);
+
+        return fromDigest;
+    }
+
+    /**
+     * @return the partial (temporary) file for the specified target.
+     */
+    public static File getPartialFile(File toFile) {
+        return new File(toFile.getParentFile(),
+                        toFile.getName() + PARTIAL_SUFFIX);
+    }
+
+    /**
+     * @return the journal file for the specified target.
+     */
+    public static File getJournalFile(File toFile) {
+        return new File(toFile.getParentFile(),
+                        toFile.getName() + JOURNAL_SUFFIX);
+    }
+
+    /**
+     * Verifies journaled chunks against both the source and the partial
+     * target, updating the source digest with verified data.
+     *
+     * @return the number of leading chunks that were verified.
+     */
+    private int verifyChunks(List<String> journaledChunks,
+                             FileChannel fromChannel,
+                             FileChannel partialChannel,
+                             MessageDigest sourceDigest,
+                             ByteBuffer buffer)
+            throws IOException {
+
+        final long size = fromChannel.size();
+        final long partialSize = partialChannel.size();
+        final MessageDigest fromChunkDigest = newDigest();
+        final MessageDigest partialChunkDigest = newDigest();
+
+        int verifiedCount = 0;
+        long chunkStart;
+        long chunkEnd;
+        long position;
+        String expected;
+        for (String journaledChunk : journaledChunks) {
+
+            chunkStart = (long) verifiedCount * chunkSize;
+            chunkEnd = Math.min(size, chunkStart + chunkSize);
+            if ((chunkStart >= size) || (chunkEnd > partialSize)) {
+                break;
+            }
+
+            fromChunkDigest.reset();
+            partialChunkDigest.reset();
+            position = chunkStart;
+            while (position < chunkEnd) {
+                readRange(partialChannel, position, chunkEnd, buffer);
+                position += buffer.remaining();
+                partialChunkDigest.update(buffer);
+            }
+
+            expected = toHex(partialChunkDigest.digest());
+            if (! expected.equals(journaledChunk)) {
+                LOG.warn("verifyChunks: partial target chunk " +
+                         verifiedCount + " does not match journal");
+                break;
+            }
+
+            position = chunkStart;
+            while (position < chunkEnd) {
+                readRange(fromChannel, position, chunkEnd, buffer);
+                position += buffer.remaining();
+                fromChunkDigest.update(buffer);
+                buffer.rewind();
+                sourceDigest.update(buffer);
+            }
+
+            expected = toHex(fromChunkDigest.digest());
+            if (! expected.equals(journaledChunk)) {
+                // source digest has been updated with bad data,
+                // so we need to start over
+                LOG.warn("verifyChunks: source chunk " + verifiedCount +
+                         " does not match journal, restarting copy");
+                sourceDigest.reset();
+                verifiedCount = 0;
+                break;
+            }
+
+            verifiedCount++;
+        }
+
+        return verifiedCount;
+    }
+
+    /**
+     * Reads data from the specified position up to (at most) the
+     * specified end position into the buffer.  The buffer is flipped
+     * for reading when this method returns.
+     *
+     * @throws IOException
+     *   if the channel ends before the end position.
+     */
+    private void readRange(FileChannel channel,
+                           long position,
+                           long end,
+                           ByteBuffer buffer)
+            throws IOException {
+        buffer.clear();
+        if ((end - position) < buffer.capacity()) {
+            buffer.limit((int) (end - position));
+        }
+        int bytesRead;
+        while (buffer.hasRemaining()) {
+            bytesRead = channel.read(buffer, position + buffer.position());
+            if (bytesRead == -1) {
+                throw new IOException("unexpected end of data at position " +
+                                      (position + buffer.position()));
+            }
+        }
+        buffer.flip();
+    }
+
+    private DigestBytes calculateDigest(File file)
+            throws IOException {
+        final MessageDigest digest = newDigest();
+        FileInputStream stream = null;
+        try {
+            stream = new FileInputStream(file);
+            final FileChannel channel = stream.getChannel();
+            final ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        } finally {
+            close(stream);
+        }
+        return new DigestBytes(algorithm, digest.digest());
+    }
+
+    String getJournalHeader(File fromFile) {
+        return JOURNAL_VERSION + '\t' + algorithm + '\t' + chunkSize + '\t' +
+               fromFile.length() + '\t' + fromFile.lastModified() + '\t' +
+               fromFile.getAbsolutePath();
+    }
+
+    /**
+     * @return the list of chunk digests in the specified journal or
+     *         null if the journal does not exist or was written for a
+     *         different (or modified) source.
+     */
+    private List<String> readJournal(File journalFile,
+                                     String expectedHeader) {
+        List<String> chunks = null;
+        if (journalFile.exists()) {
+            BufferedReader reader = null;
+            try {
+                reader = new BufferedReader(
+                        new InputStreamReader(new FileInputStream(journalFile),
+                                              JOURNAL_CHARSET));
+                final String header = reader.readLine();
+                if (expectedHeader.equals(header)) {
+                    chunks = new ArrayList<String>();
+                    for (String line = reader.readLine();
+                         line != null;
+                         line = reader.readLine()) {
+                        if (line.length() > 0) {
+                            chunks.add(line);
+                        }
+                    }
+                } else {
+                    LOG.info("readJournal: ignoring stale journal " +
+                             journalFile.getAbsolutePath());
+                }
+            } catch (IOException e) {
+                LOG.warn("readJournal: failed to read " +
+                         journalFile.getAbsolutePath() + ", ignoring it", e);
+                chunks = null;
+            } finally {
+                close(reader);
+            }
+        }
+        return chunks;
+    }
+
+    private void rewriteJournal(File journalFile,
+                                String header,
+                                List<String> chunks)
+            throws IOException {
+        Writer writer = null;
+        try {
+            writer = new OutputStreamWriter(new FileOutputStream(journalFile),
+                                            JOURNAL_CHARSET);
+            writer.write(header);
+            writer.write('\n');
+            for (String chunk : chunks) {
+                writer.write(chunk);
+                writer.write('\n');
+            }
+        } finally {
+            close(writer);
+        }
+    }
+
+    private MessageDigest newDigest() {
+        try {
+            return DigestAlgorithms.getMessageDigest(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            // should not happen since algorithm was checked by constructor
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String toHex(byte[] bytes) {
+        final StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(HEX_DIGITS[(b >> 4) & 0xF]);
+            sb.append(HEX_DIGITS[b & 0xF]);
+        }
+        return sb.toString();
+    }
+
+    private static void deleteFile(File file) {
+        if (file.exists() && (! file.delete())) {
+            LOG.warn("failed to delete " + file.getAbsolutePath());
+        }
+    }
+
+    private static void close(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                LOG.warn("close failed, ignoring error", e);
+            }
+        }
+    }
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private static final Logger LOG = Logger.getLogger(ResumableCopier.class);
+}
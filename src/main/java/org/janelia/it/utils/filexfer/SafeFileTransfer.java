@@ -17,6 +17,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Files;
 import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -52,6 +53,56 @@ public class SafeFileTransfer {
                             File destLocation,
                             boolean overWriteExisting)
             throws FileCopyFailedException {
+        copy(srcLocation, destLocation, overWriteExisting, null);
+    }
+
+    /**
+     * Copies srcLocation to destLocation (see {@link #copy(File, File, boolean)})
+     * and records copy performance in the specified metrics registry.
+     *
+     * @param  srcLocation        source to copy.
+     * @param  destLocation       target for copy.
+     * @param  overWriteExisting  indicates whether an existing destLocation
+     *                            should be deleted before the copy.
+     * @param  metrics            registry for copy performance metrics
+     *                            (or null if metrics are not needed).
+     *
+     * @throws FileCopyFailedException
+     *   if any errors occur during the copy.
+     */
+    public static void copy(File srcLocation,
+                            File destLocation,
+                            boolean overWriteExisting,
+                            TransferMetrics metrics)
+            throws FileCopyFailedException {
+        copy(srcLocation, destLocation, overWriteExisting, metrics,
+             ParallelDirectoryCopier.DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * Copies srcLocation to destLocation (see {@link #copy(File, File, boolean)})
+     * and records copy performance in the specified metrics registry.
+     *
+     * @param  srcLocation        source to copy.
+     * @param  destLocation       target for copy.
+     * @param  overWriteExisting  indicates whether an existing destLocation
+     *                            should be deleted before the copy.
+     * @param  metrics            registry for copy performance metrics
+     *                            (or null if metrics are not needed).
+     * @param  maxParallelism     maximum number of files to copy concurrently
+     *                            when srcLocation is a directory
+     *                            (e.g. the destination mount's transfer
+     *                            concurrency limit).
+     *
+     * @throws FileCopyFailedException
+     *   if any errors occur during the copy.
+     */
+    public static void copy(File srcLocation,
+                            File destLocation,
+                            boolean overWriteExisting,
+                            TransferMetrics metrics,
+                            int maxParallelism)
+            throws FileCopyFailedException {
 
         final String srcPath = srcLocation.getAbsolutePath();
         final String destPath = destLocation.getAbsolutePath();
@@ -78,12 +129,28 @@ public class SafeFileTransfer {
                 createParentDirectoriesIfNecessary(destLocation);
             }
 
+            if (srcLocation.isDirectory()) {
+                parallelDirectoryCopy(srcLocation, destLocation, metrics,
+                                      maxParallelism);
+                return;
+            }
+
             final long copyStartTime = System.currentTimeMillis();
             byte[] hashCode = recursiveCopy(srcLocation, destLocation);
             final long valStartTime = System.currentTimeMillis();
             boolean success = recursiveHashValidation(destLocation, hashCode);
             final long valStopTime = System.currentTimeMillis();
             if (success) {
+                if (metrics != null) {
+                    metrics.recordCopy(destLocation,
+                                       new FileTransferStats("copy",
+                                                             destLocation.length(),
+                                                             valStartTime - copyStartTime));
+                    metrics.recordValidation(destLocation,
+                                             new FileTransferStats("full validation",
+                                                                   destLocation.length(),
+                                                                   valStopTime - valStartTime));
+                }
                 if (LOG.isInfoEnabled()) {
                     final double copyDurationSeconds = (valStartTime - copyStartTime) / 1000.0;
                     final double valDurationSeconds = (valStopTime - valStartTime) / 1000.0;
@@ -106,6 +173,97 @@ public class SafeFileTransfer {
          }
     }
 
+    /**
+     * Copies the srcDirectory tree to destDirectory with a
+     * {@link ParallelDirectoryCopier}.  Each file is validated as soon as
+     * it has been copied, so a second walk of the tree is not needed.
+     * If the copy fails for any reason, any partially copied tree is removed.
+     *
+     * @param  srcDirectory    directory to copy.
+     * @param  destDirectory   target for copy (must not exist).
+     * @param  metrics         registry for copy performance metrics
+     *                         (or null if metrics are not needed).
+     * @param  maxParallelism  maximum number of files to copy concurrently.
+     *
+     * @throws IOException
+     *   if any errors occur during the copy.
+     *
+     * @throws NoSuchAlgorithmException
+     *   if the digest algorithm is not available.
+     */
+    private static void parallelDirectoryCopy(File srcDirectory,
+                                              File destDirectory,
+                                              TransferMetrics metrics,
+                                              int maxParallelism)
+            throws IOException, NoSuchAlgorithmException {
+
+        final int parallelism =
+                Math.max(1, Math.min(ParallelDirectoryCopier.DEFAULT_PARALLELISM,
+                                     maxParallelism));
+        final ParallelDirectoryCopier copier =
+                new ParallelDirectoryCopier(DIGEST_ALGORITHM,
+                                            BUFFER_SIZE,
+                                            parallelism);
+        final long copyStartTime = System.currentTimeMillis();
+        final byte[] hashCode;
+        boolean isCopyComplete = false;
+        try {
+            hashCode = copier.copy(srcDirectory.toPath(),
+                                   destDirectory.toPath());
+            isCopyComplete = true;
+        } finally {
+            if (! isCopyComplete) {
+                recursiveDelete(destDirectory);
+            }
+        }
+
+        if (metrics != null) {
+            final long elapsedTime = System.currentTimeMillis() - copyStartTime;
+            metrics.recordCopy(destDirectory,
+                               new FileTransferStats("directory copy",
+                                                     copier.getBytesCopied(),
+                                                     elapsedTime));
+            metrics.recordValidation(destDirectory,
+                                     new FileTransferStats("directory validation",
+                                                           copier.getBytesCopied(),
+                                                           copier.getValidationMilliseconds()));
+        }
+
+        if (LOG.isInfoEnabled()) {
+            final double copyDurationSeconds =
+                    (System.currentTimeMillis() - copyStartTime) / 1000.0;
+            final double valDurationSeconds =
+                    copier.getValidationMilliseconds() / 1000.0;
+            LOG.info("copied " + copier.getFileCount() + " files (" +
+                     copier.getBytesCopied() + " bytes) from " +
+                     srcDirectory.getAbsolutePath() + " in " +
+                     copyDurationSeconds + " seconds");
+            logTransferStats("copied",
+                             hashCode,
+                             srcDirectory,
+                             destDirectory,
+                             copyDurationSeconds,
+                             valDurationSeconds);
+        }
+    }
+
+    private static void recursiveDelete(File file) {
+        // never follow links out of the (partially) copied tree
+        File[] children = null;
+        if (! Files.isSymbolicLink(file.toPath())) {
+            children = file.listFiles();
+        }
+        if (children != null) {
+            for (File child : children) {
+                recursiveDelete(child);
+            }
+        }
+        if (file.exists() && (! file.delete())) {
+            LOG.warn("failed to delete " + file.getAbsolutePath() +
+                     " after unsuccessful copy");
+        }
+    }
+
     public static void createParentDirectoriesIfNecessary(File file) throws IOException {
         final File parentDirectory = file.getParentFile();
         if (! parentDirectory.exists()) {
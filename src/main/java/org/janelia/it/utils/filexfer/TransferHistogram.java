@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package org.janelia.it.utils.filexfer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A fixed memory histogram of non-negative long values in the style of an
+ * HDR histogram.  Values less than 128 are counted exactly.  Larger values
+ * are counted in log-linear buckets: each power of two range is split into
+ * 64 equal sub-buckets, so the value reported for any bucket is within
+ * about 1.6% of every value counted in it.
+ * <p>
+ * Instances are thread safe.
+ *
+ * @author agent
+ */
+public class TransferHistogram {
+
+    /** Number of sub-buckets per power of two (must be a power of two). */
+    private static final int SUB_BUCKET_COUNT = 64;
+    private static final int SUB_BUCKET_BITS = 6;
+
+    /** Values less than this are counted exactly. */
+    private static final int EXACT_LIMIT = 2 * SUB_BUCKET_COUNT;
+
+    private static final int BUCKET_COUNT =
+            EXACT_LIMIT + ((63 - SUB_BUCKET_BITS - 1) * SUB_BUCKET_COUNT);
+
+    private long[] counts;
+    private long totalCount;
+    private long sum;
+    private long min;
+    private long max;
+
+    /**
+     * Constructs an empty histogram.
+     */
+    public TransferHistogram() {
+        this.counts = new long[BUCKET_COUNT];
+        this.totalCount = 0;
+        this.sum = 0;
+        this.min = Long.MAX_VALUE;
+        this.max = 0;
+    }
+
+    /**
+     * Records the specified value.  Negative values are recorded as zero.
+     *
+     * @param  value  value to record.
+     */
+    public synchronized void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts[getBucketIndex(value)]++;
+        totalCount++;
+        sum += value;
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    /**
+     * @return the number of recorded values.
+     */
+    public synchronized long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * @return the smallest recorded value (or zero if nothing was recorded).
+     */
+    public synchronized long getMin() {
+        return totalCount == 0 ? 0 : min;
+    }
+
+    /**
+     * @return the largest recorded value.
+     */
+    public synchronized long getMax() {
+        return max;
+    }
+
+    /**
+     * @return the mean of all recorded values.
+     */
+    public synchronized double getMean() {
+        return totalCount == 0 ? 0 : (double) sum / totalCount;
+    }
+
+    /**
+     * @param  percentile  percentile (0 to 100) to find.
+     *
+     * @return the (approximate) value at the specified percentile.
+     */
+    public synchronized long getValueAtPercentile(double percentile) {
+        long value = 0;
+        if (totalCount > 0) {
+            final double fraction = Math.min(100.0, Math.max(0.0, percentile));
+            final long targetCount =
+                    Math.max(1, (long) Math.ceil((fraction / 100.0) * totalCount));
+            long cumulativeCount = 0;
+            for (int i = 0; i < counts.length; i++) {
+                cumulativeCount += counts[i];
+                if (cumulativeCount >= targetCount) {
+                    value = Math.min(max, getHighestValue(i));
+                    break;
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * @return a serializable summary of this histogram including
+     *         the counts of all non-empty buckets.
+     */
+    public synchronized Summary getSummary() {
+        final Summary summary = new Summary();
+        summary.count = totalCount;
+        summary.min = getMin();
+        summary.max = max;
+        summary.mean = getMean();
+        summary.p50 = getValueAtPercentile(50);
+        summary.p90 = getValueAtPercentile(90);
+        summary.p99 = getValueAtPercentile(99);
+        summary.p999 = getValueAtPercentile(99.9);
+        summary.buckets = new ArrayList<long[]>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                summary.buckets.add(new long[] { getLowestValue(i), counts[i] });
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * @return the index of the bucket for the specified (non-negative) value.
+     */
+    static int getBucketIndex(long value) {
+        final int index;
+        if (value < EXACT_LIMIT) {
+            index = (int) value;
+        } else {
+            final int magnitude = 63 - Long.numberOfLeadingZeros(value);
+            final int shift = magnitude - SUB_BUCKET_BITS;
+            final int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+            index = EXACT_LIMIT + ((shift - 1) * SUB_BUCKET_COUNT) + subBucket;
+        }
+        return index;
+    }
+
+    /**
+     * @return the lowest value counted in the specified bucket.
+     */
+    static long getLowestValue(int index) {
+        final long value;
+        if (index < EXACT_LIMIT) {
+            value = index;
+        } else {
+            final int shift = ((index - EXACT_LIMIT) / SUB_BUCKET_COUNT) + 1;
+            final long subBucket =
+                    ((index - EXACT_LIMIT) % SUB_BUCKET_COUNT) + SUB_BUCKET_COUNT;
+            value = subBucket << shift;
+        }
+        return value;
+    }
+
+    /**
+     * @return the highest value counted in the specified bucket.
+     */
+    static long getHighestValue(int index) {
+        final long value;
+        if (index < EXACT_LIMIT) {
+            value = index;
+        } else {
+            final int shift = ((index - EXACT_LIMIT) / SUB_BUCKET_COUNT) + 1;
+            value = getLowestValue(index) + (1L << shift) - 1;
+        }
+        return value;
+    }
+
+    /**
+     * Serializable histogram summary.  Each bucket is recorded as a
+     * [lowest bucket value, count] pair so that summaries from
+     * different sessions can be combined later.
+     */
+    public static class Summary {
+        private long count;
+        private long min;
+        private long max;
+        private double mean;
+        private long p50;
+        private long p90;
+        private long p99;
+        private long p999;
+        private List<long[]> buckets;
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package org.janelia.it.utils.filexfer;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.File;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A registry of transfer performance histograms for a session.
+ * Each recorded value is added to a histogram for the session's project
+ * and to a histogram for the transfer's destination (by default, the
+ * target file's parent directory - see {@link #getDestination}).
+ * <p>
+ * The registry can be serialized to JSON (see {@link #toJson}) so that
+ * transfer performance can be trended across sessions.
+ * <p>
+ * Instances are thread safe.
+ *
+ * @author agent
+ */
+public class TransferMetrics {
+
+    /** Transfer rate in bytes per second. */
+    public static final String BYTES_PER_SECOND = "bytesPerSecond";
+
+    /** Elapsed time for each copy in milliseconds. */
+    public static final String COPY_MILLISECONDS = "copyMilliseconds";
+
+    /** Elapsed time for each copy validation in milliseconds. */
+    public static final String VALIDATION_MILLISECONDS = "validationMilliseconds";
+
+    /** Elapsed time for each stand-alone digest calculation in milliseconds. */
+    public static final String DIGEST_MILLISECONDS = "digestMilliseconds";
+
+    /** Elapsed time for each (same file system) move in milliseconds. */
+    public static final String MOVE_MILLISECONDS = "moveMilliseconds";
+
+    private String project;
+    private long startTime;
+    private Map<String, TransferHistogram> projectHistograms;
+    private Map<String, Map<String, TransferHistogram>> destinationHistograms;
+
+    /**
+     * Constructs an empty registry.
+     *
+     * @param  project  name of the session's project.
+     */
+    public TransferMetrics(String project) {
+        this.project = project;
+        this.startTime = System.currentTimeMillis();
+        this.projectHistograms =
+                new ConcurrentHashMap<String, TransferHistogram>();
+        this.destinationHistograms =
+                new ConcurrentHashMap<String, Map<String, TransferHistogram>>();
+    }
+
+    public String getProject() {
+        return project;
+    }
+
+    public void setProject(String project) {
+        this.project = project;
+    }
+
+    /**
+     * Records the copy time and transfer rate for the specified stats.
+     *
+     * @param  toFile  target of the copy.
+     * @param  stats   copy statistics.
+     */
+    public void recordCopy(File toFile,
+                           FileTransferStats stats) {
+        final String destination = getDestination(toFile);
+        record(COPY_MILLISECONDS, destination, stats.getDurationMilliseconds());
+        recordRate(destination, stats);
+    }
+
+    /**
+     * Records the validation time for the specified stats.
+     *
+     * @param  toFile  target of the validated copy.
+     * @param  stats   validation statistics.
+     */
+    public void recordValidation(File toFile,
+                                 FileTransferStats stats) {
+        record(VALIDATION_MILLISECONDS,
+               getDestination(toFile),
+               stats.getDurationMilliseconds());
+    }
+
+    /**
+     * Records the digest calculation time for the specified stats.
+     *
+     * @param  file   file whose digest was calculated.
+     * @param  stats  digest statistics.
+     */
+    public void recordDigest(File file,
+                             FileTransferStats stats) {
+        record(DIGEST_MILLISECONDS,
+               getDestination(file),
+               stats.getDurationMilliseconds());
+    }
+
+    /**
+     * Records the move time and (effective) transfer rate for the
+     * specified stats.
+     *
+     * @param  toFile  target of the move.
+     * @param  stats   move statistics.
+     */
+    public void recordMove(File toFile,
+                           FileTransferStats stats) {
+        final String destination = getDestination(toFile);
+        record(MOVE_MILLISECONDS, destination, stats.getDurationMilliseconds());
+        recordRate(destination, stats);
+    }
+
+    /**
+     * Records a value in the project and destination histograms
+     * for the specified metric.
+     *
+     * @param  metric       name of metric.
+     * @param  destination  transfer destination.
+     * @param  value        value to record.
+     */
+    public void record(String metric,
+                       String destination,
+                       long value) {
+        getHistogram(projectHistograms, metric).record(value);
+        Map<String, TransferHistogram> histograms =
+                destinationHistograms.get(destination);
+        if (histograms == null) {
+            synchronized (this) {
+                histograms = destinationHistograms.get(destination);
+                if (histograms == null) {
+                    histograms =
+                            new ConcurrentHashMap<String, TransferHistogram>();
+                    destinationHistograms.put(destination, histograms);
+                }
+            }
+        }
+        getHistogram(histograms, metric).record(value);
+    }
+
+    /**
+     * @param  metric  name of metric.
+     *
+     * @return the project histogram for the specified metric or null
+     *         if no values have been recorded.
+     */
+    public TransferHistogram getProjectHistogram(String metric) {
+        return projectHistograms.get(metric);
+    }
+
+    /**
+     * @param  destination  transfer destination.
+     * @param  metric       name of metric.
+     *
+     * @return the destination histogram for the specified metric or null
+     *         if no values have been recorded.
+     */
+    public TransferHistogram getDestinationHistogram(String destination,
+                                                     String metric) {
+        TransferHistogram histogram = null;
+        final Map<String, TransferHistogram> histograms =
+                destinationHistograms.get(destination);
+        if (histograms != null) {
+            histogram = histograms.get(metric);
+        }
+        return histogram;
+    }
+
+    /**
+     * @return true if no values have been recorded; otherwise false.
+     */
+    public boolean isEmpty() {
+        return projectHistograms.isEmpty();
+    }
+
+    /**
+     * @return a JSON representation of all histograms in this registry.
+     */
+    public String toJson() {
+        final Map<String, Object> json = new TreeMap<String, Object>();
+        json.put("project", project);
+        json.put("startTime", startTime);
+        json.put("endTime", System.currentTimeMillis());
+        json.put("projectMetrics", getSummaries(projectHistograms));
+
+        final Map<String, Object> destinations = new TreeMap<String, Object>();
+        for (String destination : destinationHistograms.keySet()) {
+            destinations.put(destination,
+                             getSummaries(destinationHistograms.get(destination)));
+        }
+        json.put("destinationMetrics", destinations);
+
+        return GSON.toJson(json);
+    }
+
+    /**
+     * @param  toFile  transfer target.
+     *
+     * @return the destination key for the specified target.
+     *         Override this method to group destinations differently
+     *         (e.g. by file system).
+     */
+    protected String getDestination(File toFile) {
+        final File parent = toFile.getAbsoluteFile().getParentFile();
+        return parent == null ? toFile.getAbsolutePath() :
+               parent.getAbsolutePath();
+    }
+
+    private void recordRate(String destination,
+                            FileTransferStats stats) {
+        final long milliseconds = Math.max(1, stats.getDurationMilliseconds());
+        record(BYTES_PER_SECOND,
+               destination,
+               (stats.getBytesProcessed() * 1000) / milliseconds);
+    }
+
+    private TransferHistogram getHistogram(Map<String, TransferHistogram> histograms,
+                                           String metric) {
+        TransferHistogram histogram = histograms.get(metric);
+        if (histogram == null) {
+            synchronized (this) {
+                histogram = histograms.get(metric);
+                if (histogram == null) {
+                    histogram = new TransferHistogram();
+                    histograms.put(metric, histogram);
+                }
+            }
+        }
+        return histogram;
+    }
+
+    private Map<String, TransferHistogram.Summary> getSummaries(
+            Map<String, TransferHistogram> histograms) {
+        final Map<String, TransferHistogram.Summary> summaries =
+                new TreeMap<String, TransferHistogram.Summary>();
+        for (String metric : histograms.keySet()) {
+            summaries.put(metric, histograms.get(metric).getSummary());
+        }
+        return summaries;
+    }
+
+    private static final Gson GSON =
+            new GsonBuilder().setPrettyPrinting().create();
+}
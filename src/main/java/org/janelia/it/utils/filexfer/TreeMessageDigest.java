@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package org.janelia.it.utils.filexfer;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * This class supports the calculation of tree hashed message digests.
+ * Data is split into fixed size chunks that are hashed in parallel with
+ * the leaf algorithm.  The resulting digest is the leaf algorithm
+ * digest of the concatenated (ordered) chunk digests.
+ * <p>
+ * Chunk hashing runs in a shared pool of daemon threads sized to the
+ * number of available processors.  To bound memory use, each instance
+ * only allows a limited number of chunks to be in flight; updates block
+ * when that limit is reached.
+ * <p>
+ * Because the resulting values differ from the leaf algorithm's values for
+ * the same data, digests produced by this class should only be compared
+ * with other tree digests that use the same leaf algorithm and chunk size.
+ *
+ * @author agent
+ */
+public class TreeMessageDigest
+        extends MessageDigest {
+
+    /** Name of the md5 based tree digest. */
+    public static final String MD5_TREE_NAME = "md5-tree";
+
+    /** Size of each hashed chunk (4Mb). */
+    public static final int CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private String leafAlgorithm;
+    private int chunkSize;
+    private BlockingQueue<byte[]> freeChunks;
+    private List<Future<byte[]>> leafDigests;
+    private byte[] currentChunk;
+    private int currentChunkLength;
+    private int allocatedChunks;
+
+    /**
+     * Constructs an md5 based tree digest.
+     *
+     * @throws NoSuchAlgorithmException
+     *   if the md5 algorithm is not available.
+     */
+    public TreeMessageDigest()
+            throws NoSuchAlgorithmException {
+        this(MD5_TREE_NAME, DigestAlgorithms.MD5, CHUNK_SIZE);
+    }
+
+    /**
+     * Constructs a tree digest.
+     *
+     * @param  algorithmName  name of this algorithm.
+     * @param  leafAlgorithm  name of algorithm used to hash each chunk
+     *                        and to combine the chunk digests.
+     * @param  chunkSize      size of each hashed chunk.
+     *
+     * @throws NoSuchAlgorithmException
+     *   if the leaf algorithm is not available.
+     */
+    public TreeMessageDigest(String algorithmName,
+                             String leafAlgorithm,
+                             int chunkSize)
+            throws NoSuchAlgorithmException {
+        super(algorithmName);
+
+        // fail fast for invalid algorithms
+        MessageDigest.getInstance(leafAlgorithm);
+
+        this.leafAlgorithm = leafAlgorithm;
+        this.chunkSize = chunkSize;
+        this.freeChunks = new ArrayBlockingQueue<byte[]>(MAX_CHUNKS_IN_FLIGHT);
+        this.leafDigests = new ArrayList<Future<byte[]>>();
+        this.currentChunk = null;
+        this.currentChunkLength = 0;
+        this.allocatedChunks = 0;
+    }
+
+    @Override
+    protected void engineUpdate(byte input) {
+        engineUpdate(new byte[] { input }, 0, 1);
+    }
+
+    @Override
+    protected void engineUpdate(byte[] input,
+                                int offset,
+                                int len) {
+        int remaining = len;
+        int copyLength;
+        while (remaining > 0) {
+            if (currentChunk == null) {
+                currentChunk = takeFreeChunk();
+                currentChunkLength = 0;
+            }
+            copyLength = Math.min(remaining, chunkSize - currentChunkLength);
+            System.arraycopy(input, offset, currentChunk, currentChunkLength,
+                             copyLength);
+            currentChunkLength += copyLength;
+            offset += copyLength;
+            remaining -= copyLength;
+            if (currentChunkLength == chunkSize) {
+                submitCurrentChunk();
+            }
+        }
+    }
+
+    @Override
+    protected byte[] engineDigest() {
+
+        // always submit the last chunk (even if empty) so that
+        // digests for empty and chunk aligned data are well defined
+        if (currentChunk == null) {
+            currentChunk = takeFreeChunk();
+            currentChunkLength = 0;
+        }
+        submitCurrentChunk();
+
+        final MessageDigest rootDigest = newLeafDigest();
+        try {
+            for (Future<byte[]> leafDigest : leafDigests) {
+                rootDigest.update(leafDigest.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(
+                    "interrupted while waiting for chunk digests", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(
+                    "failed to calculate chunk digest", e.getCause());
+        } finally {
+            leafDigests.clear();
+        }
+
+        return rootDigest.digest();
+    }
+
+    @Override
+    protected void engineReset() {
+        // in flight chunks are left to complete so that
+        // their buffers are returned to the free queue
+        leafDigests.clear();
+        if (currentChunk != null) {
+            freeChunks.offer(currentChunk);
+            currentChunk = null;
+        }
+        currentChunkLength = 0;
+    }
+
+    /**
+     * @return a free chunk buffer, blocking if the maximum number of
+     *         chunks are already in flight.
+     */
+    private byte[] takeFreeChunk() {
+        byte[] chunk = freeChunks.poll();
+        if (chunk == null) {
+            if (allocatedChunks < MAX_CHUNKS_IN_FLIGHT) {
+                allocatedChunks++;
+                chunk = new byte[chunkSize];
+            } else {
+                try {
+                    chunk = freeChunks.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(
+                            "interrupted while waiting for free chunk", e);
+                }
+            }
+        }
+        return chunk;
+    }
+
+    private void submitCurrentChunk() {
+        final byte[] chunk = currentChunk;
+        final int length = currentChunkLength;
+        currentChunk = null;
+        currentChunkLength = 0;
+
+        leafDigests.add(LEAF_EXECUTOR.submit(new Callable<byte[]>() {
+            @Override
+            public byte[] call() throws Exception {
+                try {
+                    final MessageDigest leafDigest = newLeafDigest();
+                    leafDigest.update(chunk, 0, length);
+                    return leafDigest.digest();
+                } finally {
+                    freeChunks.offer(chunk);
+                }
+            }
+        }));
+    }
+
+    private MessageDigest newLeafDigest() {
+        try {
+            return MessageDigest.getInstance(leafAlgorithm);
+        } catch (NoSuchAlgorithmException e) {
+            // should not happen since algorithm was checked by constructor
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Number of threads used for hashing chunks. */
+    private static final int LEAF_THREAD_COUNT =
+            Runtime.getRuntime().availableProcessors();
+
+    /** Maximum number of chunks buffered (or being hashed) per instance. */
+    private static final int MAX_CHUNKS_IN_FLIGHT = LEAF_THREAD_COUNT + 2;
+
+    private static final ExecutorService LEAF_EXECUTOR =
+            Executors.newFixedThreadPool(
+                    LEAF_THREAD_COUNT,
+                    new ThreadFactory() {
+                        private int count = 0;
+                        @Override
+                        public synchronized Thread newThread(Runnable r) {
+                            count++;
+                            final Thread thread =
+                                    new Thread(r, "tree-digest-" + count);
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+}
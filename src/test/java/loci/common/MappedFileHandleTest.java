@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package loci.common;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+
+/**
+ * Tests the {@link MappedFileHandle} class.
+ *
+ * @author agent
+ */
+public class MappedFileHandleTest {
+
+    private File testFile;
+
+    @Before
+    public void setUp() throws Exception {
+        testFile = new File("mapped-handle-test-" +
+                            System.currentTimeMillis() + ".dat");
+        final DataOutputStream out =
+                new DataOutputStream(new FileOutputStream(testFile));
+        try {
+            for (int i = 0; i < 100; i++) {
+                out.writeByte(i);
+            }
+            out.writeLong(0x0102030405060708L);
+            out.writeInt(0x0a0b0c0d);
+        } finally {
+            out.close();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        if ((testFile != null) && testFile.exists()) {
+            //noinspection ResultOfMethodCallIgnored
+            testFile.delete();
+        }
+    }
+
+    @Test
+    public void testReadsAcrossWindows() throws Exception {
+        final MappedFileHandle handle = new MappedFileHandle(testFile, 16);
+        try {
+            Assert.assertEquals("invalid length", 112, handle.length());
+
+            // 14 is close enough to the window boundary at 16 that
+            // the short spans two windows
+            handle.seek(14);
+            Assert.assertEquals("invalid big endian short",
+                                (14 << 8) | 15, handle.readShort());
+
+            handle.seek(100);
+            Assert.assertEquals("invalid long",
+                                0x0102030405060708L, handle.readLong());
+            Assert.assertEquals("invalid int",
+                                0x0a0b0c0d, handle.readInt());
+
+            handle.setOrder(ByteOrder.LITTLE_ENDIAN);
+            handle.seek(108);
+            Assert.assertEquals("invalid little endian int",
+                                0x0d0c0b0a, handle.readInt());
+
+            final byte[] bytes = new byte[50];
+            handle.seek(5);
+            handle.readFully(bytes);
+            for (int i = 0; i < bytes.length; i++) {
+                Assert.assertEquals("invalid byte " + i, i + 5, bytes[i]);
+            }
+            Assert.assertEquals("invalid position after bulk read",
+                                55, handle.getFilePointer());
+        } finally {
+            handle.close();
+        }
+    }
+
+    @Test
+    public void testEndOfFile() throws Exception {
+        final MappedFileHandle handle = new MappedFileHandle(testFile, 16);
+        try {
+            handle.seek(110);
+            try {
+                handle.readInt();
+                Assert.fail("read past end of file should fail");
+            } catch (EOFException e) {
+                // expected
+            }
+
+            handle.seek(108);
+            final byte[] bytes = new byte[10];
+            Assert.assertEquals("invalid count for partial read",
+                                4, handle.read(bytes));
+        } finally {
+            handle.close();
+        }
+    }
+
+    @Test
+    public void testWriteFails() throws Exception {
+        final MappedFileHandle handle = new MappedFileHandle(testFile, 16);
+        try {
+            handle.writeInt(1);
+            Assert.fail("write to read-only handle should fail");
+        } catch (IOException e) {
+            // expected
+        } finally {
+            handle.close();
+        }
+    }
+
+    @Test
+    public void testMappedStream() throws Exception {
+        final RandomAccessInputStream in =
+                new RandomAccessInputStream(testFile.getAbsolutePath(), true);
+        try {
+            in.seek(100);
+            Assert.assertEquals("invalid long from mapped stream",
+                                0x0102030405060708L, in.readLong());
+        } finally {
+            in.close();
+        }
+    }
+}
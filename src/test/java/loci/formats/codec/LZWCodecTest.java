@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package loci.formats.codec;
+
+import loci.common.RandomAccessInputStream;
+import loci.formats.FormatException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tests the {@link LZWCodec} class.
+ *
+ * @author agent
+ */
+public class LZWCodecTest {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        final LZWCodec codec = new LZWCodec();
+        for (byte[] data : new byte[][] { buildImageData(100000),
+                                          buildRandomData(20000),
+                                          "TOBEORNOTTOBEORTOBEORNOT".getBytes() }) {
+            final byte[] compressed = codec.compress(data, null);
+
+            Assert.assertArrayEquals("invalid table-driven decode",
+                                     data,
+                                     codec.decompress(compressed,
+                                                      getOptions(data.length)));
+
+            final RandomAccessInputStream in =
+                    new RandomAccessInputStream(compressed);
+            final byte[] streamed =
+                    codec.decompress(in, getOptions(data.length + 1));
+            in.close();
+            Assert.assertArrayEquals("decoders should match",
+                                     data,
+                                     Arrays.copyOf(streamed, data.length));
+        }
+    }
+
+    @Test
+    public void testCallerSuppliedBuffer() throws Exception {
+        final LZWCodec codec = new LZWCodec();
+        final byte[] data = buildImageData(10000);
+        final byte[] compressed = codec.compress(data, null);
+
+        final byte[] output = new byte[data.length + 10];
+        Assert.assertEquals("invalid decoded length",
+                            data.length,
+                            codec.decompress(compressed, 0, compressed.length,
+                                             output, 10, data.length + 10));
+        Assert.assertArrayEquals("invalid decoded data",
+                                 data,
+                                 Arrays.copyOfRange(output, 10, output.length));
+
+        final byte[] partial = new byte[1001];
+        Assert.assertEquals("decode should stop when buffer is full",
+                            partial.length,
+                            codec.decompress(compressed, 0, compressed.length,
+                                             partial, 0, partial.length));
+        Assert.assertArrayEquals("invalid partially decoded data",
+                                 Arrays.copyOf(data, partial.length),
+                                 partial);
+    }
+
+    @Test(expected = FormatException.class)
+    public void testInvalidCode() throws Exception {
+        // CLEAR, 'A', then code 300 which is not in the table yet
+        final byte[] compressed = { (byte) 0x80, (byte) 0x10, (byte) 0x65,
+                                    (byte) 0x80, (byte) 0x00 };
+        new LZWCodec().decompress(compressed, getOptions(10));
+    }
+
+    private static CodecOptions getOptions(int maxBytes) {
+        final CodecOptions options = CodecOptions.getDefaultOptions();
+        options.maxBytes = maxBytes;
+        return options;
+    }
+
+    /**
+     * @return smooth (image like) data with a little noise so that
+     *         the LZW table fills up and gets cleared several times.
+     */
+    private static byte[] buildImageData(int size) {
+        final Random random = new Random(size);
+        final byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) (((i % 512) / 4) + random.nextInt(4));
+        }
+        return data;
+    }
+
+    private static byte[] buildRandomData(int size) {
+        final byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package loci.formats.tiff;
+
+import loci.common.RandomAccessInputStream;
+import loci.formats.codec.LZWCodec;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Tests the {@link TiffParser} class.
+ *
+ * @author agent
+ */
+public class TiffParserTest {
+
+    @Test
+    public void testIFDOffsetIndex() throws Exception {
+        final TiffParser parser =
+                new TiffParser(new RandomAccessInputStream(buildTiff()));
+
+        Assert.assertEquals("invalid offset for IFD 1",
+                            IFD_OFFSETS[1], parser.getIFDOffset(1));
+        Assert.assertEquals("invalid offset for IFD 0",
+                            IFD_OFFSETS[0], parser.getIFDOffset(0));
+        Assert.assertEquals("missing IFD should have negative offset",
+                            -1, parser.getIFDOffset(IFD_OFFSETS.length));
+        Assert.assertEquals("invalid IFD count",
+                            IFD_OFFSETS.length, parser.getIFDCount());
+        Assert.assertArrayEquals("invalid offsets",
+                                 IFD_OFFSETS, parser.getIFDOffsets());
+    }
+
+    @Test
+    public void testIFDIterator() throws Exception {
+        final TiffParser parser =
+                new TiffParser(new RandomAccessInputStream(buildTiff()));
+
+        final Iterator<IFD> iterator = parser.getIFDIterator();
+        int count = 0;
+        while (iterator.hasNext()) {
+            Assert.assertNotNull("IFD " + count + " should not be null",
+                                 iterator.next());
+            count++;
+        }
+        Assert.assertEquals("invalid number of iterated IFDs",
+                            IFD_OFFSETS.length, count);
+    }
+
+    @Test
+    public void testTypedValues() throws Exception {
+        final TiffParser parser =
+                new TiffParser(new RandomAccessInputStream(buildTiff()));
+        parser.setRawValueTags(RAW_TAG);
+
+        final IFD ifd = parser.getFirstIFD();
+        Assert.assertEquals("invalid decoded value",
+                            64, ((Number) ifd.get(IFD.IMAGE_WIDTH)).intValue());
+        final Object rawValue = ifd.get(RAW_TAG);
+        Assert.assertTrue("raw tag value should not be decoded",
+                          rawValue instanceof TiffIFDEntry);
+
+        final TiffIFDEntry entry = parser.getIFDEntry(IFD_OFFSETS[1], RAW_TAG);
+        Assert.assertNotNull("missing entry", entry);
+        Assert.assertNull("entry should not exist",
+                          parser.getIFDEntry(IFD_OFFSETS[1], RAW_TAG + 1));
+
+        final ByteBuffer buffer = parser.getIFDValueBuffer(entry);
+        Assert.assertEquals("invalid buffer size",
+                            RAW_VALUES.length, buffer.remaining());
+        for (int i = 0; i < RAW_VALUES.length; i++) {
+            Assert.assertEquals("invalid buffer byte " + i,
+                                RAW_VALUES[i], buffer.get(i));
+        }
+
+        final long[] values = new long[4];
+        parser.readIFDValues(entry, 5, values, 1, 3);
+        Assert.assertArrayEquals("BYTE values should be unsigned",
+                                 new long[] { 0, 6, 7, 255 }, values);
+    }
+
+    @Test
+    public void testParallelSamples() throws Exception {
+        final byte[] plane = new byte[STRIP_WIDTH * STRIP_LENGTH];
+        for (int i = 0; i < plane.length; i++) {
+            plane[i] = (byte) ((i / 3) + (i % STRIP_WIDTH));
+        }
+        final TiffParser parser =
+                new TiffParser(new RandomAccessInputStream(
+                        buildStripTiff(plane)));
+        final IFD ifd = parser.getFirstIFD();
+
+        Assert.assertArrayEquals("invalid sequential samples",
+                                 plane,
+                                 parser.getSamples(ifd,
+                                                   new byte[plane.length]));
+
+        final ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            Assert.assertArrayEquals("invalid parallel samples",
+                                     plane,
+                                     parser.getSamples(ifd,
+                                                       new byte[plane.length],
+                                                       pool));
+
+            // region that starts and ends in the middle of strips
+            final int y = 3;
+            final int height = 14;
+            final byte[] region = new byte[STRIP_WIDTH * height];
+            System.arraycopy(plane, y * STRIP_WIDTH, region, 0, region.length);
+            Assert.assertArrayEquals("invalid parallel region samples",
+                                     region,
+                                     parser.getSamples(ifd,
+                                                       new byte[region.length],
+                                                       0, y,
+                                                       STRIP_WIDTH, height,
+                                                       pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * @return bytes for a little endian, 8 bit, LZW compressed TIFF
+     *         that stores the specified plane in strips of
+     *         {@link #ROWS_PER_STRIP} rows.
+     */
+    private static byte[] buildStripTiff(byte[] plane) throws Exception {
+        final LZWCodec codec = new LZWCodec();
+        final int stripCount = STRIP_LENGTH / ROWS_PER_STRIP;
+        final int stripSize = STRIP_WIDTH * ROWS_PER_STRIP;
+        final byte[][] strips = new byte[stripCount][];
+        int dataLength = 0;
+        for (int i = 0; i < stripCount; i++) {
+            final byte[] strip = new byte[stripSize];
+            System.arraycopy(plane, i * stripSize, strip, 0, stripSize);
+            strips[i] = codec.compress(strip, null);
+            dataLength += strips[i].length;
+        }
+
+        final int entryCount = 9;
+        final int offsetsOffset = 8 + 2 + (entryCount * 12) + 4;
+        final int countsOffset = offsetsOffset + (stripCount * 4);
+        final int dataOffset = countsOffset + (stripCount * 4);
+
+        final ByteBuffer buffer = ByteBuffer.allocate(dataOffset + dataLength);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put((byte) TiffConstants.LITTLE);
+        buffer.put((byte) TiffConstants.LITTLE);
+        buffer.putShort((short) TiffConstants.MAGIC_NUMBER);
+        buffer.putInt(8);
+        buffer.putShort((short) entryCount);
+        putEntry(buffer, IFD.IMAGE_WIDTH, IFDType.SHORT, 1, STRIP_WIDTH);
+        putEntry(buffer, IFD.IMAGE_LENGTH, IFDType.SHORT, 1, STRIP_LENGTH);
+        putEntry(buffer, IFD.BITS_PER_SAMPLE, IFDType.SHORT, 1, 8);
+        putEntry(buffer, IFD.COMPRESSION, IFDType.SHORT, 1,
+                 TiffCompression.LZW.getCode());
+        putEntry(buffer, IFD.PHOTOMETRIC_INTERPRETATION, IFDType.SHORT, 1,
+                 PhotoInterp.BLACK_IS_ZERO.getCode());
+        putEntry(buffer, IFD.STRIP_OFFSETS, IFDType.LONG, stripCount,
+                 offsetsOffset);
+        putEntry(buffer, IFD.SAMPLES_PER_PIXEL, IFDType.SHORT, 1, 1);
+        putEntry(buffer, IFD.ROWS_PER_STRIP, IFDType.SHORT, 1,
+                 ROWS_PER_STRIP);
+        putEntry(buffer, IFD.STRIP_BYTE_COUNTS, IFDType.LONG, stripCount,
+                 countsOffset);
+        buffer.putInt(0);                                  // no next IFD
+
+        int stripOffset = dataOffset;
+        for (int i = 0; i < stripCount; i++) {
+            buffer.putInt(offsetsOffset + (i * 4), stripOffset);
+            buffer.putInt(countsOffset + (i * 4), strips[i].length);
+            buffer.position(stripOffset);
+            buffer.put(strips[i]);
+            stripOffset += strips[i].length;
+        }
+        return buffer.array();
+    }
+
+    private static void putEntry(ByteBuffer buffer,
+                                 int tag,
+                                 IFDType type,
+                                 int count,
+                                 int value) {
+        buffer.putShort((short) tag);
+        buffer.putShort((short) type.getCode());
+        buffer.putInt(count);
+        if ((type == IFDType.SHORT) && (count == 1)) {
+            buffer.putShort((short) value);
+            buffer.putShort((short) 0);
+        } else {
+            buffer.putInt(value);
+        }
+    }
+
+    /**
+     * @return bytes for a little endian TIFF with two entry IFDs
+     *         stored at {@link #IFD_OFFSETS}.
+     */
+    private static byte[] buildTiff() {
+        final ByteBuffer buffer = ByteBuffer.allocate(128);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put((byte) TiffConstants.LITTLE);
+        buffer.put((byte) TiffConstants.LITTLE);
+        buffer.putShort((short) TiffConstants.MAGIC_NUMBER);
+        buffer.putInt((int) IFD_OFFSETS[0]);
+        for (int i = 0; i < IFD_OFFSETS.length; i++) {
+            buffer.position((int) IFD_OFFSETS[i]);
+            buffer.putShort((short) 2);                    // entry count
+            buffer.putShort((short) IFD.IMAGE_WIDTH);      // tag
+            buffer.putShort((short) IFDType.SHORT.getCode());
+            buffer.putInt(1);                              // value count
+            buffer.putInt(64);                             // value
+            buffer.putShort((short) RAW_TAG);
+            buffer.putShort((short) IFDType.BYTE.getCode());
+            buffer.putInt(RAW_VALUES.length);
+            buffer.putInt(RAW_VALUES_OFFSET);
+            final boolean isLast = (i == IFD_OFFSETS.length - 1);
+            buffer.putInt(isLast ? 0 : (int) IFD_OFFSETS[i + 1]);
+        }
+        buffer.position(RAW_VALUES_OFFSET);
+        buffer.put(RAW_VALUES);
+        return buffer.array();
+    }
+
+    // IFDs are deliberately not stored in file order
+    private static final long[] IFD_OFFSETS = { 8, 80, 40 };
+
+    private static final int RAW_TAG = 34412;
+    private static final int RAW_VALUES_OFFSET = 112;
+    private static final byte[] RAW_VALUES = { 1, 2, 3, 4, 5, 6, 7, -1 };
+
+    private static final int STRIP_WIDTH = 32;
+    private static final int STRIP_LENGTH = 24;
+    private static final int ROWS_PER_STRIP = 4;
+}
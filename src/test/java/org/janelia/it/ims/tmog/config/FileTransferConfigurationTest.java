@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package org.janelia.it.ims.tmog.config;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the {@link FileTransferConfiguration} class.
+ *
+ * @author agent
+ */
+public class FileTransferConfigurationTest {
+
+    @Test
+    public void testNioRequiredForCopyMode() throws Exception {
+        FileTransferConfiguration config = new FileTransferConfiguration();
+        Assert.assertFalse("nio should not be required by default",
+                           config.isNioRequired());
+
+        config.setCopyMode("pipelined");
+        config.setNioRequired(false);
+        Assert.assertTrue("nio should be required for pipelined copies " +
+                          "even when nio is explicitly disabled later",
+                          config.isNioRequired());
+
+        config = new FileTransferConfiguration();
+        config.setNioRequired(false);
+        config.setCopyMode("mapped");
+        Assert.assertTrue("nio should be required for mapped copies",
+                          config.isNioRequired());
+
+        config.setCopyMode("buffered");
+        Assert.assertFalse("nio should not be required after switching " +
+                           "back to buffered copies",
+                           config.isNioRequired());
+    }
+
+    @Test
+    public void testNioRequiredForValidationMode() throws Exception {
+        final FileTransferConfiguration config =
+                new FileTransferConfiguration();
+        config.setValidationMode("sampled");
+        config.setNioRequired(false);
+        Assert.assertTrue("nio should be required for sampled validation " +
+                          "even when nio is explicitly disabled later",
+                          config.isNioRequired());
+
+        config.setValidationMode("full");
+        Assert.assertFalse("nio should not be required for full validation",
+                           config.isNioRequired());
+    }
+
+    @Test
+    public void testNioRequiredForResumableCopies() throws Exception {
+        final FileTransferConfiguration config =
+                new FileTransferConfiguration();
+        config.setResumable(true);
+        config.setNioRequired(false);
+        Assert.assertTrue("nio should be required for resumable copies " +
+                          "even when nio is explicitly disabled later",
+                          config.isNioRequired());
+
+        config.setResumable(false);
+        Assert.assertFalse("nio should not be required after resumable " +
+                           "copies are disabled",
+                           config.isNioRequired());
+    }
+}
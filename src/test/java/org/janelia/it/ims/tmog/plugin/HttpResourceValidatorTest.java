@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package org.janelia.it.ims.tmog.plugin;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.janelia.it.ims.tmog.DataRow;
+import org.janelia.it.ims.tmog.config.PluginConfiguration;
+import org.janelia.it.ims.tmog.field.StaticDataModel;
+import org.janelia.it.ims.tmog.target.FileTarget;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests the {@link HttpResourceValidator} class.
+ *
+ * @author agent
+ */
+public class HttpResourceValidatorTest {
+
+    private HttpServer server;
+    private AtomicInteger requestCount;
+    private HttpResourceValidator validator;
+
+    @Before
+    public void setUp() throws Exception {
+        requestCount = new AtomicInteger(0);
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/resource/", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                requestCount.incrementAndGet();
+                try {
+                    Thread.sleep(REQUEST_DELAY);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                final String path = exchange.getRequestURI().getPath();
+                final int responseCode = path.contains("/ok-") ?
+                                         HttpURLConnection.HTTP_OK :
+                                         HttpURLConnection.HTTP_NOT_FOUND;
+                exchange.sendResponseHeaders(responseCode, -1);
+                exchange.close();
+            }
+        });
+        server.setExecutor(Executors.newFixedThreadPool(8));
+        server.start();
+
+        final String baseUrl =
+                "http://localhost:" + server.getAddress().getPort() +
+                "/resource/";
+
+        final PluginConfiguration config = new PluginConfiguration();
+        config.setProperty(HttpResourceValidator.SERVICE_URL_NAME,
+                           baseUrl + "${" + FIELD_NAME + "}");
+        config.setProperty(HttpResourceValidator.TEST_URL_NAME,
+                           baseUrl + "ok-test");
+        config.setProperty(HttpResourceValidator.ERROR_MESSAGE_NAME,
+                           "missing ${" + FIELD_NAME + "}");
+        config.setProperty(HttpResourceValidator.CONCURRENCY_NAME, "4");
+
+        validator = new HttpResourceValidator();
+        validator.init(config);
+        requestCount.set(0);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testSessionPrevalidation() throws Exception {
+        final List<DataRow> rows = new ArrayList<DataRow>();
+        for (int i = 0; i < 12; i++) {
+            // every resource is referenced by two rows
+            rows.add(buildRow("ok-" + (i % 6)));
+        }
+        rows.add(buildRow("bad"));
+
+        final long startTime = System.currentTimeMillis();
+        validator.startSessionValidation(SESSION_NAME, rows);
+        final long elapsedTime = System.currentTimeMillis() - startTime;
+
+        Assert.assertEquals("each distinct resource should be checked once",
+                            7, requestCount.get());
+        Assert.assertTrue("resources should be checked concurrently (took " +
+                          elapsedTime + "ms)",
+                          elapsedTime < (7 * REQUEST_DELAY));
+
+        for (int i = 0; i < 12; i++) {
+            validator.validate(SESSION_NAME, new PluginDataRow(rows.get(i)));
+        }
+
+        try {
+            validator.validate(SESSION_NAME, new PluginDataRow(rows.get(12)));
+            Assert.fail("missing resource should fail validation");
+        } catch (ExternalDataException e) {
+            Assert.assertEquals("invalid error message",
+                                "missing bad", e.getMessage());
+        }
+
+        Assert.assertEquals("row validation should use prevalidated results",
+                            7, requestCount.get());
+
+        validator.stopSessionValidation(SESSION_NAME);
+
+        // rows outside of a prevalidated session are still checked
+        validator.validate("other-session",
+                           new PluginDataRow(buildRow("ok-new")));
+        Assert.assertEquals("new resource should be checked",
+                            8, requestCount.get());
+    }
+
+    private static DataRow buildRow(String value) {
+        final StaticDataModel field = new StaticDataModel();
+        field.setName(FIELD_NAME);
+        field.setValue(value);
+        final DataRow row = new DataRow(new FileTarget(new File(value)));
+        row.addField(field);
+        return row;
+    }
+
+    private static final String FIELD_NAME = "resource";
+    private static final String SESSION_NAME = "test-session";
+    private static final long REQUEST_DELAY = 100;
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package org.janelia.it.ims.tmog.plugin;
+
+import org.janelia.it.ims.tmog.DataRow;
+import org.janelia.it.ims.tmog.config.PluginConfiguration;
+import org.janelia.it.ims.tmog.field.PluginDataModel;
+import org.janelia.it.ims.tmog.target.FileTarget;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests the {@link RowUpdateWorker} class.
+ *
+ * @author agent
+ */
+public class RowUpdateWorkerTest {
+
+    @Test
+    public void testParallelUpdates() throws Exception {
+        final List<DataRow> rows = buildRows(12);
+        final AtomicInteger activeCount = new AtomicInteger(0);
+        final AtomicInteger maxActiveCount = new AtomicInteger(0);
+        final List<RowUpdater> updaters = Arrays.asList(
+                new TestUpdater("a", activeCount, maxActiveCount, -1),
+                new TestUpdater("b", activeCount, maxActiveCount, -1));
+
+        final RowUpdateWorker worker = new RowUpdateWorker(rows, updaters, 4);
+        worker.run();
+
+        Assert.assertEquals("invalid number of rows updated",
+                            new Integer(rows.size()), worker.get());
+        Assert.assertEquals("no rows should fail",
+                            -1, worker.getFailedRowIndex());
+        Assert.assertNull("failure message should not be set",
+                          worker.getFailureMessage());
+
+        for (DataRow row : rows) {
+            Assert.assertEquals("updaters should be applied in order for " +
+                                row.getTarget().getName(),
+                                "ab", getValue(row));
+        }
+
+        Assert.assertTrue("rows should be updated concurrently",
+                          maxActiveCount.get() > 1);
+        Assert.assertTrue("too many concurrent updates (" +
+                          maxActiveCount.get() + ")",
+                          maxActiveCount.get() <= 4);
+    }
+
+    @Test
+    public void testStopOnFirstFailure() throws Exception {
+        final List<DataRow> rows = buildRows(40);
+        final AtomicInteger activeCount = new AtomicInteger(0);
+        final AtomicInteger maxActiveCount = new AtomicInteger(0);
+        final List<RowUpdater> updaters = Arrays.<RowUpdater>asList(
+                new TestUpdater("a", activeCount, maxActiveCount, 2));
+
+        final RowUpdateWorker worker = new RowUpdateWorker(rows, updaters, 2);
+        worker.run();
+
+        Assert.assertEquals("invalid failed row index",
+                            2, worker.getFailedRowIndex());
+        Assert.assertEquals("invalid failure message",
+                            "bad row 2", worker.getFailureMessage());
+
+        final int updatedCount = worker.get();
+        Assert.assertTrue("remaining rows should be skipped (" +
+                          updatedCount + " rows updated)",
+                          updatedCount < 10);
+        Assert.assertEquals("last row should not be updated",
+                            "", getValue(rows.get(rows.size() - 1)));
+    }
+
+    private static List<DataRow> buildRows(int count) {
+        final List<DataRow> rows = new ArrayList<DataRow>();
+        for (int i = 0; i < count; i++) {
+            final PluginDataModel field = new PluginDataModel();
+            field.setDisplayName(FIELD_NAME);
+            final DataRow row = new DataRow(new FileTarget(new File("f" + i)));
+            row.addField(field);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static String getValue(DataRow row) {
+        return row.getField(0).getCoreValue();
+    }
+
+    private static class TestUpdater implements RowUpdater {
+
+        private String suffix;
+        private AtomicInteger activeCount;
+        private AtomicInteger maxActiveCount;
+        private int failingRowIndex;
+
+        public TestUpdater(String suffix,
+                           AtomicInteger activeCount,
+                           AtomicInteger maxActiveCount,
+                           int failingRowIndex) {
+            this.suffix = suffix;
+            this.activeCount = activeCount;
+            this.maxActiveCount = maxActiveCount;
+            this.failingRowIndex = failingRowIndex;
+        }
+
+        public void init(PluginConfiguration config) {
+        }
+
+        public PluginDataRow updateRow(PluginDataRow row)
+                throws ExternalDataException, ExternalSystemException {
+
+            final String name = row.getTargetFile().getName();
+            if (name.equals("f" + failingRowIndex)) {
+                throw new ExternalDataException("bad row " + failingRowIndex);
+            }
+
+            final int active = activeCount.incrementAndGet();
+            synchronized (maxActiveCount) {
+                if (active > maxActiveCount.get()) {
+                    maxActiveCount.set(active);
+                }
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            activeCount.decrementAndGet();
+
+            row.setPluginDataValue(FIELD_NAME,
+                                   row.getCoreValue(FIELD_NAME) + suffix);
+            return row;
+        }
+    }
+
+    private static final String FIELD_NAME = "value";
+}
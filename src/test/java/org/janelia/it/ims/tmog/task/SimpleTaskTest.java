@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package org.janelia.it.ims.tmog.task;
+
+import org.janelia.it.ims.tmog.DataRow;
+import org.janelia.it.ims.tmog.DataTableModel;
+import org.janelia.it.ims.tmog.config.PluginConfiguration;
+import org.janelia.it.ims.tmog.config.ProjectConfiguration;
+import org.janelia.it.ims.tmog.plugin.PluginDataRow;
+import org.janelia.it.ims.tmog.plugin.PreparingRowListener;
+import org.janelia.it.ims.tmog.plugin.RowListener;
+import org.janelia.it.ims.tmog.target.FileTarget;
+import org.janelia.it.ims.tmog.target.Target;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests the {@link SimpleTask} class.
+ *
+ * @author agent
+ */
+public class SimpleTaskTest {
+
+    @Test
+    public void testConcurrentProcessingMatchesSequential() throws Exception {
+
+        final TestTask sequentialTask = new TestTask(buildModel(), 1);
+        sequentialTask.doInBackground();
+
+        final TestTask concurrentTask = new TestTask(buildModel(), 4);
+        concurrentTask.doInBackground();
+
+        Assert.assertEquals("invalid failed row indices",
+                            sequentialTask.getFailedRowIndices(),
+                            concurrentTask.getFailedRowIndices());
+
+        Assert.assertEquals("invalid task summary",
+                            sequentialTask.getTaskSummary(),
+                            concurrentTask.getTaskSummary());
+
+        Assert.assertEquals("end events should be sent in row order",
+                            sequentialTask.listener.endEvents,
+                            concurrentTask.listener.endEvents);
+
+        Assert.assertEquals("start events should be sent in row order",
+                            sequentialTask.listener.startEvents,
+                            concurrentTask.listener.startEvents);
+    }
+
+    @Test
+    public void testConcurrentProcessingCancel() throws Exception {
+
+        final TestTask task = new TestTask(buildModel(), 3);
+        task.cancelDuringRow = 2;
+        task.doInBackground();
+
+        Assert.assertEquals("rows already started should be completed",
+                            3, task.listener.endEvents.size());
+
+        final List<Integer> expectedFailures = new ArrayList<Integer>();
+        expectedFailures.add(0);
+        for (int i = 3; i < NUMBER_OF_ROWS; i++) {
+            expectedFailures.add(i);
+        }
+        Assert.assertEquals("invalid failed row indices",
+                            expectedFailures, task.getFailedRowIndices());
+    }
+
+    @Test
+    public void testConcurrentProcessingCancelBeforeQueueIsFull()
+            throws Exception {
+
+        final TestTask task = new TestTask(buildModel(), 5);
+        task.addRowListener(new RowListener() {
+            @Override
+            public void init(PluginConfiguration config) {
+            }
+
+            @Override
+            public PluginDataRow processEvent(EventType eventType,
+                                              PluginDataRow row) {
+                if (EventType.START_ROW.equals(eventType) &&
+                    "row-1.test".equals(getName(row.getDataRow()))) {
+                    task.cancelSession();
+                }
+                return row;
+            }
+        });
+        task.doInBackground();
+
+        Assert.assertEquals("no rows should be started after cancel",
+                            2, task.listener.startEvents.size());
+
+        final List<Integer> expectedFailures = new ArrayList<Integer>();
+        expectedFailures.add(0);
+        for (int i = 2; i < NUMBER_OF_ROWS; i++) {
+            expectedFailures.add(i);
+        }
+        Assert.assertEquals("invalid failed row indices",
+                            expectedFailures, task.getFailedRowIndices());
+    }
+
+    @Test
+    public void testRowPreparation() throws Exception {
+
+        for (int concurrency : new int[] {1, 3}) {
+
+            final TestTask task = new TestTask(buildModel(), concurrency);
+            final PreparingListener preparingListener =
+                    new PreparingListener();
+            task.addRowListener(preparingListener);
+            task.doInBackground();
+
+            Assert.assertEquals("all rows should be prepared in order",
+                                task.listener.startEvents,
+                                preparingListener.preparedEvents);
+
+            Assert.assertEquals("invalid number of started rows",
+                                NUMBER_OF_ROWS,
+                                preparingListener.preparedCountAtStart.size());
+
+            final int lookAhead = task.getRowPreparationLookAhead();
+            int preparedCount;
+            for (int i = 0; i < NUMBER_OF_ROWS; i++) {
+                preparedCount = preparingListener.preparedCountAtStart.get(i);
+                Assert.assertTrue("row " + i + " should be prepared " +
+                                  "before it is started",
+                                  preparedCount > i);
+                Assert.assertTrue("too many rows (" + preparedCount +
+                                  ") prepared when row " + i + " started",
+                                  preparedCount <= i + lookAhead + 1);
+            }
+        }
+    }
+
+    @Test
+    public void testRowPreparationOverlapsProcessing() throws Exception {
+
+        final TestTask task = new TestTask(buildModel(), 1);
+        final PreparingListener preparingListener = new PreparingListener();
+        preparingListener.prepareMillis = 10;
+        task.addRowListener(preparingListener);
+        task.doInBackground();
+
+        int overlapCount = 0;
+        for (long[] prepareInterval : preparingListener.prepareIntervals) {
+            for (long[] processInterval : task.processIntervals) {
+                if ((prepareInterval[0] < processInterval[1]) &&
+                    (processInterval[0] < prepareInterval[1])) {
+                    overlapCount++;
+                    break;
+                }
+            }
+        }
+
+        Assert.assertTrue("preparation of later rows should overlap " +
+                          "processing of earlier rows",
+                          overlapCount > 0);
+    }
+
+    private static DataTableModel buildModel() {
+        final List<Target> targets = new ArrayList<Target>();
+        for (int i = 0; i < NUMBER_OF_ROWS; i++) {
+            targets.add(new FileTarget(new File("row-" + i + ".test")));
+        }
+        return new DataTableModel("File Name",
+                                  targets,
+                                  new ProjectConfiguration());
+    }
+
+    private static final int NUMBER_OF_ROWS = 12;
+
+    private static String getName(DataRow row) {
+        return row.getTarget().getName();
+    }
+
+    private static class TestTask extends SimpleTask {
+
+        private final int concurrency;
+        private final RecordingListener listener;
+        private final List<long[]> processIntervals =
+                Collections.synchronizedList(new ArrayList<long[]>());
+        private int cancelDuringRow;
+
+        public TestTask(DataTableModel model,
+                        int concurrency) {
+            super(model);
+            this.concurrency = concurrency;
+            this.listener = new RecordingListener();
+            this.cancelDuringRow = -1;
+            addRowListener(listener);
+        }
+
+        @Override
+        protected int getRowProcessingConcurrency() {
+            return concurrency;
+        }
+
+        @Override
+        protected boolean processRow(DataRow modelRow) {
+            final String name = getName(modelRow);
+            final int index =
+                    Integer.parseInt(name.substring(4, name.indexOf('.')));
+            if (index == cancelDuringRow) {
+                cancelSession();
+            }
+            final long startTime = System.nanoTime();
+            try {
+                // reverse completion order for each batch of rows
+                Thread.sleep(5 * (NUMBER_OF_ROWS - index));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            processIntervals.add(new long[] {startTime, System.nanoTime()});
+            appendToSummary("processed " + name + "\n");
+            return (index % 3) != 0;
+        }
+    }
+
+    private static class PreparingListener
+            implements PreparingRowListener {
+
+        private final List<String> preparedEvents =
+                Collections.synchronizedList(new ArrayList<String>());
+        private final List<Integer> preparedCountAtStart =
+                new ArrayList<Integer>();
+        private final List<long[]> prepareIntervals =
+                Collections.synchronizedList(new ArrayList<long[]>());
+        private long prepareMillis = 0;
+
+        @Override
+        public void init(PluginConfiguration config) {
+        }
+
+        @Override
+        public void prepareRow(PluginDataRow row) {
+            final long startTime = System.nanoTime();
+            if (prepareMillis > 0) {
+                try {
+                    Thread.sleep(prepareMillis);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            prepareIntervals.add(new long[] {startTime, System.nanoTime()});
+            preparedEvents.add(RowListener.EventType.START_ROW + ":" +
+                               getName(row.getDataRow()));
+        }
+
+        @Override
+        public PluginDataRow processEvent(EventType eventType,
+                                          PluginDataRow row) {
+            if (EventType.START_ROW.equals(eventType)) {
+                preparedCountAtStart.add(preparedEvents.size());
+            }
+            return row;
+        }
+    }
+
+    private static class RecordingListener implements RowListener {
+
+        private final List<String> startEvents =
+                Collections.synchronizedList(new ArrayList<String>());
+        private final List<String> endEvents =
+                Collections.synchronizedList(new ArrayList<String>());
+
+        @Override
+        public void init(PluginConfiguration config) {
+        }
+
+        @Override
+        public PluginDataRow processEvent(EventType eventType,
+                                          PluginDataRow row) {
+            final String event = eventType + ":" + getName(row.getDataRow());
+            if (EventType.START_ROW.equals(eventType)) {
+                startEvents.add(event);
+            } else {
+                endEvents.add(event);
+            }
+            return row;
+        }
+    }
+}
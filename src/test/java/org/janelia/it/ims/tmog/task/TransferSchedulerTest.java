@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package org.janelia.it.ims.tmog.task;
+
+import org.janelia.it.ims.tmog.config.GlobalConfiguration;
+import org.janelia.it.ims.tmog.config.TransferMountConfiguration;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the {@link TransferScheduler} class.
+ *
+ * @author agent
+ */
+public class TransferSchedulerTest {
+
+    private TransferScheduler scheduler;
+    private File slowDirectory;
+    private File fastDirectory;
+
+    @Before
+    public void setUp() throws Exception {
+        final File root = new File("transfer-scheduler-test").getAbsoluteFile();
+        slowDirectory = new File(root, "slow/a/b");
+        fastDirectory = new File(root, "fast");
+
+        final GlobalConfiguration globalConfig = new GlobalConfiguration();
+        globalConfig.setTransferMountConcurrency(2);
+        globalConfig.addTransferMount(
+                new TransferMountConfiguration(new File(root, "slow").getPath(),
+                                               1,
+                                               null));
+        globalConfig.addTransferMount(
+                new TransferMountConfiguration(fastDirectory.getPath(),
+                                               null,
+                                               1000000L));
+
+        scheduler = new TransferScheduler();
+        scheduler.configure(globalConfig);
+    }
+
+    @Test
+    public void testGetMountKey() throws Exception {
+        Assert.assertEquals("invalid key for configured mount",
+                            slowDirectory.getParentFile().getParent(),
+                            scheduler.getMountKey(slowDirectory));
+        Assert.assertEquals("invalid key for configured mount",
+                            fastDirectory.getPath(),
+                            scheduler.getMountKey(
+                                    new File(fastDirectory, "x")));
+        Assert.assertNotNull("key missing for unconfigured mount",
+                             scheduler.getMountKey(new File(".")));
+    }
+
+    @Test
+    public void testConfigureMaxConcurrentSessions() throws Exception {
+        Assert.assertEquals("invalid default session limit",
+                            GlobalConfiguration.DEFAULT_MAX_CONCURRENT_SESSIONS,
+                            scheduler.getMaxConcurrentSessions());
+
+        final GlobalConfiguration globalConfig = new GlobalConfiguration();
+        globalConfig.setMaxConcurrentSessions(3);
+        scheduler.configure(globalConfig);
+        Assert.assertEquals("invalid reduced session limit",
+                            3, scheduler.getMaxConcurrentSessions());
+
+        globalConfig.setMaxConcurrentSessions(20);
+        scheduler.configure(globalConfig);
+        Assert.assertEquals("invalid increased session limit",
+                            20, scheduler.getMaxConcurrentSessions());
+    }
+
+    @Test
+    public void testGetConcurrency() throws Exception {
+        Assert.assertEquals("invalid concurrency for configured mount",
+                            1, scheduler.getConcurrency(slowDirectory));
+        Assert.assertEquals("invalid default concurrency",
+                            2, scheduler.getConcurrency(fastDirectory));
+    }
+
+    @Test
+    public void testPerMountConcurrency() throws Exception {
+
+        final String slowKey = scheduler.getMountKey(slowDirectory);
+        final String fastKey = scheduler.getMountKey(fastDirectory);
+
+        final CountDownLatch firstStarted = new CountDownLatch(1);
+        final CountDownLatch firstMayFinish = new CountDownLatch(1);
+        final Thread firstTransfer = startTransfer(slowDirectory,
+                                                   firstStarted,
+                                                   firstMayFinish);
+        Assert.assertTrue("first transfer did not start",
+                          firstStarted.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals("invalid active count",
+                            1, scheduler.getActiveCount(slowKey));
+
+        final CountDownLatch secondStarted = new CountDownLatch(1);
+        final Thread secondTransfer = startTransfer(slowDirectory,
+                                                    secondStarted,
+                                                    new CountDownLatch(0));
+
+        // slow mount is full, so transfer should be queued
+        for (int i = 0; i < 50; i++) {
+            if (scheduler.getQueueDepth(slowKey) > 0) {
+                break;
+            }
+            Thread.sleep(20);
+        }
+        Assert.assertEquals("invalid queue depth for full mount",
+                            1, scheduler.getQueueDepth(slowKey));
+        Assert.assertEquals("invalid queue depths",
+                            new Integer(1),
+                            scheduler.getQueueDepths().get(slowKey));
+        Assert.assertFalse("transfer should be waiting",
+                           secondStarted.await(100, TimeUnit.MILLISECONDS));
+
+        // other mounts should not be affected
+        final String result = scheduler.runTransfer(
+                fastDirectory, 0, new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        return "fast";
+                    }
+                });
+        Assert.assertEquals("invalid result for other mount", "fast", result);
+        Assert.assertEquals("invalid queue depth for other mount",
+                            0, scheduler.getQueueDepth(fastKey));
+
+        firstMayFinish.countDown();
+
+        Assert.assertTrue("queued transfer did not start",
+                          secondStarted.await(5, TimeUnit.SECONDS));
+        firstTransfer.join();
+        secondTransfer.join();
+        Assert.assertEquals("invalid queue depth after completion",
+                            0, scheduler.getQueueDepth(slowKey));
+        waitForIdleMount(slowKey);
+        Assert.assertEquals("invalid active count after completion",
+                            0, scheduler.getActiveCount(slowKey));
+    }
+
+    @Test
+    public void testInterruptedQueuedTransferIsCancelled() throws Exception {
+
+        final String slowKey = scheduler.getMountKey(slowDirectory);
+
+        final CountDownLatch firstStarted = new CountDownLatch(1);
+        final CountDownLatch firstMayFinish = new CountDownLatch(1);
+        final Thread firstTransfer = startTransfer(slowDirectory,
+                                                   firstStarted,
+                                                   firstMayFinish);
+        Assert.assertTrue("first transfer did not start",
+                          firstStarted.await(5, TimeUnit.SECONDS));
+
+        final CountDownLatch secondStarted = new CountDownLatch(1);
+        final Thread secondTransfer = startTransfer(slowDirectory,
+                                                    secondStarted,
+                                                    new CountDownLatch(0));
+        for (int i = 0; i < 50; i++) {
+            if (scheduler.getQueueDepth(slowKey) > 0) {
+                break;
+            }
+            Thread.sleep(20);
+        }
+
+        secondTransfer.interrupt();
+        secondTransfer.join(5000);
+        Assert.assertEquals("cancelled transfer should not be queued",
+                            0, scheduler.getQueueDepth(slowKey));
+
+        firstMayFinish.countDown();
+        firstTransfer.join();
+
+        Assert.assertFalse("cancelled transfer should not start",
+                           secondStarted.await(100, TimeUnit.MILLISECONDS));
+        waitForIdleMount(slowKey);
+        Assert.assertEquals("invalid active count after completion",
+                            0, scheduler.getActiveCount(slowKey));
+    }
+
+    @Test
+    public void testRateLimit() throws Exception {
+        final Callable<Void> noOp = new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                return null;
+            }
+        };
+
+        final long startTime = System.currentTimeMillis();
+
+        // 1Mb/s limit, so second 200Kb transfer should wait ~200ms
+        scheduler.runTransfer(fastDirectory, 200000, noOp);
+        scheduler.runTransfer(fastDirectory, 200000, noOp);
+
+        final long elapsed = System.currentTimeMillis() - startTime;
+        Assert.assertTrue("transfers were not paced (elapsed " + elapsed +
+                          "ms)", elapsed >= 150);
+    }
+
+    @Test
+    public void testPacedTransferDoesNotHoldSlot() throws Exception {
+
+        final String fastKey = scheduler.getMountKey(fastDirectory);
+
+        // 1Mb/s limit, so next transfer should wait ~1s
+        scheduler.runTransfer(fastDirectory, 1000000, new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                return null;
+            }
+        });
+
+        final CountDownLatch pacedStarted = new CountDownLatch(1);
+        final Thread pacedTransfer = startTransfer(fastDirectory,
+                                                   pacedStarted,
+                                                   new CountDownLatch(0));
+        for (int i = 0; i < 50; i++) {
+            if ((scheduler.getQueueDepth(fastKey) > 0) &&
+                (scheduler.getActiveCount(fastKey) == 0)) {
+                break;
+            }
+            Thread.sleep(10);
+        }
+
+        Assert.assertEquals("paced transfer should be queued",
+                            1, scheduler.getQueueDepth(fastKey));
+        Assert.assertEquals("paced transfer should not hold a slot",
+                            0, scheduler.getActiveCount(fastKey));
+
+        Assert.assertTrue("paced transfer did not start",
+                          pacedStarted.await(5, TimeUnit.SECONDS));
+        pacedTransfer.join();
+    }
+
+    /**
+     * Slots are released just after a transfer's result is published,
+     * so wait briefly for the mount to become idle.
+     */
+    private void waitForIdleMount(String mountKey)
+            throws InterruptedException {
+        for (int i = 0; i < 50; i++) {
+            if (scheduler.getActiveCount(mountKey) == 0) {
+                break;
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    /**
+     * Starts a thread that runs a transfer which signals when it starts
+     * and then waits for permission to finish.
+     */
+    private Thread startTransfer(final File toDirectory,
+                                 final CountDownLatch started,
+                                 final CountDownLatch mayFinish) {
+        final Thread thread = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    scheduler.runTransfer(toDirectory, 0, new Callable<Void>() {
+                        @Override
+                        public Void call() throws Exception {
+                            started.countDown();
+                            mayFinish.await();
+                            return null;
+                        }
+                    });
+                } catch (Exception e) {
+                    // test will fail
+                }
+            }
+        };
+        thread.start();
+        return thread;
+    }
+}
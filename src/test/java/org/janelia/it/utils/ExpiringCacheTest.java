@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package org.janelia.it.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the {@link ExpiringCache} class.
+ *
+ * @author agent
+ */
+public class ExpiringCacheTest {
+
+    @Test
+    public void testExpiration() throws Exception {
+        final ExpiringCache<String, String> cache =
+                new ExpiringCache<String, String>(400, 100, 10);
+
+        cache.put("found", "value");
+        cache.put("missing", null);
+
+        ExpiringCache.Entry<String> entry = cache.get("found");
+        Assert.assertNotNull("positive entry should be cached", entry);
+        Assert.assertEquals("invalid value", "value", entry.getValue());
+        Assert.assertFalse("entry should not be negative", entry.isNegative());
+
+        entry = cache.get("missing");
+        Assert.assertNotNull("negative entry should be cached", entry);
+        Assert.assertTrue("entry should be negative", entry.isNegative());
+
+        Assert.assertNull("unknown key should not be cached",
+                          cache.get("unknown"));
+
+        Thread.sleep(200);
+
+        Assert.assertNull("negative entry should have expired",
+                          cache.get("missing"));
+        Assert.assertNotNull("positive entry should not have expired yet",
+                             cache.get("found"));
+
+        Assert.assertEquals("invalid hit count", 3, cache.getHitCount());
+        Assert.assertEquals("invalid miss count", 2, cache.getMissCount());
+    }
+
+    @Test
+    public void testNegativeCachingDisabled() throws Exception {
+        final ExpiringCache<String, String> cache =
+                new ExpiringCache<String, String>(1000, 0, 10);
+        cache.put("missing", null);
+        Assert.assertNull("negative entry should not be cached",
+                          cache.get("missing"));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEviction() throws Exception {
+        final ExpiringCache<String, Integer> cache =
+                new ExpiringCache<String, Integer>(60000, 60000, 2);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a");
+        cache.put("c", 3);
+
+        Assert.assertEquals("invalid size", 2, cache.size());
+        Assert.assertNotNull("recently used entry should be kept",
+                             cache.get("a"));
+        Assert.assertNull("least recently used entry should be evicted",
+                          cache.get("b"));
+        Assert.assertNotNull("new entry should be kept", cache.get("c"));
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package org.janelia.it.utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests the {@link HttpResponseCache} class.
+ *
+ * @author agent
+ */
+public class HttpResponseCacheTest {
+
+    private File storeDirectory;
+    private HttpServer server;
+    private String url;
+    private volatile String currentBody;
+    private volatile String currentETag;
+    private AtomicInteger fullResponseCount;
+    private AtomicInteger notModifiedCount;
+
+    @Before
+    public void setUp() throws Exception {
+        storeDirectory = new File("http-cache-test-" + System.currentTimeMillis());
+        currentBody = "<cv><term><name>A</name></term></cv>";
+        currentETag = "\"v1\"";
+        fullResponseCount = new AtomicInteger(0);
+        notModifiedCount = new AtomicInteger(0);
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/cv", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                final String ifNoneMatch =
+                        exchange.getRequestHeaders().getFirst("If-None-Match");
+                if (currentETag.equals(ifNoneMatch)) {
+                    notModifiedCount.incrementAndGet();
+                    exchange.sendResponseHeaders(
+                            HttpURLConnection.HTTP_NOT_MODIFIED, -1);
+                } else {
+                    fullResponseCount.incrementAndGet();
+                    final byte[] body = currentBody.getBytes("UTF-8");
+                    exchange.getResponseHeaders().set("ETag", currentETag);
+                    exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK,
+                                                 body.length);
+                    final OutputStream out = exchange.getResponseBody();
+                    out.write(body);
+                    out.close();
+                }
+                exchange.close();
+            }
+        });
+        server.start();
+
+        url = "http://localhost:" + server.getAddress().getPort() + "/cv";
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        deleteTree(storeDirectory);
+    }
+
+    @Test
+    public void testConditionalRequests() throws Exception {
+        final HttpResponseCache cache = new HttpResponseCache(storeDirectory);
+
+        Assert.assertNull("nothing should be stored before first request",
+                          cache.getStoredResponse(url));
+
+        HttpResponseCache.Response response = cache.fetch(url);
+        Assert.assertTrue("first response should be modified",
+                          response.isModified());
+        Assert.assertEquals("invalid first body",
+                            currentBody, getBody(response));
+        Assert.assertEquals("invalid ETag", "\"v1\"", response.getETag());
+        cache.store(response);
+
+        response = cache.fetch(url);
+        Assert.assertFalse("unchanged response should not be modified",
+                           response.isModified());
+        Assert.assertEquals("invalid stored body",
+                            currentBody, getBody(response));
+        Assert.assertEquals("invalid number of full responses",
+                            1, fullResponseCount.get());
+        Assert.assertEquals("invalid number of not modified responses",
+                            1, notModifiedCount.get());
+
+        currentBody = "<cv><term><name>B</name></term></cv>";
+        currentETag = "\"v2\"";
+
+        response = cache.fetch(url);
+        Assert.assertTrue("changed response should be modified",
+                          response.isModified());
+        Assert.assertEquals("invalid changed body",
+                            currentBody, getBody(response));
+        cache.store(response);
+        Assert.assertEquals("invalid changed ETag",
+                            "\"v2\"", cache.getStoredResponse(url).getETag());
+    }
+
+    @Test
+    public void testFetchedResponseIsOnlySavedWhenStored() throws Exception {
+        final String goodBody = currentBody;
+        final HttpResponseCache cache = new HttpResponseCache(storeDirectory);
+        cache.store(cache.fetch(url));
+
+        currentBody = "<cv><term>";
+        currentETag = "\"bad\"";
+
+        final HttpResponseCache.Response badResponse = cache.fetch(url);
+        Assert.assertEquals("invalid bad body",
+                            currentBody, getBody(badResponse));
+
+        Assert.assertEquals("unstored response should not replace " +
+                            "stored response in memory",
+                            goodBody, getBody(cache.getStoredResponse(url)));
+        Assert.assertEquals("unstored response should not replace " +
+                            "stored response in store directory",
+                            goodBody,
+                            getBody(new HttpResponseCache(storeDirectory)
+                                            .getStoredResponse(url)));
+    }
+
+    @Test
+    public void testStoredResponseUsedAcrossSessions() throws Exception {
+        final String firstBody = currentBody;
+        final HttpResponseCache firstSessionCache =
+                new HttpResponseCache(storeDirectory);
+        firstSessionCache.store(firstSessionCache.fetch(url));
+
+        server.stop(0);
+
+        final HttpResponseCache secondSessionCache =
+                new HttpResponseCache(storeDirectory);
+        final HttpResponseCache.Response storedResponse =
+                secondSessionCache.getStoredResponse(url);
+        Assert.assertNotNull("response should be loaded from store",
+                             storedResponse);
+        Assert.assertFalse("stored response should not be modified",
+                           storedResponse.isModified());
+        Assert.assertEquals("invalid stored body",
+                            firstBody, getBody(storedResponse));
+        Assert.assertEquals("invalid stored ETag",
+                            "\"v1\"", storedResponse.getETag());
+
+        try {
+            secondSessionCache.fetch(url);
+            Assert.fail("request to stopped server should fail");
+        } catch (IOException e) {
+            Assert.assertNotNull("stored response should remain available",
+                                 secondSessionCache.getStoredResponse(url));
+        }
+    }
+
+    private static String getBody(HttpResponseCache.Response response)
+            throws Exception {
+        return new String(response.getBody(), "UTF-8");
+    }
+
+    private static void deleteTree(File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteTree(child);
+            }
+        }
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+}
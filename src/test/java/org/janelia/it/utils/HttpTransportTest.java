@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package org.janelia.it.utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.httpclient.methods.GetMethod;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests the {@link HttpTransport} class.
+ *
+ * @author agent
+ */
+public class HttpTransportTest {
+
+    private HttpServer server;
+    private String url;
+    private AtomicInteger activeRequests;
+    private AtomicInteger maxActiveRequests;
+    private HttpTransport transport;
+
+    @Before
+    public void setUp() throws Exception {
+        activeRequests = new AtomicInteger(0);
+        maxActiveRequests = new AtomicInteger(0);
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/test", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                final int active = activeRequests.incrementAndGet();
+                synchronized (maxActiveRequests) {
+                    if (active > maxActiveRequests.get()) {
+                        maxActiveRequests.set(active);
+                    }
+                }
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                final byte[] body = "ok".getBytes();
+                exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK,
+                                             body.length);
+                final OutputStream out = exchange.getResponseBody();
+                out.write(body);
+                out.close();
+                activeRequests.decrementAndGet();
+            }
+        });
+        server.setExecutor(Executors.newFixedThreadPool(8));
+        server.start();
+
+        url = "http://localhost:" + server.getAddress().getPort() + "/test";
+        transport = new HttpTransport(2, 4, 5000, 5000);
+    }
+
+    @After
+    public void tearDown() {
+        transport.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    public void testConnectionReuse() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals("invalid response for request " + i,
+                                "ok", get());
+        }
+        Assert.assertEquals("sequential requests should reuse one connection",
+                            1, transport.getConnectionsInPool());
+    }
+
+    @Test
+    public void testConnectionsPerHostLimit() throws Exception {
+        final ExecutorService executorService = Executors.newFixedThreadPool(6);
+        try {
+            final List<Future<String>> futures = new ArrayList<Future<String>>();
+            for (int i = 0; i < 6; i++) {
+                futures.add(executorService.submit(new Callable<String>() {
+                    public String call() throws Exception {
+                        return get();
+                    }
+                }));
+            }
+            for (Future<String> future : futures) {
+                Assert.assertEquals("invalid response", "ok", future.get());
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        Assert.assertTrue("too many concurrent requests (" +
+                          maxActiveRequests.get() + ")",
+                          maxActiveRequests.get() <= 2);
+        Assert.assertTrue("too many pooled connections (" +
+                          transport.getConnectionsInPool() + ")",
+                          transport.getConnectionsInPool() <= 2);
+
+        transport.configure(3, 4, 5000, 5000);
+        Assert.assertEquals("limit should be changed",
+                            3, transport.getMaxConnectionsPerHost());
+    }
+
+    @Test
+    public void testResetConnectionIsRetried() throws Exception {
+        final ServerSocket serverSocket = new ServerSocket(0);
+        final AtomicInteger connectionCount = new AtomicInteger(0);
+        final Thread serverThread = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    for (int i = 0; i < 2; i++) {
+                        final Socket socket = serverSocket.accept();
+                        connectionCount.incrementAndGet();
+                        readRequest(socket);
+                        if (i == 0) {
+                            // reset the connection after the request is sent
+                            socket.setSoLinger(true, 0);
+                        } else {
+                            socket.getOutputStream().write(
+                                    ("HTTP/1.1 200 OK\r\n" +
+                                     "Content-Length: 2\r\n" +
+                                     "Connection: close\r\n\r\nok")
+                                            .getBytes("US-ASCII"));
+                        }
+                        socket.close();
+                    }
+                } catch (IOException e) {
+                    // test will fail
+                }
+            }
+        };
+        serverThread.setDaemon(true);
+        serverThread.start();
+
+        try {
+            url = "http://localhost:" + serverSocket.getLocalPort() + "/reset";
+            Assert.assertEquals("invalid response after reset",
+                                "ok", get());
+            Assert.assertEquals("request should be sent on a new connection",
+                                2, connectionCount.get());
+        } finally {
+            serverSocket.close();
+        }
+    }
+
+    private static void readRequest(Socket socket) throws IOException {
+        final BufferedReader in = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), "US-ASCII"));
+        String line = in.readLine();
+        while ((line != null) && (line.length() > 0)) {
+            line = in.readLine();
+        }
+    }
+
+    private String get() throws IOException {
+        final GetMethod method = new GetMethod(url);
+        try {
+            final int responseCode = transport.getClient().executeMethod(method);
+            Assert.assertEquals("invalid response code",
+                                HttpURLConnection.HTTP_OK, responseCode);
+            return method.getResponseBodyAsString();
+        } finally {
+            method.releaseConnection();
+        }
+    }
+}
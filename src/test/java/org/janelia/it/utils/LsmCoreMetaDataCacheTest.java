@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package org.janelia.it.utils;
+
+import loci.formats.CoreMetadata;
+import loci.formats.FormatException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.file.Files;
+
+/**
+ * Tests the {@link LsmCoreMetaDataCache} class.
+ *
+ * @author agent
+ */
+public class LsmCoreMetaDataCacheTest {
+
+    private File testDirectory;
+    private File storeDirectory;
+    private File lsmFile;
+
+    @Before
+    public void setUp() throws Exception {
+        testDirectory = new File("lsm-cache-test-" + System.currentTimeMillis());
+        storeDirectory = new File(testDirectory, "store");
+        if (! testDirectory.mkdirs()) {
+            throw new IllegalStateException("failed to create " +
+                                            testDirectory.getAbsolutePath());
+        }
+        lsmFile = new File(testDirectory, "a.lsm");
+        writeFile(lsmFile, "version 1");
+    }
+
+    @After
+    public void tearDown() {
+        deleteTree(testDirectory);
+    }
+
+    @Test
+    public void testPersistentStore() throws Exception {
+
+        final CountingCache firstSessionCache = new CountingCache(10);
+        Assert.assertEquals("invalid value from parsed file",
+                            "version 1",
+                            firstSessionCache.getValue(lsmFile, "Version"));
+        Assert.assertEquals("invalid integer value from parsed file",
+                            512,
+                            firstSessionCache.getValue(lsmFile, "DimensionX"));
+        Assert.assertEquals("file should only be parsed once",
+                            1, firstSessionCache.parseCount);
+
+        final CountingCache secondSessionCache = new CountingCache(10);
+        Assert.assertEquals("invalid value from store",
+                            "version 1",
+                            secondSessionCache.getValue(lsmFile, "Version"));
+        Assert.assertEquals("invalid integer value from store",
+                            512,
+                            secondSessionCache.getValue(lsmFile, "DimensionX"));
+        Assert.assertEquals("invalid double value from store",
+                            0.25,
+                            secondSessionCache.getValue(lsmFile, "VoxelSizeX"));
+        Assert.assertEquals("stored file should not be parsed",
+                            0, secondSessionCache.parseCount);
+
+        // change the file so that cached data is stale
+        writeFile(lsmFile, "version 2 is longer");
+
+        Assert.assertEquals("invalid value after file change",
+                            "version 2 is longer",
+                            secondSessionCache.getValue(lsmFile, "Version"));
+        Assert.assertEquals("changed file should be parsed",
+                            1, secondSessionCache.parseCount);
+
+        final CountingCache thirdSessionCache = new CountingCache(10);
+        Assert.assertEquals("invalid value from updated store",
+                            "version 2 is longer",
+                            thirdSessionCache.getValue(lsmFile, "Version"));
+        Assert.assertEquals("updated stored file should not be parsed",
+                            0, thirdSessionCache.parseCount);
+    }
+
+    @Test
+    public void testMemoryBound() throws Exception {
+        final CountingCache cache = new CountingCache(2);
+        for (int i = 0; i < 5; i++) {
+            final File file = new File(testDirectory, i + ".lsm");
+            writeFile(file, "file " + i);
+            cache.getValue(file, "Version");
+        }
+        Assert.assertEquals("invalid memory entry count",
+                            2, cache.getMemoryEntryCount());
+    }
+
+    @Test
+    public void testConcurrentRequestsParseOnce() throws Exception {
+        final CountingCache cache = new CountingCache(10);
+        cache.parseDelay = 200;
+
+        final Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    cache.getValue(lsmFile, "Version");
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals("file should only be parsed once",
+                            1, cache.parseCount);
+        Assert.assertTrue("file should be cached", cache.isCached(lsmFile));
+    }
+
+    @Test
+    public void testFailedLoadIsNotCached() throws Exception {
+        final CountingCache cache = new CountingCache(10);
+        cache.failureCount = 1;
+
+        Assert.assertNull("failed load should return empty data",
+                          cache.getValue(lsmFile, "Version"));
+        Assert.assertFalse("failed load should not be cached",
+                           cache.isCached(lsmFile));
+
+        Assert.assertEquals("file should be parsed again after failure",
+                            "version 1",
+                            cache.getValue(lsmFile, "Version"));
+        Assert.assertEquals("invalid parse count",
+                            2, cache.parseCount);
+        Assert.assertTrue("file should be cached", cache.isCached(lsmFile));
+    }
+
+    @Test
+    public void testParseFailureIsCached() throws Exception {
+        final CountingCache cache = new CountingCache(10);
+        cache.failure = new FormatException("corrupt file");
+        cache.failureCount = 1;
+
+        Assert.assertNull("failed parse should return empty data",
+                          cache.getValue(lsmFile, "Version"));
+        Assert.assertNull("failed parse should return empty data again",
+                          cache.getValue(lsmFile, "DimensionX"));
+        Assert.assertEquals("corrupt file should only be parsed once",
+                            1, cache.parseCount);
+        Assert.assertTrue("failed parse should be cached",
+                          cache.isCached(lsmFile));
+
+        final CountingCache secondSessionCache = new CountingCache(10);
+        Assert.assertEquals("failed parse should not be stored",
+                            "version 1",
+                            secondSessionCache.getValue(lsmFile, "Version"));
+
+        // change the file so that the cached failure is stale
+        writeFile(lsmFile, "version 2 is longer");
+
+        Assert.assertEquals("changed file should be parsed again",
+                            "version 2 is longer",
+                            cache.getValue(lsmFile, "Version"));
+        Assert.assertEquals("invalid parse count",
+                            2, cache.parseCount);
+    }
+
+    @Test
+    public void testUpdateFileAttributes() throws Exception {
+        final CountingCache cache = new CountingCache(10);
+        cache.getValue(lsmFile, "Version");
+
+        final long length = lsmFile.length();
+        final long lastModified = lsmFile.lastModified();
+        appendToFile(lsmFile, " tagged");
+        Assert.assertTrue("failed to change last modified time",
+                          lsmFile.setLastModified(lastModified + 2000));
+
+        cache.updateFileAttributes(lsmFile, length, lastModified);
+
+        Assert.assertTrue("tagged file should be cached",
+                          cache.isCached(lsmFile));
+        Assert.assertEquals("invalid value for tagged file",
+                            "version 1",
+                            cache.getValue(lsmFile, "Version"));
+        Assert.assertEquals("tagged file should not be parsed",
+                            1, cache.parseCount);
+
+        final CountingCache secondSessionCache = new CountingCache(10);
+        Assert.assertEquals("invalid stored value for tagged file",
+                            "version 1",
+                            secondSessionCache.getValue(lsmFile, "Version"));
+        Assert.assertEquals("stored tagged file should not be parsed",
+                            0, secondSessionCache.parseCount);
+
+        final File copyFile = new File(testDirectory, "renamed.lsm");
+        Files.copy(lsmFile.toPath(), copyFile.toPath());
+        cache.getCopyCoreMetadata(copyFile, lsmFile);
+        Assert.assertEquals("copy of tagged file should not be parsed",
+                            1, cache.parseCount);
+    }
+
+    @Test
+    public void testUpdateFileAttributesIgnoresStaleEntry() throws Exception {
+        final CountingCache cache = new CountingCache(10);
+        cache.getValue(lsmFile, "Version");
+
+        writeFile(lsmFile, "version 2 is longer");
+        cache.updateFileAttributes(lsmFile, 1, 1);
+
+        Assert.assertFalse("stale entry should not be updated",
+                           cache.isCached(lsmFile));
+    }
+
+    @Test
+    public void testCopyCoreMetadata() throws Exception {
+        final CountingCache cache = new CountingCache(10);
+        cache.getValue(lsmFile, "Version");
+
+        final File copyFile = new File(testDirectory, "renamed.lsm");
+        Files.copy(lsmFile.toPath(), copyFile.toPath());
+
+        final CoreMetadata copyData =
+                cache.getCopyCoreMetadata(copyFile, lsmFile);
+        Assert.assertEquals("invalid value for copy",
+                            "version 1",
+                            copyData.seriesMetadata.get("Version"));
+        Assert.assertEquals("copy should not be parsed",
+                            1, cache.parseCount);
+        Assert.assertTrue("copy should be cached", cache.isCached(copyFile));
+    }
+
+    private class CountingCache extends LsmCoreMetaDataCache {
+
+        private int parseCount;
+        private long parseDelay;
+        private int failureCount;
+        private Exception failure;
+
+        private CountingCache(int maxMemoryEntries) {
+            super(storeDirectory, maxMemoryEntries);
+            this.parseCount = 0;
+            this.parseDelay = 0;
+            this.failureCount = 0;
+            // same failure as a parse interrupted by a cancel
+            this.failure = new ClosedByInterruptException();
+        }
+
+        @Override
+        protected CoreMetadata readCoreMetadata(File file)
+                throws Exception {
+            synchronized (this) {
+                parseCount++;
+                if (failureCount > 0) {
+                    failureCount--;
+                    throw failure;
+                }
+            }
+            if (parseDelay > 0) {
+                Thread.sleep(parseDelay);
+            }
+            final CoreMetadata data = new CoreMetadata();
+            final byte[] bytes = Files.readAllBytes(file.toPath());
+            data.seriesMetadata.put("Version", new String(bytes, "UTF-8"));
+            data.seriesMetadata.put("DimensionX", 512);
+            data.seriesMetadata.put("VoxelSizeX", 0.25);
+            return data;
+        }
+    }
+
+    private static void writeFile(File file,
+                                  String content)
+            throws IOException {
+        final FileWriter writer = new FileWriter(file);
+        try {
+            writer.write(content);
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static void appendToFile(File file,
+                                     String content)
+            throws IOException {
+        final FileWriter writer = new FileWriter(file, true);
+        try {
+            writer.write(content);
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static void deleteTree(File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteTree(child);
+            }
+        }
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package org.janelia.it.utils;
+
+import loci.common.RandomAccessInputStream;
+import loci.formats.tiff.IFD;
+import loci.formats.tiff.IFDType;
+import loci.formats.tiff.TiffIFDEntry;
+import loci.formats.tiff.TiffParser;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Tests the {@link TiffTagWriter} class.
+ *
+ * @author agent
+ */
+public class TiffTagWriterTest {
+
+    private File testFile;
+
+    @Before
+    public void setUp() throws Exception {
+        testFile = new File("tag-writer-test-" +
+                            System.currentTimeMillis() + ".tif");
+        final FileOutputStream out = new FileOutputStream(testFile);
+        try {
+            out.write(buildTiff());
+        } finally {
+            out.close();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        if ((testFile != null) && testFile.exists()) {
+            //noinspection ResultOfMethodCallIgnored
+            testFile.delete();
+        }
+    }
+
+    @Test
+    public void testWrite() throws Exception {
+        final TiffTagWriter writer = new TiffTagWriter(TAG, 100);
+
+        Assert.assertEquals("invalid update for new tag",
+                            TiffTagWriter.Update.added,
+                            writer.write(testFile, "<a>first</a>"));
+        assertTagValue("<a>first</a>");
+        final long lengthAfterAdd = testFile.length();
+
+        Assert.assertEquals("invalid update for value that fits",
+                            TiffTagWriter.Update.overwritten,
+                            writer.write(testFile, "<a>2</a>"));
+        assertTagValue("<a>2</a>");
+        Assert.assertEquals("overwrite should not change file length",
+                            lengthAfterAdd, testFile.length());
+
+        final StringBuilder longValue = new StringBuilder("<a>");
+        for (int i = 0; i < 600; i++) {
+            longValue.append('x');
+        }
+        longValue.append("</a>");
+
+        Assert.assertEquals("invalid update for value that does not fit",
+                            TiffTagWriter.Update.relocated,
+                            writer.write(testFile, longValue.toString()));
+        assertTagValue(longValue.toString());
+    }
+
+    private void assertTagValue(String expectedValue) throws Exception {
+        final TiffParser parser =
+                new TiffParser(new RandomAccessInputStream(
+                        testFile.getAbsolutePath()));
+        try {
+            Assert.assertEquals("other IFDs should still be reachable",
+                                2, parser.getIFDCount());
+
+            final Number width =
+                    (Number) parser.getFirstIFD().get(IFD.IMAGE_WIDTH);
+            Assert.assertEquals("existing entry should be preserved",
+                                64, width.intValue());
+
+            final TiffIFDEntry entry = parser.getFirstIFDEntry(TAG);
+            Assert.assertEquals("invalid tag value",
+                                expectedValue,
+                                TiffTagWriter.trimPadding(
+                                        String.valueOf(
+                                                parser.getIFDValue(entry))));
+        } finally {
+            parser.getStream().close();
+        }
+    }
+
+    /**
+     * @return bytes for a big endian TIFF with two IFDs that each have
+     *         entries for tags that sort before and after {@link #TAG}.
+     */
+    private static byte[] buildTiff() {
+        final ByteBuffer buffer = ByteBuffer.allocate(72);
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        buffer.put((byte) 'M');
+        buffer.put((byte) 'M');
+        buffer.putShort((short) 42);
+        buffer.putInt(8);
+        for (int ifdOffset = 8; ifdOffset < 72; ifdOffset += 32) {
+            buffer.putShort((short) 2);
+            buffer.putShort((short) IFD.IMAGE_WIDTH);
+            buffer.putShort((short) IFDType.SHORT.getCode());
+            buffer.putInt(1);
+            buffer.putShort((short) 64);
+            buffer.putShort((short) 0);
+            buffer.putShort((short) (TAG + 1));
+            buffer.putShort((short) IFDType.LONG.getCode());
+            buffer.putInt(1);
+            buffer.putInt(7);
+            buffer.putInt(ifdOffset == 8 ? 40 : 0);
+            buffer.putShort((short) 0); // pad to next word
+        }
+        return buffer.array();
+    }
+
+    private static final int TAG = 36036;
+}
@@ -191,7 +191,7 @@ public class CopyProfiler {
 
         DigestBytes digestBytes = null;
         if (digest != null) {
-            digestBytes = new DigestBytes(digest.digest());
+            digestBytes = new DigestBytes(digestAlgorithm, digest.digest());
         }
 
         return digestBytes;
@@ -223,7 +223,7 @@ public class CopyProfiler {
             }
             inStream.close();
 
-            validationDigestBytes = new DigestBytes(digest.digest());
+            validationDigestBytes = new DigestBytes(digestAlgorithm, digest.digest());
         }
 
         logTime("finish validation read");
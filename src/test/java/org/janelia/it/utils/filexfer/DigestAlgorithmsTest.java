@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package org.janelia.it.utils.filexfer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.security.MessageDigest;
+import java.util.Random;
+import java.util.zip.Checksum;
+
+/**
+ * Tests the {@link DigestAlgorithms} class and the custom digests it
+ * supports.
+ *
+ * @author agent
+ */
+public class DigestAlgorithmsTest {
+
+    @Test
+    public void testCrc32c() throws Exception {
+        final byte[] checkBytes = "123456789".getBytes("US-ASCII");
+        final long expectedValue = 0xE3069283L;
+
+        final Checksum tableChecksum = new Crc32cMessageDigest.TableCrc32c();
+        tableChecksum.update(checkBytes, 0, checkBytes.length);
+        Assert.assertEquals("invalid table checksum value",
+                            expectedValue, tableChecksum.getValue());
+
+        final MessageDigest digest =
+                DigestAlgorithms.getMessageDigest(DigestAlgorithms.CRC32C);
+        digest.update(checkBytes);
+        final byte[] expectedBytes = {
+                (byte) 0x83, (byte) 0x92, (byte) 0x06, (byte) 0xE3
+        };
+        Assert.assertArrayEquals("invalid digest value (accelerated=" +
+                                 Crc32cMessageDigest.isAccelerated() + ")",
+                                 expectedBytes, digest.digest());
+    }
+
+    @Test
+    public void testTreeDigest() throws Exception {
+        final int chunkSize = 1024;
+        final byte[] data = new byte[(chunkSize * 5) + 17];
+        new Random(42).nextBytes(data);
+
+        final MessageDigest treeDigest =
+                new TreeMessageDigest("test-tree", DigestAlgorithms.MD5,
+                                      chunkSize);
+        treeDigest.update(data);
+        final byte[] expected = treeDigest.digest();
+
+        // update with odd sized pieces to prove result is independent
+        // of how data is passed to the digest
+        int offset = 0;
+        int length;
+        while (offset < data.length) {
+            length = Math.min(333, data.length - offset);
+            treeDigest.update(data, offset, length);
+            offset += length;
+        }
+        Assert.assertArrayEquals("digest should not depend on update sizes",
+                                 expected, treeDigest.digest());
+
+        // calculate expected value explicitly
+        final MessageDigest md5 = MessageDigest.getInstance("md5");
+        final MessageDigest root = MessageDigest.getInstance("md5");
+        for (offset = 0; offset < data.length; offset += chunkSize) {
+            md5.update(data, offset, Math.min(chunkSize, data.length - offset));
+            root.update(md5.digest());
+        }
+        Assert.assertArrayEquals("invalid tree digest",
+                                 root.digest(), expected);
+    }
+
+    @Test
+    public void testDigestBytesAlgorithm() throws Exception {
+        final byte[] value = { 1, 2, 3 };
+        final DigestBytes unknown = new DigestBytes(value);
+        final DigestBytes md5 = new DigestBytes(DigestAlgorithms.MD5, value);
+        final DigestBytes tree = new DigestBytes(DigestAlgorithms.MD5_TREE,
+                                                 value);
+
+        Assert.assertFalse("unknown algorithm should not match md5",
+                           unknown.equals(md5));
+        Assert.assertFalse("unknown algorithm should not match tree",
+                           unknown.equals(tree));
+        Assert.assertEquals("unknown algorithms should match",
+                            unknown, new DigestBytes(value));
+        Assert.assertEquals("algorithm name case should be ignored",
+                            md5, new DigestBytes("MD5", value));
+        Assert.assertFalse("different algorithms should not match",
+                           md5.equals(tree));
+    }
+}
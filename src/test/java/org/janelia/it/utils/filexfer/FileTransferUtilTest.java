@@ -15,7 +15,11 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.text.SimpleDateFormat;
@@ -102,7 +106,8 @@ public class FileTransferUtilTest {
                 SafeFileTransfer.recursiveHashValidationHelper(sourceFile,
                                                                validDigest,
                                                                1);
-                validDigestBytes = new DigestBytes(validDigest.digest());
+                validDigestBytes = new DigestBytes(algorithm,
+                                                   validDigest.digest());
                 Assert.assertEquals("invalid " + algorithm + " digest returned",
                                     validDigestBytes, digestBytes);
 
@@ -155,6 +160,159 @@ public class FileTransferUtilTest {
                             copyDigestBytes, actualDigestBytes);
     }
 
+    @Test
+    public void testPipelinedCopy() throws Exception {
+        util = new FileTransferUtil(FileTransferUtil.MIN_BUFFER_SIZE,
+                                    DigestAlgorithms.MD5);
+        final DigestBytes bufferedDigestBytes =
+                util.calculateDigest(sourceFile);
+
+        util.setCopyMode(FileTransferUtil.CopyMode.pipelined);
+        DigestBytes copyDigestBytes = util.copy(sourceFile, targetFile);
+        Assert.assertEquals("pipelined copy digest does not match",
+                            bufferedDigestBytes, copyDigestBytes);
+        Assert.assertEquals("pipelined copy has invalid length",
+                            sourceFile.length(), targetFile.length());
+
+        // copy again to prove buffer ring can be reused
+        copyDigestBytes = util.copy(sourceFile, nestedTargetFile);
+        Assert.assertEquals("after reuse, pipelined copy digest does not match",
+                            bufferedDigestBytes, copyDigestBytes);
+        Assert.assertEquals("after reuse, target digest does not match",
+                            bufferedDigestBytes,
+                            util.calculateDigest(nestedTargetFile));
+    }
+
+    @Test
+    public void testMappedCopy() throws Exception {
+        util = new FileTransferUtil(FileTransferUtil.MIN_BUFFER_SIZE,
+                                    DigestAlgorithms.SHA1);
+        final DigestBytes bufferedDigestBytes =
+                util.calculateDigest(sourceFile);
+
+        util.setCopyMode(FileTransferUtil.CopyMode.mapped);
+        final DigestBytes copyDigestBytes = util.copy(sourceFile, targetFile);
+        Assert.assertEquals("mapped copy digest does not match",
+                            bufferedDigestBytes, copyDigestBytes);
+        Assert.assertEquals("mapped copy target digest does not match",
+                            bufferedDigestBytes,
+                            util.calculateDigest(targetFile));
+
+        // verify fallback digest calculation
+        final MessageDigest digest =
+                DigestAlgorithms.getMessageDigest(DigestAlgorithms.SHA1);
+        final RandomAccessFile raf = new RandomAccessFile(sourceFile, "r");
+        try {
+            final MappedCopier copier =
+                    new MappedCopier(FileTransferUtil.MIN_BUFFER_SIZE);
+            copier.updateDigestWithReads(raf.getChannel(), 0, raf.length(),
+                                         digest);
+        } finally {
+            raf.close();
+        }
+        Assert.assertEquals("fallback digest does not match",
+                            bufferedDigestBytes,
+                            new DigestBytes(DigestAlgorithms.SHA1,
+                                            digest.digest()));
+
+        // verify copy without source mapping (used on Windows)
+        final MappedCopier unmappedCopier =
+                new MappedCopier(FileTransferUtil.MIN_BUFFER_SIZE, false);
+        final FileInputStream in = new FileInputStream(sourceFile);
+        final FileOutputStream out = new FileOutputStream(targetFile);
+        try {
+            unmappedCopier.copy(in.getChannel(), out.getChannel(), digest);
+        } finally {
+            in.close();
+            out.close();
+        }
+        Assert.assertEquals("unmapped copy digest does not match",
+                            bufferedDigestBytes,
+                            new DigestBytes(DigestAlgorithms.SHA1,
+                                            digest.digest()));
+        Assert.assertEquals("unmapped copy target digest does not match",
+                            bufferedDigestBytes,
+                            util.calculateDigest(targetFile));
+    }
+
+    @Test
+    public void testResumableCopy() throws Exception {
+        util = new FileTransferUtil(bufferSize, DigestAlgorithms.MD5);
+        final DigestBytes bufferedDigestBytes =
+                util.calculateDigest(sourceFile);
+
+        util.setResumable(true);
+        util.copyAndValidate(sourceFile, targetFile, true);
+        Assert.assertEquals("invalid copy operation",
+                            "resumable copy", util.getStats().getOperation());
+        Assert.assertEquals("resumable copy target digest does not match",
+                            bufferedDigestBytes,
+                            util.calculateDigest(targetFile));
+        Assert.assertFalse("partial file not removed",
+                           ResumableCopier.getPartialFile(targetFile).exists());
+        Assert.assertFalse("journal file not removed",
+                           ResumableCopier.getJournalFile(targetFile).exists());
+    }
+
+    @Test
+    public void testResumableCopyResumesPartialCopy() throws Exception {
+        final int chunkSize = 256;
+        final ResumableCopier copier =
+                new ResumableCopier(FileTransferUtil.MIN_BUFFER_SIZE,
+                                    DigestAlgorithms.MD5,
+                                    chunkSize);
+
+        // simulate an interrupted copy: two journaled chunks
+        // followed by some unjournaled (garbage) data
+        final byte[] sourceBytes = Files.readAllBytes(sourceFile.toPath());
+        Assert.assertTrue("source file is too small for test",
+                          sourceBytes.length > (3 * chunkSize));
+        final File partialFile = ResumableCopier.getPartialFile(targetFile);
+        final File journalFile = ResumableCopier.getJournalFile(targetFile);
+        final byte[] partialBytes = new byte[(2 * chunkSize) + 100];
+        System.arraycopy(sourceBytes, 0, partialBytes, 0, 2 * chunkSize);
+        Files.write(partialFile.toPath(), partialBytes);
+
+        final MessageDigest digest =
+                DigestAlgorithms.getMessageDigest(DigestAlgorithms.MD5);
+        final StringBuilder journal = new StringBuilder();
+        journal.append(copier.getJournalHeader(sourceFile)).append('\n');
+        for (int i = 0; i < 2; i++) {
+            digest.update(sourceBytes, i * chunkSize, chunkSize);
+            journal.append(ResumableCopier.toHex(digest.digest())).append('\n');
+        }
+        Files.write(journalFile.toPath(),
+                    journal.toString().getBytes("UTF-8"));
+
+        try {
+            final DigestBytes copyDigestBytes =
+                    copier.copy(sourceFile, targetFile);
+
+            Assert.assertEquals("invalid resume offset",
+                                2 * chunkSize, copier.getResumeOffset());
+            Assert.assertEquals("invalid bytes copied",
+                                sourceBytes.length - (2 * chunkSize),
+                                copier.getBytesCopied());
+            Assert.assertArrayEquals("resumed copy does not match source",
+                                     sourceBytes,
+                                     Files.readAllBytes(targetFile.toPath()));
+            Assert.assertEquals("resumed copy digest does not match",
+                                new FileTransferUtil(bufferSize,
+                                                     DigestAlgorithms.MD5)
+                                        .calculateDigest(sourceFile),
+                                copyDigestBytes);
+            Assert.assertFalse("partial file not removed",
+                               partialFile.exists());
+            Assert.assertFalse("journal file not removed",
+                               journalFile.exists());
+        } finally {
+            //noinspection ResultOfMethodCallIgnored
+            partialFile.delete();
+            //noinspection ResultOfMethodCallIgnored
+            journalFile.delete();
+        }
+    }
+
     @Test
     public void testCopyAndValidateWithoutValidate() throws Exception {
         util.copyAndValidate(sourceFile, targetFile, false);
@@ -169,6 +327,31 @@ public class FileTransferUtilTest {
         util.copyAndValidate(sourceFile, targetFile, true);
     }
 
+    @Test
+    public void testCopyAndValidateWithSampledBlocks() throws Exception {
+        util = new FileTransferUtil(bufferSize, DigestAlgorithms.MD5);
+        util.setValidationMode(FileTransferUtil.ValidationMode.sampled, 3);
+        util.copyAndValidate(sourceFile, targetFile, true);
+
+        final FileTransferStats stats = util.getStats();
+        Assert.assertEquals("invalid validation operation",
+                            "sampled validation", stats.getOperation());
+        Assert.assertEquals("small file should be completely sampled",
+                            sourceFile.length(), stats.getBytesProcessed());
+    }
+
+    @Test
+    public void testCopyAndValidateWithSync() throws Exception {
+        util = new FileTransferUtil(bufferSize, DigestAlgorithms.NONE);
+        util.setValidationMode(FileTransferUtil.ValidationMode.sync, 0);
+        util.copyAndValidate(sourceFile, targetFile, true);
+
+        Assert.assertEquals("invalid validation operation",
+                            "sync validation", util.getStats().getOperation());
+        Assert.assertEquals("copy has invalid length",
+                            sourceFile.length(), targetFile.length());
+    }
+
     @Test
     public void testCalculateDigestRetries() throws Exception {
         // create file during retry attempts to exercise
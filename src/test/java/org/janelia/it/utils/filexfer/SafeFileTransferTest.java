@@ -16,9 +16,13 @@ import org.junit.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.security.MessageDigest;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 
 /**
  * Tests the {@link SafeFileTransfer} class.
@@ -91,6 +95,87 @@ public class SafeFileTransferTest {
 
     }
 
+    @Test
+    public void testDirectoryCopy() throws Exception {
+        final File sourceDirectory = new File(".", targetFile.getName() + "-src");
+        final File nestedDirectory = new File(sourceDirectory, "nested");
+        final File emptyDirectory = new File(sourceDirectory, "empty");
+        final File targetDirectory = new File(".", targetFile.getName() + "-dir");
+        try {
+            Assert.assertTrue("failed to create " + nestedDirectory,
+                              nestedDirectory.mkdirs());
+            Assert.assertTrue("failed to create " + emptyDirectory,
+                              emptyDirectory.mkdirs());
+            final String[] relativePaths = {
+                    "a.txt", "b.txt", "nested/c.txt", "nested/d.txt"
+            };
+            for (int i = 0; i < relativePaths.length; i++) {
+                final byte[] bytes = new byte[1000 * (i + 1)];
+                Arrays.fill(bytes, (byte) i);
+                Files.write(new File(sourceDirectory,
+                                     relativePaths[i]).toPath(), bytes);
+            }
+
+            SafeFileTransfer.copy(sourceDirectory, targetDirectory, false,
+                                  null, 1);
+
+            for (String relativePath : relativePaths) {
+                Assert.assertEquals(relativePath + " digests do not match",
+                                    validationUtil.calculateDigest(
+                                            new File(sourceDirectory,
+                                                     relativePath)),
+                                    validationUtil.calculateDigest(
+                                            new File(targetDirectory,
+                                                     relativePath)));
+            }
+            Assert.assertTrue("empty directory not copied",
+                              new File(targetDirectory, "empty").isDirectory());
+
+            // tree digest should not depend upon copy order
+            final ParallelDirectoryCopier copier =
+                    new ParallelDirectoryCopier(SafeFileTransfer.DIGEST_ALGORITHM,
+                                                SafeFileTransfer.BUFFER_SIZE,
+                                                2);
+            final File secondTargetDirectory =
+                    new File(".", targetFile.getName() + "-dir2");
+            try {
+                final byte[] treeDigest =
+                        copier.copy(sourceDirectory.toPath(),
+                                    secondTargetDirectory.toPath());
+                Assert.assertEquals("invalid file count",
+                                    relativePaths.length,
+                                    copier.getFileCount());
+
+                final List<ParallelDirectoryCopier.FileDigest> fileDigests =
+                        new ArrayList<ParallelDirectoryCopier.FileDigest>();
+                for (int i = relativePaths.length - 1; i >= 0; i--) {
+                    fileDigests.add(new ParallelDirectoryCopier.FileDigest(
+                            relativePaths[i],
+                            0,
+                            SafeFileTransfer.getDigest(
+                                    new File(sourceDirectory,
+                                             relativePaths[i]))));
+                }
+                Assert.assertArrayEquals("tree digest does not match",
+                                         copier.getTreeDigest(fileDigests),
+                                         treeDigest);
+            } finally {
+                deleteTree(secondTargetDirectory);
+            }
+
+            try {
+                SafeFileTransfer.copy(sourceDirectory, targetDirectory, false);
+                Assert.fail("copy to existing directory should have caused exception");
+            } catch (FileCopyFailedException e) {
+                LOG.info("test passed: expected exception thrown for existing directory", e);
+            }
+
+        } finally {
+            deleteTree(sourceDirectory);
+            deleteTree(targetDirectory);
+        }
+    }
+
     @Test
     public void testCalculateDigestRetries() throws Exception {
         // create file during retry attempts to exercise
@@ -105,7 +190,9 @@ public class SafeFileTransferTest {
         SafeFileTransfer.recursiveHashValidationHelper(targetFile,
                                                        digest,
                                                        1);
-        final DigestBytes helperDigestBytes = new DigestBytes(digest.digest());
+        final DigestBytes helperDigestBytes =
+                new DigestBytes(SafeFileTransfer.DIGEST_ALGORITHM,
+                                digest.digest());
 
         final DigestBytes targetDigestBytes =
                 validationUtil.calculateDigest(targetFile);
@@ -114,6 +201,17 @@ public class SafeFileTransferTest {
                             targetDigestBytes, helperDigestBytes);
     }
 
+    private static void deleteTree(File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteTree(child);
+            }
+        }
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+
     private static final SimpleDateFormat SDF =
             new SimpleDateFormat("'transfer-test-'yyyyMMddHHmmssSSS");
 
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2026 Howard Hughes Medical Institute.
+ * All rights reserved.
+ * Use is subject to Janelia Farm Research Campus Software Copyright 1.1
+ * license terms (http://license.janelia.org/license/jfrc_copyright_1_1.html).
+ */
+
+package org.janelia.it.utils.filexfer;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Tests the {@link TransferMetrics} and {@link TransferHistogram} classes.
+ *
+ * @author agent
+ */
+public class TransferMetricsTest {
+
+    private File targetFile;
+
+    @After
+    public void tearDown() {
+        if ((targetFile != null) && targetFile.exists()) {
+            //noinspection ResultOfMethodCallIgnored
+            targetFile.delete();
+        }
+    }
+
+    @Test
+    public void testBucketBoundaries() throws Exception {
+        final long[] values = {
+                0, 1, 127, 128, 129, 255, 256, 1000, 123456789L,
+                Long.MAX_VALUE
+        };
+        int index;
+        for (long value : values) {
+            index = TransferHistogram.getBucketIndex(value);
+            Assert.assertTrue("lowest value for bucket " + index +
+                              " is greater than " + value,
+                              TransferHistogram.getLowestValue(index) <= value);
+            Assert.assertTrue("highest value for bucket " + index +
+                              " is less than " + value,
+                              TransferHistogram.getHighestValue(index) >= value);
+        }
+
+        Assert.assertEquals("values less than 128 should be exact",
+                            127, TransferHistogram.getBucketIndex(127));
+        Assert.assertEquals("invalid index for first log bucket",
+                            128, TransferHistogram.getBucketIndex(128));
+        Assert.assertEquals("invalid index for second log bucket value",
+                            128, TransferHistogram.getBucketIndex(129));
+    }
+
+    @Test
+    public void testPercentiles() throws Exception {
+        final TransferHistogram histogram = new TransferHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+
+        Assert.assertEquals("invalid count", 1000, histogram.getTotalCount());
+        Assert.assertEquals("invalid min", 1, histogram.getMin());
+        Assert.assertEquals("invalid max", 1000, histogram.getMax());
+        Assert.assertEquals("invalid mean", 500.5, histogram.getMean(), 0.001);
+
+        assertWithinPrecision("p50", 500, histogram.getValueAtPercentile(50));
+        assertWithinPrecision("p99", 990, histogram.getValueAtPercentile(99));
+        Assert.assertEquals("invalid p100",
+                            1000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testRecordAndJson() throws Exception {
+        final TransferMetrics metrics = new TransferMetrics("testProject");
+        Assert.assertTrue("new metrics should be empty", metrics.isEmpty());
+
+        final File toFile = new File("a/b/c.txt");
+        final String destination =
+                toFile.getAbsoluteFile().getParentFile().getAbsolutePath();
+
+        metrics.recordCopy(toFile,
+                           new FileTransferStats("copy", 2000000, 1000));
+        metrics.recordCopy(toFile,
+                           new FileTransferStats("copy", 4000000, 1000));
+        metrics.recordValidation(toFile,
+                                 new FileTransferStats("full validation",
+                                                       2000000, 50));
+
+        Assert.assertFalse("metrics should not be empty", metrics.isEmpty());
+        Assert.assertEquals("invalid project copy count",
+                            2,
+                            metrics.getProjectHistogram(
+                                    TransferMetrics.COPY_MILLISECONDS).getTotalCount());
+        final TransferHistogram rateHistogram =
+                metrics.getDestinationHistogram(
+                        destination, TransferMetrics.BYTES_PER_SECOND);
+        Assert.assertNotNull("missing destination rate histogram",
+                             rateHistogram);
+        assertWithinPrecision("max rate", 4000000, rateHistogram.getMax());
+
+        final JsonObject json =
+                new JsonParser().parse(metrics.toJson()).getAsJsonObject();
+        Assert.assertEquals("invalid project",
+                            "testProject", json.get("project").getAsString());
+        final JsonObject validation =
+                json.getAsJsonObject("destinationMetrics")
+                        .getAsJsonObject(destination)
+                        .getAsJsonObject(TransferMetrics.VALIDATION_MILLISECONDS);
+        Assert.assertEquals("invalid validation count",
+                            1, validation.get("count").getAsLong());
+        Assert.assertEquals("invalid validation p50",
+                            50, validation.get("p50").getAsLong());
+    }
+
+    @Test
+    public void testFileTransferUtilMetrics() throws Exception {
+        targetFile = new File(SDF.format(new Date()) + ".test");
+
+        final TransferMetrics metrics = new TransferMetrics("testProject");
+        final FileTransferUtil util =
+                new FileTransferUtil(FileTransferUtil.MIN_BUFFER_SIZE,
+                                     DigestAlgorithms.MD5);
+        util.setMetrics(metrics);
+        util.copyAndValidate(new File("build.gradle"), targetFile, true);
+
+        for (String metric : new String[] {
+                TransferMetrics.COPY_MILLISECONDS,
+                TransferMetrics.VALIDATION_MILLISECONDS,
+                TransferMetrics.BYTES_PER_SECOND }) {
+            Assert.assertNotNull(metric + " not recorded",
+                                 metrics.getProjectHistogram(metric));
+            Assert.assertEquals(metric + " should be recorded once",
+                                1, getProjectCount(metrics, metric));
+        }
+        Assert.assertEquals("full validation should not also be recorded " +
+                            "as digest calculation",
+                            0, getProjectCount(
+                                    metrics, TransferMetrics.DIGEST_MILLISECONDS));
+
+        util.calculateDigest(targetFile);
+        Assert.assertEquals("standalone digest should be recorded",
+                            1, getProjectCount(
+                                    metrics, TransferMetrics.DIGEST_MILLISECONDS));
+        Assert.assertEquals("standalone digest should not be recorded " +
+                            "as validation",
+                            1, getProjectCount(
+                                    metrics, TransferMetrics.VALIDATION_MILLISECONDS));
+
+        //noinspection ResultOfMethodCallIgnored
+        targetFile.delete();
+        util.setValidationMode(FileTransferUtil.ValidationMode.sync, 0);
+        util.copyAndValidate(new File("build.gradle"), targetFile, true);
+        Assert.assertEquals("sync validation should be recorded once",
+                            2, getProjectCount(
+                                    metrics, TransferMetrics.VALIDATION_MILLISECONDS));
+        Assert.assertEquals("invalid copy count after sync validation",
+                            2, getProjectCount(
+                                    metrics, TransferMetrics.COPY_MILLISECONDS));
+    }
+
+    private static long getProjectCount(TransferMetrics metrics,
+                                        String metric) {
+        final TransferHistogram histogram = metrics.getProjectHistogram(metric);
+        return histogram == null ? 0 : histogram.getTotalCount();
+    }
+
+    private void assertWithinPrecision(String context,
+                                       long expected,
+                                       long actual) {
+        final double error = Math.abs(expected - actual) / (double) expected;
+        Assert.assertTrue(context + " value " + actual +
+                          " is not within 2% of " + expected,
+                          error < 0.02);
+    }
+
+    private static final SimpleDateFormat SDF =
+            new SimpleDateFormat("'metrics-test-'yyyyMMddHHmmssSSS");
+}